@@ -0,0 +1,80 @@
+package org.broadinstitute.hellbender.tools.walkers.genotyper;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.variant.variantcontext.Allele;
+import htsjdk.variant.variantcontext.GenotypeLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks {@link GenotypeLikelihoodCalculator#log10GenotypeLikelihoods} for a single sample, over random
+ * read-by-allele likelihoods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class GenotypeLikelihoodCalculatorBenchmark {
+
+    private static final String SAMPLE = "sample";
+
+    @Param({"2", "4"})
+    public int ploidy;
+
+    @Param({"2", "6"})
+    public int alleleCount;
+
+    @Param({"100", "1000"})
+    public int readCount;
+
+    private LikelihoodMatrix<GATKRead, Allele> likelihoods;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        final List<Allele> alleles = new ArrayList<>(alleleCount);
+        alleles.add(Allele.create("AAAA", true));
+        for (int a = 1; a < alleleCount; a++) {
+            alleles.add(Allele.create("A" + "C".repeat(a)));
+        }
+
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final List<GATKRead> reads = new ArrayList<>(readCount);
+        for (int r = 0; r < readCount; r++) {
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + r, 0, 1, 100));
+        }
+
+        likelihoods = new AlleleLikelihoods<>(new IndexedSampleList(SAMPLE), new IndexedAlleleList<>(alleles),
+                Collections.singletonMap(SAMPLE, reads)).sampleMatrix(0);
+        for (int a = 0; a < alleleCount; a++) {
+            for (int r = 0; r < readCount; r++) {
+                likelihoods.set(a, r, -10 * random.nextDouble());
+            }
+        }
+    }
+
+    @Benchmark
+    public GenotypeLikelihoods log10GenotypeLikelihoods() {
+        return GenotypeLikelihoodCalculator.log10GenotypeLikelihoods(ploidy, likelihoods);
+    }
+}
@@ -0,0 +1,75 @@
+package org.broadinstitute.hellbender.utils.locusiterator;
+
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Benchmarks a full pass of {@link LocusIteratorByState} over a synthetic, coordinate-sorted read stream produced
+ * by {@link ArtificialBAMBuilder}, consuming the pileup at every locus. Every locus is covered by about
+ * {@code readsPerLocus * readLength} reads, so the default parameters cover depths of 1000x and 10000x.
+ *
+ * Compare the regular and low-allocation ({@code recyclePileupStorage}) modes with the JMH GC profiler
+ * ({@code -prof gc}) to see the allocation rate per locus along with the throughput.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LocusIteratorByStateBenchmark {
+
+    @Param({"10", "100"})
+    public int readsPerLocus;
+
+    @Param({"1", "4"})
+    public int numberOfSamples;
+
+    @Param({"1000"})
+    public int numberOfLoci;
+
+    @Param({"101"})
+    public int readLength;
+
+    @Param({"false", "true"})
+    public boolean recyclePileupStorage;
+
+    private ArtificialBAMBuilder bamBuilder;
+    private List<GATKRead> reads;
+
+    @Setup
+    public void setup() {
+        bamBuilder = new ArtificialBAMBuilder(readsPerLocus, numberOfLoci)
+                .createAndSetHeader(numberOfSamples)
+                .setReadLength(readLength);
+        reads = bamBuilder.makeReads();
+    }
+
+    @Benchmark
+    public void traverseLoci(final Blackhole blackhole) {
+        final LocusIteratorByState libs = new LocusIteratorByState(reads.iterator(), LocusIteratorByState.NO_DOWNSAMPLING,
+                bamBuilder.getSamples(), bamBuilder.getHeader(), true, false, recyclePileupStorage);
+        while (libs.hasNext()) {
+            final AlignmentContext context = libs.next();
+            int qualSum = 0;
+            for (final PileupElement element : context.getBasePileup()) {
+                qualSum += element.getQual();
+            }
+            blackhole.consume(qualSum);
+        }
+    }
+}
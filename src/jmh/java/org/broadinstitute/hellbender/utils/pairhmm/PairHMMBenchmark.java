@@ -0,0 +1,99 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.StandardPairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Benchmarks the pure-java PairHMM implementations on a synthetic assembly region: a set of haplotypes derived
+ * from a random reference by point mutations, and reads sampled from those haplotypes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class PairHMMBenchmark {
+
+    private static final String SAMPLE = "sample";
+    private static final byte GCP = 10;
+
+    @Param({"LOGLESS_CACHING", "VECTOR_API_LOGLESS_CACHING"})
+    public PairHMM.Implementation implementation;
+
+    @Param({"2", "8"})
+    public int numberOfHaplotypes;
+
+    @Param({"100", "250"})
+    public int readLength;
+
+    @Param({"50"})
+    public int numberOfReads;
+
+    private PairHMM pairHMM;
+    private LikelihoodMatrix<GATKRead, Haplotype> likelihoods;
+    private List<GATKRead> reads;
+    private PairHMMInputScoreImputator inputScoreImputator;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        final int haplotypeLength = readLength * 2;
+        final byte[] refBases = ArtificialReadUtils.createRandomReadBases(haplotypeLength, false);
+
+        final List<Haplotype> haplotypes = new ArrayList<>(numberOfHaplotypes);
+        haplotypes.add(new Haplotype(refBases, true));
+        for (int h = 1; h < numberOfHaplotypes; h++) {
+            final byte[] altBases = refBases.clone();
+            final int position = random.nextInt(haplotypeLength);
+            altBases[position] = altBases[position] == 'A' ? (byte) 'C' : (byte) 'A';
+            haplotypes.add(new Haplotype(altBases, false));
+        }
+
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        reads = new ArrayList<>(numberOfReads);
+        for (int r = 0; r < numberOfReads; r++) {
+            final byte[] haplotypeBases = haplotypes.get(r % numberOfHaplotypes).getBases();
+            final int start = random.nextInt(haplotypeLength - readLength + 1);
+            final byte[] readBases = new byte[readLength];
+            System.arraycopy(haplotypeBases, start, readBases, 0, readLength);
+            final byte[] readQuals = ArtificialReadUtils.createRandomReadQuals(readLength);
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + r, 0, start + 1, readBases, readQuals, readLength + "M"));
+        }
+
+        final Map<String, List<GATKRead>> readsBySample = Collections.singletonMap(SAMPLE, reads);
+        likelihoods = new AlleleLikelihoods<>(new IndexedSampleList(SAMPLE), new IndexedAlleleList<>(haplotypes), readsBySample).sampleMatrix(0);
+        inputScoreImputator = StandardPairHMMInputScoreImputator.newInstance(GCP);
+        pairHMM = implementation.makeNewHMM(new PairHMMNativeArguments());
+    }
+
+    @Benchmark
+    public double[] computeLog10Likelihoods() {
+        pairHMM.computeLog10Likelihoods(likelihoods, reads, inputScoreImputator);
+        return pairHMM.getLogLikelihoodArray();
+    }
+}
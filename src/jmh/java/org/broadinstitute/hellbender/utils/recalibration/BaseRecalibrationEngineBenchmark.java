@@ -0,0 +1,91 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.util.Locatable;
+import org.broadinstitute.hellbender.engine.ReferenceDataSource;
+import org.broadinstitute.hellbender.engine.ReferenceMemorySource;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.read.ArtificialBAMBuilder;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.reference.ReferenceBases;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks {@link BaseRecalibrationEngine#processRead} with the default covariates on synthetic reads from
+ * {@link ArtificialBAMBuilder}, whose bases are copied from a random in-memory reference with a 1% mismatch rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class BaseRecalibrationEngineBenchmark {
+
+    private static final double MISMATCH_RATE = 0.01;
+
+    @Param({"false", "true"})
+    public boolean enableBAQ;
+
+    @Param({"2"})
+    public int readGroups;
+
+    @Param({"151"})
+    public int readLength;
+
+    private BaseRecalibrationEngine recalibrationEngine;
+    private ReferenceDataSource reference;
+    private List<GATKRead> reads;
+    private final List<Locatable> knownSites = Collections.emptyList();
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(13);
+        final ArtificialBAMBuilder bamBuilder = new ArtificialBAMBuilder(10, 1000)
+                .createAndSetHeader(readGroups)
+                .setReadLength(readLength);
+
+        final SAMSequenceRecord contig = bamBuilder.getHeader().getSequenceDictionary().getSequence(0);
+        final byte[] refBases = ArtificialReadUtils.createRandomReadBases(contig.getSequenceLength(), false);
+        reference = new ReferenceMemorySource(new ReferenceBases(refBases, new SimpleInterval(contig.getSequenceName(), 1, refBases.length)),
+                bamBuilder.getHeader().getSequenceDictionary());
+
+        reads = bamBuilder.makeReads();
+        for (final GATKRead read : reads) {
+            final byte[] bases = new byte[readLength];
+            System.arraycopy(refBases, read.getStart() - 1, bases, 0, readLength);
+            for (int i = 0; i < readLength; i++) {
+                if (random.nextDouble() < MISMATCH_RATE) {
+                    bases[i] = bases[i] == 'A' ? (byte) 'C' : (byte) 'A';
+                }
+            }
+            read.setBases(bases);
+            read.setBaseQualities(ArtificialReadUtils.createRandomReadQuals(readLength));
+        }
+
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.enableBAQ = enableBAQ;
+        recalibrationEngine = new BaseRecalibrationEngine(recalArgs, bamBuilder.getHeader());
+    }
+
+    @Benchmark
+    public long processReads() {
+        for (final GATKRead read : reads) {
+            recalibrationEngine.processRead(read, reference, knownSites);
+        }
+        return recalibrationEngine.getNumReadsProcessed();
+    }
+}
@@ -0,0 +1,69 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+
+/**
+ * Benchmarks the pure java Smith-Waterman aligners aligning a haplotype that carries a SNP and a small deletion against
+ * its random reference, with the parameters used for haplotype-to-reference alignment.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class SmithWatermanBenchmark {
+
+    @Param({"JAVA", "VECTOR_API"})
+    public SmithWatermanAligner.Implementation implementation;
+
+    @Param({"150", "500"})
+    public int length;
+
+    @Param({"SOFTCLIP", "INDEL"})
+    public SWOverhangStrategy overhangStrategy;
+
+    private final SWParameters parameters = SmithWatermanAlignmentConstants.NEW_SW_PARAMETERS;
+    private SmithWatermanAligner aligner;
+    private byte[] reference;
+    private byte[] alternate;
+
+    @Setup
+    public void setup() {
+        reference = ArtificialReadUtils.createRandomReadBases(length, false);
+        final int snpPosition = length / 3;
+        final int deletionPosition = 2 * length / 3;
+        final byte[] withSnp = reference.clone();
+        withSnp[snpPosition] = withSnp[snpPosition] == 'A' ? (byte) 'C' : (byte) 'A';
+        final byte[] beforeDeletion = Arrays.copyOfRange(withSnp, 0, deletionPosition);
+        final byte[] afterDeletion = Arrays.copyOfRange(withSnp, deletionPosition + 3, length);
+        alternate = new byte[beforeDeletion.length + afterDeletion.length];
+        System.arraycopy(beforeDeletion, 0, alternate, 0, beforeDeletion.length);
+        System.arraycopy(afterDeletion, 0, alternate, beforeDeletion.length, afterDeletion.length);
+        aligner = SmithWatermanAligner.getAligner(implementation);
+    }
+
+    @TearDown
+    public void tearDown() {
+        aligner.close();
+    }
+
+    @Benchmark
+    public SmithWatermanAlignment align() {
+        return aligner.align(reference, alternate, parameters, overhangStrategy);
+    }
+}
@@ -0,0 +1,32 @@
+package org.broadinstitute.hellbender.engine;
+
+/**
+ * Processes assembly regions on behalf of an {@link AssemblyRegionWalker} during multi-threaded traversal.
+ *
+ * Each worker thread owns exactly one processor, so a processor is never called concurrently and may keep
+ * mutable per-thread state (assembler, PairHMM buffers, etc.). Processors must not, however, modify the reads
+ * of the regions they are given, since a read overlapping several regions is shared between them.
+ *
+ * The expensive work for a region should happen in {@link #process}, which runs on a worker thread. Anything
+ * that must happen in traversal order (typically writing output) goes in the returned action, which the walker
+ * runs on the traversal thread in the same order the regions were produced, so that output is identical to the
+ * output of a single-threaded traversal.
+ */
+public interface AssemblyRegionProcessor extends AutoCloseable {
+
+    /**
+     * Process an individual AssemblyRegion on a worker thread.
+     *
+     * @param region region to process (pre-marked as either active or inactive)
+     * @param referenceContext reference data overlapping the padded span of the assembly region
+     * @param featureContext features overlapping the padded span of the assembly region
+     * @return an action that emits the results for this region; it will be run on the traversal thread, in region order
+     */
+    Runnable process(final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext);
+
+    /**
+     * Release any resources held by this processor. Called on the traversal thread once traversal is complete.
+     */
+    @Override
+    default void close() { }
+}
@@ -2,6 +2,8 @@ package org.broadinstitute.hellbender.engine;
 
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
+import org.broadinstitute.barclay.argparser.CommandLineException;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
@@ -10,6 +12,7 @@ import org.broadinstitute.hellbender.engine.spark.AssemblyRegionArgumentCollecti
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.IGVUtils;
 import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.downsampling.PositionalDownsampler;
 import org.broadinstitute.hellbender.utils.downsampling.ReadsDownsampler;
@@ -19,6 +22,8 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * An AssemblyRegionWalker is a tool that processes an entire region of reads at a time, each marked as either "active"
@@ -37,6 +42,10 @@ import java.util.List;
  *
  * Internally, the reads are loaded in chunks called read shards, which are then subdivided into active/inactive regions
  * for processing by the tool implementation. One read shard is created per contig.
+ *
+ * Tools that override {@link #supportsMultiThreadedTraversal} and {@link #makeAssemblyRegionProcessor} may be run with
+ * more than one thread, in which case regions are still produced serially but are processed concurrently by a pool of
+ * {@link AssemblyRegionProcessor}s, one per thread, and their output is emitted in region order.
  */
 public abstract class AssemblyRegionWalker extends WalkerBase {
 
@@ -54,8 +63,22 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
     @Argument(fullName = AssemblyRegionArgumentCollection.ASSEMBLY_REGION_OUT_LONG_NAME, doc="Output the assembly region to this IGV formatted file", optional = true)
     protected String assemblyRegionOut = null;
 
+    /**
+     * Regions are always determined on a single thread, but tools that support it can process them on several threads.
+     * The output is the same regardless of the number of threads.
+     */
+    @Argument(fullName = StandardArgumentDefinitions.THREADS_LONG_NAME, doc = "Number of threads used to process assembly regions, " +
+            "only supported by tools that implement multi-threaded traversal", optional = true, minValue = 1)
+    protected int threads = 1;
+
     private PrintStream assemblyRegionOutStream;
 
+    /**
+     * Maximum number of regions that may be in flight per thread when processing regions on several threads. Bounds
+     * the memory held by regions that are complete but waiting for an earlier, slower region to finish.
+     */
+    private static final int MAX_PENDING_REGIONS_PER_THREAD = 4;
+
     @Override
     public final boolean requiresReads() { return true; }
 
@@ -79,6 +102,10 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         super.onStartup();
 
         assemblyRegionArgs.validate();
+        if ( threads > 1 && !supportsMultiThreadedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, String.valueOf(threads),
+                    getClass().getSimpleName() + " does not support multi-threaded traversal");
+        }
 
         final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(getHeaderForReads().getSequenceDictionary());
         readShards = makeReadShards(intervals);
@@ -107,6 +134,15 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         return shards;
     }
 
+    /**
+     * Reads overlapping several regions are shared between those regions, and so may be read by several worker
+     * threads at once when processing regions in parallel.
+     */
+    @Override
+    boolean readsShouldBeEagerlyDecoded() {
+        return threads > 1;
+    }
+
     private void initializeAssemblyRegionOutputStreams() {
         if ( assemblyRegionOut != null ) {
             try {
@@ -162,20 +198,106 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         // meter to check the time more frequently (every 10 regions instead of every 1000 regions).
         progressMeter.setRecordsBetweenTimeChecks(10L);
 
-        for ( final MultiIntervalLocalReadShard readShard : readShards ) {
-            // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
-            // instead of filtering the reads directly here
-            readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
-            readShard.setReadFilter(countedFilter);
-            readShard.setDownsampler(createDownsampler());
-            readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
-
-            processReadShard(readShard, reference, features);
+        if ( threads > 1 ) {
+            traverseInParallel(countedFilter);
+        } else {
+            for ( final MultiIntervalLocalReadShard readShard : readShards ) {
+                prepareReadShard(readShard, countedFilter);
+                processReadShard(readShard, reference, features);
+            }
         }
 
         logger.info(countedFilter.getSummaryLine());
     }
 
+    private void prepareReadShard(final MultiIntervalLocalReadShard readShard, final CountingReadFilter countedFilter) {
+        // Since reads in each shard are lazily fetched, we need to pass the filter and transformers to the window
+        // instead of filtering the reads directly here
+        readShard.setPreReadFilterTransformer(makePreReadFilterTransformer());
+        readShard.setReadFilter(countedFilter);
+        readShard.setDownsampler(createDownsampler());
+        readShard.setPostReadFilterTransformer(makePostReadFilterTransformer());
+    }
+
+    /**
+     * Determine the assembly regions on this thread, as in the single-threaded traversal, but hand each one to a pool
+     * of worker threads for processing. Every worker owns its own {@link AssemblyRegionProcessor} and its own reference
+     * and Feature data sources, since neither the tool's processing state nor the data sources are thread-safe.
+     * Region output is emitted on this thread in region order.
+     *
+     * @param countedFilter read filter shared by all read shards
+     */
+    private void traverseInParallel(final CountingReadFilter countedFilter) {
+        logger.info("Processing assembly regions using " + threads + " threads");
+        final BlockingQueue<AssemblyRegionWorker> idleWorkers = new ArrayBlockingQueue<>(threads);
+        final List<AssemblyRegionWorker> allWorkers = new ArrayList<>(threads);
+        try {
+            for ( int i = 0; i < threads; i++ ) {
+                final AssemblyRegionWorker worker = new AssemblyRegionWorker(makeAssemblyRegionProcessor(),
+                        createReferenceDataSource(), createFeatureManager());
+                allWorkers.add(worker);
+                idleWorkers.add(worker);
+            }
+
+            try ( final OrderedParallelExecutor<Runnable> executor = new OrderedParallelExecutor<>(threads,
+                    threads * MAX_PENDING_REGIONS_PER_THREAD, "assemblyRegionWalker", Runnable::run) ) {
+                for ( final MultiIntervalLocalReadShard readShard : readShards ) {
+                    prepareReadShard(readShard, countedFilter);
+                    final Iterator<AssemblyRegion> assemblyRegionIter = makeAssemblyRegionIterator(readShard);
+                    while ( assemblyRegionIter.hasNext() ) {
+                        final AssemblyRegion assemblyRegion = nextAssemblyRegion(assemblyRegionIter);
+                        executor.submit(() -> {
+                            final AssemblyRegionWorker worker = idleWorkers.take();
+                            try {
+                                final Runnable output = worker.process(assemblyRegion);
+                                return () -> {
+                                    output.run();
+                                    progressMeter.update(assemblyRegion.getSpan());
+                                };
+                            } finally {
+                                idleWorkers.add(worker);
+                            }
+                        });
+                    }
+                }
+                executor.drain();
+            }
+        } finally {
+            allWorkers.forEach(AssemblyRegionWorker::close);
+        }
+    }
+
+    /**
+     * The per-thread state of the multi-threaded traversal: the tool's processor plus private reference and Feature
+     * data sources for it to query.
+     */
+    private static final class AssemblyRegionWorker implements AutoCloseable {
+        private final AssemblyRegionProcessor processor;
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+
+        AssemblyRegionWorker(final AssemblyRegionProcessor processor, final ReferenceDataSource reference, final FeatureManager features) {
+            this.processor = processor;
+            this.reference = reference;
+            this.features = features;
+        }
+
+        Runnable process(final AssemblyRegion region) {
+            return processor.process(region,
+                    new ReferenceContext(reference, region.getPaddedSpan()),
+                    new FeatureContext(features, region.getPaddedSpan()));
+        }
+
+        @Override
+        public void close() {
+            processor.close();
+            reference.close();
+            if ( features != null ) {
+                features.close();
+            }
+        }
+    }
+
     /**
      * Divide the given Shard up into active/inactive AssemblyRegions using the {@link #assemblyRegionEvaluator},
      * and send each region to the tool implementation for processing.
@@ -185,17 +307,11 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
      * @param features FeatureManager
      */
     private void processReadShard(MultiIntervalLocalReadShard shard, ReferenceDataSource reference, FeatureManager features ) {
-        final Iterator<AssemblyRegion> assemblyRegionIter = new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), assemblyRegionArgs, shouldTrackPileupsForAssemblyRegions());
+        final Iterator<AssemblyRegion> assemblyRegionIter = makeAssemblyRegionIterator(shard);
 
         // Call into the tool implementation to process each assembly region from this shard.
         while ( assemblyRegionIter.hasNext() ) {
-            final AssemblyRegion assemblyRegion = assemblyRegionIter.next();
-            if ( assemblyRegionArgs.forceActive ) {
-                assemblyRegion.setIsActive(true);
-            }
-
-            logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size());
-            writeAssemblyRegion(assemblyRegion);
+            final AssemblyRegion assemblyRegion = nextAssemblyRegion(assemblyRegionIter);
 
             apply(assemblyRegion,
                     new ReferenceContext(reference, assemblyRegion.getPaddedSpan()),
@@ -206,6 +322,21 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
         }
     }
 
+    private Iterator<AssemblyRegion> makeAssemblyRegionIterator(final MultiIntervalLocalReadShard shard) {
+        return new AssemblyRegionIterator(shard, getHeaderForReads(), reference, features, assemblyRegionEvaluator(), assemblyRegionArgs, shouldTrackPileupsForAssemblyRegions());
+    }
+
+    private AssemblyRegion nextAssemblyRegion(final Iterator<AssemblyRegion> assemblyRegionIter) {
+        final AssemblyRegion assemblyRegion = assemblyRegionIter.next();
+        if ( assemblyRegionArgs.forceActive ) {
+            assemblyRegion.setIsActive(true);
+        }
+
+        logger.debug("Processing assembly region at " + assemblyRegion.getSpan() + " isActive: " + assemblyRegion.isActive() + " numReads: " + assemblyRegion.getReads().size());
+        writeAssemblyRegion(assemblyRegion);
+        return assemblyRegion;
+    }
+
     private void writeAssemblyRegion(final AssemblyRegion region) {
         if ( assemblyRegionOutStream != null ) {
             IGVUtils.printIGVFormatRow(assemblyRegionOutStream, new SimpleInterval(region.getContig(), region.getStart(), region.getStart()),
@@ -255,6 +386,31 @@ public abstract class AssemblyRegionWalker extends WalkerBase {
      */
     public abstract void apply( final AssemblyRegion region, final ReferenceContext referenceContext, final FeatureContext featureContext );
 
+    /**
+     * Whether this tool can process assembly regions on several threads, via processors created by
+     * {@link #makeAssemblyRegionProcessor}. Tools that return true must override {@link #makeAssemblyRegionProcessor}.
+     *
+     * @return false by default
+     */
+    public boolean supportsMultiThreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Create an independent processor for one of the worker threads of the multi-threaded traversal. Called
+     * once per thread on the traversal thread, after {@link #onTraversalStart}. Processing a region with a new
+     * processor must produce the same output as {@link #apply}; in particular, processors may not share
+     * mutable state with each other or with the tool.
+     *
+     * Tools that cannot support the multi-threaded traversal with their current arguments should throw a
+     * {@link UserException} from this method.
+     *
+     * @return a new processor, owned by a single worker thread
+     */
+    protected AssemblyRegionProcessor makeAssemblyRegionProcessor() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multi-threaded traversal");
+    }
+
     public boolean nonRandomDownsamplingMode() {
         return false;
     }
@@ -557,6 +557,14 @@ public final class FeatureDataSource<T extends Feature> implements GATKDataSourc
         return queryAndPrefetch(interval).iterator();
     }
 
+    /**
+     * @return true if this data source supports queries by interval, ie. it is backed by an indexed file or by a
+     *         non-file data source that supports random access (eg. GenomicsDB)
+     */
+    public boolean supportsRandomAccess() {
+        return supportsRandomAccess;
+    }
+
     /**
      * Returns a List of all Features in this data source that overlap the provided interval.
      * <p>
@@ -16,6 +16,7 @@ import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.stream.Stream;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.barclay.argparser.CommandLinePluginDescriptor;
@@ -123,6 +124,24 @@ public abstract class GATKTool extends CommandLineProgram {
             optional = true)
     public boolean disableBamIndexCaching = false;
 
+    public static final String SHARED_REFERENCE_CACHE_SIZE_NAME = "shared-reference-cache-size";
+
+    @Advanced
+    @Argument(fullName = SHARED_REFERENCE_CACHE_SIZE_NAME,
+            doc = "Size (in megabases; 0 to disable) of a reference cache shared by all threads of the traversal, with read-ahead of the next reference chunk. " +
+                    "Hit and miss counts are logged at the end of the traversal.",
+            optional = true, minValue = 0)
+    public int sharedReferenceCacheSize = 0;
+
+    public static final String MEMORY_MAP_REFERENCE_NAME = "memory-map-reference";
+
+    @Advanced
+    @Argument(fullName = MEMORY_MAP_REFERENCE_NAME,
+            doc = "If true, memory-map the reference instead of reading it through a cache. Requires an uncompressed fasta on a local file system. " +
+                    "Reduces heap usage and startup time for tools that walk the whole reference.",
+            optional = true, mutex = {SHARED_REFERENCE_CACHE_SIZE_NAME})
+    public boolean memoryMapReference = false;
+
     @Argument(fullName = StandardArgumentDefinitions.SITES_ONLY_LONG_NAME,
             doc = "If true, don't emit genotype fields when writing vcf file output.", optional = true)
     public boolean outputSitesOnlyVCFs = false;
@@ -147,6 +166,11 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     ReferenceDataSource reference;
 
+    /**
+     * Reference cache shared by the reference data sources of this tool (null unless requested, or if no reference was provided)
+     */
+    private SharedReferenceCache sharedReferenceCache;
+
     /**
      * Our source of reads data (null if no source of reads was provided)
      */
@@ -436,7 +460,26 @@ public abstract class GATKTool extends CommandLineProgram {
      * May be overridden by traversals that require custom initialization of the reference data source.
      */
     void initializeReference() {
-        reference = referenceArguments.getReferencePath() != null ? ReferenceDataSource.of(referenceArguments.getReferencePath()) : null;
+        if ( referenceArguments.getReferencePath() != null && sharedReferenceCacheSize > 0 ) {
+            final int maxChunks = Math.max(2, (int) (sharedReferenceCacheSize * 1_000_000L / SharedReferenceCache.DEFAULT_CHUNK_SIZE));
+            sharedReferenceCache = new SharedReferenceCache(referenceArguments.getReferencePath(), false, SharedReferenceCache.DEFAULT_CHUNK_SIZE, maxChunks);
+        }
+        reference = referenceArguments.getReferencePath() != null ? createReferenceDataSource() : null;
+    }
+
+    /**
+     * Create a new source of reference data for the reference of this tool, for use by a single thread. When a
+     * {@link #SHARED_REFERENCE_CACHE_SIZE_NAME shared reference cache} was requested, all the sources created by
+     * this method share it.
+     *
+     * @return a new ReferenceDataSource, which should be closed by the caller
+     */
+    protected final ReferenceDataSource createReferenceDataSource() {
+        final Path referencePath = Utils.nonNull(referenceArguments.getReferencePath(), "Attempted to create a reference data source without a reference");
+        if ( memoryMapReference ) {
+            return new MemoryMappedReferenceSource(referencePath);
+        }
+        return sharedReferenceCache != null ? sharedReferenceCache.newReferenceDataSource() : ReferenceDataSource.of(referencePath);
     }
 
     /**
@@ -447,16 +490,28 @@ public abstract class GATKTool extends CommandLineProgram {
      */
     void initializeReads() {
         if (! readArguments.getReadPathSpecifiers().isEmpty()) {
-            final SamReaderFactory factory = makeSamReaderFactory();
-
-            reads = new ReadsPathDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
-                (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+            reads = createReadsDataSource();
         }
         else {
             reads = null;
         }
     }
 
+    /**
+     * Create a new source of reads data over all of this tool's read inputs, configured the same way as the main
+     * source of reads but with its own readers.
+     *
+     * Package-private so that multi-threaded traversals can give each worker thread its own independent view of
+     * the reads.
+     *
+     * @return a new ReadsDataSource, which should be closed by the caller
+     */
+    ReadsDataSource createReadsDataSource() {
+        final SamReaderFactory factory = makeSamReaderFactory();
+        return new ReadsPathDataSource(readArguments.getReadPaths(), readArguments.getReadIndexPaths(), factory, cloudPrefetchBuffer,
+            (cloudIndexPrefetchBuffer < 0 ? cloudPrefetchBuffer : cloudIndexPrefetchBuffer));
+    }
+
     protected final SamReaderFactory makeSamReaderFactory() {
         SamReaderFactory factory = SamReaderFactory.makeDefault().validationStringency(readArguments.getReadValidationStringency());
         if (hasReference()) { // pass in reference if available, because CRAM files need it
@@ -469,9 +524,35 @@ public abstract class GATKTool extends CommandLineProgram {
         if(bamIndexCachingShouldBeEnabled()) {
             factory = factory.enable(SamReaderFactory.Option.CACHE_FILE_BASED_INDEXES);
         }
+        if(readsShouldBeEagerlyDecoded()) {
+            factory = factory.enable(SamReaderFactory.Option.EAGERLY_DECODE);
+        }
+        if(readsShouldBeReadAsynchronously()) {
+            factory = factory.setUseAsyncIo(true);
+        }
         return factory;
     }
 
+    /**
+     * Whether records should be fully decoded as they are read rather than lazily on first access. Traversals that
+     * hand the same read to several threads at once must return true, since lazy decoding mutates the record.
+     *
+     * Package-private so that engine classes can override it, but concrete tool child classes cannot.
+     */
+    boolean readsShouldBeEagerlyDecoded() {
+        return false;
+    }
+
+    /**
+     * Whether compressed read input should be read ahead and inflated on a background thread. Useful for traversals
+     * that process reads on several threads, where inflating the input on the traversal thread would be the bottleneck.
+     *
+     * Package-private so that engine classes can override it, but concrete tool child classes cannot.
+     */
+    boolean readsShouldBeReadAsynchronously() {
+        return false;
+    }
+
 
     protected final boolean bamIndexCachingShouldBeEnabled() {
         return intervalArgumentCollection.intervalsSpecified() && !disableBamIndexCaching;
@@ -493,11 +574,36 @@ public abstract class GATKTool extends CommandLineProgram {
      * By default, this method initializes the FeatureManager to use the lookahead cache of {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases.
      */
     void initializeFeatures() {
-        features = new FeatureManager(this, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES, cloudPrefetchBuffer,
+        features = createFeatureManager();
+    }
+
+    /**
+     * Create a new FeatureManager over all of this tool's Feature inputs, using the lookahead cache of
+     * {@link FeatureDataSource#DEFAULT_QUERY_LOOKAHEAD_BASES} bases.
+     *
+     * Package-private so that multi-threaded traversals can give each worker thread its own independent
+     * (and therefore not shared) view of the Feature inputs.
+     *
+     * @return a new FeatureManager, or null if no Feature inputs were discovered for this tool
+     */
+    FeatureManager createFeatureManager() {
+        return createFeatureManager(FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
+    }
+
+    /**
+     * As {@link #createFeatureManager()}, but with a custom lookahead for the Feature caches.
+     *
+     * @param featureQueryLookahead number of additional bases worth of overlapping records to cache when querying Feature sources
+     * @return a new FeatureManager, or null if no Feature inputs were discovered for this tool
+     */
+    FeatureManager createFeatureManager(final int featureQueryLookahead) {
+        final FeatureManager featureManager = new FeatureManager(this, featureQueryLookahead, cloudPrefetchBuffer,
                 cloudIndexPrefetchBuffer, getGenomicsDBOptions());
-        if ( features.isEmpty() ) {  // No available sources of Features discovered for this tool
-            features = null;
+        if ( featureManager.isEmpty() ) {  // No available sources of Features discovered for this tool
+            featureManager.close();
+            return null;
         }
+        return featureManager;
     }
 
     /**
@@ -1051,6 +1157,11 @@ public abstract class GATKTool extends CommandLineProgram {
             reference.close();
         }
 
+        if ( sharedReferenceCache != null ) {
+            sharedReferenceCache.logStatistics();
+            sharedReferenceCache.close();
+        }
+
         if ( hasReads() ) {
             reads.close();
         }
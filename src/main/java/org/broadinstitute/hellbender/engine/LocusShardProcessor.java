@@ -0,0 +1,41 @@
+package org.broadinstitute.hellbender.engine;
+
+/**
+ * Processes loci on behalf of a {@link LocusWalker} during multi-threaded traversal.
+ *
+ * The traversal intervals are divided into shards, and each shard is traversed in its entirety by a single worker
+ * thread: {@link #apply} is called for every locus of the shard, in order, then {@link #finishShard} is called once.
+ * Each worker thread owns exactly one processor, so a processor is never called concurrently and may accumulate
+ * per-shard results in mutable state.
+ *
+ * The per-locus work should happen in {@link #apply}, which runs on a worker thread. {@link #finishShard} hands the
+ * results accumulated for the shard over to the tool, and resets the processor for the next shard, by returning an
+ * action that the walker runs on the traversal thread in shard order. That action is the tool's reducer: it typically
+ * writes the output of the shard or merges its results into the tool's totals, so that output is identical to the
+ * output of a single-threaded traversal.
+ */
+public interface LocusShardProcessor extends AutoCloseable {
+
+    /**
+     * Process an individual locus of the current shard on a worker thread.
+     *
+     * @param alignmentContext current alignment context
+     * @param referenceContext Reference bases spanning the current locus, see {@link LocusWalker#apply}
+     * @param featureContext Features spanning the current locus, see {@link LocusWalker#apply}
+     */
+    void apply(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext);
+
+    /**
+     * Complete the current shard on a worker thread, once all of its loci have been processed.
+     *
+     * @param shard bounds of the shard that was just processed
+     * @return an action that emits or merges the results for this shard; it will be run on the traversal thread, in shard order
+     */
+    Runnable finishShard(final ShardBoundary shard);
+
+    /**
+     * Release any resources held by this processor. Called on the traversal thread once traversal is complete.
+     */
+    @Override
+    default void close() { }
+}
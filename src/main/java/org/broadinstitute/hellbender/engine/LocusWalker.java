@@ -2,22 +2,33 @@ package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMReadGroupRecord;
+import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.CommandLineException;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.IntervalUtils;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.locusiterator.AlignmentContextIteratorBuilder;
 import org.broadinstitute.hellbender.utils.locusiterator.LIBSDownsamplingInfo;
 import org.broadinstitute.hellbender.utils.locusiterator.LocusIteratorByState;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 
 /**
@@ -34,14 +45,40 @@ import java.util.stream.Collectors;
  * LocusWalker authors must implement the apply() method to process each position, and may optionally implement
  * onTraversalStart(), onTraversalSuccess() and/or closeTool().
  *
+ * Tools that override {@link #supportsMultiThreadedTraversal} and {@link #makeLocusShardProcessor} may be run with
+ * more than one thread, in which case the traversal intervals are divided into shards of {@link #locusShardSize}
+ * bases which are traversed concurrently, each by a single {@link LocusShardProcessor}, and the results of each
+ * shard are handed to the tool in shard order.
+ *
  * @author Daniel Gomez-Sanchez (magicDGS)
  */
 public abstract class LocusWalker extends WalkerBase {
     public static final String MAX_DEPTH_PER_SAMPLE_NAME = "max-depth-per-sample";
+    public static final String LOCUS_SHARD_SIZE_NAME = "locus-shard-size";
+    public static final int DEFAULT_LOCUS_SHARD_SIZE = 100_000;
 
     @Argument(fullName = MAX_DEPTH_PER_SAMPLE_NAME, shortName = MAX_DEPTH_PER_SAMPLE_NAME, doc = "Maximum number of reads to retain per sample per locus. Reads above this threshold will be downsampled. Set to 0 to disable.", optional = true)
     protected int maxDepthPerSample = defaultMaxDepthPerSample();
 
+    /**
+     * Shards of the traversal intervals are traversed concurrently by tools that support it. Apart from downsampling,
+     * which is random, the output is the same regardless of the number of threads.
+     */
+    @Argument(fullName = StandardArgumentDefinitions.THREADS_LONG_NAME, doc = "Number of threads used to process loci, " +
+            "only supported by tools that implement multi-threaded traversal", optional = true, minValue = 1)
+    protected int threads = 1;
+
+    @Advanced
+    @Argument(fullName = LOCUS_SHARD_SIZE_NAME, doc = "Maximum size, in bases, of the shards of the traversal intervals " +
+            "processed by each thread when using more than one thread", optional = true, minValue = 1)
+    protected int locusShardSize = DEFAULT_LOCUS_SHARD_SIZE;
+
+    /**
+     * Maximum number of shards that may be in flight per thread when processing loci on several threads. Bounds
+     * the memory held by shards that are complete but waiting for an earlier, slower shard to finish.
+     */
+    private static final int MAX_PENDING_SHARDS_PER_THREAD = 4;
+
     /**
      * LocusWalkers requires read sources
      */
@@ -85,6 +122,18 @@ public abstract class LocusWalker extends WalkerBase {
         return false;
     }
 
+    /**
+     * Can this tool work with pileups whose storage is recycled by the traversal? Tools that only use each
+     * AlignmentContext, its pileup and its pileup elements within the call to {@link #apply} (and never keep references
+     * to them afterwards) should override to return {@code true}. This greatly reduces allocation, and time spent
+     * in garbage collection, at high depth.
+     *
+     * @return {@code true} if the traversal may recycle pileup storage, {@code false} otherwise
+     */
+    public boolean recyclePileupStorage() {
+        return false;
+    }
+
 
     /**
      * Returns default value for the {@link #maxDepthPerSample} parameter, if none is provided on the command line.
@@ -126,6 +175,15 @@ public abstract class LocusWalker extends WalkerBase {
     @Override
     protected final void onStartup() {
         super.onStartup();
+        if ( threads > 1 ) {
+            if ( !supportsMultiThreadedTraversal() ) {
+                throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, String.valueOf(threads),
+                        getClass().getSimpleName() + " does not support multi-threaded traversal");
+            }
+            if ( !reads.isQueryableByInterval() ) {
+                throw new UserException("Multi-threaded locus traversal requires all read inputs to be indexed");
+            }
+        }
         if ( hasUserSuppliedIntervals() ) {
             reads.setTraversalBounds(intervalArgumentCollection.getTraversalParameters(getHeaderForReads().getSequenceDictionary()));
         }
@@ -146,6 +204,11 @@ public abstract class LocusWalker extends WalkerBase {
     @Override
     public void traverse() {
         final CountingReadFilter countedFilter = makeReadFilter();
+        if ( threads > 1 ) {
+            traverseInParallel(countedFilter);
+            logger.info(countedFilter.getSummaryLine());
+            return;
+        }
         final Iterator<AlignmentContext> iterator = getAlignmentContextIterator(countedFilter);
 
         // iterate over each alignment, and apply the function
@@ -173,17 +236,186 @@ public abstract class LocusWalker extends WalkerBase {
         // get the filter and transformed iterator
         final Iterator<GATKRead> readIterator = getTransformedReadStream(readFilterToUse).iterator();
 
+        return makeAlignmentContextIterator(readIterator, userIntervals);
+    }
+
+    /**
+     * Create an AlignmentContext Iterator over the given reads, configured for this tool, which covers the given
+     * intervals (or all loci covered by the reads, if there are no intervals and the tool doesn't emit empty loci).
+     */
+    private Iterator<AlignmentContext> makeAlignmentContextIterator(final Iterator<GATKRead> readIterator, final List<SimpleInterval> intervals) {
+        final SAMFileHeader header = getHeaderForReads();
         final AlignmentContextIteratorBuilder alignmentContextIteratorBuilder = new AlignmentContextIteratorBuilder();
         alignmentContextIteratorBuilder.setDownsamplingInfo(getDownsamplingInfo());
         alignmentContextIteratorBuilder.setEmitEmptyLoci(emitEmptyLoci());
         alignmentContextIteratorBuilder.setIncludeDeletions(includeDeletions());
         alignmentContextIteratorBuilder.setIncludeNs(includeNs());
+        alignmentContextIteratorBuilder.setRecyclePileupStorage(recyclePileupStorage());
 
         return alignmentContextIteratorBuilder.build(
-                readIterator, header, userIntervals, getBestAvailableSequenceDictionary(),
+                readIterator, header, intervals, getBestAvailableSequenceDictionary(),
                 hasReference());
     }
 
+    /**
+     * Divide the traversal intervals (or the whole reference, if there are none) into shards of at most
+     * {@link #locusShardSize} bases. Shards are not padded: the reads covering a shard are exactly the reads
+     * overlapping it, which is what they are queried by.
+     */
+    private List<LocusShard> makeLocusShards() {
+        final SAMSequenceDictionary dictionary = getBestAvailableSequenceDictionary();
+        final List<SimpleInterval> intervals = hasUserSuppliedIntervals() ? userIntervals : IntervalUtils.getAllIntervalsForReference(dictionary);
+        final List<LocusShard> shards = new ArrayList<>();
+        String previousContig = null;
+        int previousEnd = 0;
+        for ( final SimpleInterval interval : intervals ) {
+            for ( final ShardBoundary boundary : Shard.divideIntervalIntoShards(interval, locusShardSize, 0, dictionary) ) {
+                shards.add(new LocusShard(boundary, boundary.getContig().equals(previousContig) ? previousEnd : 0));
+                previousContig = boundary.getContig();
+                previousEnd = boundary.getEnd();
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Traverse the shards of the traversal intervals on a pool of worker threads. Every worker owns its own
+     * {@link LocusShardProcessor}, read filter and transformers and reads, reference and Feature data sources, since
+     * none of them are thread-safe, and traverses each of its shards from its own reads query. The action returned
+     * by the processor for each shard is run on this thread in shard order, and the counts of the per-worker filters
+     * are combined into {@code countedFilter} once traversal is complete.
+     *
+     * @param countedFilter filter receiving the combined counts of the worker filters
+     */
+    private void traverseInParallel(final CountingReadFilter countedFilter) {
+        final List<LocusShard> shards = makeLocusShards();
+        logger.info("Processing " + shards.size() + " shards of loci using " + threads + " threads");
+        final BlockingQueue<LocusWorker> idleWorkers = new ArrayBlockingQueue<>(threads);
+        final List<LocusWorker> allWorkers = new ArrayList<>(threads);
+        try {
+            for ( int i = 0; i < threads; i++ ) {
+                final LocusWorker worker = new LocusWorker(makeReadFilter(), makeReadFilter(), makePreReadFilterTransformer(),
+                        makePostReadFilterTransformer(), makeLocusShardProcessor(), createReadsDataSource(),
+                        hasReference() ? createReferenceDataSource() : null, createFeatureManager());
+                allWorkers.add(worker);
+                idleWorkers.add(worker);
+            }
+
+            try ( final OrderedParallelExecutor<Runnable> executor = new OrderedParallelExecutor<>(threads,
+                    threads * MAX_PENDING_SHARDS_PER_THREAD, "locusWalker", Runnable::run) ) {
+                for ( final LocusShard shard : shards ) {
+                    executor.submit(() -> {
+                        final LocusWorker worker = idleWorkers.take();
+                        try {
+                            return worker.process(shard);
+                        } finally {
+                            idleWorkers.add(worker);
+                        }
+                    });
+                }
+                executor.drain();
+            }
+            allWorkers.forEach(worker -> countedFilter.addFilteredCounts(worker.filter));
+        } finally {
+            allWorkers.forEach(LocusWorker::close);
+        }
+    }
+
+    /**
+     * A shard of the traversal intervals, together with the end of the previous shard on the same contig (or 0).
+     * Reads overlapping several shards are filtered in each of them, but are only counted by the filter in the
+     * first one, as in the single-threaded traversal.
+     */
+    private static final class LocusShard {
+        private final ShardBoundary boundary;
+        private final int previousEnd;
+
+        LocusShard(final ShardBoundary boundary, final int previousEnd) {
+            this.boundary = boundary;
+            this.previousEnd = previousEnd;
+        }
+
+        boolean isFirstShardOverlapping(final GATKRead read) {
+            return read.getStart() > previousEnd;
+        }
+    }
+
+    /**
+     * The per-thread state of the multi-threaded traversal.
+     */
+    private final class LocusWorker implements AutoCloseable {
+        private final CountingReadFilter filter;
+        // filters reads already counted in a previous shard; its counts are discarded
+        private final CountingReadFilter uncountedFilter;
+        private final ReadTransformer preTransformer;
+        private final ReadTransformer postTransformer;
+        private final LocusShardProcessor processor;
+        private final ReadsDataSource reads;
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+
+        LocusWorker(final CountingReadFilter filter, final CountingReadFilter uncountedFilter,
+                    final ReadTransformer preTransformer, final ReadTransformer postTransformer,
+                    final LocusShardProcessor processor, final ReadsDataSource reads,
+                    final ReferenceDataSource reference, final FeatureManager features) {
+            this.filter = filter;
+            this.uncountedFilter = uncountedFilter;
+            this.preTransformer = preTransformer;
+            this.postTransformer = postTransformer;
+            this.processor = processor;
+            this.reads = reads;
+            this.reference = reference;
+            this.features = features;
+        }
+
+        /**
+         * Traverse all the loci of a shard with the processor of this worker.
+         *
+         * @return an action that runs the reducer returned by the processor for the shard and updates the progress meter
+         */
+        Runnable process(final LocusShard shard) {
+            final Iterator<GATKRead> readIterator = Utils.stream(reads.query(shard.boundary.getPaddedSpan()))
+                    .map(preTransformer)
+                    .filter(read -> shard.isFirstShardOverlapping(read) ? filter.test(read) : uncountedFilter.test(read))
+                    .map(postTransformer)
+                    .iterator();
+            final Iterator<AlignmentContext> iterator = makeAlignmentContextIterator(readIterator,
+                    Collections.singletonList(shard.boundary.getInterval()));
+
+            long numLoci = 0;
+            SimpleInterval lastLocus = null;
+            while ( iterator.hasNext() ) {
+                final AlignmentContext alignmentContext = iterator.next();
+                final SimpleInterval alignmentInterval = new SimpleInterval(alignmentContext);
+                processor.apply(alignmentContext, new ReferenceContext(reference, alignmentInterval), new FeatureContext(features, alignmentInterval));
+                numLoci++;
+                lastLocus = alignmentInterval;
+            }
+
+            final Runnable output = processor.finishShard(shard.boundary);
+            final long loci = numLoci;
+            final SimpleInterval locus = lastLocus;
+            return () -> {
+                output.run();
+                if ( loci > 0 ) {
+                    progressMeter.update(locus, loci);
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            processor.close();
+            reads.close();
+            if ( reference != null ) {
+                reference.close();
+            }
+            if ( features != null ) {
+                features.close();
+            }
+        }
+    }
+
     /**
      * Process an individual AlignmentContext (with optional contextual information). Must be implemented by tool authors.
      * In general, tool authors should simply stream their output from apply(), and maintain as little internal state
@@ -200,6 +432,33 @@ public abstract class LocusWalker extends WalkerBase {
      */
     public abstract void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext);
 
+    /**
+     * Whether this tool can process loci on several threads, via processors created by {@link #makeLocusShardProcessor}.
+     * Only tools whose results for a shard of loci do not depend on the loci of other shards, or can be merged with
+     * them in shard order, may support it. Tools that return true must override {@link #makeLocusShardProcessor}.
+     *
+     * @return false by default
+     */
+    public boolean supportsMultiThreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Create an independent processor for one of the worker threads of the multi-threaded traversal. Called once per
+     * thread on the traversal thread, after {@link #onTraversalStart}. Processing all the loci of every shard with
+     * new processors, then running their shard actions in order, must produce the same output as {@link #apply};
+     * in particular, processors may not share mutable state with each other or with the tool, except from within
+     * the actions returned by {@link LocusShardProcessor#finishShard}.
+     *
+     * Tools that cannot support the multi-threaded traversal with their current arguments should throw a
+     * {@link UserException} from this method.
+     *
+     * @return a new processor, owned by a single worker thread
+     */
+    protected LocusShardProcessor makeLocusShardProcessor() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multi-threaded traversal");
+    }
+
     /**
      * Marked final so that tool authors don't override it. Tool authors should override onTraversalSuccess() instead.
      */
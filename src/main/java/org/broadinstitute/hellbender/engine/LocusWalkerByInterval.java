@@ -59,6 +59,16 @@ public abstract class LocusWalkerByInterval extends LocusWalker {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * The interval hooks of a LocusWalkerByInterval are called in traversal order, so it can only be traversed
+     * on a single thread. In particular, this excludes DepthOfCoverage from the multi-threaded locus traversal:
+     * running it with more than one thread is rejected at startup.
+     */
+    @Override
+    public final boolean supportsMultiThreadedTraversal() {
+        return false;
+    }
+
     @Override
     // A locusWalkerByInterval requires intervals be specified
     public final boolean requiresIntervals() {
@@ -0,0 +1,295 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.reference.FastaSequenceIndex;
+import htsjdk.samtools.reference.FastaSequenceIndexEntry;
+import htsjdk.samtools.reference.ReferenceSequence;
+import htsjdk.samtools.reference.ReferenceSequenceFileFactory;
+import htsjdk.samtools.util.IOUtil;
+import htsjdk.samtools.util.StringUtil;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.iterators.ByteArrayIterator;
+import org.broadinstitute.hellbender.utils.reference.ReferenceUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Manages traversals and queries over reference data by memory-mapping an uncompressed fasta file.
+ *
+ * Unlike {@link ReferenceMemorySource}, the reference is never loaded on the heap: the fasta file is mapped into
+ * memory when this source is created, and every query only copies (and normalizes, see
+ * {@link org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile}) the bases it asks for. The pages
+ * of the file are loaded on demand and cached by the operating system, where they are shared by all the sources (and
+ * processes) that map the same file. This makes it well suited to tools that walk the whole reference.
+ *
+ * Queries are thread-safe. Iteration over the entire reference, and over intervals, is lazy.
+ *
+ * The fasta file must be uncompressed, on a file system that supports memory mapping, and have companion .fai and
+ * .dict files.
+ */
+public final class MemoryMappedReferenceSource implements ReferenceDataSource {
+
+    // the file is mapped in segments, as a single mapping can't be larger than 2GB
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    // size of the blocks of bases decoded at once when iterating
+    private static final int ITERATION_BLOCK_SIZE = 64 * 1024;
+
+    private final Path fastaPath;
+    private final boolean preserveFileBases;
+    private final SAMSequenceDictionary sequenceDictionary;
+    private final FastaSequenceIndex index;
+    private final MappedByteBuffer[] segments;
+
+    /**
+     * Initialize this data source using a fasta file.
+     *
+     * @param fastaPath uncompressed reference fasta file
+     */
+    public MemoryMappedReferenceSource(final Path fastaPath) {
+        this(fastaPath, false);
+    }
+
+    /**
+     * Initialize this data source using a fasta file.
+     *
+     * If {@code preserveFileBases} is {@code true}, will NOT convert IUPAC bases in the file to `N` and will NOT capitalize lower-case bases.
+     * NOTE: Most GATK tools do not support data created by setting {@code preserveFileBases} to {@code true}.
+     *
+     * @param fastaPath uncompressed reference fasta file
+     * @param preserveFileBases Whether to preserve the original bases in the given reference file path.
+     */
+    public MemoryMappedReferenceSource(final Path fastaPath, final boolean preserveFileBases) {
+        this.fastaPath = Utils.nonNull(fastaPath);
+        this.preserveFileBases = preserveFileBases;
+
+        if ( !Files.exists(fastaPath) ) {
+            throw new UserException.MissingReference("The specified fasta file (" + fastaPath.toUri() + ") does not exist.");
+        }
+        final Path indexPath = ReferenceSequenceFileFactory.getFastaIndexFileName(fastaPath);
+        if ( !Files.exists(indexPath) ) {
+            throw new UserException.MissingReferenceFaiFile(indexPath, fastaPath);
+        }
+        final Path dictPath = ReferenceSequenceFileFactory.getDefaultDictionaryForReferenceSequence(fastaPath);
+        if ( !Files.exists(dictPath) ) {
+            throw new UserException.MissingReferenceDictFile(dictPath, fastaPath);
+        }
+
+        try {
+            if ( IOUtil.isBlockCompressed(fastaPath, true) ) {
+                throw new UserException.CannotHandleGzippedRef();
+            }
+            try ( final InputStream dictStream = Files.newInputStream(dictPath) ) {
+                sequenceDictionary = ReferenceUtils.loadFastaDictionary(dictStream);
+            }
+            index = new FastaSequenceIndex(indexPath);
+            segments = map(fastaPath);
+        } catch ( final IOException e ) {
+            throw new UserException.CouldNotReadInputFile(fastaPath, e);
+        } catch ( final UnsupportedOperationException e ) {
+            throw new UserException.CouldNotReadInputFile(fastaPath, "the file system of the reference doesn't support memory mapping", e);
+        }
+    }
+
+    /**
+     * Map the whole file in read-only segments of {@link #SEGMENT_SIZE} bytes. The mapping stays valid after the
+     * channel is closed.
+     */
+    private static MappedByteBuffer[] map(final Path path) throws IOException {
+        try ( final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ) ) {
+            final long size = channel.size();
+            final MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+            for ( int i = 0; i < segments.length; i++ ) {
+                final long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(SEGMENT_SIZE, size - position));
+            }
+            return segments;
+        }
+    }
+
+    /**
+     * Start an iteration over the entire reference, contig by contig in the order of the index.
+     *
+     * See the BaseUtils class for guidance on how to work with bases in this format.
+     *
+     * @return iterator over all bases in this reference
+     */
+    @Override
+    public Iterator<Byte> iterator() {
+        final Iterator<FastaSequenceIndexEntry> contigs = index.iterator();
+        return new Iterator<Byte>() {
+            private Iterator<Byte> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while ( !current.hasNext() && contigs.hasNext() ) {
+                    final FastaSequenceIndexEntry contig = contigs.next();
+                    current = new BlockIterator(contig, 1, contig.getSize());
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Byte next() {
+                if ( !hasNext() ) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back an iterator over the bases spanning that interval.
+     * The bases are decoded lazily, so that long intervals are never entirely loaded into memory.
+     *
+     * See the BaseUtils class for guidance on how to work with bases in this format.
+     *
+     * @param interval query interval
+     * @return iterator over the bases spanning the query interval
+     */
+    @Override
+    public Iterator<Byte> query(final SimpleInterval interval) {
+        final FastaSequenceIndexEntry contig = getIndexEntry(interval.getContig());
+        checkQuery(contig, interval.getStart(), interval.getEnd());
+        return new BlockIterator(contig, interval.getStart(), interval.getEnd());
+    }
+
+    /**
+     * Query a specific interval on this reference, and get back all bases spanning that interval at once.
+     * Call getBases() on the returned ReferenceSequence to get the actual reference bases. See the BaseUtils
+     * class for guidance on how to work with bases in this format.
+     *
+     * @param contig query interval contig
+     * @param start query interval start
+     * @param stop query interval stop
+     * @return a ReferenceSequence containing all bases spanning the query interval, prefetched
+     */
+    @Override
+    public ReferenceSequence queryAndPrefetch(final String contig, final long start, final long stop) {
+        final FastaSequenceIndexEntry indexEntry = getIndexEntry(contig);
+        checkQuery(indexEntry, start, stop);
+        return new ReferenceSequence(indexEntry.getContig(), indexEntry.getSequenceIndex(), getBases(indexEntry, start, stop));
+    }
+
+    private FastaSequenceIndexEntry getIndexEntry(final String contig) {
+        if ( !index.hasIndexEntry(contig) ) {
+            throw new UserException.MissingContigInSequenceDictionary(contig, sequenceDictionary);
+        }
+        return index.getIndexEntry(contig);
+    }
+
+    // same checks, and messages, as the htsjdk indexed fasta readers
+    private static void checkQuery(final FastaSequenceIndexEntry contig, final long start, final long stop) {
+        if ( start < 1 ) {
+            throw new SAMException(String.format("Malformed query; start point %d is before the start of contig %s", start, contig.getContig()));
+        }
+        if ( start > stop + 1 ) {
+            throw new SAMException(String.format("Malformed query; start point %d lies after end point %d", start, stop));
+        }
+        if ( stop > contig.getSize() ) {
+            throw new SAMException("Query asks for data past end of contig. Query contig " + contig.getContig() + " start:" + start + " stop:" + stop + " contigLength:" + contig.getSize());
+        }
+    }
+
+    /**
+     * Copy the bases in [start, stop] of a contig out of the mapping, line by line, and normalize them
+     */
+    private byte[] getBases(final FastaSequenceIndexEntry contig, final long start, final long stop) {
+        final byte[] bases = new byte[(int) (stop - start + 1)];
+        final int basesPerLine = contig.getBasesPerLine();
+        final int bytesPerLine = contig.getBytesPerLine();
+        int copied = 0;
+        for ( long base = start - 1; base < stop; ) {
+            final long line = base / basesPerLine;
+            final int offsetInLine = (int) (base - line * basesPerLine);
+            final int length = (int) Math.min(basesPerLine - offsetInLine, stop - base);
+            copyBytes(contig.getLocation() + line * bytesPerLine + offsetInLine, bases, copied, length);
+            copied += length;
+            base += length;
+        }
+
+        if ( !preserveFileBases ) {
+            StringUtil.toUpperCase(bases);
+            BaseUtils.convertIUPACtoN(bases, true, false);
+        }
+        return bases;
+    }
+
+    private void copyBytes(long position, final byte[] destination, int offset, int length) {
+        while ( length > 0 ) {
+            final MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+            final int positionInSegment = (int) (position & SEGMENT_MASK);
+            final int count = Math.min(length, segment.capacity() - positionInSegment);
+            // absolute bulk gets don't change the state of the buffer, so concurrent queries are safe
+            segment.get(positionInSegment, destination, offset, count);
+            position += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+    /**
+     * Get the sequence dictionary for this reference
+     *
+     * @return SAMSequenceDictionary for this reference
+     */
+    @Override
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryMappedReferenceSource(" + fastaPath.toUri() + ")";
+    }
+
+    /**
+     * Iterates over the bases in [start, stop] of a contig, decoding them in blocks of {@link #ITERATION_BLOCK_SIZE}
+     */
+    private final class BlockIterator implements Iterator<Byte> {
+        private final FastaSequenceIndexEntry contig;
+        private final long stop;
+        private long nextBlockStart;
+        private Iterator<Byte> block = Collections.emptyIterator();
+
+        BlockIterator(final FastaSequenceIndexEntry contig, final long start, final long stop) {
+            this.contig = contig;
+            this.stop = stop;
+            this.nextBlockStart = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if ( !block.hasNext() && nextBlockStart <= stop ) {
+                final long blockStop = Math.min(stop, nextBlockStart + ITERATION_BLOCK_SIZE - 1);
+                block = new ByteArrayIterator(getBases(contig, nextBlockStart, blockStop));
+                nextBlockStart = blockStop + 1;
+            }
+            return block.hasNext();
+        }
+
+        @Override
+        public Byte next() {
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            return block.next();
+        }
+    }
+}
@@ -1,12 +1,10 @@
 package org.broadinstitute.hellbender.engine;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.SAMSequenceRecord;
 import htsjdk.samtools.util.CloseableIterator;
-import htsjdk.samtools.util.MergingIterator;
 import htsjdk.variant.variantcontext.VariantContext;
-import htsjdk.variant.variantcontext.VariantContextComparator;
-import htsjdk.variant.variantcontext.writer.VariantContextWriter;
 import htsjdk.variant.vcf.VCFHeader;
 import htsjdk.variant.vcf.VCFUtils;
 import org.apache.logging.log4j.LogManager;
@@ -20,6 +18,8 @@ import org.broadinstitute.hellbender.utils.variant.VcfUtils;
 
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -37,10 +37,17 @@ import java.util.stream.Collectors;
  * -Targeted queries by one interval at a time. This also requires the files to have been indexed using
  *  the bundled tool IndexFeatureFile. Targeted queries by one interval at a time are unaffected by
  *  any intervals for full traversal set via {@link #setIntervalsForTraversal(List)}.
+ *
+ * The sources are merged by a {@link MultiVariantMergingIterator}. Full traversals can read ahead from every source on
+ * background threads, see {@link #enableReadAhead(int, int)}, which keeps traversals over many inputs from being
+ * bound by the decoding of the inputs on the traversal thread.
  */
 public final class MultiVariantDataSource implements GATKDataSource<VariantContext>, AutoCloseable {
     private static final Logger logger = LogManager.getLogger(MultiVariantDataSource.class);
 
+    // number of sources listed when reporting the time spent waiting for the sources
+    private static final int MAX_SOURCES_IN_STALL_REPORT = 5;
+
     /**
      * List of FeatureDataSource objects aggregated by this MultiVariantDataSource
      */
@@ -60,6 +67,17 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
     private CloseableIterator<VariantContext> currentIterator;
     private SortedSet<String> mergedSamples;
 
+    /**
+     * Executor used to read ahead from the sources during full traversals, or null if read-ahead is disabled
+     */
+    private ExecutorService readAheadExecutor;
+    private int readAheadBlockSize;
+
+    /**
+     * Time spent waiting for each source during the read-ahead traversals closed so far, in nanoseconds, by source name
+     */
+    private final Map<String, Long> readAheadStallNanos = new LinkedHashMap<>();
+
     /**
      * Creates a MultiVariantDataSource backed by the provided FeatureInputs. We will look ahead the specified number of bases
      * during queries that produce cache misses.
@@ -147,6 +165,35 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
         featureDataSources.forEach(ds -> ds.setIntervalsForTraversal(intervals));
     }
 
+    /**
+     * Read ahead from the sources during future traversals via {@link #iterator}, on background threads, in blocks
+     * of {@code blockSize} variants per source. The genotypes of the variants are decoded as they are read ahead
+     * rather than when they are first accessed. Queries via {@link #query(SimpleInterval)} are not affected.
+     *
+     * The time spent waiting for each source is reported when this data source is closed, and available via
+     * {@link #getReadAheadStallNanos()}.
+     *
+     * @param numThreads number of threads reading ahead, shared by all the sources
+     * @param blockSize number of variants read ahead from a source at a time
+     */
+    public void enableReadAhead(final int numThreads, final int blockSize) {
+        Utils.validateArg(numThreads > 0, "numThreads must be positive");
+        Utils.validateArg(blockSize > 0, "blockSize must be positive");
+        Utils.validate(readAheadExecutor == null, "read-ahead is already enabled");
+        readAheadExecutor = Executors.newFixedThreadPool(numThreads, new ThreadFactoryBuilder()
+                .setNameFormat("variantReadAhead-thread-%d")
+                .setDaemon(true).build());
+        readAheadBlockSize = blockSize;
+    }
+
+    /**
+     * @return the time spent waiting for the variants read ahead from each source, in nanoseconds, by source name,
+     * over all the traversals closed so far; empty if read-ahead is not enabled
+     */
+    public Map<String, Long> getReadAheadStallNanos() {
+        return Collections.unmodifiableMap(readAheadStallNanos);
+    }
+
     /**
      * Gets an iterator over all variants in this data source, restricting traversal to variants
      * overlapping our intervals if intervals were provided via {@link #setIntervalsForTraversal(List)}
@@ -157,7 +204,7 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      */
     @Override
     public Iterator<VariantContext> iterator() {
-        return getMergedIteratorFromDataSources(ds -> ds.iterator());
+        return getMergedIteratorFromDataSources(ds -> ds.iterator(), readAheadExecutor);
     }
 
     /**
@@ -179,27 +226,31 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
      */
     @Override
     public Iterator<VariantContext> query( final SimpleInterval interval ) {
-        return getMergedIteratorFromDataSources(ds -> ds.queryAndPrefetch(interval).iterator());
+        return getMergedIteratorFromDataSources(ds -> ds.queryAndPrefetch(interval).iterator(), null);
     }
 
     /**
      * Close any existing iterator, create a new iterator and update the local cached iterator reference.
      * @param iteratorFromSource function to retrieve individual iterator, to be applied to each data source
+     * @param readAhead executor on which to read ahead from the data sources, or null to read on the calling thread
      * @return
      */
     private Iterator<VariantContext> getMergedIteratorFromDataSources(
-            final Function<FeatureDataSource<VariantContext>, Iterator<VariantContext>> iteratorFromSource) {
+            final Function<FeatureDataSource<VariantContext>, Iterator<VariantContext>> iteratorFromSource,
+            final ExecutorService readAhead) {
 
         // Tribble documentation states that having multiple iterators open simultaneously over the same FeatureReader
         // results in undefined behavior
         closeOpenIterationIfNecessary();
 
-        if (featureDataSources.size() > 1) {
-            final List<CloseableIterator<VariantContext>> iterators = new ArrayList<>(featureDataSources.size());
-            featureDataSources.forEach(ds -> iterators.add(getCloseableIteratorWrapper(iteratorFromSource.apply((ds)))));
-
-            final VariantContextComparator varComparator = new VariantContextComparator(getSequenceDictionary());
-            currentIterator = new MergingIterator<>(varComparator, iterators);
+        if (featureDataSources.size() > 1 || readAhead != null) {
+            final List<Iterator<VariantContext>> iterators = new ArrayList<>(featureDataSources.size());
+            final List<String> names = new ArrayList<>(featureDataSources.size());
+            featureDataSources.forEach(ds -> {
+                iterators.add(Utils.nonNull(iteratorFromSource.apply(ds)));
+                names.add(ds.getName());
+            });
+            currentIterator = new MultiVariantMergingIterator(iterators, names, getSequenceDictionary(), readAhead, readAheadBlockSize);
         } else {
             currentIterator = getCloseableIteratorWrapper(iteratorFromSource.apply(featureDataSources.get(0)));
         }
@@ -224,9 +275,29 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
     @Override
     public void close() {
         closeOpenIterationIfNecessary();
+        if (readAheadExecutor != null) {
+            readAheadExecutor.shutdownNow();
+            logReadAheadStatistics();
+        }
         featureDataSources.forEach(dataSource -> dataSource.close());
     }
 
+    /**
+     * Log the total time spent waiting for the sources during read-ahead traversals, and the sources that were waited
+     * for the longest, which are the ones that limit the speed of the traversal.
+     */
+    private void logReadAheadStatistics() {
+        final long totalStallNanos = readAheadStallNanos.values().stream().mapToLong(Long::longValue).sum();
+        final String slowestSources = readAheadStallNanos.entrySet().stream()
+                .filter(e -> e.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(MAX_SOURCES_IN_STALL_REPORT)
+                .map(e -> String.format("%s (%.2f s)", e.getKey(), e.getValue() / 1e9))
+                .collect(Collectors.joining(", "));
+        logger.info(String.format("Waited %.2f s for variants read ahead from %d sources%s", totalStallNanos / 1e9,
+                featureDataSources.size(), slowestSources.isEmpty() ? "" : "; longest waits: " + slowestSources));
+    }
+
     private SAMSequenceDictionary getMergedSequenceDictionary(VCFHeader header) {
         return header != null ? header.getSequenceDictionary() : null;
     }
@@ -380,12 +451,16 @@ public final class MultiVariantDataSource implements GATKDataSource<VariantConte
     private void closeOpenIterationIfNecessary() {
         if (currentIterator != null) {
             currentIterator.close();
+            if (readAheadExecutor != null && currentIterator instanceof MultiVariantMergingIterator) {
+                ((MultiVariantMergingIterator) currentIterator).getStallNanosByInput().forEach(
+                        (name, stallNanos) -> readAheadStallNanos.merge(name, stallNanos, Long::sum));
+            }
             currentIterator = null;
         }
     }
 
     /**
-     * Wrap the sourceIterator in a CloseableIterator to make it usable as a MergingIterator source.
+     * Wrap the sourceIterator of a single data source in a CloseableIterator, so that it can be closed like a merged traversal.
      */
     private CloseableIterator<VariantContext> getCloseableIteratorWrapper(final Iterator<VariantContext> sourceIterator) {
         Utils.nonNull(sourceIterator);
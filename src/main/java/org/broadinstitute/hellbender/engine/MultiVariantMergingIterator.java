@@ -0,0 +1,225 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.util.CloseableIterator;
+import htsjdk.variant.variantcontext.GenotypesContext;
+import htsjdk.variant.variantcontext.LazyGenotypesContext;
+import htsjdk.variant.variantcontext.VariantContext;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Merges the variants of several inputs, each sorted by position, into a single iterator sorted by position.
+ *
+ * This is a k-way merge over a heap of inputs ordered by the contig index and start of their next variant. The contig
+ * index of each variant is resolved once, when the variant becomes the head of its input, so comparisons in the heap
+ * only compare ints. Variants with the same contig and start are returned in the same order as by htsjdk's
+ * {@link htsjdk.samtools.util.MergingIterator} with a {@link htsjdk.variant.variantcontext.VariantContextComparator}.
+ *
+ * Without an executor, the variants are pulled from the inputs on the calling thread as they are needed, and their
+ * genotypes are left undecoded until a tool asks for them. With an executor, each input is read ahead in blocks of
+ * variants on the executor's threads, one block ahead of the block being merged: reading, and decoding the genotypes,
+ * of the variants then happens in parallel across inputs rather than on the traversal thread. The genotypes have to be
+ * decoded on the thread that reads them, as the codec of an input is not thread-safe. The time spent waiting for each
+ * input's blocks is recorded, see {@link #getStallNanosByInput()}.
+ */
+final class MultiVariantMergingIterator implements CloseableIterator<VariantContext> {
+
+    private final SAMSequenceDictionary dictionary;
+    private final ExecutorService readAheadExecutor;
+    private final int blockSize;
+    private final List<Input> inputs;
+    private final PriorityQueue<Input> heap;
+
+    /**
+     * @param sources iterators over the variants of each input, each sorted by position
+     * @param names names of the inputs, used in error messages and statistics
+     * @param dictionary dictionary defining the order of the contigs, only required when there is more than one input
+     * @param readAheadExecutor executor on which to read ahead from the inputs, or null to read on the calling thread
+     * @param blockSize number of variants read ahead from an input at a time
+     */
+    MultiVariantMergingIterator(final List<Iterator<VariantContext>> sources, final List<String> names, final SAMSequenceDictionary dictionary,
+                                final ExecutorService readAheadExecutor, final int blockSize) {
+        Utils.nonEmpty(sources);
+        Utils.validateArg(sources.size() == names.size(), "there must be one name per input");
+        Utils.validateArg(sources.size() == 1 || dictionary != null, "a sequence dictionary is required to merge several inputs");
+        Utils.validateArg(blockSize > 0, "blockSize must be positive");
+        this.dictionary = dictionary;
+        this.readAheadExecutor = readAheadExecutor;
+        this.blockSize = blockSize;
+        this.heap = new PriorityQueue<>(sources.size(), MultiVariantMergingIterator::compareHeads);
+
+        this.inputs = new ArrayList<>(sources.size());
+        for ( int i = 0; i < sources.size(); i++ ) {
+            inputs.add(new Input(Utils.nonNull(sources.get(i)), names.get(i)));
+        }
+        // start reading every input before waiting for any of them
+        if ( readAheadExecutor != null ) {
+            inputs.forEach(Input::startReadAhead);
+        }
+        for ( final Input input : inputs ) {
+            if ( input.advance() ) {
+                heap.add(input);
+            }
+        }
+    }
+
+    private static int compareHeads(final Input first, final Input second) {
+        final int contigCompare = Integer.compare(first.headContigIndex, second.headContigIndex);
+        return contigCompare != 0 ? contigCompare : Integer.compare(first.head.getStart(), second.head.getStart());
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !heap.isEmpty();
+    }
+
+    @Override
+    public VariantContext next() {
+        final Input input = heap.poll();
+        if ( input == null ) {
+            throw new NoSuchElementException("hasNext should be called before next");
+        }
+        final VariantContext next = input.head;
+        if ( input.advance() ) {
+            heap.add(input);
+        }
+        return next;
+    }
+
+    /**
+     * @return the time spent waiting for the blocks read ahead from each input, by input name, in nanoseconds
+     */
+    Map<String, Long> getStallNanosByInput() {
+        final Map<String, Long> stallNanos = new LinkedHashMap<>(inputs.size() * 2);
+        inputs.forEach(input -> stallNanos.merge(input.name, input.stallNanos, Long::sum));
+        return stallNanos;
+    }
+
+    /**
+     * Stop merging, and wait for any block being read ahead, so that the inputs can be closed safely afterwards.
+     */
+    @Override
+    public void close() {
+        heap.clear();
+        inputs.forEach(Input::cancelReadAhead);
+    }
+
+    /**
+     * An input of the merge, and its next variant
+     */
+    private final class Input {
+        private final Iterator<VariantContext> source;
+        private final String name;
+
+        private VariantContext head;
+        private int headContigIndex;
+
+        // read-ahead state: the block being merged, and the next one, which is null once the input is exhausted
+        private Iterator<VariantContext> block = Collections.emptyIterator();
+        private CompletableFuture<List<VariantContext>> nextBlock;
+        private long stallNanos;
+
+        Input(final Iterator<VariantContext> source, final String name) {
+            this.source = source;
+            this.name = name;
+        }
+
+        /**
+         * Replace the head of this input with its next variant
+         *
+         * @return false if the input is exhausted
+         */
+        boolean advance() {
+            final VariantContext previous = head;
+            final int previousContigIndex = headContigIndex;
+            head = readAheadExecutor == null ? (source.hasNext() ? source.next() : null) : nextFromBlocks();
+            if ( head == null ) {
+                return false;
+            }
+            // a single input is never compared, and doesn't need a dictionary
+            if ( inputs.size() > 1 ) {
+                headContigIndex = previous != null && previous.getContig().equals(head.getContig()) ?
+                        previousContigIndex : getContigIndex(head);
+                if ( previous != null && (headContigIndex < previousContigIndex ||
+                        (headContigIndex == previousContigIndex && head.getStart() < previous.getStart())) ) {
+                    throw new UserException.BadInput(String.format("Input %s is not sorted by position: %s:%d comes after %s:%d",
+                            name, head.getContig(), head.getStart(), previous.getContig(), previous.getStart()));
+                }
+            }
+            return true;
+        }
+
+        private int getContigIndex(final VariantContext variant) {
+            final int index = dictionary.getSequenceIndex(variant.getContig());
+            if ( index == -1 ) {
+                throw new UserException.BadInput(String.format("Contig %s of a variant in input %s is not in the sequence dictionary of the inputs",
+                        variant.getContig(), name));
+            }
+            return index;
+        }
+
+        private VariantContext nextFromBlocks() {
+            while ( !block.hasNext() ) {
+                if ( nextBlock == null ) {
+                    return null;
+                }
+                final List<VariantContext> variants = waitForNextBlock();
+                // a short block is the last one
+                nextBlock = variants.size() < blockSize ? null : CompletableFuture.supplyAsync(this::readBlock, readAheadExecutor);
+                block = variants.iterator();
+            }
+            return block.next();
+        }
+
+        void startReadAhead() {
+            nextBlock = CompletableFuture.supplyAsync(this::readBlock, readAheadExecutor);
+        }
+
+        // runs on the read-ahead executor; only one block of an input is ever read at a time
+        private List<VariantContext> readBlock() {
+            final List<VariantContext> variants = new ArrayList<>(blockSize);
+            while ( variants.size() < blockSize && source.hasNext() ) {
+                final VariantContext variant = source.next();
+                final GenotypesContext genotypes = variant.getGenotypes();
+                if ( genotypes instanceof LazyGenotypesContext ) {
+                    ((LazyGenotypesContext) genotypes).decode();
+                }
+                variants.add(variant);
+            }
+            return variants;
+        }
+
+        private List<VariantContext> waitForNextBlock() {
+            final long start = nextBlock.isDone() ? 0 : System.nanoTime();
+            try {
+                return nextBlock.join();
+            } catch ( final CompletionException e ) {
+                // rethrow the exception of the reading thread here
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            } finally {
+                if ( start != 0 ) {
+                    stallNanos += System.nanoTime() - start;
+                }
+            }
+        }
+
+        void cancelReadAhead() {
+            if ( nextBlock != null ) {
+                try {
+                    nextBlock.join();
+                } catch ( final CompletionException e ) {
+                    // we're closing, so there's no one left to report it to
+                }
+                nextBlock = null;
+            }
+            block = Collections.emptyIterator();
+            head = null;
+        }
+    }
+}
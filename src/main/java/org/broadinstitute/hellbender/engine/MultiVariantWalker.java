@@ -3,6 +3,8 @@ package org.broadinstitute.hellbender.engine;
 import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Advanced;
+import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.argumentcollections.MultiVariantInputArgumentCollection;
@@ -26,9 +28,27 @@ import java.util.Spliterator;
  */
 public abstract class MultiVariantWalker extends VariantWalkerBase {
 
+    public static final String READ_AHEAD_THREADS_NAME = "variant-read-ahead-threads";
+    public static final String READ_AHEAD_BLOCK_SIZE_NAME = "variant-read-ahead-block-size";
+    public static final int DEFAULT_READ_AHEAD_BLOCK_SIZE = 100;
+
     @ArgumentCollection
     protected MultiVariantInputArgumentCollection multiVariantInputArgumentCollection = getMultiVariantInputArgumentCollection();
 
+    /**
+     * When many driving variant files are merged, decoding them on the traversal thread can dominate the runtime.
+     * With this argument, the files are read, and their genotypes decoded, ahead of the traversal on background threads.
+     */
+    @Advanced
+    @Argument(fullName = READ_AHEAD_THREADS_NAME, doc = "Number of background threads reading ahead from the driving " +
+            "variant files (0 to read them on the traversal thread)", optional = true, minValue = 0)
+    protected int readAheadThreads = 0;
+
+    @Advanced
+    @Argument(fullName = READ_AHEAD_BLOCK_SIZE_NAME, doc = "Number of variants read ahead from each driving variant file " +
+            "at a time, when reading ahead", optional = true, minValue = 1)
+    protected int readAheadBlockSize = DEFAULT_READ_AHEAD_BLOCK_SIZE;
+
     // NOTE: keeping the driving source of variants separate from other, supplementary FeatureInputs in our FeatureManager
     // in GATKTool we do add the driving source to the Feature manager but we do need to treat it differently and thus this
     // field.
@@ -98,6 +118,9 @@ public abstract class MultiVariantWalker extends VariantWalkerBase {
         // cache lookahead value from getDrivingVariantCacheLookAheadBases()
         drivingVariants = new MultiVariantDataSource(drivingVariantsFeatureInputs, getDrivingVariantCacheLookAheadBases(), cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
                                                      referenceArguments.getReferencePath(), skipDictionaryValidation);
+        if (readAheadThreads > 0) {
+            drivingVariants.enableReadAhead(readAheadThreads, readAheadBlockSize);
+        }
 
         // Note: the intervals for the driving variants are set in onStartup()
     }
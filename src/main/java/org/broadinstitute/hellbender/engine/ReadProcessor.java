@@ -0,0 +1,34 @@
+package org.broadinstitute.hellbender.engine;
+
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+/**
+ * Processes reads on behalf of a {@link ReadWalker} during multi-threaded traversal.
+ *
+ * Each worker thread owns exactly one processor, so a processor is never called concurrently and may keep
+ * mutable per-thread state. Each read is given to exactly one processor, after the read filters and transformers
+ * have been applied to it on the same worker thread.
+ *
+ * The per-read work should happen in {@link #process}, which runs on a worker thread. Anything that must happen in
+ * input order (typically writing the read) goes in the returned action, which the walker runs on the traversal
+ * thread in the same order as the reads were read, so that output is identical to the output of a single-threaded
+ * traversal.
+ */
+public interface ReadProcessor extends AutoCloseable {
+
+    /**
+     * Process an individual read on a worker thread.
+     *
+     * @param read current read, already filtered and transformed
+     * @param referenceContext Reference bases spanning the current read, see {@link ReadWalker#apply}
+     * @param featureContext Features spanning the current read, see {@link ReadWalker#apply}
+     * @return an action that emits the results for this read; it will be run on the traversal thread, in read order
+     */
+    Runnable process(final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext);
+
+    /**
+     * Release any resources held by this processor. Called on the traversal thread once traversal is complete.
+     */
+    @Override
+    default void close() { }
+}
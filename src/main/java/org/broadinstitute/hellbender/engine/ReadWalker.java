@@ -1,14 +1,23 @@
 package org.broadinstitute.hellbender.engine;
 
 import htsjdk.samtools.SAMSequenceDictionary;
+import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineException;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.WellformedReadFilter;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.transformers.ReadTransformer;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
  * A ReadWalker is a tool that processes a single read at a time from one or multiple sources of reads, with
@@ -24,6 +33,11 @@ import java.util.List;
  *
  * ReadWalker authors must implement the apply() method to process each read, and may optionally implement
  * onTraversalStart() and/or onTraversalSuccess(). See the PrintReadsWithReference walker for an example.
+ *
+ * Tools whose per-read processing does not depend on the other reads may override {@link #supportsMultiThreadedTraversal}
+ * and {@link #makeReadProcessor} to be run with more than one thread. Reads are then still read serially, but are
+ * transformed, filtered and processed in batches on a pool of worker threads, each with its own {@link ReadProcessor},
+ * and their output is emitted in input order.
  */
 public abstract class ReadWalker extends WalkerBase {
 
@@ -41,6 +55,24 @@ public abstract class ReadWalker extends WalkerBase {
      */
     public static final int FEATURE_CACHE_LOOKAHEAD = 1_000;
 
+    /**
+     * Number of consecutive reads handed to a worker thread at once during multi-threaded traversal.
+     */
+    private static final int READ_BATCH_SIZE = 2_000;
+
+    /**
+     * Maximum number of read batches that may be in flight per thread during multi-threaded traversal.
+     */
+    private static final int MAX_PENDING_BATCHES_PER_THREAD = 4;
+
+    /**
+     * Reads are always read on a single thread, but tools that support it can transform, filter and process them on
+     * several threads. The output is the same regardless of the number of threads.
+     */
+    @Argument(fullName = StandardArgumentDefinitions.THREADS_LONG_NAME, doc = "Number of threads used to process reads, " +
+            "only supported by tools that implement multi-threaded traversal", optional = true, minValue = 1)
+    protected int threads = 1;
+
     /**
      * Initialize data sources for traversal.
      *
@@ -50,9 +82,22 @@ public abstract class ReadWalker extends WalkerBase {
     protected final void onStartup() {
         super.onStartup();
 
+        if ( threads > 1 && !supportsMultiThreadedTraversal() ) {
+            throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, String.valueOf(threads),
+                    getClass().getSimpleName() + " does not support multi-threaded traversal");
+        }
         setReadTraversalBounds();
     }
 
+    /**
+     * When processing reads on several threads, inflate the input ahead of the traversal thread, which would otherwise
+     * be the bottleneck. Lazily-decoded record fields are then decoded on the worker threads.
+     */
+    @Override
+    boolean readsShouldBeReadAsynchronously() {
+        return threads > 1;
+    }
+
     /**
      * Initialize traversal bounds if intervals are specified
      */
@@ -68,11 +113,7 @@ public abstract class ReadWalker extends WalkerBase {
     @Override
     void initializeFeatures() {
         //We override this method to change lookahead of the cache
-        features = new FeatureManager(this, FEATURE_CACHE_LOOKAHEAD, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
-                                      getGenomicsDBOptions());
-        if ( features.isEmpty() ) {  // No available sources of Features discovered for this tool
-            features = null;
-        }
+        features = createFeatureManager(FEATURE_CACHE_LOOKAHEAD);
     }
 
     /**
@@ -91,6 +132,11 @@ public abstract class ReadWalker extends WalkerBase {
      */
     @Override
     public void traverse() {
+        if ( threads > 1 ) {
+            traverseInParallel();
+            return;
+        }
+
         // Process each read in the input stream.
         // Supply reference bases spanning each read, if a reference is available.
         final CountingReadFilter countedFilter = makeReadFilter();
@@ -107,6 +153,121 @@ public abstract class ReadWalker extends WalkerBase {
         logger.info(countedFilter.getSummaryLine());
     }
 
+    /**
+     * Read the input on this thread and hand it out in batches to a pool of worker threads. Every worker owns its own
+     * read filter, transformers, {@link ReadProcessor} and reference and Feature data sources, since none of them are
+     * guaranteed to be thread-safe. The output of each batch is emitted on this thread in input order, and the counts
+     * of the per-worker filters are combined once traversal is complete.
+     */
+    private void traverseInParallel() {
+        logger.info("Processing reads using " + threads + " threads");
+        final CountingReadFilter countedFilter = makeReadFilter();
+        final BlockingQueue<ReadWorker> idleWorkers = new ArrayBlockingQueue<>(threads);
+        final List<ReadWorker> allWorkers = new ArrayList<>(threads);
+        try {
+            for ( int i = 0; i < threads; i++ ) {
+                final ReadWorker worker = new ReadWorker(makeReadFilter(), makePreReadFilterTransformer(), makePostReadFilterTransformer(),
+                        makeReadProcessor(), hasReference() ? createReferenceDataSource() : null,
+                        createFeatureManager(FEATURE_CACHE_LOOKAHEAD));
+                allWorkers.add(worker);
+                idleWorkers.add(worker);
+            }
+
+            try ( final OrderedParallelExecutor<Runnable> executor = new OrderedParallelExecutor<>(threads,
+                    threads * MAX_PENDING_BATCHES_PER_THREAD, "readWalker", Runnable::run) ) {
+                List<GATKRead> batch = new ArrayList<>(READ_BATCH_SIZE);
+                for ( final GATKRead read : reads ) {
+                    batch.add(read);
+                    if ( batch.size() == READ_BATCH_SIZE ) {
+                        submitBatch(executor, idleWorkers, batch);
+                        batch = new ArrayList<>(READ_BATCH_SIZE);
+                    }
+                }
+                if ( !batch.isEmpty() ) {
+                    submitBatch(executor, idleWorkers, batch);
+                }
+                executor.drain();
+            }
+            allWorkers.forEach(worker -> countedFilter.addFilteredCounts(worker.filter));
+        } finally {
+            allWorkers.forEach(ReadWorker::close);
+        }
+
+        logger.info(countedFilter.getSummaryLine());
+    }
+
+    private void submitBatch(final OrderedParallelExecutor<Runnable> executor, final BlockingQueue<ReadWorker> idleWorkers, final List<GATKRead> batch) {
+        executor.submit(() -> {
+            final ReadWorker worker = idleWorkers.take();
+            try {
+                return worker.processBatch(batch);
+            } finally {
+                idleWorkers.add(worker);
+            }
+        });
+    }
+
+    /**
+     * The per-thread state of the multi-threaded traversal.
+     */
+    private final class ReadWorker implements AutoCloseable {
+        private final CountingReadFilter filter;
+        private final ReadTransformer preTransformer;
+        private final ReadTransformer postTransformer;
+        private final ReadProcessor processor;
+        private final ReferenceDataSource reference;
+        private final FeatureManager features;
+
+        ReadWorker(final CountingReadFilter filter, final ReadTransformer preTransformer, final ReadTransformer postTransformer,
+                   final ReadProcessor processor, final ReferenceDataSource reference, final FeatureManager features) {
+            this.filter = filter;
+            this.preTransformer = preTransformer;
+            this.postTransformer = postTransformer;
+            this.processor = processor;
+            this.reference = reference;
+            this.features = features;
+        }
+
+        /**
+         * Transform, filter and process a batch of reads, in the same order as the serial traversal.
+         *
+         * @return an action that emits the output of the batch and updates the progress meter
+         */
+        Runnable processBatch(final List<GATKRead> batch) {
+            final List<Runnable> outputs = new ArrayList<>(batch.size());
+            final List<SimpleInterval> readIntervals = new ArrayList<>(batch.size());
+            for ( final GATKRead rawRead : batch ) {
+                final GATKRead preTransformedRead = preTransformer.apply(rawRead);
+                if ( !filter.test(preTransformedRead) ) {
+                    continue;
+                }
+                final GATKRead read = postTransformer.apply(preTransformedRead);
+                final SimpleInterval readInterval = getReadInterval(read);
+                outputs.add(processor.process(read,
+                        new ReferenceContext(reference, readInterval), // Will create an empty ReferenceContext if reference or readInterval == null
+                        new FeatureContext(features, readInterval)));  // Will create an empty FeatureContext if features or readInterval == null
+                readIntervals.add(readInterval);
+            }
+            return () -> {
+                for ( int i = 0; i < outputs.size(); i++ ) {
+                    outputs.get(i).run();
+                    progressMeter.update(readIntervals.get(i));
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+            processor.close();
+            if ( reference != null ) {
+                reference.close();
+            }
+            if ( features != null ) {
+                features.close();
+            }
+        }
+    }
+
     /**
      * Returns an interval for the read.
      * Note: some walkers must be able to work on any read, including those whose coordinates do not form a valid SimpleInterval.
@@ -161,6 +322,32 @@ public abstract class ReadWalker extends WalkerBase {
      */
     public abstract void apply( GATKRead read, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Whether this tool can process reads on several threads, via processors created by {@link #makeReadProcessor}.
+     * Only tools whose processing of a read does not depend on the reads that precede it may support it. Tools that
+     * return true must override {@link #makeReadProcessor}.
+     *
+     * @return false by default
+     */
+    public boolean supportsMultiThreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Create an independent processor for one of the worker threads of the multi-threaded traversal. Called once per
+     * thread on the traversal thread, after {@link #onTraversalStart}. Processing a read with a new processor must
+     * produce the same output as {@link #apply}; in particular, processors may not share mutable state with each other
+     * or with the tool.
+     *
+     * Tools that cannot support the multi-threaded traversal with their current arguments should throw a
+     * {@link UserException} from this method.
+     *
+     * @return a new processor, owned by a single worker thread
+     */
+    protected ReadProcessor makeReadProcessor() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multi-threaded traversal");
+    }
+
     /**
      * Shutdown data sources.
      *
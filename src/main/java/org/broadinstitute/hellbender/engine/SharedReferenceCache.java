@@ -0,0 +1,279 @@
+package org.broadinstitute.hellbender.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import htsjdk.samtools.SAMSequenceDictionary;
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.LRUCache;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.fasta.CachingIndexedFastaSequenceFile;
+
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe, size-bounded cache of decoded reference bases, shared by all the threads of a traversal.
+ *
+ * The reference is cached in fixed-size chunks, aligned on chunk boundaries within each contig, and the least recently
+ * used chunks are evicted once the cache is full. Each chunk is read from the fasta file (and normalized, see
+ * {@link CachingIndexedFastaSequenceFile}) only once while it stays in the cache, no matter how many threads or
+ * overlapping windows query it. After every query the chunk following it is read ahead on a background thread, so that
+ * traversals in coordinate order rarely wait for the fasta file.
+ *
+ * Threads query the cache through the lightweight {@link ReferenceDataSource}s returned by {@link #newReferenceDataSource()}.
+ * Hit and miss counts are kept so that the size of the cache can be tuned; see {@link #logStatistics()}.
+ */
+public final class SharedReferenceCache implements AutoCloseable {
+    private static final Logger logger = LogManager.getLogger(SharedReferenceCache.class);
+
+    /** The default size of the cached chunks, in bases */
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+
+    // all reads from the fasta file are serialized on the reader, which is not thread-safe
+    private final CachingIndexedFastaSequenceFile reader;
+    private final SAMSequenceDictionary sequenceDictionary;
+    private final int chunkSize;
+
+    // queries longer than this bypass the cache, so that they don't evict everything else
+    private final long maxCachedQueryLength;
+
+    // chunks by contig index and chunk index, see chunkKey(); a chunk is present as soon as some thread starts loading it
+    private final LRUCache<Long, CompletableFuture<byte[]>> chunks;
+
+    private final ExecutorService prefetcher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder prefetches = new LongAdder();
+
+    /**
+     * Create a cache for the given fasta file, which must have companion .fai and .dict files.
+     *
+     * @param fastaPath reference fasta file
+     * @param preserveFileBases if true, will NOT convert IUPAC bases in the file to `N` and will NOT capitalize lower-case bases
+     * @param chunkSize size of the cached chunks, in bases
+     * @param maxChunks maximum number of chunks in the cache, at least 2
+     */
+    public SharedReferenceCache(final Path fastaPath, final boolean preserveFileBases, final int chunkSize, final int maxChunks) {
+        Utils.nonNull(fastaPath);
+        Utils.validateArg(chunkSize > 0, "chunkSize must be positive");
+        Utils.validateArg(maxChunks >= 2, "maxChunks must be at least 2");
+        // the chunks are cached here, so the reader itself only needs the smallest possible cache
+        this.reader = new CachingIndexedFastaSequenceFile(fastaPath, 1, preserveFileBases, preserveFileBases);
+        this.sequenceDictionary = reader.getSequenceDictionary();
+        this.chunkSize = chunkSize;
+        this.maxCachedQueryLength = (long) chunkSize * (maxChunks / 2);
+        this.chunks = new LRUCache<>(maxChunks);
+        this.prefetcher = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("referencePrefetch-thread-%d")
+                .setDaemon(true).build());
+    }
+
+    /**
+     * @return a new ReferenceDataSource backed by this cache. Closing it does not close the cache.
+     */
+    public ReferenceDataSource newReferenceDataSource() {
+        return new CachedReferenceSource();
+    }
+
+    /**
+     * @return the sequence dictionary of the reference
+     */
+    public SAMSequenceDictionary getSequenceDictionary() {
+        return sequenceDictionary;
+    }
+
+    /**
+     * Get the bases of the reference in the range [start,stop] of a contig, reading them from the fasta file only if
+     * they are not in the cache.
+     *
+     * @param contig contig whose bases to retrieve
+     * @param start inclusive, 1-based start of the range
+     * @param stop inclusive, 1-based stop of the range
+     * @return the reference bases in the range
+     */
+    public ReferenceSequence getSubsequenceAt(final String contig, final long start, final long stop) {
+        final SAMSequenceRecord contigRecord = sequenceDictionary.getSequence(contig);
+        if ( contigRecord == null ) {
+            throw new UserException.MissingContigInSequenceDictionary(contig, sequenceDictionary);
+        }
+
+        // let the reader deal with (or complain about) unusual queries, and don't let very long ones flush the cache
+        if ( start < 1 || stop < start || stop > contigRecord.getSequenceLength() || stop - start + 1 > maxCachedQueryLength ) {
+            misses.increment();
+            synchronized (reader) {
+                return reader.getSubsequenceAt(contig, start, stop);
+            }
+        }
+
+        final byte[] bases = new byte[(int)(stop - start + 1)];
+        final int firstChunk = (int)((start - 1) / chunkSize);
+        final int lastChunk = (int)((stop - 1) / chunkSize);
+        for ( int chunk = firstChunk; chunk <= lastChunk; chunk++ ) {
+            final byte[] chunkBases = getChunk(contigRecord, chunk);
+            final long chunkStart = (long) chunk * chunkSize + 1;
+            final long copyStart = Math.max(start, chunkStart);
+            final long copyStop = Math.min(stop, chunkStart + chunkBases.length - 1);
+            System.arraycopy(chunkBases, (int)(copyStart - chunkStart), bases, (int)(copyStart - start), (int)(copyStop - copyStart + 1));
+        }
+        prefetch(contigRecord, lastChunk + 1);
+
+        return new ReferenceSequence(contigRecord.getSequenceName(), contigRecord.getSequenceIndex(), bases);
+    }
+
+    private static long chunkKey(final SAMSequenceRecord contigRecord, final int chunk) {
+        return ((long) contigRecord.getSequenceIndex() << 32) | chunk;
+    }
+
+    /**
+     * Get the bases of a chunk, loading it on this thread if no other thread has started loading it
+     */
+    private byte[] getChunk(final SAMSequenceRecord contigRecord, final int chunk) {
+        final long key = chunkKey(contigRecord, chunk);
+        final CompletableFuture<byte[]> cached;
+        final CompletableFuture<byte[]> loading;
+        synchronized (chunks) {
+            cached = chunks.get(key);
+            loading = cached == null ? new CompletableFuture<>() : null;
+            if ( loading != null ) {
+                chunks.put(key, loading);
+            }
+        }
+
+        if ( cached != null ) {
+            hits.increment();
+            try {
+                return cached.join();
+            } catch ( final CompletionException e ) {
+                // the load failed on another thread: rethrow its exception here
+                throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+            }
+        }
+        misses.increment();
+        return load(contigRecord, chunk, loading);
+    }
+
+    /**
+     * Start loading the given chunk on the prefetch thread, unless it's past the end of the contig or already cached
+     */
+    private void prefetch(final SAMSequenceRecord contigRecord, final int chunk) {
+        if ( (long) chunk * chunkSize >= contigRecord.getSequenceLength() ) {
+            return;
+        }
+        final long key = chunkKey(contigRecord, chunk);
+        final CompletableFuture<byte[]> loading = new CompletableFuture<>();
+        synchronized (chunks) {
+            // containsKey doesn't count as an access, so it doesn't make the chunk more recently used
+            if ( chunks.containsKey(key) ) {
+                return;
+            }
+            chunks.put(key, loading);
+        }
+        prefetches.increment();
+        prefetcher.execute(() -> {
+            try {
+                load(contigRecord, chunk, loading);
+            } catch ( final RuntimeException e ) {
+                // reported to any thread that needs the chunk
+            }
+        });
+    }
+
+    private byte[] load(final SAMSequenceRecord contigRecord, final int chunk, final CompletableFuture<byte[]> loading) {
+        final long chunkStart = (long) chunk * chunkSize + 1;
+        final long chunkStop = Math.min(chunkStart + chunkSize - 1, contigRecord.getSequenceLength());
+        try {
+            final byte[] bases;
+            synchronized (reader) {
+                bases = reader.getSubsequenceAt(contigRecord.getSequenceName(), chunkStart, chunkStop).getBases();
+            }
+            loading.complete(bases);
+            return bases;
+        } catch ( final RuntimeException e ) {
+            // don't cache the failure
+            synchronized (chunks) {
+                chunks.remove(chunkKey(contigRecord, chunk), loading);
+            }
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the number of chunk lookups that found the chunk in the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of chunk lookups that had to read the chunk from the fasta file, plus the number of queries
+     * that bypassed the cache
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of chunks read ahead on the prefetch thread
+     */
+    public long getPrefetches() {
+        return prefetches.sum();
+    }
+
+    /**
+     * @return the fraction of lookups that were cache hits, or 0 if there were no lookups
+     */
+    public double getHitRate() {
+        final long hitCount = getHits();
+        final long lookups = hitCount + getMisses();
+        return lookups == 0 ? 0.0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Log the hit and miss counts of the cache
+     */
+    public void logStatistics() {
+        logger.info(String.format("Shared reference cache: %d hits, %d misses (%.2f%% hit rate), %d chunks of %d bases prefetched",
+                getHits(), getMisses(), 100.0 * getHitRate(), getPrefetches(), chunkSize));
+    }
+
+    /**
+     * Stop prefetching and close the fasta file. The cache must not be used after it is closed.
+     */
+    @Override
+    public void close() {
+        prefetcher.shutdownNow();
+        synchronized (reader) {
+            reader.close();
+        }
+    }
+
+    /**
+     * A view of the cache as a ReferenceDataSource. All views of a cache share its chunks.
+     */
+    private final class CachedReferenceSource implements ReferenceDataSource {
+        @Override
+        public Iterator<Byte> iterator() {
+            throw new UnsupportedOperationException("Iteration over entire reference not yet implemented");
+        }
+
+        @Override
+        public ReferenceSequence queryAndPrefetch(final String contig, final long start, final long stop) {
+            return getSubsequenceAt(contig, start, stop);
+        }
+
+        @Override
+        public SAMSequenceDictionary getSequenceDictionary() {
+            return sequenceDictionary;
+        }
+    }
+}
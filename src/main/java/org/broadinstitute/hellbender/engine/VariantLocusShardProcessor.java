@@ -0,0 +1,41 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.util.Locatable;
+import htsjdk.variant.variantcontext.VariantContext;
+
+import java.util.List;
+
+/**
+ * Processes variants on behalf of a {@link VariantLocusWalker} during multi-threaded traversal.
+ *
+ * The traversal intervals are divided into shards, and each shard is traversed in its entirety by a single worker
+ * thread: {@link #apply} is called for every locus (or variant, in by-variant traversal) of the shard, in order, then
+ * {@link #finishShard} is called once. Each worker thread owns exactly one processor, so a processor is never called
+ * concurrently and may accumulate per-shard results in mutable state.
+ *
+ * As for {@link LocusShardProcessor}, the work should happen in {@link #apply}, and {@link #finishShard} returns an
+ * action, run on the traversal thread in shard order, that emits the results of the shard.
+ */
+public interface VariantLocusShardProcessor extends AutoCloseable {
+
+    /**
+     * Process the variants at a locus of the current shard on a worker thread. See {@link VariantLocusWalker#apply}
+     * for the meaning of the arguments.
+     */
+    void apply(final Locatable loc, final List<VariantContext> variants, final ReadsContext readsContext,
+               final ReferenceContext referenceContext, final FeatureContext featureContext);
+
+    /**
+     * Complete the current shard on a worker thread, once all of its loci have been processed.
+     *
+     * @param shard bounds of the shard that was just processed
+     * @return an action that emits or merges the results for this shard; it will be run on the traversal thread, in shard order
+     */
+    Runnable finishShard(final ShardBoundary shard);
+
+    /**
+     * Release any resources held by this processor. Called on the traversal thread once traversal is complete.
+     */
+    @Override
+    default void close() { }
+}
@@ -4,18 +4,25 @@ import htsjdk.samtools.SAMSequenceDictionary;
 import htsjdk.samtools.util.Locatable;
 import htsjdk.variant.variantcontext.VariantContext;
 import htsjdk.variant.vcf.VCFHeader;
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
+import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.engine.filters.CountingReadFilter;
 import org.broadinstitute.hellbender.engine.filters.CountingVariantFilter;
 import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.IndexFeatureFile;
 import org.broadinstitute.hellbender.transformers.VariantTransformer;
+import org.broadinstitute.hellbender.utils.OrderedParallelExecutor;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
 import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.iterators.IntervalLocusIterator;
 import org.broadinstitute.hellbender.utils.iterators.ShardedIntervalIterator;
 
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,8 +34,34 @@ import java.util.stream.Stream;
  *
  * VariantLocusWalker authors must implement the {@link #apply} method to process each variant, and may optionally implement
  * {@link #onTraversalStart}, {@link #onTraversalSuccess} and/or {@link #closeTool}.
+ *
+ * Tools that override {@link #supportsMultiThreadedTraversal} and {@link #makeVariantLocusShardProcessor} may be run
+ * with more than one thread, in which case the traversal intervals are divided into shards of
+ * {@link #variantLocusShardSize} bases which are traversed concurrently, each by a single
+ * {@link VariantLocusShardProcessor}, and the results of each shard are handed to the tool in shard order.
  */
 public abstract class VariantLocusWalker extends VariantWalkerBase {
+    public static final String VARIANT_LOCUS_SHARD_SIZE_NAME = "variant-locus-shard-size";
+    public static final int DEFAULT_VARIANT_LOCUS_SHARD_SIZE = 1_000_000;
+
+    /**
+     * Shards of the traversal intervals are traversed concurrently by tools that support it. The output is the same
+     * regardless of the number of threads.
+     */
+    @Argument(fullName = StandardArgumentDefinitions.THREADS_LONG_NAME, doc = "Number of threads used to process variants, " +
+            "only supported by tools that implement multi-threaded traversal", optional = true, minValue = 1)
+    protected int threads = 1;
+
+    @Advanced
+    @Argument(fullName = VARIANT_LOCUS_SHARD_SIZE_NAME, doc = "Maximum size, in bases, of the shards of the traversal intervals " +
+            "processed by each thread when using more than one thread", optional = true, minValue = 1)
+    protected int variantLocusShardSize = DEFAULT_VARIANT_LOCUS_SHARD_SIZE;
+
+    /**
+     * Maximum number of shards that may be in flight per thread when processing variants on several threads. Bounds
+     * the memory held by shards that are complete but waiting for an earlier, slower shard to finish.
+     */
+    private static final int MAX_PENDING_SHARDS_PER_THREAD = 4;
 
     // NOTE: using String rather than FeatureInput<VariantContext> here so that we can keep this driving source
     //       of variants separate from any other potential sources of Features
@@ -61,6 +94,16 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
     @Override
     protected final void onStartup() {
         super.onStartup();
+        if ( threads > 1 ) {
+            if ( !supportsMultiThreadedTraversal() ) {
+                throw new CommandLineException.BadArgumentValue(StandardArgumentDefinitions.THREADS_LONG_NAME, String.valueOf(threads),
+                        getClass().getSimpleName() + " does not support multi-threaded traversal");
+            }
+            if ( !drivingVariants.supportsRandomAccess() ) {
+                throw new UserException.MissingIndex(drivingVariantFile, "Multi-threaded traversal requires the driving variants to be indexed. " +
+                        "Please index them using " + IndexFeatureFile.class.getSimpleName());
+            }
+        }
         if ( hasUserSuppliedIntervals() ) {
             drivingVariants.setIntervalsForTraversal(userIntervals);
         }
@@ -70,17 +113,27 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
     protected void initializeDrivingVariants() {
         drivingVariantsFeatureInput = new FeatureInput<>(drivingVariantFile, "drivingVariantFile");
 
+        drivingVariants = createDrivingVariantsDataSource();
+        addDrivingVariantsToFeatureManager(features);
+
+        // Note: the intervals for the driving variants are set in onStartup()
+    }
+
+    /**
+     * Create a new data source over the driving variants, with its own reader.
+     */
+    private FeatureDataSource<VariantContext> createDrivingVariantsDataSource() {
         // This is the data source for the driving source of variants,
         // which uses a cache lookahead of getDrivingVariantCacheLookAheadBases()
-        drivingVariants = new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+        return new FeatureDataSource<>(drivingVariantsFeatureInput, getDrivingVariantCacheLookAheadBases(), VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
                 getGenomicsDBOptions());
+    }
 
+    private void addDrivingVariantsToFeatureManager(final FeatureManager featureManager) {
         // Also add the driving datasource to the feature manager so that it can be queried. Setting cache lookahead
         // to 0 to avoid caching. Note: we are disabling lookahead here because of windowed queries that need to "look behind" as well.
-        features.addToFeatureSources(0, drivingVariantsFeatureInput, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
+        featureManager.addToFeatureSources(0, drivingVariantsFeatureInput, VariantContext.class, cloudPrefetchBuffer, cloudIndexPrefetchBuffer,
                 getGenomicsDBOptions());
-
-        // Note: the intervals for the driving variants are set in onStartup()
     }
 
     /**
@@ -121,6 +174,10 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     @Override
     public void traverse() {
+        if ( threads > 1 ) {
+            traverseInParallel();
+            return;
+        }
         final CountingReadFilter readFilter = makeReadFilter();
         final CountingVariantFilter variantFilter = makeVariantFilter();
         final VariantTransformer preTransformer  = makePreVariantFilterTransformer();
@@ -184,6 +241,192 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
         }
     }
 
+    /**
+     * Divide the traversal intervals (or the whole reference, if there are none) into shards of at most
+     * {@link #variantLocusShardSize} bases.
+     */
+    private List<VariantLocusShard> makeVariantLocusShards() {
+        final SAMSequenceDictionary dictionary = getBestAvailableSequenceDictionary();
+        final List<VariantLocusShard> shards = new ArrayList<>();
+        String previousContig = null;
+        int previousEnd = 0;
+        for ( final SimpleInterval interval : getTraversalIntervals() ) {
+            for ( final ShardBoundary boundary : Shard.divideIntervalIntoShards(interval, variantLocusShardSize, 0, dictionary) ) {
+                shards.add(new VariantLocusShard(boundary, boundary.getContig().equals(previousContig) ? previousEnd : 0));
+                previousContig = boundary.getContig();
+                previousEnd = boundary.getEnd();
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Traverse the shards of the traversal intervals on a pool of worker threads. Every worker owns its own
+     * {@link VariantLocusShardProcessor}, filters and transformers and driving variants, reads, reference and Feature
+     * data sources, since none of them are thread-safe, and traverses each of its shards from its own queries of the
+     * driving variants. The action returned by the processor for each shard is run on this thread in shard order.
+     */
+    private void traverseInParallel() {
+        final List<VariantLocusShard> shards = makeVariantLocusShards();
+        logger.info("Processing " + shards.size() + " shards of variants using " + threads + " threads");
+        final BlockingQueue<VariantLocusWorker> idleWorkers = new ArrayBlockingQueue<>(threads);
+        final List<VariantLocusWorker> allWorkers = new ArrayList<>(threads);
+        try {
+            for ( int i = 0; i < threads; i++ ) {
+                final VariantLocusWorker worker = new VariantLocusWorker();
+                allWorkers.add(worker);
+                idleWorkers.add(worker);
+            }
+
+            try ( final OrderedParallelExecutor<Runnable> executor = new OrderedParallelExecutor<>(threads,
+                    threads * MAX_PENDING_SHARDS_PER_THREAD, "variantLocusWalker", Runnable::run) ) {
+                for ( final VariantLocusShard shard : shards ) {
+                    executor.submit(() -> {
+                        final VariantLocusWorker worker = idleWorkers.take();
+                        try {
+                            return worker.process(shard);
+                        } finally {
+                            idleWorkers.add(worker);
+                        }
+                    });
+                }
+                executor.drain();
+            }
+        } finally {
+            allWorkers.forEach(VariantLocusWorker::close);
+        }
+    }
+
+    /**
+     * A shard of the traversal intervals, together with the end of the previous shard on the same contig (or 0).
+     * In by-variant traversal, variants overlapping several shards are only processed in the first one.
+     */
+    private static final class VariantLocusShard {
+        private final ShardBoundary boundary;
+        private final int previousEnd;
+
+        VariantLocusShard(final ShardBoundary boundary, final int previousEnd) {
+            this.boundary = boundary;
+            this.previousEnd = previousEnd;
+        }
+    }
+
+    /**
+     * The per-thread state of the multi-threaded traversal.
+     */
+    private final class VariantLocusWorker implements AutoCloseable {
+        private final CountingReadFilter readFilter = makeReadFilter();
+        private final CountingVariantFilter variantFilter = makeVariantFilter();
+        private final VariantTransformer preTransformer = makePreVariantFilterTransformer();
+        private final VariantTransformer postTransformer = makePostVariantFilterTransformer();
+        private final FeatureDataSource<VariantContext> variants = createDrivingVariantsDataSource();
+        private final ReadsDataSource reads = hasReads() ? createReadsDataSource() : null;
+        private final ReferenceDataSource reference = hasReference() ? createReferenceDataSource() : null;
+        private final FeatureManager features = new FeatureManager(VariantLocusWalker.this, DEFAULT_DRIVING_VARIANTS_LOOKAHEAD_BASES,
+                cloudPrefetchBuffer, cloudIndexPrefetchBuffer, getGenomicsDBOptions());
+        private final VariantLocusShardProcessor processor;
+
+        VariantLocusWorker() {
+            addDrivingVariantsToFeatureManager(features);
+            processor = makeVariantLocusShardProcessor();
+        }
+
+        /**
+         * Traverse all the variants, or loci with overlapping variants, of a shard with the processor of this worker.
+         *
+         * @return an action that runs the output returned by the processor for the shard and updates the progress meter
+         */
+        Runnable process(final VariantLocusShard shard) {
+            final SimpleInterval shardInterval = shard.boundary.getInterval();
+            long numProcessed = 0;
+            SimpleInterval lastProcessed = null;
+            // the shard is queried in sub-shards of the size of the driving variants cache, as queries are not streamed
+            final Iterator<SimpleInterval> subShards = new ShardedIntervalIterator(
+                    Collections.singletonList(shardInterval).iterator(), getDrivingVariantCacheLookAheadBases());
+            if ( traverseByVariant ) {
+                // variants overlapping several (sub-)shards are only processed in the first one
+                int previousEnd = shard.previousEnd;
+                while ( subShards.hasNext() ) {
+                    final SimpleInterval subShard = subShards.next();
+                    final int subShardPreviousEnd = previousEnd;
+                    final Iterator<VariantContext> subShardVariants = Utils.stream(variants.query(subShard))
+                            .filter(variant -> variant.getStart() > subShardPreviousEnd)
+                            .iterator();
+                    final Iterator<VariantContext> iterator = getTransformedVariantStream(
+                            Spliterators.spliteratorUnknownSize(subShardVariants, 0), preTransformer, variantFilter, postTransformer)
+                            .iterator();
+                    while ( iterator.hasNext() ) {
+                        final VariantContext variant = iterator.next();
+                        final SimpleInterval variantInterval = new SimpleInterval(variant);
+                        apply(variantInterval, Collections.singletonList(variant));
+                        numProcessed++;
+                        lastProcessed = variantInterval;
+                    }
+                    previousEnd = subShard.getEnd();
+                }
+            } else {
+                // as in the single-threaded traversal, only drop down to per-locus iteration in the parts of the shard
+                // that have overlapping variants
+                while ( subShards.hasNext() ) {
+                    final SimpleInterval subShard = subShards.next();
+                    if ( !variants.query(subShard).hasNext() ) {
+                        continue;
+                    }
+                    for ( final Iterator<SimpleInterval> loci = getLocusStream(subShard).iterator(); loci.hasNext(); ) {
+                        final SimpleInterval locus = loci.next();
+                        final Iterator<VariantContext> overlappingVariants = variants.query(locus);
+                        if ( overlappingVariants.hasNext() ) {
+                            final List<VariantContext> filteredVariants = getTransformedVariantStream(
+                                    Spliterators.spliteratorUnknownSize(overlappingVariants, 0), preTransformer, variantFilter, postTransformer)
+                                    .collect(Collectors.toList());
+                            if ( !filteredVariants.isEmpty() ) {
+                                apply(locus, filteredVariants);
+                                numProcessed++;
+                                lastProcessed = locus;
+                            }
+                        }
+                    }
+                }
+            }
+
+            final Runnable output = processor.finishShard(shard.boundary);
+            final long processed = numProcessed;
+            final SimpleInterval locus = lastProcessed;
+            return () -> {
+                output.run();
+                if ( processed > 0 ) {
+                    progressMeter.update(locus, processed);
+                }
+            };
+        }
+
+        private void apply(final SimpleInterval locus, final List<VariantContext> locusVariants) {
+            try {
+                processor.apply(locus,
+                        locusVariants,
+                        new ReadsContext(reads, locus, readFilter),
+                        new ReferenceContext(reference, locus),
+                        new FeatureContext(features, locus));
+            } catch (final IllegalStateException e) {
+                throw new GATKException("Exception thrown at first variant start " + locusVariants.get(0).getContig() + ":" + locusVariants.get(0).getStart()
+                        + " " + locusVariants.get(0).toString(), e);
+            }
+        }
+
+        @Override
+        public void close() {
+            processor.close();
+            variants.close();
+            if ( reads != null ) {
+                reads.close();
+            }
+            if ( reference != null ) {
+                reference.close();
+            }
+            features.close();
+        }
+    }
+
     // Return a Stream of SimpleInterval covering the entire territory sketched out by requestedInterval
     private Stream<SimpleInterval> getLocusStream(final SimpleInterval requestedInterval) {
         return Utils.stream(new IntervalLocusIterator(Collections.singletonList(requestedInterval).iterator()));
@@ -215,6 +458,34 @@ public abstract class VariantLocusWalker extends VariantWalkerBase {
      */
     public abstract void apply(Locatable loc, List<VariantContext> variants, ReadsContext readsContext, ReferenceContext referenceContext, FeatureContext featureContext );
 
+    /**
+     * Whether this tool can process variants on several threads, via processors created by
+     * {@link #makeVariantLocusShardProcessor}. Only tools whose results for a shard of the traversal intervals do not
+     * depend on the variants of other shards, or can be merged with them in shard order, may support it. Tools that
+     * return true must override {@link #makeVariantLocusShardProcessor}.
+     *
+     * @return false by default
+     */
+    public boolean supportsMultiThreadedTraversal() {
+        return false;
+    }
+
+    /**
+     * Create an independent processor for one of the worker threads of the multi-threaded traversal. Called once per
+     * thread on the traversal thread, after {@link #onTraversalStart}. Processing the variants of every shard with
+     * new processors, then running their shard actions in order, must produce the same output as {@link #apply};
+     * in particular, processors may not share mutable state with each other or with the tool, except from within
+     * the actions returned by {@link VariantLocusShardProcessor#finishShard}.
+     *
+     * Tools that cannot support the multi-threaded traversal with their current arguments should throw a
+     * {@link UserException} from this method.
+     *
+     * @return a new processor, owned by a single worker thread
+     */
+    protected VariantLocusShardProcessor makeVariantLocusShardProcessor() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support multi-threaded traversal");
+    }
+
     /**
      * Close all data sources.
      *
@@ -76,6 +76,19 @@ public class CountingReadFilter extends ReadFilter {
         filteredCount = 0;
     }
 
+    /**
+     * Add the counts of another filter to the counts of this one, for instance to combine the counts of filters
+     * that were applied to disjoint sets of reads on different threads. The other filter must have been created
+     * the same way as this one, so that both have the same structure.
+     *
+     * @param other filter with the same structure as this one, whose counts are added to this filter's counts
+     */
+    public void addFilteredCounts(final CountingReadFilter other) {
+        Utils.nonNull(other);
+        Utils.validateArg(other.getClass() == getClass(), "cannot combine the counts of filters with different structures");
+        filteredCount += other.filteredCount;
+    }
+
     public String getName() {return delegateFilter.getName();}
 
     // Returns a summary line with filter counts organized by level
@@ -148,6 +161,12 @@ public class CountingReadFilter extends ReadFilter {
         public String getName() {
             return "NOT " + delegateCountingFilter.getName();
         }
+
+        @Override
+        public void addFilteredCounts(final CountingReadFilter other) {
+            super.addFilteredCounts(other);
+            delegateCountingFilter.addFilteredCounts(((CountingNegateReadFilter) other).delegateCountingFilter);
+        }
     }
 
     /**
@@ -190,6 +209,13 @@ public class CountingReadFilter extends ReadFilter {
             this.rhs.resetFilteredCount();
         }
 
+        @Override
+        public void addFilteredCounts(final CountingReadFilter other) {
+            super.addFilteredCounts(other);
+            this.lhs.addFilteredCounts(((CountingBinopReadFilter) other).lhs);
+            this.rhs.addFilteredCounts(((CountingBinopReadFilter) other).rhs);
+        }
+
         @Override
         public abstract String getName();
     }
@@ -217,6 +243,12 @@ public class CountingReadFilter extends ReadFilter {
             return accept;
         }
 
+        @Override
+        public void addFilteredCounts(final CountingReadFilter other) {
+            super.addFilteredCounts(other);
+            totalCount += ((CountingAndReadFilter) other).totalCount;
+        }
+
         @Override
         protected String getSummaryLineForLevel(final int indentLevel) {
             if(indentLevel == 0) {
@@ -9,8 +9,10 @@ import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
 import org.broadinstitute.hellbender.cmdline.programgroups.CoverageAnalysisProgramGroup;
 import org.broadinstitute.hellbender.engine.AlignmentContext;
 import org.broadinstitute.hellbender.engine.FeatureContext;
+import org.broadinstitute.hellbender.engine.LocusShardProcessor;
 import org.broadinstitute.hellbender.engine.LocusWalker;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
 import org.broadinstitute.hellbender.engine.filters.MappingQualityReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilter;
 import org.broadinstitute.hellbender.engine.filters.ReadFilterLibrary;
@@ -111,6 +113,12 @@ public final class CollectAllelicCounts extends LocusWalker {
         return true;
     }
 
+    // pileups are only used within apply()
+    @Override
+    public boolean recyclePileupStorage() {
+        return true;
+    }
+
     @Override
     public boolean requiresReference() {
         return true;
@@ -159,7 +167,39 @@ public final class CollectAllelicCounts extends LocusWalker {
 
     @Override
     public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+        collectAtLocus(allelicCountCollector, alignmentContext, referenceContext);
+    }
+
+    @Override
+    public boolean supportsMultiThreadedTraversal() {
+        return true;
+    }
+
+    /**
+     * The counts of each shard are collected by its worker and appended to the tool's collector in shard order.
+     */
+    @Override
+    protected LocusShardProcessor makeLocusShardProcessor() {
+        final SampleLocatableMetadata metadata = MetadataUtils.fromHeader(getHeaderForReads(), Metadata.Type.SAMPLE_LOCATABLE);
+        return new LocusShardProcessor() {
+            private AllelicCountCollector shardCollector = new AllelicCountCollector(metadata);
+
+            @Override
+            public void apply(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                collectAtLocus(shardCollector, alignmentContext, referenceContext);
+            }
+
+            @Override
+            public Runnable finishShard(final ShardBoundary shard) {
+                final AllelicCountCollector counts = shardCollector;
+                shardCollector = new AllelicCountCollector(metadata);
+                return () -> allelicCountCollector.collectFromCollector(counts);
+            }
+        };
+    }
+
+    private void collectAtLocus(final AllelicCountCollector collector, final AlignmentContext alignmentContext, final ReferenceContext referenceContext) {
         final byte refAsByte = referenceContext.getBase();
-        allelicCountCollector.collectAtLocus(Nucleotide.decode(refAsByte), alignmentContext.getBasePileup(), alignmentContext.getLocation(), minimumBaseQuality);
+        collector.collectAtLocus(Nucleotide.decode(refAsByte), alignmentContext.getBasePileup(), alignmentContext.getLocation(), minimumBaseQuality);
     }
 }
@@ -99,6 +99,132 @@ public class MarkDuplicatesSparkUtils {
         }
     }
 
+    /**
+     * The records sharing a {@link ReadsKey}, as much of them as is needed to mark their duplicates.
+     *
+     * Records are combined into these with {@code combineByKey} rather than grouped with {@code groupByKey}, so that the
+     * records that don't affect the marking are dropped as soon as possible, before being shuffled: only the best scoring
+     * fragment is kept, and none once there is an empty fragment (a read whose mate is mapped) at the key, since then all
+     * the fragments are duplicates. Pairs and passthroughs are all kept, as each of them may be a non-duplicate or an
+     * optical duplicate, and so are all the fragments when their end position is significant.
+     */
+    @DefaultSerializer(FieldSerializer.class)
+    public static final class DuplicateGroup {
+        private boolean hasEmptyFragment = false;
+        private TransientFieldPhysicalLocation bestFragment = null;
+        // these are null rather than empty when there are no such records
+        private List<MarkDuplicatesSparkRecord> fragments = null;
+        private List<Pair> pairs = null;
+        private List<MarkDuplicatesSparkRecord> passthroughs = null;
+
+        /**
+         * Adds a record to the group
+         *
+         * @param keepAllFragments whether to keep all the fragments, rather than only the best one
+         * @return this group
+         */
+        DuplicateGroup add(final MarkDuplicatesSparkRecord record, final OpticalDuplicateFinder finder, final boolean keepAllFragments) {
+            switch (record.getType()) {
+                case EMPTY_FRAGMENT:
+                    hasEmptyFragment = true;
+                    bestFragment = null;
+                    fragments = null;
+                    break;
+                case FRAGMENT:
+                    if (!hasEmptyFragment) {
+                        if (keepAllFragments) {
+                            fragments = add(fragments, record);
+                        } else {
+                            final TransientFieldPhysicalLocation fragment = (TransientFieldPhysicalLocation) record;
+                            finder.addLocationInformation(fragment.getName(), fragment);
+                            bestFragment = best(bestFragment, fragment);
+                        }
+                    }
+                    break;
+                case PAIR:
+                    pairs = add(pairs, (Pair) record);
+                    break;
+                case PASSTHROUGH:
+                    passthroughs = add(passthroughs, record);
+                    break;
+                default:
+                    throw new GATKException.ShouldNeverReachHereException("Unexpected mark duplicates record type " + record.getType());
+            }
+            return this;
+        }
+
+        /**
+         * Adds the records of another group to this group
+         *
+         * @return this group
+         */
+        DuplicateGroup merge(final DuplicateGroup other, final OpticalDuplicateFinder finder) {
+            hasEmptyFragment |= other.hasEmptyFragment;
+            if (hasEmptyFragment) {
+                bestFragment = null;
+                fragments = null;
+            } else {
+                if (other.bestFragment != null) {
+                    // physical locations are transient, so they have to be parsed again after a shuffle or a spill
+                    finder.addLocationInformation(other.bestFragment.getName(), other.bestFragment);
+                    if (bestFragment != null) {
+                        finder.addLocationInformation(bestFragment.getName(), bestFragment);
+                    }
+                    bestFragment = best(bestFragment, other.bestFragment);
+                }
+                fragments = addAll(fragments, other.fragments);
+            }
+            pairs = addAll(pairs, other.pairs);
+            passthroughs = addAll(passthroughs, other.passthroughs);
+            return this;
+        }
+
+        // ties go to the current best, as with Stream.max()
+        private static TransientFieldPhysicalLocation best(final TransientFieldPhysicalLocation current, final TransientFieldPhysicalLocation candidate) {
+            return current == null || PAIRED_ENDS_SCORE_COMPARATOR.compare(candidate, current) > 0 ? candidate : current;
+        }
+
+        private static <T> List<T> add(final List<T> list, final T element) {
+            final List<T> result = list == null ? new ArrayList<>() : list;
+            result.add(element);
+            return result;
+        }
+
+        private static <T> List<T> addAll(final List<T> list, final List<T> elements) {
+            if (list == null || elements == null) {
+                return list == null ? elements : list;
+            }
+            list.addAll(elements);
+            return list;
+        }
+
+        boolean hasEmptyFragment() {
+            return hasEmptyFragment;
+        }
+
+        /**
+         * @return the best scoring fragment, or null if there are none or if all the fragments are kept
+         */
+        TransientFieldPhysicalLocation getBestFragment() {
+            return bestFragment;
+        }
+
+        /**
+         * @return all the fragments if they are kept, otherwise null
+         */
+        List<MarkDuplicatesSparkRecord> getFragments() {
+            return fragments;
+        }
+
+        List<Pair> getPairs() {
+            return pairs;
+        }
+
+        List<MarkDuplicatesSparkRecord> getPassthroughs() {
+            return passthroughs;
+        }
+    }
+
     /**
      * (0) filter: remove unpaired reads and reads with an unmapped mate.
      * (1) keyReadsByName: label each read with its read group and read name.
@@ -110,8 +236,8 @@ public class MarkDuplicatesSparkUtils {
      *   (c) Label each read with alignment information: Library, reference index,
      *       stranded unclipped start and reverse strand.
      *   (d) Unmapped Pairs, Templates of entirely non-primary reads, etc are passed through as unmarked reads
-     * (4) GroupByKey: Group MarkDuplicatesSparkRecord that share alignment information. These pairs
-     *     are duplicates of each other.
+     * (4) CombineByKey: Combine MarkDuplicatesSparkRecord that share alignment information into a
+     *     {@link DuplicateGroup}. These pairs are duplicates of each other.
      * (5) markDuplicatePairs:
      *   (a) For each group created by (4), sort the pairs by score and mark all but the
      *       highest scoring as duplicates.
@@ -195,7 +321,11 @@ public class MarkDuplicatesSparkUtils {
             return out.iterator();
         });
 
-        final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs = pairedEnds.groupByKey(); //TODO evaluate replacing this with a smart aggregate by key.
+        final boolean keepAllFragments = mdArgs.FLOW_END_LOCATION_SIGNIFICANT;
+        final JavaPairRDD<ReadsKey, DuplicateGroup> keyedPairs = pairedEnds.combineByKey(
+                record -> new DuplicateGroup().add(record, finder, keepAllFragments),
+                (group, record) -> group.add(record, finder, keepAllFragments),
+                (group, otherGroup) -> group.merge(otherGroup, finder));
 
         return markDuplicateRecords(keyedPairs, finder, markOpticalDups, mdArgs.FLOW_END_LOCATION_SIGNIFICANT, mdArgs.ENDS_READ_UNCERTAINTY);
     }
@@ -285,29 +415,28 @@ public class MarkDuplicatesSparkUtils {
      *  - Farms out to methods which handles each group
      *  - Collects the results and returns an iterator
      */
-    @SuppressWarnings("unchecked")
-    private static JavaPairRDD<IndexPair<String>, Integer> markDuplicateRecords(final JavaPairRDD<ReadsKey, Iterable<MarkDuplicatesSparkRecord>> keyedPairs,
+    private static JavaPairRDD<IndexPair<String>, Integer> markDuplicateRecords(final JavaPairRDD<ReadsKey, DuplicateGroup> keyedPairs,
                                                                                 final OpticalDuplicateFinder finder, final boolean markOpticalDups,
                                                                                 final boolean handleFragmentEnds, final int flowEndUncert) {
         return keyedPairs.flatMapToPair(keyedPair -> {
-            Iterable<MarkDuplicatesSparkRecord> pairGroups = keyedPair._2();
+            final DuplicateGroup group = keyedPair._2();
 
             final List<Tuple2<IndexPair<String>, Integer>> nonDuplicates = Lists.newArrayList();
-            final Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> stratifiedByType = splitByType(pairGroups);
 
             // Each key corresponds to either fragments or paired ends, not a mixture of both.
-            final List<MarkDuplicatesSparkRecord> emptyFragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.EMPTY_FRAGMENT);
-            final List<MarkDuplicatesSparkRecord> fragments = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.FRAGMENT);
-            final List<Pair> pairs = (List<Pair>)(List)stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PAIR);
-            final List<MarkDuplicatesSparkRecord> passthroughs = stratifiedByType.get(MarkDuplicatesSparkRecord.Type.PASSTHROUGH);
+            final List<MarkDuplicatesSparkRecord> fragments = group.getFragments();
+            final List<Pair> pairs = group.getPairs();
+            final List<MarkDuplicatesSparkRecord> passthroughs = group.getPassthroughs();
 
             //empty MarkDuplicatesSparkRecord signify that a pair has a mate somewhere else
             // If there are any non-fragment placeholders at this site, mark everything as duplicates, otherwise compute the best score
-            if (Utils.isNonEmpty(fragments) && !Utils.isNonEmpty(emptyFragments)) {
+            if (!group.hasEmptyFragment()) {
                 if ( !handleFragmentEnds ) {
-                    final Tuple2<IndexPair<String>, Integer> bestFragment = handleFragments(fragments, finder);
-                    nonDuplicates.add(bestFragment);
-                } else {
+                    final TransientFieldPhysicalLocation bestFragment = group.getBestFragment();
+                    if (bestFragment != null) {
+                        nonDuplicates.add(new Tuple2<>(new IndexPair<>(bestFragment.getName(), bestFragment.getPartitionIndex()), -1));
+                    }
+                } else if (Utils.isNonEmpty(fragments)) {
                     nonDuplicates.addAll(handleFragmentsWithEndPosition(fragments, finder, flowEndUncert));
                 }
 
@@ -325,26 +454,6 @@ public class MarkDuplicatesSparkUtils {
         });
     }
 
-    /**
-     * split MarkDuplicatesSparkRecord into groups by their type
-     */
-    private static Map<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> splitByType(Iterable<MarkDuplicatesSparkRecord> duplicateGroup) {
-        final EnumMap<MarkDuplicatesSparkRecord.Type, List<MarkDuplicatesSparkRecord>> byType = new EnumMap<>(MarkDuplicatesSparkRecord.Type.class);
-        for(MarkDuplicatesSparkRecord pair: duplicateGroup) {
-            byType.compute(pair.getType(), (key, value) -> {
-                if (value == null) {
-                    final ArrayList<MarkDuplicatesSparkRecord> pairedEnds = new ArrayList<>();
-                    pairedEnds.add(pair);
-                    return pairedEnds;
-                } else {
-                    value.add(pair);
-                    return value;
-                }
-            });
-        }
-        return byType;
-    }
-
     private static List<Tuple2<IndexPair<String>,Integer>> handlePassthroughs(List<MarkDuplicatesSparkRecord> passthroughs) {
         // Emit the passthrough reads as non-duplicates.
         return passthroughs.stream()
@@ -18,6 +18,8 @@ import org.broadinstitute.hellbender.engine.FeatureContext;
 import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.engine.ReadsContext;
 import org.broadinstitute.hellbender.engine.ReferenceContext;
+import org.broadinstitute.hellbender.engine.ShardBoundary;
+import org.broadinstitute.hellbender.engine.VariantLocusShardProcessor;
 import org.broadinstitute.hellbender.engine.VariantLocusWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.genomicsdb.GenomicsDBArgumentCollection;
@@ -195,6 +197,12 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     private GenotypeGVCFsEngine gvcfEngine;
 
+    // state required to create the independent engines of the worker threads of the multi-threaded traversal
+    private Collection<Annotation> variantAnnotations;
+    private Set<Annotation> annotationsToKeep;
+    private Set<VCFHeaderLine> defaultToolVCFHeaderLines;
+    private boolean keepSB;
+
     /**
      * Get the largest interval per contig that contains the intervals specified on the command line.
      * @param getIntervals intervals to be transformed
@@ -278,18 +286,18 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
         intervals = hasUserSuppliedIntervals() ? intervalArgumentCollection.getIntervals(getBestAvailableSequenceDictionary()) :
                 Collections.emptyList();
 
-        final Collection<Annotation>  variantAnnotations = makeVariantAnnotations();
-        final Set<Annotation> annotationsToKeep = getAnnotationsToKeep();
-        annotationEngine = new VariantAnnotatorEngine(variantAnnotations, dbsnp.dbsnp, Collections.emptyList(), false, keepCombined, annotationsToKeep);
+        variantAnnotations = makeVariantAnnotations();
+        annotationsToKeep = getAnnotationsToKeep();
+        annotationEngine = createAnnotationEngine();
 
-        merger = new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput, false, true);
+        merger = createMerger(annotationEngine);
 
         //methods that cannot be called in engine bc its protected
-        Set<VCFHeaderLine> defaultToolVCFHeaderLines = getDefaultToolVCFHeaderLines();
+        defaultToolVCFHeaderLines = getDefaultToolVCFHeaderLines();
         vcfWriter = createVCFWriter(outputFile);
 
         //create engine object
-        final boolean   keepSB = variantAnnotations.stream().map(a -> a.getClass().getSimpleName()).collect(Collectors.toList()).contains(StrandBiasBySample.class.getSimpleName());
+        keepSB = variantAnnotations.stream().map(a -> a.getClass().getSimpleName()).collect(Collectors.toList()).contains(StrandBiasBySample.class.getSimpleName());
         gvcfEngine = new GenotypeGVCFsEngine(annotationEngine, genotypeArgs, includeNonVariants, inputVCFHeader, keepSB);
 
         //call initialize method in engine class that creates VCFWriter object and writes a header to it
@@ -297,6 +305,14 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     }
 
+    private VariantAnnotatorEngine createAnnotationEngine() {
+        return new VariantAnnotatorEngine(variantAnnotations, dbsnp.dbsnp, Collections.emptyList(), false, keepCombined, annotationsToKeep);
+    }
+
+    private ReferenceConfidenceVariantContextMerger createMerger(final VariantAnnotatorEngine annotationEngine) {
+        return new ReferenceConfidenceVariantContextMerger(annotationEngine, getHeaderForVariants(), somaticInput, false, true);
+    }
+
     private Set<Annotation> getAnnotationsToKeep() {
         final GATKAnnotationPluginDescriptor pluginDescriptor = getCommandLineParser().getPluginDescriptor(GATKAnnotationPluginDescriptor.class);
         final List<String> annotationStringsToKeep = genotypeGVCFsAnnotationArgs.getKeepSpecifiedCombinedAnnotationNames();
@@ -310,18 +326,79 @@ public final class GenotypeGVCFs extends VariantLocusWalker {
 
     @Override
     public void apply(final Locatable loc, List<VariantContext> variants, ReadsContext reads, ReferenceContext ref, FeatureContext features) {
+        final VariantContext regenotypedVC = genotypeLocus(gvcfEngine, merger, loc, variants, ref, features);
+        if (regenotypedVC != null) {
+            vcfWriter.add(regenotypedVC);
+        }
+    }
 
+    /**
+     * Genotype the variants at a locus with the given engine and merger.
+     *
+     * @return the regenotyped variant if it should be output, otherwise null
+     */
+    private VariantContext genotypeLocus(final GenotypeGVCFsEngine engine, final ReferenceConfidenceVariantContextMerger locusMerger,
+                                         final Locatable loc, final List<VariantContext> variants, final ReferenceContext ref,
+                                         final FeatureContext features) {
         final boolean inForceOutputIntervals = forceOutputIntervalsPresent && forceOutputIntervals.overlapsAny(loc);
         final boolean forceOutput = includeNonVariants || inForceOutputIntervals;
-        final VariantContext regenotypedVC = gvcfEngine.callRegion(loc, variants, ref, features, merger, somaticInput, tlodThreshold, afTolerance, forceOutput);
+        final VariantContext regenotypedVC = engine.callRegion(loc, variants, ref, features, locusMerger, somaticInput, tlodThreshold, afTolerance, forceOutput);
 
         if (regenotypedVC != null) {
             final SimpleInterval variantStart = new SimpleInterval(regenotypedVC.getContig(), regenotypedVC.getStart(), regenotypedVC.getStart());
             if ((forceOutput || !GATKVariantContextUtils.isSpanningDeletionOnly(regenotypedVC)) &&
                     (!onlyOutputCallsStartingInIntervals || intervals.stream().anyMatch(interval -> interval.contains (variantStart)))) {
-                vcfWriter.add(regenotypedVC);
+                return regenotypedVC;
             }
         }
+        return null;
+    }
+
+    /**
+     * Every locus is genotyped independently of the others, so shards of loci can be genotyped concurrently, by
+     * independent engines, as long as their calls are written in order.
+     */
+    @Override
+    public boolean supportsMultiThreadedTraversal() {
+        return true;
+    }
+
+    @Override
+    protected VariantLocusShardProcessor makeVariantLocusShardProcessor() {
+        return new GenotypeGVCFsShardProcessor();
+    }
+
+    /**
+     * Genotypes the loci of a shard with its own annotation engine, merger and genotyping engine, and buffers the
+     * calls of the shard until they can be written in order.
+     */
+    private final class GenotypeGVCFsShardProcessor implements VariantLocusShardProcessor {
+        private final ReferenceConfidenceVariantContextMerger shardMerger;
+        private final GenotypeGVCFsEngine shardEngine;
+        private List<VariantContext> calls = new ArrayList<>();
+
+        GenotypeGVCFsShardProcessor() {
+            final VariantAnnotatorEngine shardAnnotationEngine = createAnnotationEngine();
+            shardMerger = createMerger(shardAnnotationEngine);
+            shardEngine = new GenotypeGVCFsEngine(shardAnnotationEngine, genotypeArgs, includeNonVariants, getHeaderForVariants(), keepSB);
+            shardEngine.createOutputHeader(defaultToolVCFHeaderLines, keepCombined, dbsnp);
+        }
+
+        @Override
+        public void apply(final Locatable loc, final List<VariantContext> variants, final ReadsContext readsContext,
+                          final ReferenceContext referenceContext, final FeatureContext featureContext) {
+            final VariantContext regenotypedVC = genotypeLocus(shardEngine, shardMerger, loc, variants, referenceContext, featureContext);
+            if (regenotypedVC != null) {
+                calls.add(regenotypedVC);
+            }
+        }
+
+        @Override
+        public Runnable finishShard(final ShardBoundary shard) {
+            final List<VariantContext> shardCalls = calls;
+            calls = new ArrayList<>();
+            return () -> shardCalls.forEach(vcfWriter::add);
+        }
     }
 
     @Override
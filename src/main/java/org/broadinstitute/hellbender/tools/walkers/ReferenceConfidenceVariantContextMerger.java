@@ -564,11 +564,8 @@ public final class ReferenceConfidenceVariantContextMerger {
                                                            final List<Allele> targetAlleles,
                                                            final boolean samplesAreUniquified,
                                                            final boolean useRemappedAllelesForGenotyping) {
-        final GenotypesContext mergedGenotypes = GenotypesContext.create();
-        final int maximumPloidy = vc.getMaxPloidy(GATKVariantContextUtils.DEFAULT_PLOIDY);
-        // the map is different depending on the ploidy, so in order to keep this method flexible (mixed ploidies)
-        // we need to get a map done (lazily inside the loop) for each ploidy, up to the maximum possible.
-        final int[][] genotypeIndexMapsByPloidy = new int[maximumPloidy + 1][];
+        final GenotypesContext mergedGenotypes = GenotypesContext.create(vc.getNSamples());
+        final RelevantAlleleIndexes relevantAlleleIndexes = new RelevantAlleleIndexes(vc, remappedAlleles, targetAlleles);
 
         for ( final Genotype g : vc.getGenotypes() ) {
             final String name;
@@ -582,12 +579,9 @@ public final class ReferenceConfidenceVariantContextMerger {
             if (!doSomaticMerge) {
                 //do attribute subsetting
                 if (g.hasPL() || g.hasAD()) {
-                    int[] perSampleIndexesOfRelevantAlleles = AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, vc.getStart(), g, false);
+                    final int[] perSampleIndexesOfRelevantAlleles = relevantAlleleIndexes.forGenotype(g);
                     if (g.hasPL()) {
-                        final int[] genotypeIndexMapByPloidy = genotypeIndexMapsByPloidy[ploidy] == null
-                                ? GenotypeIndexCalculator.newToOldGenotypeMap(ploidy, perSampleIndexesOfRelevantAlleles) //probably horribly slow
-                                : genotypeIndexMapsByPloidy[ploidy];
-                        genotypeBuilder.PL(generatePL(g, genotypeIndexMapByPloidy));
+                        genotypeBuilder.PL(generatePL(g, relevantAlleleIndexes.genotypeIndexMap(g, perSampleIndexesOfRelevantAlleles)));
                     }
                     if (g.hasAD()) {
                         genotypeBuilder.AD(AlleleSubsettingUtils.generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles));
@@ -612,8 +606,7 @@ public final class ReferenceConfidenceVariantContextMerger {
                 }
 
                 // lazy initialization of the genotype index map by ploidy.
-                int[] perSampleIndexesOfRelevantAlleles = AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, vc.getStart(), g, false);
-                final int nonRefIndex = remappedAlleles.indexOf(Allele.NON_REF_ALLELE);
+                final int[] perSampleIndexesOfRelevantAlleles = relevantAlleleIndexes.forGenotype(g);
                 final int[] AD;
                 if (g.hasAD()) {
                     AD = AlleleSubsettingUtils.generateAD(g.getAD(), perSampleIndexesOfRelevantAlleles);
@@ -649,26 +642,89 @@ public final class ReferenceConfidenceVariantContextMerger {
                 }
             }
             genotypeBuilder.name(name);
-            final List<Allele> originalGTAlleles = useRemappedAllelesForGenotyping ?
-                    g.getAlleles().stream().map(a -> (vc.getAlleleIndex(a) > -1 ? remappedAlleles.get(vc.getAlleleIndex(a)) : Allele.NO_CALL)).collect(Collectors.toList()) :
-                    g.getAlleles();
 
-            final GenotypeAssignmentMethod assignmentMethod;
+            // Neither of these assignment methods looks at the likelihoods, and only the best match to the original
+            // genotype looks at its alleles, so we don't convert the PLs nor build the remapped original genotype otherwise
             if (callGTAlleles && GenotypeUtils.shouldBeCalled(g)) {
-                assignmentMethod = GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL;
+                final Genotype originalGT = useRemappedAllelesForGenotyping ?
+                        new GenotypeBuilder(g).alleles(remapGenotypeAlleles(vc, g, remappedAlleles)).make() : g;
+                GATKVariantContextUtils.makeGenotypeCall(ploidy, genotypeBuilder, GenotypeAssignmentMethod.BEST_MATCH_TO_ORIGINAL,
+                        null, targetAlleles, originalGT, null);
             } else {
-                assignmentMethod = GenotypeAssignmentMethod.SET_TO_NO_CALL;
+                GATKVariantContextUtils.makeGenotypeCall(ploidy, genotypeBuilder, GenotypeAssignmentMethod.SET_TO_NO_CALL,
+                        null, targetAlleles, g, null);
             }
-            GATKVariantContextUtils.makeGenotypeCall(g.getPloidy(),
-                    genotypeBuilder, assignmentMethod,
-                    g.hasLikelihoods() ? g.getLikelihoods().getAsVector() : null,
-                    targetAlleles, new GenotypeBuilder(g).alleles(originalGTAlleles).make(), null);
             mergedGenotypes.add(genotypeBuilder.make());
         }
 
         return mergedGenotypes;
     }
 
+    private static List<Allele> remapGenotypeAlleles(final VariantContext vc, final Genotype g, final List<Allele> remappedAlleles) {
+        final List<Allele> alleles = new ArrayList<>(g.getPloidy());
+        for (final Allele a : g.getAlleles()) {
+            final int alleleIndex = vc.getAlleleIndex(a);
+            alleles.add(alleleIndex > -1 ? remappedAlleles.get(alleleIndex) : Allele.NO_CALL);
+        }
+        return alleles;
+    }
+
+    /**
+     * The indexes of the alleles of a VC relevant to each of the target alleles, and the corresponding maps of genotype
+     * indexes by ploidy, for the genotypes of the VC.
+     *
+     * These only depend on the genotype when several spanning deletions of the VC compete for the spanning deletion of
+     * the target alleles, in which case the best one is chosen from the PLs of each genotype. Otherwise they are the
+     * same for all the samples of the VC, so they are computed once, for the first genotype that needs them, instead of
+     * once per genotype, which matters for VCs with many samples.
+     */
+    private static final class RelevantAlleleIndexes {
+        private final List<Allele> remappedAlleles;
+        private final List<Allele> targetAlleles;
+        private final int position;
+        private final boolean dependsOnGenotype;
+
+        // only used if the indexes don't depend on the genotype
+        private int[] sharedIndexes;
+        private final int[][] genotypeIndexMapsByPloidy;
+
+        RelevantAlleleIndexes(final VariantContext vc, final List<Allele> remappedAlleles, final List<Allele> targetAlleles) {
+            this.remappedAlleles = remappedAlleles;
+            this.targetAlleles = targetAlleles;
+            this.position = vc.getStart();
+            this.dependsOnGenotype = targetAlleles.contains(Allele.SPAN_DEL) && Collections.frequency(remappedAlleles, Allele.SPAN_DEL) > 1;
+            // the map is different depending on the ploidy, so in order to keep this flexible (mixed ploidies)
+            // we need to get a map done (lazily) for each ploidy, up to the maximum possible.
+            this.genotypeIndexMapsByPloidy = dependsOnGenotype ? null : new int[vc.getMaxPloidy(GATKVariantContextUtils.DEFAULT_PLOIDY) + 1][];
+        }
+
+        int[] forGenotype(final Genotype g) {
+            if (dependsOnGenotype) {
+                return AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, position, g, false);
+            }
+            if (sharedIndexes == null) {
+                sharedIndexes = AlleleSubsettingUtils.getIndexesOfRelevantAllelesForGVCF(remappedAlleles, targetAlleles, position, g, false);
+            }
+            return sharedIndexes;
+        }
+
+        /**
+         * @param g a genotype of the VC
+         * @param indexesOfRelevantAlleles the indexes returned by {@link #forGenotype} for the genotype
+         * @return the map from the indexes of the genotypes of the target alleles to the indexes of the genotypes of the VC
+         */
+        int[] genotypeIndexMap(final Genotype g, final int[] indexesOfRelevantAlleles) {
+            final int ploidy = g.getPloidy();
+            if (dependsOnGenotype || ploidy >= genotypeIndexMapsByPloidy.length) {
+                return GenotypeIndexCalculator.newToOldGenotypeMap(ploidy, indexesOfRelevantAlleles);
+            }
+            if (genotypeIndexMapsByPloidy[ploidy] == null) {
+                genotypeIndexMapsByPloidy[ploidy] = GenotypeIndexCalculator.newToOldGenotypeMap(ploidy, indexesOfRelevantAlleles);
+            }
+            return genotypeIndexMapsByPloidy[ploidy];
+        }
+    }
+
     /**
      * Subset per-allele annotations based on the indices of the relevant alleles to keep
      * Modifies the input GenotypeBuilder with the revised annotations
@@ -73,6 +73,11 @@ import java.util.List;
  *   --known-sites another/optional/setOfSitesToMask.vcf \
  *   -O recal_data.table
  * </pre>
+ *
+ * <p>
+ * With --threads, reads are processed on several threads, each collecting its own tables, and the tables are combined
+ * at the end of the traversal. The resulting report is the same as with a single thread.
+ * </p>
  */
 
 @CommandLineProgramProperties(
@@ -123,6 +128,11 @@ public final class BaseRecalibrator extends ReadWalker {
 
     private ReferenceDataSource referenceDataSource; // datasource for the reference. We're using a different one from the engine itself to avoid messing with its caches.
 
+    /**
+     * The engines of the worker threads of a multi-threaded traversal, combined into recalibrationEngine at the end
+     */
+    private final List<BaseRecalibrationEngine> workerRecalibrationEngines = new ArrayList<>();
+
     /**
      * an object that keeps track of the information necessary for quality score quantization
      */
@@ -147,7 +157,7 @@ public final class BaseRecalibrator extends ReadWalker {
 
         recalibrationEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
         recalibrationEngine.logCovariatesUsed();
-        referenceDataSource = ReferenceDataSource.of(referenceArguments.getReferencePath());
+        referenceDataSource = createReferenceDataSource();
     }
 
     @Override
@@ -189,8 +199,38 @@ public final class BaseRecalibrator extends ReadWalker {
         recalibrationEngine.processRead(read, referenceDataSource, featureContext.getValues(knownSites));
     }
 
+    @Override
+    public boolean supportsMultiThreadedTraversal() {
+        return true;
+    }
+
+    /**
+     * Each worker thread collects its observations in a separate engine, with its own tables and reference data
+     * source, and the tables of all the workers are combined before they are finalized.
+     */
+    @Override
+    protected ReadProcessor makeReadProcessor() {
+        final BaseRecalibrationEngine workerEngine = new BaseRecalibrationEngine(recalArgs, getHeaderForReads());
+        final ReferenceDataSource workerReferenceDataSource = createReferenceDataSource();
+        workerRecalibrationEngines.add(workerEngine);
+        return new ReadProcessor() {
+            @Override
+            public Runnable process(final GATKRead read, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                workerEngine.processRead(read, workerReferenceDataSource, featureContext.getValues(knownSites));
+                return () -> {};
+            }
+
+            @Override
+            public void close() {
+                workerReferenceDataSource.close();
+            }
+        };
+    }
+
     @Override
     public Object onTraversalSuccess() {
+        workerRecalibrationEngines.forEach(recalibrationEngine::combine);
+        workerRecalibrationEngines.clear();
         recalibrationEngine.finalizeData();
 
         logger.info("Calculating quantized quality scores...");
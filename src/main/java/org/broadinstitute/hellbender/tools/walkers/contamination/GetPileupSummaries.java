@@ -169,6 +169,12 @@ public class GetPileupSummaries extends LocusWalker {
         return true;
     }
 
+    // pileups are only used within apply()
+    @Override
+    public boolean recyclePileupStorage() {
+        return true;
+    }
+
     @Override
     public List<ReadFilter> getDefaultReadFilters() {
         final List<ReadFilter> filters = new ArrayList<>();
@@ -206,19 +212,89 @@ public class GetPileupSummaries extends LocusWalker {
 
     @Override
     public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+        final VariantContext vc = getBiallelicSNP(featureContext);
+        if (vc == null) {
+            return;
+        }
+
+        if (!vc.hasAttribute(VCFConstants.ALLELE_FREQUENCY_KEY)) {
+            recordVariantWithoutAlleleFrequency(vc);
+        } else {
+            sawVariantsWithAlleleFrequency = true;
+            if (alleleFrequencyInRange(vc)) {
+                writeRecord(new PileupSummary(vc, alignmentContext.getBasePileup()));
+            }
+        }
+    }
+
+    @Override
+    public boolean supportsMultiThreadedTraversal() {
+        return true;
+    }
+
+    /**
+     * The pileup summaries of each shard are computed by its worker and written in shard order.
+     */
+    @Override
+    protected LocusShardProcessor makeLocusShardProcessor() {
+        return new LocusShardProcessor() {
+            private List<PileupSummary> shardSummaries = new ArrayList<>();
+            private VariantContext shardVariantWithoutAlleleFrequency = null;
+            private boolean shardSawVariantsWithAlleleFrequency = false;
+
+            @Override
+            public void apply(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                final VariantContext vc = getBiallelicSNP(featureContext);
+                if (vc == null) {
+                    return;
+                }
+
+                if (!vc.hasAttribute(VCFConstants.ALLELE_FREQUENCY_KEY)) {
+                    if (shardVariantWithoutAlleleFrequency == null) {
+                        shardVariantWithoutAlleleFrequency = vc;
+                    }
+                } else {
+                    shardSawVariantsWithAlleleFrequency = true;
+                    if (alleleFrequencyInRange(vc)) {
+                        shardSummaries.add(new PileupSummary(vc, alignmentContext.getBasePileup()));
+                    }
+                }
+            }
+
+            @Override
+            public Runnable finishShard(final ShardBoundary shard) {
+                final List<PileupSummary> summaries = shardSummaries;
+                final VariantContext variantWithoutAlleleFrequency = shardVariantWithoutAlleleFrequency;
+                final boolean sawAlleleFrequency = shardSawVariantsWithAlleleFrequency;
+                shardSummaries = new ArrayList<>();
+                shardVariantWithoutAlleleFrequency = null;
+                shardSawVariantsWithAlleleFrequency = false;
+                return () -> {
+                    if (variantWithoutAlleleFrequency != null) {
+                        recordVariantWithoutAlleleFrequency(variantWithoutAlleleFrequency);
+                    }
+                    sawVariantsWithAlleleFrequency |= sawAlleleFrequency;
+                    summaries.forEach(GetPileupSummaries.this::writeRecord);
+                };
+            }
+        };
+    }
+
+    // the site of a locus, if it is a biallelic SNP in the population vcf, or null
+    private VariantContext getBiallelicSNP(final FeatureContext featureContext) {
         final List<VariantContext> vcs = featureContext.getValues(variants);
         if (vcs.isEmpty()) {
-            return;
+            return null;
         }
         final VariantContext vc = vcs.get(0);
+        return vc.isBiallelic() && vc.isSNP() ? vc : null;
+    }
 
-        if ( vc.isBiallelic() && vc.isSNP() && alleleFrequencyInRange(vc) ) {
-            final ReadPileup pileup = alignmentContext.getBasePileup();
-            try {
-                writer.writeRecord(new PileupSummary(vc, pileup));
-            } catch (final IOException ex) {
-                throw new UserException(String.format("Encountered an IO exception while writing to %s", outputTable));
-            }
+    private void writeRecord(final PileupSummary summary) {
+        try {
+            writer.writeRecord(summary);
+        } catch (final IOException ex) {
+            throw new UserException(String.format("Encountered an IO exception while writing to %s", outputTable));
         }
     }
 
@@ -242,17 +318,16 @@ public class GetPileupSummaries extends LocusWalker {
         }
     }
 
-    private boolean alleleFrequencyInRange(final VariantContext vc) {
-        if (!vc.hasAttribute(VCFConstants.ALLELE_FREQUENCY_KEY)) {
-            if (!sawVariantsWithoutAlleleFrequency) {
-                logger.warn(String.format("Variant context at %s:%d lacks allele frequency (AF) field.", vc.getContig(), vc.getStart()));
-                sawVariantsWithoutAlleleFrequency = true;
-            }
-            return false;
-        } else {
-            sawVariantsWithAlleleFrequency = true;
-            final double alleleFrequency = vc.getAttributeAsDouble(VCFConstants.ALLELE_FREQUENCY_KEY, -1.0);
-            return minPopulationAlleleFrequency < alleleFrequency && alleleFrequency < maxPopulationAlleleFrequency;
+    // warns about the first variant without an allele frequency
+    private void recordVariantWithoutAlleleFrequency(final VariantContext vc) {
+        if (!sawVariantsWithoutAlleleFrequency) {
+            logger.warn(String.format("Variant context at %s:%d lacks allele frequency (AF) field.", vc.getContig(), vc.getStart()));
+            sawVariantsWithoutAlleleFrequency = true;
         }
     }
+
+    private boolean alleleFrequencyInRange(final VariantContext vc) {
+        final double alleleFrequency = vc.getAttributeAsDouble(VCFConstants.ALLELE_FREQUENCY_KEY, -1.0);
+        return minPopulationAlleleFrequency < alleleFrequency && alleleFrequency < maxPopulationAlleleFrequency;
+    }
 }
@@ -296,6 +296,55 @@ public class CoverageOutputWriter implements Closeable {
         lineBuilder.buildAndWriteLine();
     }
 
+    /**
+     * Writes the same per-locus line as {@link #writePerLocusDepthSummary(SimpleInterval, Map, Map, boolean)} from the
+     * dense counts of a {@link DepthOfCoverageLocusCounts}. The identifiers of every partition are in the order of their
+     * dense indices, which is also the order of the columns of the output, so the line is filled in column by column
+     * without looking up any identifier or column name.
+     *
+     * @param locus             locus being summarized
+     * @param locusCounts       base counts at the locus, counted for the identifiers in identifiersByType
+     * @param identifiersByType sorted identifiers of every partition
+     * @param includeDeletions  whether to include deletions in the base counts
+     */
+    public void writePerLocusDepthSummary(final SimpleInterval locus, final DepthOfCoverageLocusCounts locusCounts,
+                                          final Map<DoCOutputType.Partition, List<String>> identifiersByType, final boolean includeDeletions) {
+
+        SimpleCSVWriterWrapperWithHeader lineWriter = getCorrectOutputWriter(null, DoCOutputType.Aggregation.locus, DoCOutputType.FileType.summary);
+        SimpleCSVWriterWrapperWithHeader.SimpleCSVWriterLineBuilder lineBuilder = lineWriter.getNewLineBuilder();
+
+        // the per-identifier columns follow the locus, the total depth and the average depth of every partition
+        int column = 2 + partitions.size();
+        int tDepth = 0;
+        boolean depthCounted = false;
+        for (DoCOutputType.Partition type : partitions) {
+            final int[] counts = locusCounts.getBaseCounts(type);
+            final int nIdentifiers = identifiersByType.get(type).size();
+            for (int id = 0; id < nIdentifiers; id++) {
+                final int offset = id * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS;
+                int dp = 0;
+                for (int b = 0; b < DepthOfCoverageLocusCounts.NUM_BASE_COUNTS; b++) {
+                    dp += counts[offset + b];
+                }
+                lineBuilder.setColumn(column++, Integer.toString(dp));
+                if (printBaseCounts) {
+                    lineBuilder.setColumn(column++, getBaseCountsString(counts, offset, includeDeletions));
+                }
+                if (!depthCounted) {
+                    tDepth += dp;
+                }
+            }
+            depthCounted = true; // only sum the total depth once
+        }
+
+        lineBuilder.setColumn(0, locus.getContig() + ":" + locus.getStart()).setColumn(1, Integer.toString(tDepth));
+        int averageColumn = 2;
+        for (DoCOutputType.Partition type : partitions) { //Note that this is a deterministic traversal since the underlying set is an EnumSet
+            lineBuilder.setColumn(averageColumn++, DOUBLE_FORMAT_2PLACES.format( (double) tDepth / identifiersByType.get(type).size()));
+        }
+        lineBuilder.buildAndWriteLine();
+    }
+
     /**
      * Method that should be called once per-partition at the end of each coverage interval. This method is responsible
      * for extending the per-interval depth summary information for each sample.
@@ -402,7 +451,7 @@ public class CoverageOutputWriter implements Closeable {
     private void outputPerLocusCumulativeSummaryAndStatistics(SimpleCSVWriterWrapperWithHeader countsOutput, SimpleCSVWriterWrapperWithHeader proportionsOutput,
                                                               DepthOfCoverageStats stats, DoCOutputType.Partition partitionType, List<String> sortedSampleList) {
         int[] endpoints = stats.getEndpoints();
-        int samples = stats.getHistograms().size();
+        int samples = stats.getAllSamples().size();
 
         long[][] baseCoverageCumDist = stats.getLocusCounts();
 
@@ -479,24 +528,32 @@ public class CoverageOutputWriter implements Closeable {
         int[] bins = stats.getEndpoints();
 
         lineBuilder.setColumn(0, locusName)
-                .setColumn("total_coverage", Long.toString(stats.getTotalCoverage()))
-                .setColumn("average_coverage", DOUBLE_FORMAT_2PLACES.format(stats.getTotalMeanCoverage()));
+                .setColumn(1, Long.toString(stats.getTotalCoverage()))
+                .setColumn(2, DOUBLE_FORMAT_2PLACES.format(stats.getTotalMeanCoverage()));
+
+        final int[] thresholdBins = new int[coverageThresholds.size()];
+        for (int t = 0; t < thresholdBins.length; t++) {
+            thresholdBins[t] = stats.value2bin(coverageThresholds.get(t));
+        }
 
-        // each sample is in the order +[sample_total_cvg, sample_mean_cvg, sample_granular_Q1, sample_granular_median, sample_granular_Q3] so we set colums accordingly
+        // each sample is in the order +[sample_total_cvg, sample_mean_cvg, sample_granular_Q1, sample_granular_median, sample_granular_Q3, (for each threshold) sample_%_above_X],
+        // following the header from getIntervalSummaryHeader(), so we set the columns by position rather than by name
+        int sIdx = 3;
         for (String s : sortedSamples) {
-            int sIdx = outputWriter.getIndexForColumn(s + "_total_cvg");
-            int median = CoverageUtils.getQuantile(stats.getHistograms().get(s), 0.5);
-            int q1 = CoverageUtils.getQuantile(stats.getHistograms().get(s), 0.25);
-            int q3 = CoverageUtils.getQuantile(stats.getHistograms().get(s), 0.75);
-            lineBuilder.setColumn(sIdx, Long.toString(stats.getTotals().get(s)))
-                    .setColumn(sIdx + 1, DOUBLE_FORMAT_2PLACES.format(stats.getMeans().get(s)))
+            final long[] histogram = stats.getHistogram(s);
+            int median = CoverageUtils.getQuantile(histogram, 0.5);
+            int q1 = CoverageUtils.getQuantile(histogram, 0.25);
+            int q3 = CoverageUtils.getQuantile(histogram, 0.75);
+            lineBuilder.setColumn(sIdx, Long.toString(stats.getTotal(s)))
+                    .setColumn(sIdx + 1, DOUBLE_FORMAT_2PLACES.format(stats.getMean(s)))
                     .setColumn(sIdx + 2, formatBin(bins, q1))
                     .setColumn(sIdx + 3, formatBin(bins, median))
                     .setColumn(sIdx + 4, formatBin(bins, q3));
 
-            for (int thresh : coverageThresholds) {
-                lineBuilder.setColumn(s + "_%_above_" + thresh, DOUBLE_FORMAT_1PLACE.format(CoverageUtils.getPctBasesAbove(stats.getHistograms().get(s), stats.value2bin(thresh))));
+            for (int t = 0; t < thresholdBins.length; t++) {
+                lineBuilder.setColumn(sIdx + 5 + t, DOUBLE_FORMAT_1PLACE.format(CoverageUtils.getPctBasesAbove(histogram, thresholdBins[t])));
             }
+            sIdx += summaryHeaderSampleSuffixes.size();
         }
         lineBuilder.buildAndWriteLine();
     }
@@ -648,6 +705,11 @@ public class CoverageOutputWriter implements Closeable {
         if (counts == null) {
             counts = new int[6];
         }
+        return getBaseCountsString(counts, 0, includeDeletions);
+    }
+
+    // Formats the base counts starting at the given offset of a larger array of counts, such as those of a DepthOfCoverageLocusCounts
+    private String getBaseCountsString(final int[] counts, final int offset, final boolean includeDeletions) {
         StringBuilder s = new StringBuilder();
         int nbases = 0;
         for (byte b : BaseUtils.BASES_EXTENDED) {
@@ -655,7 +717,7 @@ public class CoverageOutputWriter implements Closeable {
             if (includeDeletions || b != BaseUtils.Base.D.base) {
                 s.append((char) b);
                 s.append(":");
-                s.append(counts[BaseUtils.extendedBaseToBaseIndex(b)]);
+                s.append(counts[offset + BaseUtils.extendedBaseToBaseIndex(b)]);
                 if (nbases < 6) {
                     s.append(" ");
                 }
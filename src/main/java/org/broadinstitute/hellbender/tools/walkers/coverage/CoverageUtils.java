@@ -171,21 +171,29 @@ class CoverageUtils {
     }
 
     // Applies the provided mapping and base quality filters to the provided read
-    private static boolean elementWithinQualRange(final PileupElement e, final byte minBaseQ, final byte maxBaseQ) {
+    static boolean elementWithinQualRange(final PileupElement e, final byte minBaseQ, final byte maxBaseQ) {
         return ( e.getQual() >= minBaseQ && e.getQual() <= maxBaseQ || e.isDeletion() );
     }
 
     private static void updateCounts(int[] counts, PileupElement e) {
+        counts[getBaseCountIndex(e)]++;
+    }
+
+    /**
+     * Returns the index in an array of base counts (as returned by {@link #getBaseCountsByPartition}) of the base of
+     * a pileup element, which may be a deletion or an N.
+     */
+    static int getBaseCountIndex(final PileupElement e) {
         if ( e.isDeletion() ) {
-            counts[BaseUtils.Base.D.ordinal()]++;
+            return BaseUtils.Base.D.ordinal();
         } else if ( BaseUtils.basesAreEqual(BaseUtils.Base.N.base, e.getBase()) ) {
-            counts[BaseUtils.Base.N.ordinal()]++;
+            return BaseUtils.Base.N.ordinal();
         } else {
-            try {
-                counts[BaseUtils.simpleBaseToBaseIndex(e.getBase())]++;
-            } catch (ArrayIndexOutOfBoundsException exc) {
+            final int index = BaseUtils.simpleBaseToBaseIndex(e.getBase());
+            if ( index < 0 ) {
                 throw new UserException("Expected a simple base, but actually received"+(char)e.getBase());
             }
+            return index;
         }
     }
 
@@ -244,7 +252,7 @@ class CoverageUtils {
         int[] countsOfMediansAboveCutoffs = new int[cutoffs.length+1]; // 0 bin to catch everything
 
         for ( String s : stats.getAllSamples() ) {
-            int medianBin = getQuantile(stats.getHistograms().get(s),0.5);
+            int medianBin = getQuantile(stats.getHistogram(s),0.5);
             for ( int i = 0; i <= medianBin; i ++) {
                 countsOfMediansAboveCutoffs[i]++;
             }
@@ -62,6 +62,7 @@ import java.util.*;
  *     <li>DepthOfCoverage currently only supports typical nucleotide (and N) bases, IUPAC ambiguity codes or other non-ATCGN bases will cause exceptions</li>
  *     <li>Read filters are applied to the reads before being counted in coverage information. By default Duplicate Marked and non-primary alignments are not counted. This can be disabled with --disable-tool-default-read-filters.</li>
  *     <li>In order to filter reads out by their mapping qualities, the recommended approach is to use the MappingQualityReadFilter with the --minimum-mapping-quality or --maximum-mapping-quality arguments specified</li>
+ *     <li>DepthOfCoverage does not support multi-threaded traversal (--threads), since its per-interval summaries are computed in traversal order</li>
  * </ul>
  *
  * <h3>Usage example</h3>
@@ -97,6 +98,8 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
     private DepthOfCoveragePartitionedDataStore coverageTotalsForEntireTraversal;
     // List of all of the samples to be output split by the partition type
     private Map<DoCOutputType.Partition, List<String>> globalIdentifierMap;
+    // Base counts of the current locus, indexed like the identifiers in globalIdentifierMap and reused for every locus
+    private DepthOfCoverageLocusCounts locusCounts;
 
     /**
      * Base file name about which to create the coverage information
@@ -232,6 +235,12 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
         return true;
     }
 
+    // pileups are only used within apply()
+    @Override
+    public boolean recyclePileupStorage() {
+        return true;
+    }
+
     @Override
     public boolean includeDeletions() {
         return includeDeletions && ! ignoreDeletionSites;
@@ -275,9 +284,9 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
         globalIdentifierMap = makeGlobalIdentifierMap(partitionTypes);
         writer.writeCoverageOutputHeaders(globalIdentifierMap);
 
-        ReadUtils.getSamplesFromHeader(getHeaderForReads());
+        locusCounts = new DepthOfCoverageLocusCounts(getHeaderForReads(), partitionTypes, globalIdentifierMap);
 
-        coverageTotalsForEntireTraversal = createCoveragePartitioner();
+        coverageTotalsForEntireTraversal = createCoveragePartitioner(omitLocusTable);
     }
 
     /**
@@ -295,20 +304,20 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
     public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext, Set<Locatable> activeIntervals) {
         // TODO evaluate consequences of supporting nonexistant references
         if (includeRefNBases || (hasReference() && BaseUtils.isRegularBase(referenceContext.getBase()))) {
-            final Map<DoCOutputType.Partition, Map<String, int[]>> countsByPartition = CoverageUtils.getBaseCountsByPartition(alignmentContext, minBaseQuality, maxBaseQuality, countType, partitionTypes, getHeaderForReads());
+            locusCounts.countLocus(alignmentContext, minBaseQuality, maxBaseQuality, countType);
 
             if (!omitDepthOutput) {
-                writer.writePerLocusDepthSummary(referenceContext.getInterval(), countsByPartition, globalIdentifierMap, includeDeletions);
+                writer.writePerLocusDepthSummary(referenceContext.getInterval(), locusCounts, globalIdentifierMap, includeDeletions);
             }
 
             // Update the traversing partitioners with this locus data:
-            coverageTotalsForEntireTraversal.addLocusData(countsByPartition);
+            coverageTotalsForEntireTraversal.addLocusData(locusCounts);
 
             // Update all of the active intervals that we are tracking seperately with the generated counts
-            for (Locatable loc : activeCoveragePartitioner.keySet()) {
+            for (Map.Entry<Locatable, DepthOfCoveragePartitionedDataStore> activeInterval : activeCoveragePartitioner.entrySet()) {
                 // For genes, we don't want to update the interval for non-exon bases
-                if (loc.contains(alignmentContext)) {
-                    activeCoveragePartitioner.get(loc).addLocusData(countsByPartition);
+                if (activeInterval.getKey().contains(alignmentContext)) {
+                    activeInterval.getValue().addLocusData(locusCounts);
                 }
             }
         }
@@ -320,7 +329,8 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
      * @param activeInterval Locatable provided to the walker to be initialized
      */
     public void onIntervalStart(Locatable activeInterval) {
-        DepthOfCoveragePartitionedDataStore partitioner = createCoveragePartitioner();
+        // the locus table is only reported for the whole traversal, so there's no need to tabulate it per interval
+        DepthOfCoveragePartitionedDataStore partitioner = createCoveragePartitioner(true);
         //NOTE: we don't populate perIntervalStatisticsAggregationByPartitioning here because that gets populated on the fly later
         activeCoveragePartitioner.put(activeInterval, partitioner);
     }
@@ -350,7 +360,7 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
 
                     // Create a new table if necessary
                     if (!perIntervalStatisticsAggregationByPartitioning.containsKey(p)) {
-                        perIntervalStatisticsAggregationByPartitioning.put(p, new int[coverageByAggregationPartitionType.getHistograms().size()][coverageByAggregationPartitionType.getEndpoints().length + 1]);
+                        perIntervalStatisticsAggregationByPartitioning.put(p, new int[coverageByAggregationPartitionType.getAllSamples().size()][coverageByAggregationPartitionType.getEndpoints().length + 1]);
                     }
                     // Update the target table to reflect the updated coverage information for this target
                     CoverageUtils.updateTargetTable(perIntervalStatisticsAggregationByPartitioning.get(p), coverageByAggregationPartitionType);
@@ -367,7 +377,7 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
 
                 // Create a new table if necessary
                 if (!perGeneStatisticsAggregationByPartitioning.containsKey(DoCOutputType.Partition.sample)) {
-                    perGeneStatisticsAggregationByPartitioning.put(DoCOutputType.Partition.sample, new int[coverageByAggregationPartitionType.getHistograms().size()][coverageByAggregationPartitionType.getEndpoints().length + 1]);
+                    perGeneStatisticsAggregationByPartitioning.put(DoCOutputType.Partition.sample, new int[coverageByAggregationPartitionType.getAllSamples().size()][coverageByAggregationPartitionType.getEndpoints().length + 1]);
                 }
 
                 // Update the target table to reflect the updated coverage information for this target
@@ -423,7 +433,7 @@ public class DepthOfCoverage extends LocusWalkerByInterval {
     }
 
     // Initialize a coveragePartitioner object for storing interval data.
-    private DepthOfCoveragePartitionedDataStore createCoveragePartitioner() {
+    private DepthOfCoveragePartitionedDataStore createCoveragePartitioner(final boolean omitLocusTable) {
         return new DepthOfCoveragePartitionedDataStore(partitionTypes, start, stop, nBins, includeDeletions, omitLocusTable, globalIdentifierMap);
     }
 
@@ -0,0 +1,159 @@
+package org.broadinstitute.hellbender.tools.walkers.coverage;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+
+import java.util.*;
+
+/**
+ * Reusable, dense storage for the base counts at a single locus, broken down by identifier for every partition
+ * (sample, read group, library...) of a {@link DepthOfCoverage} traversal.
+ *
+ * This is the allocation-free counterpart of {@link CoverageUtils#getBaseCountsByPartition}: every identifier of every
+ * partition is assigned a dense index once, its position in the sorted list of identifiers of the partition, and every
+ * read group of the header is resolved once to the index of its identifier in each partition. Counting a locus then
+ * only increments preallocated int arrays, instead of building maps of counts by read group and by identifier.
+ *
+ * The counts of a partition are stored as a single array of {@link #NUM_BASE_COUNTS} counts per identifier, in the order
+ * of the identifiers, each block being indexed like {@link BaseUtils.Base}. This is the layout expected by
+ * {@link DepthOfCoverageStats#update(int[])}. The counts are overwritten by every call to {@link #countLocus}.
+ */
+public final class DepthOfCoverageLocusCounts {
+    /**
+     * Number of counts per identifier: one for each of the extended bases A, C, G, T, N and D
+     */
+    public static final int NUM_BASE_COUNTS = BaseUtils.BASES_EXTENDED.length;
+
+    private static final int NOT_COUNTED = -1;
+
+    private final DoCOutputType.Partition[] partitions;
+
+    // index of every read group of the header, by read group ID
+    private final Map<String, Integer> readGroupIndices;
+
+    // offset of the counts of the identifier of each read group in the counts of each partition: [read group][partition],
+    // or NOT_COUNTED if the identifier is not one of those reported for the partition (eg. a read group without a sample)
+    private final int[][] countOffsetsByReadGroup;
+
+    // counts of each partition, indexed by partition ordinal, see the class documentation for the layout
+    private final int[][] countsByPartition;
+
+    /**
+     * @param header              header of the reads, to collect read group associations from
+     * @param partitions          partitions over which to count bases
+     * @param identifiersByPartition sorted identifiers of each partition, as used by the output and the {@link DepthOfCoverageStats}
+     */
+    public DepthOfCoverageLocusCounts(final SAMFileHeader header, final Collection<DoCOutputType.Partition> partitions,
+                                      final Map<DoCOutputType.Partition, List<String>> identifiersByPartition) {
+        Utils.nonNull(header);
+        Utils.nonEmpty(partitions);
+        Utils.nonNull(identifiersByPartition);
+        this.partitions = partitions.toArray(new DoCOutputType.Partition[0]);
+        this.countsByPartition = new int[DoCOutputType.Partition.values().length][];
+
+        final List<SAMReadGroupRecord> readGroups = header.getReadGroups();
+        this.readGroupIndices = new HashMap<>(readGroups.size() * 2);
+        this.countOffsetsByReadGroup = new int[readGroups.size()][this.partitions.length];
+
+        for (int p = 0; p < this.partitions.length; p++) {
+            final DoCOutputType.Partition partition = this.partitions[p];
+            final List<String> identifiers = Utils.nonNull(identifiersByPartition.get(partition), () -> "No identifiers for partition " + partition);
+            countsByPartition[partition.ordinal()] = new int[identifiers.size() * NUM_BASE_COUNTS];
+
+            final Map<String, Integer> identifierIndices = new HashMap<>(identifiers.size() * 2);
+            for (int i = 0; i < identifiers.size(); i++) {
+                identifierIndices.put(identifiers.get(i), i);
+            }
+
+            for (int rg = 0; rg < readGroups.size(); rg++) {
+                final SAMReadGroupRecord readGroup = readGroups.get(rg);
+                readGroupIndices.put(readGroup.getReadGroupId(), rg);
+                final String identifier = CoverageUtils.getTypeID(readGroup, partition);
+                final Integer index = identifierIndices.get(identifier);
+                countOffsetsByReadGroup[rg][p] = index == null ? NOT_COUNTED : index * NUM_BASE_COUNTS;
+            }
+        }
+    }
+
+    /**
+     * Replace the counts held by this object with the base counts of the given pileup.
+     *
+     * @param context   pileup to count
+     * @param minBaseQ  minimum base quality to count a base
+     * @param maxBaseQ  maximum base quality to count a base
+     * @param countType flag for controlling whether to count fragments or independent reads (currently only COUNT_READS is supported)
+     */
+    public void countLocus(final AlignmentContext context, final byte minBaseQ, final byte maxBaseQ, final CoverageUtils.CountPileupType countType) {
+        switch (countType) {
+            case COUNT_READS:
+                break;
+
+            // TODO see reconcile FragmentUtils.create() and its various idiosyncrasies to re-enable this feature see https://github.com/broadinstitute/gatk/issues/6491
+            case COUNT_FRAGMENTS:
+            case COUNT_FRAGMENTS_REQUIRE_SAME_BASE:
+                throw new UnsupportedOperationException("Fragment based counting is currently unsupported");
+
+            default:
+                throw new UserException("Must use valid CountPileupType");
+        }
+
+        for (final DoCOutputType.Partition partition : partitions) {
+            Arrays.fill(countsByPartition[partition.ordinal()], 0);
+        }
+
+        for (final PileupElement e : context.getBasePileup()) {
+            if (!CoverageUtils.elementWithinQualRange(e, minBaseQ, maxBaseQ)) {
+                continue;
+            }
+            final int[] countOffsets = getCountOffsets(e.getRead());
+            final int baseIndex = CoverageUtils.getBaseCountIndex(e);
+            for (int p = 0; p < partitions.length; p++) {
+                if (countOffsets[p] != NOT_COUNTED) {
+                    countsByPartition[partitions[p].ordinal()][countOffsets[p] + baseIndex]++;
+                }
+            }
+        }
+    }
+
+    private int[] getCountOffsets(final GATKRead read) {
+        final String readGroupId = read.getReadGroup();
+        final Integer readGroupIndex = readGroupId == null ? null : readGroupIndices.get(readGroupId);
+        Utils.nonNull(readGroupIndex, () -> String.format("Read %s was missing read group information", read));
+        return countOffsetsByReadGroup[readGroupIndex];
+    }
+
+    /**
+     * Returns the counts of the last counted locus for a partition. The returned array is owned by this object: it must
+     * not be modified, and it is overwritten by the next call to {@link #countLocus}.
+     *
+     * @param partition one of the partitions this object counts
+     * @return {@link #NUM_BASE_COUNTS} counts for each identifier of the partition, in the order of its sorted identifiers
+     */
+    public int[] getBaseCounts(final DoCOutputType.Partition partition) {
+        final int[] counts = countsByPartition[partition.ordinal()];
+        Utils.validateArg(counts != null, () -> "Partition " + partition + " is not counted");
+        return counts;
+    }
+
+    /**
+     * @param partition one of the partitions this object counts
+     * @param identifierIndex index of the identifier in the sorted identifiers of the partition
+     * @return the depth (including deletions) of the identifier at the last counted locus
+     */
+    public int getDepth(final DoCOutputType.Partition partition, final int identifierIndex) {
+        final int[] counts = getBaseCounts(partition);
+        final int offset = identifierIndex * NUM_BASE_COUNTS;
+        Utils.validIndex(offset, counts.length);
+        int depth = 0;
+        for (int b = 0; b < NUM_BASE_COUNTS; b++) {
+            depth += counts[offset + b];
+        }
+        return depth;
+    }
+}
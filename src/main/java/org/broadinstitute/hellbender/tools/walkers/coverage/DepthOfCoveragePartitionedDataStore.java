@@ -54,6 +54,13 @@ public class DepthOfCoveragePartitionedDataStore {
         }
     }
 
+    // Adds each of the DepthOfCoverageStats objects information summarizing a new locus, from counts indexed like their samples
+    public void addLocusData(final DepthOfCoverageLocusCounts locusCounts) {
+        for ( Map.Entry<DoCOutputType.Partition, DepthOfCoverageStats> profile : coverageProfiles.entrySet() ) {
+            profile.getValue().update(locusCounts.getBaseCounts(profile.getKey()));
+        }
+    }
+
     // Returns the underlying DepthOfCoverageStats object for a given partition
     public DepthOfCoverageStats getCoverageByAggregationType( final DoCOutputType.Partition t) {
         return coverageProfiles.get(t);
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.coverage;
 
 import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.*;
 
@@ -13,10 +14,13 @@ public class DepthOfCoverageStats {
     // STANDARD DATA
     ////////////////////////////////////////////////////////////////////////////////////
 
-    private Map<String,long[]> granularHistogramBySample; // holds the counts per each bin
-    private Map<String,Long> totalCoverages; // holds total coverage per sample
+    // Samples are assigned dense indices in the order they are initialized, and all per-sample data is indexed by them
+    private final Map<String,Integer> sampleIndices;
+    private final List<long[]> granularHistograms; // holds the counts per each bin, per sample
+    private long[] totalCoverages; // holds total coverage per sample
     private int[] binLeftEndpoints; // describes the left endpoint for each bin
-    private long[][] locusCoverageCounts; // holds counts of number of bases with >=X samples at >=Y coverage
+    private final boolean sortedEndpoints; // whether the bin of a depth can be found by binary search
+    private long[][] lociBySamplesAtBin; // holds counts of number of bases with exactly X samples at >=Y coverage
     private boolean tabulateLocusCounts = false;
     private long nLoci; // number of loci seen
     private long totalDepthOfCoverage;
@@ -26,8 +30,8 @@ public class DepthOfCoverageStats {
     // TEMPORARY DATA ( not worth re-instantiating )
     ////////////////////////////////////////////////////////////////////////////////////
 
-    private int[] locusHistogram; // holds a histogram for each locus; reset after each update() call
-    private int totalLocusDepth; // holds the total depth of coverage for each locus; reset after each update() call
+    private int[] samplesByBin; // holds the number of samples in each bin at a locus; reset after each update() call
+    private int[] depthsBySample; // holds the depth of each sample at a locus; overwritten by each update() call
 
     ////////////////////////////////////////////////////////////////////////////////////
     // INITIALIZATION METHODS
@@ -41,10 +45,12 @@ public class DepthOfCoverageStats {
      */
     public DepthOfCoverageStats(int[] leftEndpoints, boolean includeDeletions, boolean dontComputeLocusTable) {
         this.binLeftEndpoints = leftEndpoints;
-        this.granularHistogramBySample = new HashMap<>();
-        this.totalCoverages = new HashMap<>();
+        this.sortedEndpoints = isStrictlyIncreasing(leftEndpoints);
+        this.sampleIndices = new LinkedHashMap<>();
+        this.granularHistograms = new ArrayList<>();
+        this.totalCoverages = new long[0];
+        this.depthsBySample = new int[0];
         this.nLoci = 0;
-        this.totalLocusDepth = 0;
         this.totalDepthOfCoverage = 0;
         this.includeDeletions = includeDeletions;
         if ( ! dontComputeLocusTable ) {
@@ -52,21 +58,32 @@ public class DepthOfCoverageStats {
         }
     }
 
-    // Adds to granularHistogramBySample a per-locus histogram for the given sample to track
+    private static boolean isStrictlyIncreasing(final int[] values) {
+        for ( int i = 1; i < values.length; i++ ) {
+            if ( values[i] <= values[i-1] ) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Adds a per-locus histogram for the given sample to track, at the next sample index
     void initializeSample(String sample) {
-        if ( granularHistogramBySample.containsKey(sample) ) {
+        if ( sampleIndices.containsKey(sample) ) {
             return;
         }
+        sampleIndices.put(sample, granularHistograms.size());
         // Note: we add 1 here because bin left endpoints has values for ever bin except for the first one (which covers everything below the defined lower bound)
-        granularHistogramBySample.put(sample, new long[this.binLeftEndpoints.length+1]);
-        totalCoverages.put(sample,0L);
+        granularHistograms.add(new long[this.binLeftEndpoints.length+1]);
+        totalCoverages = Arrays.copyOf(totalCoverages, granularHistograms.size());
+        depthsBySample = new int[granularHistograms.size()];
     }
 
     // Create the per-locus coverage counting arrays and histogram
     void initializeLocusCounts() {
         // Note: we add 1 here because bin left endpoints has values for ever bin except for the first one (which covers everything below the defined lower bound)
-        locusCoverageCounts = new long[granularHistogramBySample.size()][binLeftEndpoints.length+1];
-        locusHistogram = new int[binLeftEndpoints.length+1];
+        lociBySamplesAtBin = new long[granularHistograms.size()+1][binLeftEndpoints.length+1];
+        samplesByBin = new int[binLeftEndpoints.length+1];
         tabulateLocusCounts = true;
     }
 
@@ -74,115 +91,142 @@ public class DepthOfCoverageStats {
     // UPDATE METHODS
     ////////////////////////////////////////////////////////////////////////////////////
 
-    private void updateDepths(Map<String, Integer> depthBySample) {
-        int coverageThresholdIndex;
-        for ( String sample : granularHistogramBySample.keySet() ) {
-            if ( depthBySample.containsKey(sample) ) {
-                coverageThresholdIndex = updateSample(sample,depthBySample.get(sample));
-                totalLocusDepth += depthBySample.get(sample);
-            } else {
-                coverageThresholdIndex = updateSample(sample,0);
-            }
-
+    // Adds a locus with the depths in depthsBySample
+    private void updateDepths() {
+        long totalLocusDepth = 0;
+        for ( int sample = 0; sample < depthsBySample.length; sample++ ) {
+            final int coverageThresholdIndex = updateSample(sample, depthsBySample[sample]);
+            totalLocusDepth += depthsBySample[sample];
             if ( tabulateLocusCounts ) {
-                for ( int i = 0; i <= coverageThresholdIndex; i ++ ) {
-                    locusHistogram[i]++;
-                }
+                samplesByBin[coverageThresholdIndex]++;
             }
         }
-        updateLocusCounts(locusHistogram);
+        updateLocusCounts();
 
         nLoci++;
         totalDepthOfCoverage += totalLocusDepth;
-        totalLocusDepth = 0;
     }
 
     public void update(Map<String,int[]> countsBySample) {
-        if ( countsBySample == null ) {
-            this.updateDepths(new HashMap<>(1));
-            return;
-        }
-        final HashMap<String,Integer> depthBySample = new HashMap<String,Integer>();
-        for ( Map.Entry<String, int[]> entry : countsBySample.entrySet() ) {
-            int total = 0;
-            int[] counts = entry.getValue();
-            for ( byte base : BaseUtils.BASES_EXTENDED ) {
-                if ( includeDeletions || base != BaseUtils.Base.D.base ) { // note basesAreEqual assigns TRUE to (N,D) as both have simple index -1
-                    total += counts[BaseUtils.extendedBaseToBaseIndex(base)];
+        Arrays.fill(depthsBySample, 0);
+        if ( countsBySample != null ) {
+            for ( Map.Entry<String, int[]> entry : countsBySample.entrySet() ) {
+                final Integer sample = sampleIndices.get(entry.getKey());
+                if ( sample != null ) {
+                    depthsBySample[sample] = getDepth(entry.getValue(), 0);
                 }
             }
-            depthBySample.put(entry.getKey(),total);
         }
-        
-        this.updateDepths(depthBySample);
+        this.updateDepths();
+    }
+
+    /**
+     * Add a locus, given the base counts of every sample at the locus as a single array. The counts of each sample are
+     * laid out as in {@link CoverageUtils#getBaseCountsByPartition} (one count for each of the {@link BaseUtils#BASES_EXTENDED}),
+     * one sample after the other in the order of the sample indices, which is the order in which they were initialized.
+     *
+     * @param baseCountsBySample counts of the extended bases of all samples, {@link DepthOfCoverageLocusCounts#NUM_BASE_COUNTS} per sample
+     */
+    public void update(final int[] baseCountsBySample) {
+        Utils.validateArg(baseCountsBySample.length == depthsBySample.length * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS,
+                "the base counts must have an entry for each base of each sample");
+        for ( int sample = 0; sample < depthsBySample.length; sample++ ) {
+            depthsBySample[sample] = getDepth(baseCountsBySample, sample * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS);
+        }
+        this.updateDepths();
+    }
+
+    // Sums the base counts starting at offset, only counting deletions if includeDeletions is set
+    private int getDepth(final int[] counts, final int offset) {
+        int total = 0;
+        for ( byte base : BaseUtils.BASES_EXTENDED ) {
+            if ( includeDeletions || base != BaseUtils.Base.D.base ) { // note basesAreEqual assigns TRUE to (N,D) as both have simple index -1
+                total += counts[offset + BaseUtils.extendedBaseToBaseIndex(base)];
+            }
+        }
+        return total;
     }
 
     // returns the index of the last bin that the given depth exceeds the left endpoint of
-    private int updateSample(final String sample, final int depth) {
-        totalCoverages.put(sample,totalCoverages.get(sample)+depth);
+    private int updateSample(final int sample, final int depth) {
+        totalCoverages[sample] += depth;
 
-        long[] granularBins = granularHistogramBySample.get(sample);
+        final int bin = depthToBin(depth);
+        granularHistograms.get(sample)[bin]++;
+        return bin;
+    }
+
+    // returns the index of the first left endpoint that the given depth is below, or the number of endpoints if there is none
+    private int depthToBin(final int depth) {
+        if ( sortedEndpoints ) {
+            int low = 0;
+            int high = binLeftEndpoints.length;
+            while ( low < high ) {
+                final int mid = (low + high) >>> 1;
+                if ( depth < binLeftEndpoints[mid] ) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            return low;
+        }
         for ( int b = 0; b < binLeftEndpoints.length; b ++ ) {
             if ( depth < binLeftEndpoints[b] ) {
-                granularBins[b]++;
                 return b;
             }
         }
-
-        granularBins[binLeftEndpoints.length]++; // greater than all left-endpoints
-        return binLeftEndpoints.length;
+        return binLeftEndpoints.length; // greater than all left-endpoints
     }
 
     public void merge(DepthOfCoverageStats newStats) {
         this.mergeSamples(newStats);
         if ( this.tabulateLocusCounts && newStats.tabulateLocusCounts ) {
-            this.mergeLocusCounts(newStats.getLocusCounts());
+            this.mergeLocusCounts(newStats.lociBySamplesAtBin);
         }
         nLoci += newStats.getTotalLoci();
         totalDepthOfCoverage += newStats.getTotalCoverage();
     }
 
     private void mergeSamples(DepthOfCoverageStats otherStats) {
-        Map<String,long[]> otherHistogram = otherStats.getHistograms();
-        Map<String,Double> otherMeans = otherStats.getMeans();
-        for ( String s : granularHistogramBySample.keySet() ) {
-            long[] internalCounts = granularHistogramBySample.get(s);
-            long[] externalCounts = otherHistogram.get(s);
+        for ( Map.Entry<String,Integer> entry : sampleIndices.entrySet() ) {
+            final int otherSample = otherStats.sampleIndices.get(entry.getKey());
+            long[] internalCounts = granularHistograms.get(entry.getValue());
+            long[] externalCounts = otherStats.granularHistograms.get(otherSample);
             for ( int b = 0; b < internalCounts.length; b++ ) {
                 internalCounts[b] += externalCounts[b];
             }
 
-            this.totalCoverages.put(s, this.totalCoverages.get(s) + otherStats.totalCoverages.get(s));
+            this.totalCoverages[entry.getValue()] += otherStats.totalCoverages[otherSample];
         }
     }
 
     private void mergeLocusCounts( long[][] otherCounts ) {
-        for ( int a = 0; a < locusCoverageCounts.length; a ++ ) {
-            for ( int b = 0; b < locusCoverageCounts[0].length; b ++ ) {
-                locusCoverageCounts[a][b] += otherCounts[a][b];
+        for ( int a = 0; a < lociBySamplesAtBin.length; a ++ ) {
+            for ( int b = 0; b < lociBySamplesAtBin[0].length; b ++ ) {
+                lociBySamplesAtBin[a][b] += otherCounts[a][b];
             }
         }
     }
 
     /*
-     * Update locus counts -- takes an array in which the number of samples
-     * with depth ABOVE [i] is held. So if the bin left endpoints were 2, 5, 10
-     * then we'd have an array that represented:
+     * Update locus counts from the number of samples in each bin at this locus. The number of samples with depth
+     * ABOVE the left endpoint of each bin is the number of samples in that bin or a higher one. So if the bin left
+     * endpoints were 2, 5, 10 then we'd count this locus once for each of:
      * [# samples with depth 0 - inf], [# samples with depth 2 - inf],
      * [# samples with depth 5 - inf], [# samples with depth 10-inf];
      *
-     * this is
-     * @argument cumulativeSamplesByDepthBin - see above
+     * The cumulative table of the number of loci with AT LEAST X samples is only computed when it is requested, see
+     * getLocusCounts(), so this costs one update per bin rather than one per bin per sample.
      */
-    private void updateLocusCounts(int[] cumulativeSamplesByDepthBin) {
+    private void updateLocusCounts() {
         if ( tabulateLocusCounts ) {
-            for ( int bin = 0; bin < cumulativeSamplesByDepthBin.length; bin ++ ) {
-                int numSamples = cumulativeSamplesByDepthBin[bin];
-                for ( int i = 0; i < numSamples; i ++ ) {
-                    locusCoverageCounts[i][bin]++;
-                }
+            int numSamples = 0;
+            for ( int bin = samplesByBin.length - 1; bin >= 0; bin -- ) {
+                numSamples += samplesByBin[bin];
+                lociBySamplesAtBin[numSamples][bin]++;
 
-                cumulativeSamplesByDepthBin[bin] = 0; // reset counts in advance of next update()
+                samplesByBin[bin] = 0; // reset counts in advance of next update()
             }
         }
     }
@@ -193,11 +237,31 @@ public class DepthOfCoverageStats {
 
     // Return the per-sample histograms of depths
     public Map<String,long[]> getHistograms() {
-        return granularHistogramBySample;
+        final Map<String,long[]> histograms = new LinkedHashMap<>();
+        for ( Map.Entry<String,Integer> entry : sampleIndices.entrySet() ) {
+            histograms.put(entry.getKey(), granularHistograms.get(entry.getValue()));
+        }
+        return histograms;
+    }
+
+    // Return the histogram of depths of a sample
+    public long[] getHistogram(final String sample) {
+        return granularHistograms.get(getSampleIndex(sample));
     }
 
     // Return array with the counts of number of bases with >=X samples at >=Y coverage
     public long[][] getLocusCounts() {
+        if ( lociBySamplesAtBin == null ) {
+            return null;
+        }
+        // row i counts the loci with at least i+1 samples, ie. with exactly i+1, i+2, ... samples
+        final int numSamples = lociBySamplesAtBin.length - 1;
+        final long[][] locusCoverageCounts = new long[numSamples][lociBySamplesAtBin[0].length];
+        for ( int row = numSamples - 1; row >= 0; row-- ) {
+            for ( int bin = 0; bin < lociBySamplesAtBin[0].length; bin++ ) {
+                locusCoverageCounts[row][bin] = lociBySamplesAtBin[row + 1][bin] + (row + 1 < numSamples ? locusCoverageCounts[row + 1][bin] : 0);
+            }
+        }
         return locusCoverageCounts;
     }
 
@@ -208,16 +272,36 @@ public class DepthOfCoverageStats {
 
     public Map<String,Double> getMeans() {
         HashMap<String,Double> means = new HashMap<String,Double>();
-        for ( String s : granularHistogramBySample.keySet() ) {
-            means.put(s,( (double)totalCoverages.get(s))/( (double) nLoci ));
+        for ( String s : sampleIndices.keySet() ) {
+            means.put(s,getMean(s));
         }
 
         return means;
     }
 
+    // Returns the mean coverage of a sample over all loci seen
+    public double getMean(final String sample) {
+        return ( (double) getTotal(sample) )/( (double) nLoci );
+    }
+
     // Returns the total coverage (sum of coverage at each base) per sample
     public Map<String,Long> getTotals() {
-        return totalCoverages;
+        final Map<String,Long> totals = new LinkedHashMap<>();
+        for ( Map.Entry<String,Integer> entry : sampleIndices.entrySet() ) {
+            totals.put(entry.getKey(), totalCoverages[entry.getValue()]);
+        }
+        return totals;
+    }
+
+    // Returns the total coverage (sum of coverage at each base) of a sample
+    public long getTotal(final String sample) {
+        return totalCoverages[getSampleIndex(sample)];
+    }
+
+    private int getSampleIndex(final String sample) {
+        final Integer index = sampleIndices.get(sample);
+        Utils.validateArg(index != null, () -> "Unknown sample " + sample);
+        return index;
     }
 
     // Returns the number of loci counted
@@ -229,7 +313,7 @@ public class DepthOfCoverageStats {
      * @return  An unordered set of all the samples covered by this stats object
      */
     public Set<String> getAllSamples() {
-        return granularHistogramBySample.keySet();
+        return Collections.unmodifiableSet(sampleIndices.keySet());
     }
 
     // Returns the mean of coverage for all loci seen
@@ -248,7 +332,7 @@ public class DepthOfCoverageStats {
      * @return
      */
     public double[] getCoverageProportions(String sample) {
-        long[] hist = granularHistogramBySample.get(sample);
+        long[] hist = getHistogram(sample);
         double[] distribution = new double[hist.length];
         long count = 0;
         for ( int i = hist.length-1; i >= 0; i -- ) {
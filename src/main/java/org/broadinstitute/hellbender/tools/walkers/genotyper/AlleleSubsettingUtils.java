@@ -1,8 +1,6 @@
 package org.broadinstitute.hellbender.tools.walkers.genotyper;
 
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.primitives.Doubles;
-import com.google.common.primitives.Ints;
 import htsjdk.variant.variantcontext.*;
 import htsjdk.variant.vcf.VCFConstants;
 import htsjdk.variant.vcf.VCFFormatHeaderLine;
@@ -421,27 +419,16 @@ public final class AlleleSubsettingUtils {
      * @param ploidy                Ploidy (number of chromosomes describing PL's)
      * @param originalAlleles       List of original alleles
      * @param newAlleles            New alleles -- must be a subset of {@code originalAlleles}
-     * @return                      old PL indices of new genotypes
+     * @return                      old PL indices of new genotypes, which may be shared with other callers and must not be modified
      */
     public static int[] subsettedPLIndices(final int ploidy, final List<Allele> originalAlleles, final List<Allele> newAlleles) {
-        final int[] result = new int[GenotypeLikelihoods.numLikelihoods(newAlleles.size(), ploidy)];
         final Permutation<Allele> allelePermutation = new IndexedAlleleList<>(originalAlleles).permutation(new IndexedAlleleList<>(newAlleles));
-
-        for (final GenotypeAlleleCounts oldAlleleCounts : GenotypeAlleleCounts.iterable(ploidy, originalAlleles.size())) {
-            final boolean containsOnlyNewAlleles = IntStream.range(0, oldAlleleCounts.distinctAlleleCount())
-                    .map(oldAlleleCounts::alleleIndexAt).allMatch(allelePermutation::isKept);
-
-            if (containsOnlyNewAlleles) {
-                // make an array in the format described in {@link GenotypeAlleleCounts}:
-                // [(new) index of first allele, count of first allele, (new) index of second allele, count of second allele. . .]
-                final int[] newAlleleCounts = IntStream.range(0, newAlleles.size()).flatMap(newAlleleIndex ->
-                        IntStream.of(newAlleleIndex, oldAlleleCounts.alleleCountFor(allelePermutation.fromIndex(newAlleleIndex)))).toArray();
-
-                final int newPLIndex = GenotypeIndexCalculator.alleleCountsToIndex(newAlleleCounts);
-                result[newPLIndex] = oldAlleleCounts.index();
-            }
+        final int[] newToOldAlleleMap = new int[newAlleles.size()];
+        for (int newAlleleIndex = 0; newAlleleIndex < newToOldAlleleMap.length; newAlleleIndex++) {
+            newToOldAlleleMap[newAlleleIndex] = allelePermutation.fromIndex(newAlleleIndex);
         }
-        return  result;
+        // the same as enumerating the old genotypes made only of new alleles, without enumerating all the old genotypes
+        return GenotypeIndexCalculator.newToOldGenotypeMap(ploidy, newToOldAlleleMap);
     }
 
     /**
@@ -524,8 +511,15 @@ public final class AlleleSubsettingUtils {
      * @return non-null array of new AD values
      */
     public static int[] generateAD(final int[] originalAD, final int[] indexesOfRelevantAlleles) {
-        final List<Integer> adList = remapRLengthList(Arrays.stream(originalAD).boxed().collect(Collectors.toList()), indexesOfRelevantAlleles, 0);
-        return Ints.toArray(adList);
+        Utils.nonNull(originalAD);
+        Utils.nonNull(indexesOfRelevantAlleles);
+        // same as remapRLengthList, without boxing
+        final int[] newAD = new int[indexesOfRelevantAlleles.length];
+        for ( int i = 0; i < newAD.length; i++ ) {
+            final int oldIndex = indexesOfRelevantAlleles[i];
+            newAD[i] = oldIndex >= originalAD.length ? 0 : originalAD[oldIndex];
+        }
+        return newAD;
     }
 
     /**
@@ -535,8 +529,15 @@ public final class AlleleSubsettingUtils {
      * @return non-null array of new AFs
      */
     public static double[] generateAF(final double[] originalAF, final int[] indexesOfRelevantAlleles) {
-        final List<Double> afList = remapALengthList(Arrays.stream(originalAF).boxed().collect(Collectors.toList()), indexesOfRelevantAlleles, 0.0);
-        return Doubles.toArray(afList);
+        Utils.nonNull(originalAF);
+        Utils.nonNull(indexesOfRelevantAlleles);
+        // same as remapALengthList, without boxing
+        final double[] newAF = new double[indexesOfRelevantAlleles.length - 1];
+        for ( int i = 0; i < newAF.length; i++ ) {
+            final int oldIndex = indexesOfRelevantAlleles[i + 1];
+            newAF[i] = oldIndex >= originalAF.length + 1 ? 0.0 : originalAF[oldIndex - 1];
+        }
+        return newAF;
     }
 
     /**
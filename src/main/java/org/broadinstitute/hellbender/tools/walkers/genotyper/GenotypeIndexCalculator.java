@@ -9,6 +9,8 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Utilities class for calculations involving the canonical enumeration of (unphased) genotypes.
@@ -29,6 +31,28 @@ import java.util.Arrays;
  */
 public class GenotypeIndexCalculator {
 
+    /**
+     * Maximum number of genotype index maps cached by {@link #newToOldGenotypeMap}
+     */
+    public static final int MAX_CACHED_GENOTYPE_MAPS = 1000;
+
+    /**
+     * Maximum number of genotypes of a genotype index map cached by {@link #newToOldGenotypeMap}. Together with
+     * {@link #MAX_CACHED_GENOTYPE_MAPS}, this bounds the memory used by the cache.
+     */
+    public static final int MAX_CACHED_GENOTYPE_MAP_LENGTH = GenotypesCache.MAX_CACHE_SIZE;
+
+    /**
+     * Cache of genotype index maps by ploidy and allele index map. The same few allele recodings occur at most
+     * multi-allelic sites of a joint-calling cohort, so their maps are worth keeping rather than enumerating all the
+     * genotypes again at every site.
+     *
+     * Lookups are lock-free, so that threads calling genotypers concurrently don't contend on the cache. Rather than
+     * tracking recency of use, the cache is emptied whenever it fills up, after which the maps in use are quickly
+     * cached again.
+     */
+    private static final Map<GenotypeMapKey, int[]> genotypeMapCache = new ConcurrentHashMap<>();
+
     private GenotypeIndexCalculator() {}
 
     /**
@@ -187,6 +211,9 @@ public class GenotypeIndexCalculator {
      * Composes a genotype index map given a allele index recoding such that result[i] is the index of the old
      * genotype corresponding to the ith new genotype.
      *
+     * Maps of up to {@link #MAX_CACHED_GENOTYPE_MAP_LENGTH} genotypes are cached, so the returned array may be shared
+     * between callers and threads, and must not be modified.
+     *
      * @param newToOldAlleleMap allele recoding such that newToOldAlleleMap[i] is the index of the old allele
      *                               corresponding to the ith new allele
      *
@@ -194,13 +221,63 @@ public class GenotypeIndexCalculator {
      */
     public static int[] newToOldGenotypeMap(final int ploidy, final int[] newToOldAlleleMap) {
         Utils.nonNull(newToOldAlleleMap);
-        final int newAlleleCount = newToOldAlleleMap.length;
+        final int genotypeCount = genotypeCount(ploidy, newToOldAlleleMap.length);
+        if (genotypeCount > MAX_CACHED_GENOTYPE_MAP_LENGTH) {
+            return computeNewToOldGenotypeMap(ploidy, newToOldAlleleMap, genotypeCount);
+        }
 
-        final int[] result = new int[genotypeCount(ploidy, newAlleleCount)];
-        for (final GenotypeAlleleCounts newGAC : GenotypeAlleleCounts.iterable(ploidy, newAlleleCount)) {
-            result[newGAC.index()] = alleleCountsToIndex(newGAC, newToOldAlleleMap);
+        final GenotypeMapKey key = new GenotypeMapKey(ploidy, newToOldAlleleMap);
+        final int[] cached = genotypeMapCache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        // two threads may both compute a missing map, but they compute the same one
+        final int[] result = computeNewToOldGenotypeMap(ploidy, newToOldAlleleMap, genotypeCount);
+        if (genotypeMapCache.size() >= MAX_CACHED_GENOTYPE_MAPS) {
+            genotypeMapCache.clear();
         }
+        genotypeMapCache.put(key, result);
+        return result;
+    }
 
+    private static int[] computeNewToOldGenotypeMap(final int ploidy, final int[] newToOldAlleleMap, final int genotypeCount) {
+        final int[] result = new int[genotypeCount];
+        for (final GenotypeAlleleCounts newGAC : GenotypeAlleleCounts.iterable(ploidy, newToOldAlleleMap.length)) {
+            result[newGAC.index()] = alleleCountsToIndex(newGAC, newToOldAlleleMap);
+        }
         return result;
     }
+
+    /**
+     * Key of the genotype index map cache. The map only depends on the ploidy and the allele recoding, and not on the
+     * number of old alleles.
+     */
+    private static final class GenotypeMapKey {
+        private final int ploidy;
+        private final int[] newToOldAlleleMap;
+        private final int hashCode;
+
+        GenotypeMapKey(final int ploidy, final int[] newToOldAlleleMap) {
+            this.ploidy = ploidy;
+            this.newToOldAlleleMap = newToOldAlleleMap.clone();
+            this.hashCode = 31 * ploidy + Arrays.hashCode(newToOldAlleleMap);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof GenotypeMapKey)) {
+                return false;
+            }
+            final GenotypeMapKey other = (GenotypeMapKey) o;
+            return ploidy == other.ploidy && Arrays.equals(newToOldAlleleMap, other.newToOldAlleleMap);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
 }
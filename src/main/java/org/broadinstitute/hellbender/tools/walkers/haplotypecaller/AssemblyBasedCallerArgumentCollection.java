@@ -7,6 +7,7 @@ import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.ArgumentCollection;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.engine.FeatureInput;
+import org.broadinstitute.hellbender.engine.GATKPath;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingAssembler;
 import org.broadinstitute.hellbender.utils.haplotype.HaplotypeBAMWriter;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
@@ -38,6 +39,7 @@ public abstract class AssemblyBasedCallerArgumentCollection {
     public static final String ALLELE_EXTENSION_LONG_NAME = "allele-informative-reads-overlap-margin";
 
     public static final String PILEUP_DETECTION_LONG_NAME = "pileup-detection";
+    public static final String ASSEMBLY_CACHE_DIRECTORY_LONG_NAME = "assembly-cache-directory";
 
     public static final String SMITH_WATERMAN_DANGLING_END_MATCH_VALUE_LONG_NAME = "smith-waterman-dangling-end-match-value";
     public static final String SMITH_WATERMAN_DANGLING_END_MISMATCH_PENALTY_LONG_NAME = "smith-waterman-dangling-end-mismatch-penalty";
@@ -72,10 +74,54 @@ public abstract class AssemblyBasedCallerArgumentCollection {
     public static final String MIN_BASE_QUALITY_SCORE_SHORT_NAME = "mbq";
     public static final String OVERRIDE_FRAGMENT_SOFTCLIP_CHECK_LONG_NAME = "override-fragment-softclip-check";
 
+    /**
+     * @return true if any output that is written directly by the calling engine, rather than through the tool's
+     * variant writer, was requested. Such outputs cannot be produced when several engines process regions concurrently.
+     */
+    public boolean requestsEngineWrittenOutputs() {
+        return bamOutputPath != null || alleleLikelihoodMatrixPath != null || likelihoodArgs.pairHmmResultsFile != null
+                || pileupDetectionArgs.pdhmmDebugOutputResults != null || assemblerArgs.debugAssemblyVariantsOut != null
+                || assemblerArgs.graphOutput != null || assemblerArgs.haplotypeHistogramOutput != null;
+    }
+
+    /**
+     * Cache the haplotypes assembled for each assembly region in this directory, and reuse those of the regions that
+     * were already assembled there from the same reads, reference and assembly arguments. This is meant for calling the
+     * same inputs again with different genotyping or annotation arguments: regions whose assembly inputs are unchanged
+     * skip assembly entirely. Assembly debug outputs that depend on the assembly graphs are not produced for the regions
+     * found in the cache. The directory may be shared by several runs, and is never cleaned up.
+     */
+    @Advanced
+    @Argument(fullName = ASSEMBLY_CACHE_DIRECTORY_LONG_NAME, doc = "Directory in which to cache the assembled haplotypes of each region, to reuse them when calling the same reads again", optional = true)
+    public GATKPath assemblyCacheDirectory = null;
+
+    // created on first use, and shared by all the engines of the tool
+    private transient AssemblyResultCache assemblyResultCache = null;
+
+    /**
+     * @return the cache of the assembled haplotypes, or null if they should not be cached
+     */
+    public synchronized AssemblyResultCache getAssemblyResultCache() {
+        if ( assemblyCacheDirectory != null && assemblyResultCache == null ) {
+            assemblyResultCache = new AssemblyResultCache(assemblyCacheDirectory.toPath(), this);
+        }
+        return assemblyResultCache;
+    }
+
+    /**
+     * Log how many regions were found in the assembly cache, if it was used
+     */
+    public synchronized void logAssemblyResultCacheStatistics() {
+        if ( assemblyResultCache != null ) {
+            assemblyResultCache.logStatistics();
+        }
+    }
+
     public ReadThreadingAssembler createReadThreadingAssembler() {
         final ReadThreadingAssembler assemblyEngine = assemblerArgs.makeReadThreadingAssembler();
         assemblyEngine.setDebug(assemblerArgs.debugAssembly);
         assemblyEngine.setMinBaseQualityToUseInAssembly(minBaseQualityScore);
+        assemblyEngine.setKmerAssemblyExecutor(assemblerArgs.getKmerAssemblyExecutor());
 
         return assemblyEngine;
     }
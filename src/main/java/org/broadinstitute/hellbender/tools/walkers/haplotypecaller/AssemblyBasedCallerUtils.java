@@ -379,6 +379,18 @@ public final class AssemblyBasedCallerUtils {
             logger.debug("deploying haplotypeCollapsing on " + paddedReferenceLoc + ", region: " + region);
         }
 
+        // regions assembled before from the same reads and arguments get their haplotypes from the cache
+        final AssemblyResultCache assemblyResultCache = bypassAssembly ? null : argumentCollection.getAssemblyResultCache();
+        final String assemblyCacheKey = assemblyResultCache == null ? null :
+                assemblyResultCache.fingerprint(region, fullReferenceWithPadding, paddedReferenceLoc, aligner);
+        final AssemblyResultSet cachedAssemblyResultSet = assemblyResultCache == null ? null :
+                assemblyResultCache.get(assemblyCacheKey, region, fullReferenceWithPadding, paddedReferenceLoc);
+        if ( cachedAssemblyResultSet != null ) {
+            cachedAssemblyResultSet.setHaplotypeCollapsingEngine(haplotypeCollapsing);
+            cachedAssemblyResultSet.setDebug(argumentCollection.assemblerArgs.debugAssembly);
+            return cachedAssemblyResultSet;
+        }
+
         try {
             final AssemblyResultSet assemblyResultSet =
                     !bypassAssembly
@@ -401,6 +413,9 @@ public final class AssemblyBasedCallerUtils {
             assemblyResultSet.setHaplotypeCollapsingEngine(haplotypeCollapsing);
             assemblyResultSet.setDebug(argumentCollection.assemblerArgs.debugAssembly);
             assemblyResultSet.debugDump(logger);
+            if ( assemblyResultCache != null ) {
+                assemblyResultCache.put(assemblyCacheKey, assemblyResultSet);
+            }
             return assemblyResultSet;
         } catch (final Exception e){
             // Capture any exception that might be thrown, and write out the assembly failure BAM if requested
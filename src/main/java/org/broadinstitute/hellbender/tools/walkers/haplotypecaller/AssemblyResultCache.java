@@ -0,0 +1,278 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import com.google.common.annotations.VisibleForTesting;
+import htsjdk.samtools.TextCigarCodec;
+import htsjdk.samtools.util.Locatable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.runtime.RuntimeUtils;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * On-disk cache of the haplotypes assembled for each assembly region, for runs that call the same reads again with
+ * different genotyping or annotation settings.
+ *
+ * Each region is keyed by a SHA-256 fingerprint of everything the assembly depends on: the region and its padded
+ * reference, the region's reads (after {@link AssemblyBasedCallerUtils#finalizeRegion}) with their names, read groups,
+ * positions, cigars, bases and qualities, the assembler arguments, the Smith-Waterman parameters and implementation and
+ * the GATK version. A region whose fingerprint is in the cache gets the cached haplotypes, with their cigars,
+ * locations and scores, rather than being assembled again. Changing anything that affects the assembly changes the
+ * fingerprints, so stale entries are never used, only left behind.
+ *
+ * Entries are only the haplotypes, not the assembly graphs: graph output options and debug output that depend on the
+ * graphs are not produced for regions found in the cache. Each entry is a separate file, written to a temporary file
+ * first and then moved into place, so several threads or runs can share a cache directory.
+ */
+public final class AssemblyResultCache {
+    private static final Logger logger = LogManager.getLogger(AssemblyResultCache.class);
+
+    // bump whenever the fingerprint or the format of the entries changes
+    private static final int FORMAT_VERSION = 2;
+
+    private final Path directory;
+    private final byte[] settingsFingerprint;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param directory directory of the cache, created if necessary
+     * @param argumentCollection arguments of the assembly, entries made with other arguments are not used
+     */
+    public AssemblyResultCache(final Path directory, final AssemblyBasedCallerArgumentCollection argumentCollection) {
+        this.directory = Utils.nonNull(directory);
+        Utils.nonNull(argumentCollection);
+        try {
+            Files.createDirectories(directory);
+        } catch (final IOException e) {
+            throw new UserException.CouldNotCreateOutputFile(directory.toString(), "could not create the assembly cache directory", e);
+        }
+
+        final MessageDigest digest = newDigest();
+        try (final ObjectOutputStream out = new ObjectOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            out.writeInt(FORMAT_VERSION);
+            writeString(out, RuntimeUtils.getVersion(AssemblyResultCache.class));
+            out.writeObject(argumentCollection.assemblerArgs);
+            out.writeByte(argumentCollection.minBaseQualityScore);
+            out.writeBoolean(argumentCollection.dontUseSoftClippedBases);
+            out.writeBoolean(argumentCollection.softClipLowQualityEnds);
+            out.writeBoolean(argumentCollection.overrideSoftclipFragmentCheck);
+            out.writeInt(argumentCollection.flowAssemblyCollapseHKerSize);
+            out.writeBoolean(argumentCollection.flowAssemblyCollapsePartialMode);
+            writeSWParameters(out, argumentCollection.getDanglingEndSWParameters());
+            writeSWParameters(out, argumentCollection.getHaplotypeToReferenceSWParameters());
+        } catch (final IOException e) {
+            throw new GATKException("Could not fingerprint the assembly arguments", e);
+        }
+        this.settingsFingerprint = digest.digest();
+    }
+
+    private static void writeSWParameters(final DataOutput out, final SWParameters parameters) throws IOException {
+        out.writeInt(parameters.getMatchValue());
+        out.writeInt(parameters.getMismatchPenalty());
+        out.writeInt(parameters.getGapOpenPenalty());
+        out.writeInt(parameters.getGapExtendPenalty());
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new GATKException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * @return the key of the assembly of a region, given its finalized reads and its padded reference
+     */
+    public String fingerprint(final AssemblyRegion region, final byte[] fullReferenceWithPadding, final SimpleInterval paddedReferenceLoc,
+                              final SmithWatermanAligner aligner) {
+        final MessageDigest digest = newDigest();
+        try (final DataOutputStream out = new DataOutputStream(new DigestOutputStream(OutputStream.nullOutputStream(), digest))) {
+            out.write(settingsFingerprint);
+            writeString(out, aligner.getClass().getName());
+            writeInterval(out, region.getSpan());
+            writeInterval(out, region.getPaddedSpan());
+            writeInterval(out, paddedReferenceLoc);
+            writeBytes(out, fullReferenceWithPadding);
+
+            final List<GATKRead> reads = region.getReads();
+            out.writeInt(reads.size());
+            for (final GATKRead read : reads) {
+                writeString(out, String.valueOf(read.getName()));
+                writeString(out, String.valueOf(read.getReadGroup()));
+                writeString(out, String.valueOf(read.getContig()));
+                out.writeInt(read.getStart());
+                out.writeBoolean(read.isReverseStrand());
+                out.writeInt(read.getMappingQuality());
+                writeString(out, read.getCigar().toString());
+                writeBytes(out, read.getBases());
+                writeBytes(out, read.getBaseQualities());
+            }
+        } catch (final IOException e) {
+            throw new GATKException("Could not fingerprint assembly region " + region.getSpan(), e);
+        }
+        return Hex.encodeHexString(digest.digest());
+    }
+
+    private static void writeInterval(final DataOutput out, final Locatable interval) throws IOException {
+        writeString(out, interval.getContig());
+        out.writeInt(interval.getStart());
+        out.writeInt(interval.getEnd());
+    }
+
+    private static void writeBytes(final DataOutput out, final byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static byte[] readBytes(final DataInput in) throws IOException {
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    // unlike DataOutput.writeUTF, not limited to 64K bytes, which long cigars can exceed
+    private static void writeString(final DataOutput out, final String string) throws IOException {
+        writeBytes(out, string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(final DataInput in) throws IOException {
+        return new String(readBytes(in), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the cached assembly of a region
+     *
+     * @param key the fingerprint of the region, see {@link #fingerprint}
+     * @param region the region being assembled, for genotyping
+     * @return an assembly result set with the cached haplotypes, or null if the region isn't in the cache
+     */
+    public AssemblyResultSet get(final String key, final AssemblyRegion region, final byte[] fullReferenceWithPadding, final SimpleInterval paddedReferenceLoc) {
+        final Path entry = entryPath(key);
+        try (final DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(entry)))) {
+            final AssemblyResultSet resultSet = new AssemblyResultSet();
+            resultSet.setRegionForGenotyping(region);
+            resultSet.setFullReferenceWithPadding(fullReferenceWithPadding);
+            resultSet.setPaddedReferenceLoc(paddedReferenceLoc);
+
+            final boolean variationPresent = in.readBoolean();
+            final int numHaplotypes = in.readInt();
+            for (int i = 0; i < numHaplotypes; i++) {
+                resultSet.add(readHaplotype(in));
+            }
+            resultSet.setVariationPresent(variationPresent);
+            hits.incrementAndGet();
+            return resultSet;
+        } catch (final NoSuchFileException e) {
+            misses.incrementAndGet();
+            return null;
+        } catch (final IOException | RuntimeException e) {
+            // the cache only saves work, so an entry that can't be read is assembled again, and rewritten
+            logger.warn("Could not read assembly cache entry " + entry + ", the region will be assembled again: " + e.getMessage());
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Add the assembly of a region to the cache. Failing to write the entry (eg. a full disk) is only logged, as the
+     * region is then simply assembled again by later runs.
+     *
+     * @param key the fingerprint of the region, see {@link #fingerprint}
+     * @param resultSet the assembly of the region
+     */
+    public void put(final String key, final AssemblyResultSet resultSet) {
+        final Path entry = entryPath(key);
+        Path temporaryEntry = null;
+        try {
+            Files.createDirectories(entry.getParent());
+            temporaryEntry = Files.createTempFile(entry.getParent(), key, ".tmp");
+            try (final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryEntry)))) {
+                final List<Haplotype> haplotypes = resultSet.getHaplotypeList();
+                out.writeBoolean(resultSet.isVariationPresent());
+                out.writeInt(haplotypes.size());
+                for (final Haplotype haplotype : haplotypes) {
+                    writeHaplotype(out, haplotype);
+                }
+            }
+            Files.move(temporaryEntry, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final IOException | RuntimeException e) {
+            logger.warn("Could not write assembly cache entry " + entry + ", the region will not be cached: " + e.getMessage());
+            if (temporaryEntry != null) {
+                try {
+                    Files.deleteIfExists(temporaryEntry);
+                } catch (final IOException deletionFailure) {
+                    logger.warn("Could not delete temporary assembly cache entry " + temporaryEntry + ": " + deletionFailure.getMessage());
+                }
+            }
+        }
+    }
+
+    // entries are spread over subdirectories named after the start of their key, to keep directories small
+    private Path entryPath(final String key) {
+        return directory.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static void writeHaplotype(final DataOutput out, final Haplotype haplotype) throws IOException {
+        writeBytes(out, haplotype.getBases());
+        out.writeBoolean(haplotype.isReference());
+        writeInterval(out, haplotype.getGenomeLocation());
+        writeString(out, haplotype.getCigar() == null ? "" : TextCigarCodec.encode(haplotype.getCigar()));
+        out.writeInt(haplotype.getAlignmentStartHapwrtRef());
+        out.writeDouble(haplotype.getScore());
+        out.writeInt(haplotype.getKmerSize());
+        out.writeBoolean(haplotype.isCollapsed());
+        out.writeInt(haplotype.getUniquenessValue());
+    }
+
+    private static Haplotype readHaplotype(final DataInput in) throws IOException {
+        final Haplotype haplotype = new Haplotype(readBytes(in), in.readBoolean());
+        haplotype.setGenomeLocation(new SimpleInterval(readString(in), in.readInt(), in.readInt()));
+        final String cigar = readString(in);
+        if (!cigar.isEmpty()) {
+            haplotype.setCigar(TextCigarCodec.decode(cigar));
+        }
+        haplotype.setAlignmentStartHapwrtRef(in.readInt());
+        haplotype.setScore(in.readDouble());
+        haplotype.setKmerSize(in.readInt());
+        haplotype.setCollapsed(in.readBoolean());
+        haplotype.setUniquenessValue(in.readInt());
+        return haplotype;
+    }
+
+    @VisibleForTesting
+    long getHits() {
+        return hits.get();
+    }
+
+    @VisibleForTesting
+    long getMisses() {
+        return misses.get();
+    }
+
+    public void logStatistics() {
+        logger.info(String.format("Assembly cache %s: %d regions found in the cache, %d regions assembled", directory, hits.get(), misses.get()));
+    }
+}
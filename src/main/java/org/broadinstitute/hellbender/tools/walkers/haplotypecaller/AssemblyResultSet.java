@@ -225,6 +225,13 @@ public final class AssemblyResultSet {
         return variationPresent && haplotypes.size() > 1;
     }
 
+    /**
+     * Restores whether variation is present, for result sets that are not built by assembly, see {@link AssemblyResultCache}.
+     */
+    void setVariationPresent(final boolean variationPresent) {
+        this.variationPresent = variationPresent;
+    }
+
     /**
      * Dumps debugging information into a print-writer.
      *
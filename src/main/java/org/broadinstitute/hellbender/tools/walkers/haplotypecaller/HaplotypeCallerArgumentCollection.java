@@ -321,6 +321,11 @@ public class HaplotypeCallerArgumentCollection extends AssemblyBasedCallerArgume
         return flowMode != FlowMode.NONE;
     }
 
+    @Override
+    public boolean requestsEngineWrittenOutputs() {
+        return super.requestsEngineWrittenOutputs() || assemblyStateOutput != null || genotyperDebugOutStream != null;
+    }
+
     // Copy method used to create new hcArgs with same fields except input ploidy model
     public HaplotypeCallerArgumentCollection copyWithNewPloidy(int ploidy) {
         HaplotypeCallerArgumentCollection newArgsWithNewPloidy = SerializationUtils.clone(this);
@@ -16,6 +16,19 @@ import java.util.Arrays;
  *    only does the work of that operation once, updating its internal state
  */
 public final class Kmer {
+    /**
+     * Maximum length of the kmers that can be packed into a long, see {@link #pack()}
+     */
+    public static final int MAX_PACKED_LENGTH = 31;
+
+    /**
+     * Value returned by {@link #pack()} for kmers that cannot be packed into a long
+     */
+    public static final long UNPACKABLE = -1L;
+
+    // value of packed until pack() is first called
+    private static final long NOT_YET_PACKED = -2L;
+
     // this values may be updated in the course of interacting with this kmer
     private byte[] bases;
     private int start;
@@ -24,6 +37,9 @@ public final class Kmer {
     private final int length;
     private final int hash;
 
+    // this kmer packed into a long, computed on demand by pack()
+    private long packed = NOT_YET_PACKED;
+
     /**
      * Create a new kmer using all bases in kmer
      * @param kmer a non-null byte[]. The input array must not be modified by the caller.
@@ -155,6 +171,70 @@ public final class Kmer {
         return dist;
     }
 
+    /**
+     * Packs the bases of this kmer into a long, 2 bits per base below a marker bit that encodes the length of the kmer,
+     * so that two kmers are equal if and only if they are packed into the same long. Only kmers of at most
+     * {@link #MAX_PACKED_LENGTH} bases, all of them A, C, G or T, can be packed.
+     *
+     * The result is computed once and then kept, so a kmer used as the key of several lookups is only packed once.
+     *
+     * @return the packed kmer, or {@link #UNPACKABLE} if the kmer cannot be packed
+     */
+    public long pack() {
+        if (packed == NOT_YET_PACKED) {
+            packed = pack(bases, start, length);
+        }
+        return packed;
+    }
+
+    /**
+     * Packs the kmer of {@code length} bases starting at {@code start} in {@code bases}, see {@link #pack()}
+     *
+     * @return the packed kmer, or {@link #UNPACKABLE} if the kmer cannot be packed
+     */
+    public static long pack(final byte[] bases, final int start, final int length) {
+        if (length > MAX_PACKED_LENGTH) {
+            return UNPACKABLE;
+        }
+        long packed = 1;
+        for (int i = start, stop = start + length; i < stop; i++) {
+            final int code = packedBaseCode(bases[i]);
+            if (code == -1) {
+                return UNPACKABLE;
+            }
+            packed = (packed << 2) | code;
+        }
+        return packed;
+    }
+
+    /**
+     * Packs the kmer that follows a packed kmer in a sequence, ie. the kmer of the same length without the first base
+     * of the packed kmer and with {@code nextBase} appended, without going over all of its bases.
+     *
+     * @param packed a packed kmer of {@code length} bases, as returned by {@link #pack()}
+     * @param nextBase the base following the packed kmer
+     * @param length the length of the kmers
+     * @return the packed next kmer, or {@link #UNPACKABLE} if it cannot be packed
+     */
+    public static long packNext(final long packed, final byte nextBase, final int length) {
+        final int code = packedBaseCode(nextBase);
+        if (packed == UNPACKABLE || code == -1) {
+            return UNPACKABLE;
+        }
+        final long marker = 1L << (2 * length);
+        return (((packed << 2) | code) & (marker - 1)) | marker;
+    }
+
+    private static int packedBaseCode(final byte base) {
+        switch (base) {
+            case 'A': return 0;
+            case 'C': return 1;
+            case 'G': return 2;
+            case 'T': return 3;
+            default: return -1;
+        }
+    }
+
     @Override
     public String toString() {
         return "Kmer{" + new String(bases,start,length) + '}';
@@ -14,12 +14,14 @@ import org.broadinstitute.hellbender.utils.clipping.ReadClipper;
 import org.broadinstitute.hellbender.utils.genotyper.*;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMInputScoreImputation;
 import org.broadinstitute.hellbender.utils.pairhmm.PairHMMInputScoreImputator;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.ReadUtils;
 
 import java.io.OutputStreamWriter;
 import java.util.*;
+import java.util.function.Function;
 
 /*
  * Classic likelihood computation: full pair-hmm all haplotypes vs all reads.
@@ -35,12 +37,17 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     static final double INITIAL_QSCORE = 40.0;
     public static final String HMM_BASE_QUALITIES_TAG = "HMMQuals";
 
+    // name of the sample holding the distinct reads of a region, see computeLog10Likelihoods
+    private static final String DISTINCT_READS_SAMPLE = "distinctReads";
+
     private final byte constantGCP;
 
     private final double log10globalReadMismappingRate;
 
     private final PairHMM pairHMM;
 
+    private long duplicateReadsSkipped = 0;
+
     // DRAGEN-GATK related parameters
     private final DragstrParams dragstrParams;
     private final boolean dynamicDisqualification;
@@ -164,6 +171,9 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     @Override
     public void close() {
         pairHMM.close();
+        if (duplicateReadsSkipped > 0) {
+            logger.info("PairHMM evaluations skipped for reads identical to another read of their region: " + duplicateReadsSkipped);
+        }
     }
 
     @Override
@@ -192,10 +202,18 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
 
         // Add likelihoods for each sample's reads to our result
         final AlleleLikelihoods<GATKRead, Haplotype> result = new AlleleLikelihoods<>(samples, haplotypes, perSampleReadList);
+        // the reads of all the samples are evaluated as a single batch, see PairHMM.computeBatchedLog10Likelihoods.
+        // A single-sample region was already evaluated in one batch, so this only reduces the calls of multi-sample runs.
         final int sampleCount = result.numberOfSamples();
+        final List<LikelihoodMatrix<GATKRead, Haplotype>> sampleMatrices = new ArrayList<>(sampleCount);
+        final List<List<GATKRead>> processedReads = new ArrayList<>(sampleCount);
         for (int i = 0; i < sampleCount; i++) {
-            computeReadLikelihoods(result.sampleMatrix(i));
+            final LikelihoodMatrix<GATKRead, Haplotype> sampleMatrix = result.sampleMatrix(i);
+            sampleMatrices.add(sampleMatrix);
+            processedReads.add(processReadsForPairHMM(sampleMatrix.evidence()));
         }
+        // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
+        computeLog10Likelihoods(haplotypes, sampleMatrices, processedReads);
 
         result.normalizeLikelihoods(log10globalReadMismappingRate, symmetricallyNormalizeAllelesToReference);
         filterPoorlyModeledEvidence(result, dynamicDisqualification, expectedErrorRatePerBase, readDisqualificationScale);
@@ -203,6 +221,118 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     }
 
 
+    /**
+     * Runs the PairHMM on the processed reads of all the samples, evaluating the reads that are identical as far as the
+     * PairHMM is concerned (same bases, base qualities and gap penalties) only once, and copying their likelihoods over
+     * to the other identical reads. High-depth amplicon or UMI data typically has many such reads in a region.
+     *
+     * The gap penalties of a read are only imputed to tell it apart from a read with the same bases and qualities, and
+     * then handed over to the PairHMM rather than imputed again, so that no read is imputed twice.
+     */
+    private void computeLog10Likelihoods(final AlleleList<Haplotype> haplotypes,
+                                         final List<LikelihoodMatrix<GATKRead, Haplotype>> sampleMatrices,
+                                         final List<List<GATKRead>> processedReads) {
+        final Map<GATKRead, PairHMMInputScoreImputation> imputations = new IdentityHashMap<>();
+        final Function<GATKRead, PairHMMInputScoreImputation> imputeForKey = read -> imputations.computeIfAbsent(read, inputScoreImputator::impute);
+        // each read is imputed once by the PairHMM, so its imputation is not needed afterwards
+        final PairHMMInputScoreImputator imputeOnce = read -> {
+            final PairHMMInputScoreImputation imputation = imputations.remove(read);
+            return imputation != null ? imputation : inputScoreImputator.impute(read);
+        };
+
+        final Map<PairHMMReadInputs, Integer> distinctReadIndices = new HashMap<>();
+        final List<GATKRead> distinctReads = new ArrayList<>();
+        final int[][] distinctReadIndicesBySample = new int[processedReads.size()][];
+        int readCount = 0;
+        for (int s = 0; s < processedReads.size(); s++) {
+            final List<GATKRead> reads = processedReads.get(s);
+            distinctReadIndicesBySample[s] = new int[reads.size()];
+            for (int r = 0; r < reads.size(); r++) {
+                final GATKRead read = reads.get(r);
+                distinctReadIndicesBySample[s][r] = distinctReadIndices.computeIfAbsent(new PairHMMReadInputs(read, imputeForKey), k -> {
+                    distinctReads.add(read);
+                    return distinctReads.size() - 1;
+                });
+            }
+            readCount += reads.size();
+        }
+
+        if (distinctReads.size() == readCount) {
+            pairHMM.computeBatchedLog10Likelihoods(sampleMatrices, processedReads, imputeOnce);
+            return;
+        }
+
+        final LikelihoodMatrix<GATKRead, Haplotype> distinctReadLikelihoods = new AlleleLikelihoods<>(new IndexedSampleList(DISTINCT_READS_SAMPLE),
+                haplotypes, Collections.singletonMap(DISTINCT_READS_SAMPLE, distinctReads)).sampleMatrix(0);
+        pairHMM.computeBatchedLog10Likelihoods(Collections.singletonList(distinctReadLikelihoods), Collections.singletonList(distinctReads), imputeOnce);
+        final int haplotypeCount = haplotypes.numberOfAlleles();
+        for (int s = 0; s < sampleMatrices.size(); s++) {
+            final LikelihoodMatrix<GATKRead, Haplotype> sampleMatrix = sampleMatrices.get(s);
+            final int[] distinctReadIndicesOfSample = distinctReadIndicesBySample[s];
+            for (int r = 0; r < distinctReadIndicesOfSample.length; r++) {
+                for (int h = 0; h < haplotypeCount; h++) {
+                    sampleMatrix.set(h, r, distinctReadLikelihoods.get(h, distinctReadIndicesOfSample[r]));
+                }
+            }
+        }
+        duplicateReadsSkipped += readCount - distinctReads.size();
+    }
+
+    /**
+     * @return the number of reads whose likelihoods were copied from an identical read of the same region rather than
+     * computed by the PairHMM, since this engine was created
+     */
+    @VisibleForTesting
+    long getNumberOfDuplicateReadsSkipped() {
+        return duplicateReadsSkipped;
+    }
+
+    /**
+     * Everything the PairHMM reads from a processed read: the likelihoods of two reads with equal inputs are the same.
+     *
+     * Reads are hashed on their bases and qualities only, and their gap penalties are only imputed, with
+     * {@code imputation}, when comparing two reads with the same bases and qualities.
+     */
+    private static final class PairHMMReadInputs {
+        private final GATKRead read;
+        private final byte[] bases;
+        private final byte[] quals;
+        private final Function<GATKRead, PairHMMInputScoreImputation> imputation;
+        private final int hashCode;
+
+        PairHMMReadInputs(final GATKRead read, final Function<GATKRead, PairHMMInputScoreImputation> imputation) {
+            this.read = read;
+            bases = read.getBasesNoCopy();
+            quals = read.getBaseQualitiesNoCopy();
+            this.imputation = imputation;
+            hashCode = 31 * Arrays.hashCode(bases) + Arrays.hashCode(quals);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PairHMMReadInputs)) {
+                return false;
+            }
+            final PairHMMReadInputs other = (PairHMMReadInputs) o;
+            if (hashCode != other.hashCode || !Arrays.equals(bases, other.bases) || !Arrays.equals(quals, other.quals)) {
+                return false;
+            }
+            final PairHMMInputScoreImputation inputScores = imputation.apply(read);
+            final PairHMMInputScoreImputation otherInputScores = other.imputation.apply(other.read);
+            return Arrays.equals(inputScores.insOpenPenalties(), otherInputScores.insOpenPenalties()) &&
+                    Arrays.equals(inputScores.delOpenPenalties(), otherInputScores.delOpenPenalties()) &&
+                    Arrays.equals(inputScores.gapContinuationPenalties(), otherInputScores.gapContinuationPenalties());
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
     /**
      * Creates a new GATKRead with the source read's header, read group and mate
      * information, but with the following fields set to user-supplied values:
@@ -257,9 +387,9 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
         pairHMM.initialize(haplotypes, perSampleReadList, readMaxLength, haplotypeMaxLength);
     }
 
-    private void computeReadLikelihoods(final LikelihoodMatrix<GATKRead, Haplotype> likelihoods) {
+    private List<GATKRead> processReadsForPairHMM(final List<GATKRead> reads) {
         // Modify the read qualities by applying the PCR error model and capping the minimum base,insertion,deletion qualities
-        final List<GATKRead> processedReads = modifyReadQualities(likelihoods.evidence());
+        final List<GATKRead> processedReads = modifyReadQualities(reads);
 
         for(int counter = 0; counter < processedReads.size(); counter++) {
             GATKRead read = processedReads.get(counter);
@@ -268,8 +398,7 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
                 HaplotypeCallerGenotypingDebugger.println(Arrays.toString(read.getBaseQualitiesNoCopy()));
             }
         }
-        // Run the PairHMM to calculate the log10 likelihood of each (processed) reads' arising from each haplotype
-        pairHMM.computeLog10Likelihoods(likelihoods, processedReads, inputScoreImputator);
+        return processedReads;
     }
 
     /**
@@ -334,6 +463,16 @@ public final class PairHMMLikelihoodCalculationEngine implements ReadLikelihoodC
     private byte[] pcrIndelErrorModelCache;
     private PairHMMInputScoreImputator inputScoreImputator;
 
+    @VisibleForTesting
+    PairHMMInputScoreImputator getInputScoreImputator() {
+        return inputScoreImputator;
+    }
+
+    @VisibleForTesting
+    void setInputScoreImputator(final PairHMMInputScoreImputator inputScoreImputator) {
+        this.inputScoreImputator = Utils.nonNull(inputScoreImputator);
+    }
+
     private void initializePCRErrorModel() {
 
         inputScoreImputator = dragstrParams == null
@@ -80,5 +80,11 @@ public class RampedHaplotypeCaller extends HaplotypeCaller {
         return true;
     }
 
+    // ramps are written by the engine itself, and so cannot be produced by several engines at once
+    @Override
+    public boolean supportsMultiThreadedTraversal() {
+        return false;
+    }
+
 
 }
@@ -1,6 +1,7 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.Hidden;
@@ -9,6 +10,8 @@ import org.broadinstitute.hellbender.utils.MathUtils;
 
 import java.io.Serializable;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Set of arguments related to the {@link org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading.ReadThreadingAssembler}
@@ -24,6 +27,7 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     public static final String CAPTURE_ASSEMBLY_FAILURE_BAM_LONG_NAME = "capture-assembly-failure-bam";
     public static final String KMER_SIZE_LONG_NAME = "kmer-size";
     public static final String DONT_INCREASE_KMER_SIZE_LONG_NAME = "dont-increase-kmer-sizes-for-cycles";
+    public static final String KMER_ASSEMBLY_THREADS_LONG_NAME = "kmer-assembly-threads";
     public static final String LINKED_DE_BRUIJN_GRAPH_LONG_NAME = "linked-de-bruijn-graph";
     public static final String ALLOW_NON_UNIQUE_KMERS_IN_REF_LONG_NAME = "allow-non-unique-kmers-in-ref";
     public static final String NUM_PRUNING_SAMPLES_LONG_NAME = "num-pruning-samples";
@@ -67,6 +71,21 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     @Argument(fullName= DONT_INCREASE_KMER_SIZE_LONG_NAME, doc="Disable iterating over kmer sizes when graph cycles are detected", optional = true)
     public boolean dontIncreaseKmerSizesForCycles = false;
 
+    /**
+     * The graphs of the different kmer sizes of a region, and those of the larger kmer sizes tried when they all fail,
+     * are independent of each other. With this argument they are built and pruned concurrently on a pool of this many
+     * threads, shared by all the assembly engines of the tool, and the results are still used in kmer size order, so
+     * the output is the same as when they are built one at a time. This mostly helps with the regions that need several
+     * kmer sizes (eg. around difficult indels and STRs), which otherwise hold up their worker thread. It has no effect
+     * with --linked-de-bruijn-graph, where each kmer size depends on the haplotypes found with the previous one.
+     */
+    @Advanced
+    @Argument(fullName= KMER_ASSEMBLY_THREADS_LONG_NAME, doc="Number of threads on which to build the graphs of the kmer sizes of a region concurrently (0 to build them one at a time)", optional = true, minValue = 0)
+    public int kmerAssemblyThreads = 0;
+
+    // created on first use, so that every assembler made from these arguments shares the same threads
+    private transient ExecutorService kmerAssemblyExecutor = null;
+
     /**
      * By default, the program does not allow processing of reference sections that contain non-unique kmers. Disabling
      * this check may cause problems in the assembly graph.
@@ -246,4 +265,17 @@ public abstract class ReadThreadingAssemblerArgumentCollection implements Serial
     public int minObservationsForKmerToBeSolid = 20;
 
     public abstract ReadThreadingAssembler makeReadThreadingAssembler();
+
+    /**
+     * @return the executor on which assemblers build the graphs of different kmer sizes concurrently, or null if
+     * they should be built one at a time
+     */
+    public synchronized ExecutorService getKmerAssemblyExecutor() {
+        if ( kmerAssemblyThreads > 0 && kmerAssemblyExecutor == null ) {
+            // daemon threads, as the executor outlives the assemblers and is never shut down
+            kmerAssemblyExecutor = Executors.newFixedThreadPool(kmerAssemblyThreads, new ThreadFactoryBuilder()
+                    .setNameFormat("kmer-assembly-%d").setDaemon(true).build());
+        }
+        return kmerAssemblyExecutor;
+    }
 }
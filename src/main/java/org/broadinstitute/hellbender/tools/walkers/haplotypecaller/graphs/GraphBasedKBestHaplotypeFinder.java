@@ -1,9 +1,10 @@
 package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs;
 
 import org.apache.commons.lang3.mutable.MutableInt;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.Utils;
-import org.jgrapht.alg.CycleDetector;
 
 import java.util.*;
 import java.util.stream.Collectors;
@@ -15,10 +16,30 @@ import java.util.stream.Collectors;
  */
 public class GraphBasedKBestHaplotypeFinder<V extends BaseVertex, E extends BaseEdge> extends KBestHaplotypeFinder<V, E> {
 
+    private static final Logger logger = LogManager.getLogger(GraphBasedKBestHaplotypeFinder.class);
+
+    /**
+     * Default for {@link #getMaxPathsInQueue()}, with room for the searches of normal regions so that pruning only
+     * kicks in for pathological graphs.
+     */
+    public static final int DEFAULT_MAX_PATHS_IN_QUEUE = 1 << 20;
+
     public final Comparator<KBestHaplotype<V, E>> K_BEST_HAPLOTYPE_COMPARATOR = Comparator.comparingDouble(KBestHaplotype<V, E>::score)
             .reversed()
             .thenComparing(KBestHaplotype<V, E>::getBases, BaseUtils.BASES_COMPARATOR.reversed()); // This is an arbitrary deterministic tie breaker.
 
+    // the same order as K_BEST_HAPLOTYPE_COMPARATOR
+    private final Comparator<PartialPath<V, E>> PARTIAL_PATH_COMPARATOR = Comparator.comparingDouble((PartialPath<V, E> path) -> path.score)
+            .reversed()
+            .thenComparing(PartialPath<V, E>::getBases, BaseUtils.BASES_COMPARATOR.reversed());
+
+    private int maxPathsInQueue = DEFAULT_MAX_PATHS_IN_QUEUE;
+
+    // metrics of the last search
+    private int numExpansions;
+    private int numPrunedPaths;
+    private int peakQueueSize;
+
     /**
      * Constructs a new best haplotypes finder.
      *
@@ -56,23 +77,37 @@ public class GraphBasedKBestHaplotypeFinder<V extends BaseVertex, E extends Base
 
     /**
      * Implement Dijkstra's algorithm as described in https://en.wikipedia.org/wiki/K_shortest_path_routing
+     *
+     * Paths are extended one edge at a time, and share the prefix they are extended from rather than copying its edges,
+     * so the queue holds a node per partial path instead of a list of edges. A path whose extension could never be
+     * expanded (its vertex has already been expanded {@code maxNumberOfHaplotypes} times) is not queued. If the queue
+     * still outgrows {@link #getMaxPathsInQueue()} only its best scoring half is kept: since scores only decrease
+     * along a path, the worst scoring paths are the least likely to lead to the best haplotypes.
      */
     @Override
     public List<KBestHaplotype<V, E>> findBestHaplotypes(final int maxNumberOfHaplotypes) {
+        numExpansions = 0;
+        numPrunedPaths = 0;
+        peakQueueSize = 0;
+
         final List<KBestHaplotype<V, E>> result = new ArrayList<>();
-        final PriorityQueue<KBestHaplotype<V, E>> queue = new PriorityQueue<>(K_BEST_HAPLOTYPE_COMPARATOR);
-        sources.forEach(source -> queue.add(new KBestHaplotype<>(source, graph)));
+        final PriorityQueue<PartialPath<V, E>> queue = new PriorityQueue<>(PARTIAL_PATH_COMPARATOR);
+        for (final V source : sources) {
+            Utils.validateArg(graph.containsVertex(source), () -> "Vertex " + source + " must be part of graph " + graph);
+            queue.add(new PartialPath<>(source));
+        }
 
         final Map<V, MutableInt> vertexCounts = graph.vertexSet().stream()
                 .collect(Collectors.toMap(v -> v, v -> new MutableInt(0)));
 
         while (!queue.isEmpty() && result.size() < maxNumberOfHaplotypes) {
-            final KBestHaplotype<V, E> pathToExtend = queue.poll();
-            final V vertexToExtend = pathToExtend.getLastVertex();
+            final PartialPath<V, E> pathToExtend = queue.poll();
+            final V vertexToExtend = pathToExtend.lastVertex;
             if (sinks.contains(vertexToExtend)) {
-                result.add(pathToExtend);
+                result.add(pathToExtend.toKBestHaplotype(graph));
             } else {
                 if (vertexCounts.get(vertexToExtend).getAndIncrement() < maxNumberOfHaplotypes) {
+                    numExpansions++;
                     final Set<E> outgoingEdges = graph.outgoingEdgesOf(vertexToExtend);
                     int totalOutgoingMultiplicity = 0;
                     for (final BaseEdge edge : outgoingEdges) {
@@ -80,12 +115,126 @@ public class GraphBasedKBestHaplotypeFinder<V extends BaseVertex, E extends Base
                     }
 
                     for (final E edge : outgoingEdges) {
-                        queue.add(new KBestHaplotype<>(pathToExtend, edge, totalOutgoingMultiplicity));
+                        final V target = graph.getEdgeTarget(edge);
+                        if (!sinks.contains(target) && vertexCounts.get(target).intValue() >= maxNumberOfHaplotypes) {
+                            numPrunedPaths++;
+                            continue;
+                        }
+                        final double score = pathToExtend.score + KBestHaplotype.computeLogPenaltyScore(edge.getMultiplicity(), totalOutgoingMultiplicity);
+                        queue.add(new PartialPath<>(pathToExtend, edge, target, score));
+                    }
+
+                    peakQueueSize = Math.max(peakQueueSize, queue.size());
+                    if (queue.size() > maxPathsInQueue) {
+                        pruneQueue(queue);
                     }
                 }
             }
         }
+
+        logger.debug(() -> String.format("K-best haplotype search found %d haplotypes with %d expansions; %d paths pruned, at most %d paths queued",
+                result.size(), numExpansions, numPrunedPaths, peakQueueSize));
         return result;
     }
 
+    /**
+     * Keeps only the best scoring half of the queue
+     */
+    private void pruneQueue(final PriorityQueue<PartialPath<V, E>> queue) {
+        final List<PartialPath<V, E>> paths = new ArrayList<>(queue);
+        paths.sort(PARTIAL_PATH_COMPARATOR);
+        final List<PartialPath<V, E>> pathsToKeep = paths.subList(0, Math.max(maxPathsInQueue / 2, 1));
+        numPrunedPaths += paths.size() - pathsToKeep.size();
+        queue.clear();
+        queue.addAll(pathsToKeep);
+    }
+
+    /**
+     * @return the largest number of partial paths queued before the worst scoring ones are pruned
+     */
+    public int getMaxPathsInQueue() {
+        return maxPathsInQueue;
+    }
+
+    /**
+     * Set the largest number of partial paths queued before the worst scoring ones are pruned, which bounds the
+     * memory used by the search
+     */
+    public void setMaxPathsInQueue(final int maxPathsInQueue) {
+        Utils.validateArg(maxPathsInQueue > 0, () -> "the maximum number of paths in the queue must be positive but was " + maxPathsInQueue);
+        this.maxPathsInQueue = maxPathsInQueue;
+    }
+
+    /**
+     * @return the number of vertices expanded by the last search
+     */
+    public int getNumExpansions() {
+        return numExpansions;
+    }
+
+    /**
+     * @return the number of partial paths of the last search that were not queued, or were dropped from the queue
+     */
+    public int getNumPrunedPaths() {
+        return numPrunedPaths;
+    }
+
+    /**
+     * @return the largest number of partial paths queued at once by the last search
+     */
+    public int getPeakQueueSize() {
+        return peakQueueSize;
+    }
+
+    /**
+     * A partial path of the search, which links to the path it extends rather than copying its edges.
+     */
+    private static final class PartialPath<V extends BaseVertex, E extends BaseEdge> {
+        private final PartialPath<V, E> parent;  // null for a path with no edges
+        private final E lastEdge;
+        private final V lastVertex;
+        private final double score;
+        private final int length;   // in edges
+        private final int numBases;
+
+        private PartialPath(final V source) {
+            parent = null;
+            lastEdge = null;
+            lastVertex = source;
+            score = 0;
+            length = 0;
+            numBases = BaseGraph.getAdditionalSequence(source, true).length;
+        }
+
+        private PartialPath(final PartialPath<V, E> parent, final E edge, final V target, final double score) {
+            this.parent = parent;
+            lastEdge = edge;
+            lastVertex = target;
+            this.score = score;
+            length = parent.length + 1;
+            numBases = parent.numBases + BaseGraph.getAdditionalSequence(target, false).length;
+        }
+
+        /**
+         * Same as {@link Path#getBases()}, the full sequence of the first vertex followed by the additional sequence of the others
+         */
+        private byte[] getBases() {
+            final byte[] bases = new byte[numBases];
+            int end = numBases;
+            for (PartialPath<V, E> path = this; path != null; path = path.parent) {
+                final byte[] vertexBases = BaseGraph.getAdditionalSequence(path.lastVertex, path.parent == null);
+                end -= vertexBases.length;
+                System.arraycopy(vertexBases, 0, bases, end, vertexBases.length);
+            }
+            return bases;
+        }
+
+        private KBestHaplotype<V, E> toKBestHaplotype(final BaseGraph<V, E> graph) {
+            final List<E> edges = new ArrayList<>(Collections.nCopies(length, null));
+            for (PartialPath<V, E> path = this; path.parent != null; path = path.parent) {
+                edges.set(path.length - 1, path.lastEdge);
+            }
+            return new KBestHaplotype<>(edges, lastVertex, graph, score);
+        }
+    }
 }
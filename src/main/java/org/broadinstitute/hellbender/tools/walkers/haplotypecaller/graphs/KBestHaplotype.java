@@ -28,6 +28,14 @@ public class KBestHaplotype<V extends BaseVertex, E extends BaseEdge> extends Pa
         isReference &= edge.isRef();
     }
 
+    /**
+     * Constructor that does not check that the edges are in order, for paths already built by a search
+     */
+    KBestHaplotype(final List<E> edgesInOrder, final V lastVertex, final BaseGraph<V, E> graph, final double score) {
+        super(edgesInOrder, lastVertex, graph);
+        this.score = score;
+    }
+
     public static double computeLogPenaltyScore(int edgeMultiplicity, int totalOutgoingMultiplicity) {
         return Math.log10(edgeMultiplicity) - Math.log10(totalOutgoingMultiplicity);
     }
@@ -50,9 +50,9 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
      */
     protected final Map<String, List<SequenceForKmers>> pending = new LinkedHashMap<>();
     /**
-     * A map from kmers -> their corresponding vertex in the graph
+     * A map from kmers -> their corresponding vertex in the graph, keyed by packed kmers (see {@link KmerMap})
      */
-    protected final Map<Kmer, MultiDeBruijnVertex> kmerToVertexMap = new LinkedHashMap<>();
+    protected final KmerMap<MultiDeBruijnVertex> kmerToVertexMap = new KmerMap<>();
     protected final boolean debugGraphTransformations;
     protected final byte minBaseQualityToUseInAssembly;
     protected List<MultiDeBruijnVertex> referencePath = null;
@@ -94,14 +94,16 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
     /**
      * Checks whether a kmer can be the threading start based on the current threading start location policy.
      *
-     * @param kmer the query kmer.
+     * @param sequence the sequence of the query kmer.
+     * @param start the start of the query kmer in sequence.
+     * @param packedKmer the query kmer packed into a long, see {@link #packNextKmer}.
      * @return {@code true} if we can start thread the sequence at this kmer, {@code false} otherwise.
      * @see #setThreadingStartOnlyAtExistingVertex(boolean)
      */
-    protected abstract boolean isThreadingStart(final Kmer kmer, final boolean startThreadingOnlyAtExistingVertex);
+    protected abstract boolean isThreadingStart(final byte[] sequence, final int start, final long packedKmer, final boolean startThreadingOnlyAtExistingVertex);
 
     // get the next kmerVertex for ChainExtension and validate if necessary.
-    protected abstract MultiDeBruijnVertex getNextKmerVertexForChainExtension(final Kmer kmer, final boolean isRef, final MultiDeBruijnVertex prevVertex);
+    protected abstract MultiDeBruijnVertex getNextKmerVertexForChainExtension(final byte[] sequence, final int kmerStart, final long packedKmer, final boolean isRef, final MultiDeBruijnVertex prevVertex);
 
     // perform any necessary preprocessing on the graph (such as non-unique kmer determination) before the graph is constructed
     protected abstract void preprocessReads();
@@ -202,9 +204,10 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
             return 0;
         }
 
+        long packedKmer = Kmer.UNPACKABLE;
         for (int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if (isThreadingStart(kmer1, startThreadingOnlyAtExistingVertex)) {
+            packedKmer = packNextKmer(packedKmer, seqForKmers.sequence, i);
+            if (isThreadingStart(seqForKmers.sequence, i, packedKmer, startThreadingOnlyAtExistingVertex)) {
                 return i;
             }
         }
@@ -273,7 +276,8 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
             return;
         }
 
-        final MultiDeBruijnVertex startingVertex = getOrCreateKmerVertex(seqForKmers.sequence, startPos);
+        long packedKmer = Kmer.pack(seqForKmers.sequence, startPos, kmerSize);
+        final MultiDeBruijnVertex startingVertex = getOrCreateKmerVertex(seqForKmers.sequence, startPos, packedKmer);
 
         // increase the counts of all edges incoming into the starting vertex supported by going back in sequence
         if (INCREASE_COUNTS_BACKWARDS) {
@@ -297,7 +301,8 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
         // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate
         MultiDeBruijnVertex vertex = startingVertex;
         for (int i = startPos + 1; i <= seqForKmers.stop - kmerSize; i++) {
-            vertex = extendChainByOne(vertex, seqForKmers.sequence, i, seqForKmers.count, seqForKmers.isRef);
+            packedKmer = packNextKmer(packedKmer, seqForKmers.sequence, i);
+            vertex = extendChainByOne(vertex, seqForKmers.sequence, i, packedKmer, seqForKmers.count, seqForKmers.isRef);
             if (seqForKmers.isRef) {
                 referencePath.add(vertex);
             }
@@ -951,28 +956,48 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
     /**
      * Get the vertex for the kmer in sequence starting at start
      *
-     * @param sequence the sequence
-     * @param start    the position of the kmer start
+     * @param sequence   the sequence
+     * @param start      the position of the kmer start
+     * @param packedKmer the kmer packed into a long, see {@link #packNextKmer}
      * @return a non-null vertex
      */
-    private MultiDeBruijnVertex getOrCreateKmerVertex(final byte[] sequence, final int start) {
-        final Kmer kmer = new Kmer(sequence, start, kmerSize);
-        final MultiDeBruijnVertex vertex = getKmerVertex(kmer, true);
-        return (vertex != null) ? vertex : createVertex(kmer);
+    private MultiDeBruijnVertex getOrCreateKmerVertex(final byte[] sequence, final int start, final long packedKmer) {
+        final MultiDeBruijnVertex vertex = getKmerVertex(sequence, start, packedKmer, true);
+        return (vertex != null) ? vertex : createVertex(new Kmer(sequence, start, kmerSize));
     }
 
     /**
-     * Get the unique vertex for kmer, or null if not possible.
+     * Get the unique vertex for the kmer in sequence starting at start, or null if not possible.
      *
+     * @param packedKmer     the kmer packed into a long, see {@link #packNextKmer}
      * @param allowRefSource if true, we will allow kmer to match the reference source vertex
      * @return a vertex for kmer, or null (either because it doesn't exist or is non-unique for graphs that have such a distinction)
      */
-    protected MultiDeBruijnVertex getKmerVertex(final Kmer kmer, final boolean allowRefSource) {
-        if (!allowRefSource && kmer.equals(refSource)) {
+    protected MultiDeBruijnVertex getKmerVertex(final byte[] sequence, final int start, final long packedKmer, final boolean allowRefSource) {
+        if (!allowRefSource && isRefSource(sequence, start, packedKmer)) {
             return null;
         }
 
-        return kmerToVertexMap.get(kmer);
+        return kmerToVertexMap.get(sequence, start, kmerSize, packedKmer);
+    }
+
+    private boolean isRefSource(final byte[] sequence, final int start, final long packedKmer) {
+        if (refSource == null) {
+            return false;
+        }
+        return packedKmer != Kmer.UNPACKABLE ? packedKmer == refSource.pack() : refSource.equals(new Kmer(sequence, start, kmerSize));
+    }
+
+    /**
+     * Packs the kmer starting at start in sequence into a long (see {@link Kmer#pack()}), rolling it from the packed
+     * kmer starting one base earlier if there is one, so that going over the kmers of a sequence costs O(1) per kmer.
+     *
+     * @param previousPackedKmer the packed kmer starting at start - 1, or {@link Kmer#UNPACKABLE} if it is unknown
+     * @return the packed kmer, or {@link Kmer#UNPACKABLE} if it cannot be packed
+     */
+    protected final long packNextKmer(final long previousPackedKmer, final byte[] sequence, final int start) {
+        return previousPackedKmer == Kmer.UNPACKABLE ? Kmer.pack(sequence, start, kmerSize)
+                : Kmer.packNext(previousPackedKmer, sequence[start + kmerSize - 1], kmerSize);
     }
 
     /**
@@ -1002,11 +1027,12 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
      * @param prevVertex a non-null vertex where sequence was last anchored in the graph
      * @param sequence   the sequence we're threading through the graph
      * @param kmerStart  the start of the current kmer in graph we'd like to add
+     * @param packedKmer the current kmer packed into a long, see {@link #packNextKmer}
      * @param count      the number of observations of this kmer in graph (can be > 1 for GGA)
      * @param isRef      is this the reference sequence?
      * @return a non-null vertex connecting prevVertex to in the graph based on sequence
      */
-    protected MultiDeBruijnVertex extendChainByOne(final MultiDeBruijnVertex prevVertex, final byte[] sequence, final int kmerStart, final int count, final boolean isRef) {
+    protected MultiDeBruijnVertex extendChainByOne(final MultiDeBruijnVertex prevVertex, final byte[] sequence, final int kmerStart, final long packedKmer, final int count, final boolean isRef) {
         final Set<MultiSampleEdge> outgoingEdges = outgoingEdgesOf(prevVertex);
 
         final int nextPos = kmerStart + kmerSize - 1;
@@ -1020,11 +1046,10 @@ public abstract class AbstractReadThreadingGraph extends BaseGraph<MultiDeBruijn
         }
 
         // none of our outgoing edges had our unique suffix base, so we check for an opportunity to merge back in
-        final Kmer kmer = new Kmer(sequence, kmerStart, kmerSize);
-        final MultiDeBruijnVertex mergeVertex = getNextKmerVertexForChainExtension(kmer, isRef, prevVertex);
+        final MultiDeBruijnVertex mergeVertex = getNextKmerVertexForChainExtension(sequence, kmerStart, packedKmer, isRef, prevVertex);
 
         // either use our merge vertex, or create a new one in the chain
-        final MultiDeBruijnVertex nextVertex = mergeVertex == null ? createVertex(kmer) : mergeVertex;
+        final MultiDeBruijnVertex nextVertex = mergeVertex == null ? createVertex(new Kmer(sequence, kmerStart, kmerSize)) : mergeVertex;
         addEdge(prevVertex, nextVertex, ((MyEdgeFactory) getEdgeFactory()).createEdge(isRef, count));
         return nextVertex;
     }
@@ -60,9 +60,10 @@ public class JunctionTreeLinkedDeBruijnGraph extends AbstractReadThreadingGraph
      */
 
     protected int findStartForJunctionThreading(final SequenceForKmers seqForKmers) {
+        long packedKmer = Kmer.UNPACKABLE;
         for ( int i = seqForKmers.start; i < seqForKmers.stop - kmerSize; i++ ) {
-            final Kmer kmer1 = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if ( kmerToVertexMap.containsKey(kmer1) ) {
+            packedKmer = packNextKmer(packedKmer, seqForKmers.sequence, i);
+            if ( kmerToVertexMap.containsKey(seqForKmers.sequence, i, kmerSize, packedKmer) ) {
                 return i;
             }
         }
@@ -93,12 +94,14 @@ public class JunctionTreeLinkedDeBruijnGraph extends AbstractReadThreadingGraph
      *
      * @see #setThreadingStartOnlyAtExistingVertex(boolean)
      *
-     * @param kmer the query kmer.
+     * @param sequence the sequence of the query kmer.
+     * @param start the start of the query kmer in sequence.
+     * @param packedKmer the query kmer packed into a long, see {@link #packNextKmer}.
      * @return {@code true} if we can start thread the sequence at this kmer, {@code false} otherwise.
      */
-    protected boolean isThreadingStart(final Kmer kmer, final boolean startThreadingOnlyAtExistingVertex) {
-        Utils.nonNull(kmer);
-        return !startThreadingOnlyAtExistingVertex || kmers.contains(kmer);
+    protected boolean isThreadingStart(final byte[] sequence, final int start, final long packedKmer, final boolean startThreadingOnlyAtExistingVertex) {
+        Utils.nonNull(sequence);
+        return !startThreadingOnlyAtExistingVertex || kmers.contains(new Kmer(sequence, start, kmerSize));
     }
 
     /**
@@ -385,8 +388,8 @@ public class JunctionTreeLinkedDeBruijnGraph extends AbstractReadThreadingGraph
 
     @Override
     // since we don't have to validate unique vertex merging we just find the vertex and pass
-    protected MultiDeBruijnVertex getNextKmerVertexForChainExtension(final Kmer kmer, final boolean isRef, final MultiDeBruijnVertex prevVertex) {
-        return kmerToVertexMap.get(kmer);
+    protected MultiDeBruijnVertex getNextKmerVertexForChainExtension(final byte[] sequence, final int kmerStart, final long packedKmer, final boolean isRef, final MultiDeBruijnVertex prevVertex) {
+        return kmerToVertexMap.get(sequence, kmerStart, kmerSize, packedKmer);
     }
 
     /**
@@ -463,18 +466,19 @@ public class JunctionTreeLinkedDeBruijnGraph extends AbstractReadThreadingGraph
             return;
         }
 
-        final MultiDeBruijnVertex startingVertex = kmerToVertexMap.get(new Kmer(seqForKmers.sequence, startPos, kmerSize));
+        long packedKmer = Kmer.pack(seqForKmers.sequence, startPos, kmerSize);
+        final MultiDeBruijnVertex startingVertex = kmerToVertexMap.get(seqForKmers.sequence, startPos, kmerSize, packedKmer);
 
         // loop over all of the bases in sequence, extending the graph by one base at each point, as appropriate
         MultiDeBruijnVertex lastVertex = startingVertex;
         boolean hasToRediscoverKmer = false;
         for ( int i = startPos + 1; i <= seqForKmers.stop - kmerSize; i++ ) {
+            packedKmer = packNextKmer(packedKmer, seqForKmers.sequence, i);
             MultiDeBruijnVertex vertex;
             if (!hasToRediscoverKmer) {
                 vertex = extendJunctionThreadingByOne(lastVertex, seqForKmers.sequence, i, nodeHelper, true);
             } else {
-                Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
-                vertex = kmerToVertexMap.get(kmer);
+                vertex = kmerToVertexMap.get(seqForKmers.sequence, i, kmerSize, packedKmer);
             }
 
             // If we missed the vertex, attempt to recover the path from the graph if there is no ambiguity
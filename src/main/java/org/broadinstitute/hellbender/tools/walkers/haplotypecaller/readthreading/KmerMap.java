@@ -0,0 +1,192 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * Map from the kmers of a read threading graph to their values, typically their vertices.
+ *
+ * Nearly all kmers are packed into a long (see {@link Kmer#pack()}) and stored as primitive keys of an open-addressing
+ * hash table, rather than as {@link Kmer} keys of a {@link LinkedHashMap}: each kmer then costs a long and an int in
+ * the table instead of a map entry and a kmer object, and looking it up hashes a long rather than its bases. Kmers that
+ * cannot be packed (longer than {@link Kmer#MAX_PACKED_LENGTH}, or with bases other than A, C, G and T, eg. Ns in the
+ * reference) are kept in a regular map.
+ *
+ * Kmers of a sequence can also be looked up by position, given their packed value, without creating a {@link Kmer}:
+ * callers going over a sequence can roll the packed kmer along it with {@link Kmer#packNext}.
+ *
+ * As with a {@link LinkedHashMap}, the values are iterated in the order in which their kmers were first added.
+ * Null values are not supported.
+ */
+final class KmerMap<V> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private static final int ABSENT = -1;
+
+    // removed values are compacted away once there are more of them than values left, and at least this many
+    private static final int MIN_REMOVED_VALUES_TO_COMPACT = 16;
+
+    // index in values of the value of each kmer
+    private final Long2IntOpenHashMap packedKmerIndices = new Long2IntOpenHashMap();
+    private final Map<Kmer, Integer> unpackedKmerIndices = new HashMap<>();
+
+    // values in insertion order, with null in place of the removed ones, and the packed kmer of each of them
+    // (UNPACKABLE for the kmers of unpackedKmerIndices)
+    private final List<V> values = new ArrayList<>();
+    private final LongArrayList packedKmers = new LongArrayList();
+    private int size = 0;
+
+    KmerMap() {
+        packedKmerIndices.defaultReturnValue(ABSENT);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean containsKey(final Kmer kmer) {
+        return indexOf(kmer, kmer.pack()) != ABSENT;
+    }
+
+    V get(final Kmer kmer) {
+        final int index = indexOf(kmer, kmer.pack());
+        return index == ABSENT ? null : values.get(index);
+    }
+
+    /**
+     * Is the kmer of {@code length} bases starting at {@code start} in {@code bases} in this map?
+     *
+     * @param packed the kmer packed by {@link Kmer#pack(byte[], int, int)}, or rolled to by {@link Kmer#packNext}
+     */
+    boolean containsKey(final byte[] bases, final int start, final int length, final long packed) {
+        return indexOf(bases, start, length, packed) != ABSENT;
+    }
+
+    /**
+     * Get the value of the kmer of {@code length} bases starting at {@code start} in {@code bases}. No {@link Kmer} is
+     * created unless the kmer cannot be packed.
+     *
+     * @param packed the kmer packed by {@link Kmer#pack(byte[], int, int)}, or rolled to by {@link Kmer#packNext}
+     * @return the value of the kmer, or null if there is none
+     */
+    V get(final byte[] bases, final int start, final int length, final long packed) {
+        final int index = indexOf(bases, start, length, packed);
+        return index == ABSENT ? null : values.get(index);
+    }
+
+    /**
+     * Associates a value with a kmer, replacing any value it was already associated with
+     *
+     * @return the value the kmer was associated with, or null if there was none
+     */
+    V put(final Kmer kmer, final V value) {
+        Utils.nonNull(value, "null values are not supported");
+        final long packed = kmer.pack();
+        final int index = indexOf(kmer, packed);
+        if (index != ABSENT) {
+            return values.set(index, value);
+        }
+        if (packed == Kmer.UNPACKABLE) {
+            unpackedKmerIndices.put(kmer, values.size());
+        } else {
+            packedKmerIndices.put(packed, values.size());
+        }
+        values.add(value);
+        packedKmers.add(packed);
+        size++;
+        return null;
+    }
+
+    /**
+     * Associates a value with a kmer, unless the kmer is already associated with a value
+     *
+     * @return the value the kmer was already associated with, or null if there was none
+     */
+    V putIfAbsent(final Kmer kmer, final V value) {
+        final V current = get(kmer);
+        return current != null ? current : put(kmer, value);
+    }
+
+    /**
+     * @return the value the kmer was associated with, or null if there was none
+     */
+    V remove(final Kmer kmer) {
+        final long packed = kmer.pack();
+        final int index = packed == Kmer.UNPACKABLE ? unpackedKmerIndices.getOrDefault(kmer, ABSENT) : packedKmerIndices.get(packed);
+        if (index == ABSENT) {
+            return null;
+        }
+        if (packed == Kmer.UNPACKABLE) {
+            unpackedKmerIndices.remove(kmer);
+        } else {
+            packedKmerIndices.remove(packed);
+        }
+        size--;
+        final V removed = values.set(index, null);
+        final int removedCount = values.size() - size;
+        if (removedCount > size && removedCount >= MIN_REMOVED_VALUES_TO_COMPACT) {
+            compact();
+        }
+        return removed;
+    }
+
+    /**
+     * Drop the removed values, moving the others down in the same order, and update the indices of their kmers
+     */
+    private void compact() {
+        final int[] newIndices = new int[values.size()];
+        int newIndex = 0;
+        for (int index = 0; index < values.size(); index++) {
+            final V value = values.get(index);
+            if (value == null) {
+                continue;
+            }
+            final long packed = packedKmers.getLong(index);
+            values.set(newIndex, value);
+            packedKmers.set(newIndex, packed);
+            if (packed != Kmer.UNPACKABLE) {
+                packedKmerIndices.put(packed, newIndex);
+            }
+            newIndices[index] = newIndex++;
+        }
+        values.subList(newIndex, values.size()).clear();
+        packedKmers.size(newIndex);
+        unpackedKmerIndices.replaceAll((kmer, index) -> newIndices[index]);
+    }
+
+    /**
+     * @return an unmodifiable view of the values of this map, in the order in which their kmers were first added
+     */
+    Collection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return values.stream().filter(Objects::nonNull).iterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int indexOf(final Kmer kmer, final long packed) {
+        if (packed == Kmer.UNPACKABLE) {
+            return unpackedKmerIndices.getOrDefault(kmer, ABSENT);
+        }
+        return packedKmerIndices.get(packed);
+    }
+
+    private int indexOf(final byte[] bases, final int start, final int length, final long packed) {
+        if (packed == Kmer.UNPACKABLE) {
+            return unpackedKmerIndices.isEmpty() ? ABSENT : unpackedKmerIndices.getOrDefault(new Kmer(bases, start, length), ABSENT);
+        }
+        return packedKmerIndices.get(packed);
+    }
+}
@@ -14,6 +14,7 @@ import org.apache.logging.log4j.Logger;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
@@ -30,11 +31,17 @@ import org.broadinstitute.hellbender.utils.param.ParamUtils;
 import org.broadinstitute.hellbender.utils.read.CigarUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAligner;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanAlignment;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 public final class ReadThreadingAssembler {
@@ -75,6 +82,9 @@ public final class ReadThreadingAssembler {
     private final ChainPruner<MultiDeBruijnVertex, MultiSampleEdge> chainPruner;
     private int minMatchingBasesToDanglingEndRecovery;
 
+    // executor on which to build the graphs of the different kmer sizes of a region concurrently, or null to build them one at a time
+    private ExecutorService kmerAssemblyExecutor = null;
+
     private File debugGraphOutputPath = null;  //Where to write debug graphs, if unset it defaults to the current working dir
     private File graphOutputPath = null;
     private File graphHaplotypeHistogramPath = null;
@@ -551,6 +561,10 @@ public final class ReadThreadingAssembler {
      */
     @VisibleForTesting
     List<AssemblyResult> assemble(final List<GATKRead> reads, final Haplotype refHaplotype, final SAMFileHeader header, final SmithWatermanAligner aligner, final SWParameters danglingEndSWParameters) {
+        if ( kmerAssemblyExecutor != null ) {
+            return assembleConcurrently(reads, refHaplotype, header, aligner, danglingEndSWParameters);
+        }
+
         final List<AssemblyResult> results = new LinkedList<>();
 
         // first, try using the requested kmer sizes
@@ -574,6 +588,99 @@ public final class ReadThreadingAssembler {
         return results;
     }
 
+    /**
+     * Same as {@link #assemble}, but building the graphs of the requested kmer sizes concurrently on the
+     * {@link #kmerAssemblyExecutor}, then if none of them worked, those of all the larger kmer sizes, keeping the
+     * first that works. The results are the same as those of {@link #assemble}.
+     */
+    private List<AssemblyResult> assembleConcurrently(final List<GATKRead> reads, final Haplotype refHaplotype, final SAMFileHeader header,
+                                                      final SmithWatermanAligner aligner, final SWParameters danglingEndSWParameters) {
+        // make sure the reads are decoded here rather than by several graphs at once
+        for ( final GATKRead read : reads ) {
+            read.getBases();
+            read.getBaseQualities();
+            read.getReadGroup();
+        }
+        // not all aligners are thread-safe, so the graphs take turns with it
+        final SmithWatermanAligner sharedAligner = new SynchronizedAligner(aligner);
+
+        final List<AssemblyResult> results = createGraphsConcurrently(kmerSizes.size(), false, i ->
+                createGraph(reads, refHaplotype, kmerSizes.get(i), dontIncreaseKmerSizesForCycles, allowNonUniqueKmersInRef, header, sharedAligner, danglingEndSWParameters));
+
+        // if none of those worked, try the larger sizes if allowed to do so, and keep the smallest that works
+        if ( results.isEmpty() && !dontIncreaseKmerSizesForCycles ) {
+            final List<Integer> kmerSizesToTry = getExpandedKmerList();
+            final List<Integer> largerKmerSizes = kmerSizesToTry.subList(kmerSizes.size(), kmerSizesToTry.size());
+            results.addAll(createGraphsConcurrently(largerKmerSizes.size(), true, i -> {
+                // on the last attempt we will allow low complexity graphs
+                final boolean lastAttempt = i == largerKmerSizes.size() - 1;
+                return createGraph(reads, refHaplotype, largerKmerSizes.get(i), lastAttempt, lastAttempt, header, sharedAligner, danglingEndSWParameters);
+            }));
+        }
+
+        return results;
+    }
+
+    /**
+     * Run graph creations concurrently on the {@link #kmerAssemblyExecutor} and collect their non-null results in
+     * order. Returns only once all of them are done, as they share the aligner of the calling thread.
+     *
+     * @param numGraphs number of graphs to create
+     * @param stopAtFirstResult if true, only return the first non-null result, and skip the creations that haven't started by then
+     * @param createGraph creates the graph of the given index, or returns null if it doesn't work
+     */
+    private List<AssemblyResult> createGraphsConcurrently(final int numGraphs, final boolean stopAtFirstResult, final IntFunction<AssemblyResult> createGraph) {
+        final AtomicBoolean skipRemaining = new AtomicBoolean(false);
+        final List<Future<AssemblyResult>> futures = new ArrayList<>(numGraphs);
+        for ( int i = 0; i < numGraphs; i++ ) {
+            final int index = i;
+            futures.add(kmerAssemblyExecutor.submit(() -> skipRemaining.get() ? null : createGraph.apply(index)));
+        }
+
+        final List<AssemblyResult> results = new LinkedList<>();
+        RuntimeException failure = null;
+        for ( final Future<AssemblyResult> future : futures ) {
+            try {
+                final AssemblyResult result = future.get();
+                if ( result != null && failure == null && !(stopAtFirstResult && !results.isEmpty()) ) {
+                    results.add(result);
+                    if ( stopAtFirstResult ) {
+                        skipRemaining.set(true);
+                    }
+                }
+            } catch ( final ExecutionException e ) {
+                // rethrow the exception of the assembling thread here, once the other graphs are done
+                skipRemaining.set(true);
+                if ( failure == null ) {
+                    failure = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new GATKException("Assembly failed", e.getCause());
+                }
+            } catch ( final InterruptedException e ) {
+                Thread.currentThread().interrupt();
+                throw new GATKException("Interrupted while waiting for assembly graphs", e);
+            }
+        }
+        if ( failure != null ) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Wraps an aligner so that it can be used by several threads, by aligning one pair of sequences at a time
+     */
+    private static final class SynchronizedAligner implements SmithWatermanAligner {
+        private final SmithWatermanAligner aligner;
+
+        SynchronizedAligner(final SmithWatermanAligner aligner) {
+            this.aligner = Utils.nonNull(aligner);
+        }
+
+        @Override
+        public synchronized SmithWatermanAlignment align(final byte[] ref, final byte[] alt, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+            return aligner.align(ref, alt, parameters, overhangStrategy);
+        }
+    }
+
     /**
      * Method for getting a list of all the specified kmer sizes to test for the graph including kmer expansions
      */
@@ -787,6 +894,16 @@ public final class ReadThreadingAssembler {
     //
     // -----------------------------------------------------------------------------------------------
 
+    /**
+     * Build the graphs of the different kmer sizes of a region concurrently on the given executor, rather than one at a time.
+     * Only applies when not using linked de Bruijn graphs.
+     *
+     * @param kmerAssemblyExecutor the executor, or null to build the graphs one at a time
+     */
+    public void setKmerAssemblyExecutor(final ExecutorService kmerAssemblyExecutor) {
+        this.kmerAssemblyExecutor = kmerAssemblyExecutor;
+    }
+
     public void setGraphWriter(File graphOutputPath) {
         this.graphOutputPath = graphOutputPath;
     }
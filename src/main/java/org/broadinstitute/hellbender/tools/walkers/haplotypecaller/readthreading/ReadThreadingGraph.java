@@ -2,6 +2,7 @@ package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreadin
 
 import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.util.Locatable;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
@@ -28,6 +29,12 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
      */
     protected Set<Kmer> nonUniqueKmers;
 
+    /**
+     * The packed non-unique kmers (see {@link Kmer#pack()}), so that they can be looked up without creating a kmer.
+     * Those that cannot be packed are only in {@link #nonUniqueKmers}.
+     */
+    private LongOpenHashSet packedNonUniqueKmers;
+
     /**
      * Constructs an empty read-threading-grpah provided the kmerSize.
      * @param kmerSize 1 or greater.
@@ -49,6 +56,7 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
     protected ReadThreadingGraph(final int kmerSizeFromString, final EdgeFactory<MultiDeBruijnVertex, MultiSampleEdge> edgeFactory) {
         super(kmerSizeFromString, new MyEdgeFactory(1));
         nonUniqueKmers = null;
+        packedNonUniqueKmers = null;
     }
 
     /**
@@ -58,6 +66,7 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
     ReadThreadingGraph(final int kmerSize, final boolean debugGraphTransformations, final byte minBaseQualityToUseInAssembly, final int numPruningSamples, final int numDanglingMatchingPrefixBases) {
         super(kmerSize, debugGraphTransformations, minBaseQualityToUseInAssembly, numPruningSamples, numDanglingMatchingPrefixBases);
         nonUniqueKmers = null;
+        packedNonUniqueKmers = null;
     }
 
     /**
@@ -66,6 +75,22 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
     @Override
     protected void preprocessReads() {
         nonUniqueKmers = determineNonUniques(kmerSize, getAllPendingSequences());
+        packedNonUniqueKmers = new LongOpenHashSet(nonUniqueKmers.size());
+        for (final Kmer kmer : nonUniqueKmers) {
+            final long packed = kmer.pack();
+            if (packed != Kmer.UNPACKABLE) {
+                packedNonUniqueKmers.add(packed);
+            }
+        }
+    }
+
+    private boolean isNonUnique(final Kmer kmer) {
+        final long packed = kmer.pack();
+        return packed != Kmer.UNPACKABLE ? packedNonUniqueKmers.contains(packed) : nonUniqueKmers.contains(kmer);
+    }
+
+    private boolean isNonUnique(final byte[] sequence, final int start, final long packedKmer) {
+        return packedKmer != Kmer.UNPACKABLE ? packedNonUniqueKmers.contains(packedKmer) : nonUniqueKmers.contains(new Kmer(sequence, start, kmerSize));
     }
 
     @Override
@@ -87,7 +112,7 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
     // only add the new kmer to the map if it exists and isn't in our non-unique kmer list
     @Override
     protected void trackKmer(final Kmer kmer, final MultiDeBruijnVertex newVertex) {
-        if ( ! nonUniqueKmers.contains(kmer) && ! kmerToVertexMap.containsKey(kmer) ) {
+        if ( ! isNonUnique(kmer) && ! kmerToVertexMap.containsKey(kmer) ) {
             kmerToVertexMap.put(kmer, newVertex);
         }
     }
@@ -102,12 +127,14 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
      *
      * @see #setThreadingStartOnlyAtExistingVertex(boolean)
      *
-     * @param kmer the query kmer.
+     * @param sequence the sequence of the query kmer.
+     * @param start the start of the query kmer in sequence.
+     * @param packedKmer the query kmer packed into a long, see {@link #packNextKmer}.
      * @return {@code true} if we can start thread the sequence at this kmer, {@code false} otherwise.
      */
-    protected boolean isThreadingStart(final Kmer kmer, final boolean startThreadingOnlyAtExistingVertex) {
-        Utils.nonNull(kmer);
-        return startThreadingOnlyAtExistingVertex ? kmerToVertexMap.containsKey(kmer) : !nonUniqueKmers.contains(kmer);
+    protected boolean isThreadingStart(final byte[] sequence, final int start, final long packedKmer, final boolean startThreadingOnlyAtExistingVertex) {
+        Utils.nonNull(sequence);
+        return startThreadingOnlyAtExistingVertex ? kmerToVertexMap.containsKey(sequence, start, kmerSize, packedKmer) : !isNonUnique(sequence, start, packedKmer);
     }
 
     /**
@@ -155,14 +182,24 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
      * @return a non-null collection of non-unique kmers in sequence
      */
     static Collection<Kmer> determineNonUniqueKmers(final SequenceForKmers seqForKmers, final int kmerSize) {
-        // count up occurrences of kmers within each read
-        final Set<Kmer> allKmers = new LinkedHashSet<>();
+        // count up occurrences of kmers within each read, packing each kmer from the previous one where possible
+        // so that only the kmers that turn out to be non-unique (or can't be packed) are allocated
+        final LongOpenHashSet allPackedKmers = new LongOpenHashSet();
+        final Set<Kmer> allUnpackedKmers = new HashSet<>();
         final List<Kmer> nonUniqueKmers = new ArrayList<>();
+        final byte[] sequence = seqForKmers.sequence;
         final int stopPosition = seqForKmers.stop - kmerSize;
+        long packed = Kmer.UNPACKABLE;
         for (int i = 0; i <= stopPosition; i++) {
-            final Kmer kmer = new Kmer(seqForKmers.sequence, i, kmerSize);
-            if (!allKmers.add(kmer)) {
-                nonUniqueKmers.add(kmer);
+            packed = packed == Kmer.UNPACKABLE ? Kmer.pack(sequence, i, kmerSize) : Kmer.packNext(packed, sequence[i + kmerSize - 1], kmerSize);
+            final boolean isNew;
+            if (packed == Kmer.UNPACKABLE) {
+                isNew = allUnpackedKmers.add(new Kmer(sequence, i, kmerSize));
+            } else {
+                isNew = allPackedKmers.add(packed);
+            }
+            if (!isNew) {
+                nonUniqueKmers.add(new Kmer(sequence, i, kmerSize));
             }
         }
         return nonUniqueKmers;
@@ -184,8 +221,8 @@ public class ReadThreadingGraph extends AbstractReadThreadingGraph {
     }
 
     @Override
-    protected MultiDeBruijnVertex getNextKmerVertexForChainExtension(final Kmer kmer, final boolean isRef, final MultiDeBruijnVertex prevVertex) {
-        final MultiDeBruijnVertex uniqueMergeVertex = getKmerVertex(kmer, false);
+    protected MultiDeBruijnVertex getNextKmerVertexForChainExtension(final byte[] sequence, final int kmerStart, final long packedKmer, final boolean isRef, final MultiDeBruijnVertex prevVertex) {
+        final MultiDeBruijnVertex uniqueMergeVertex = getKmerVertex(sequence, kmerStart, packedKmer, false);
 
         Utils.validate(!(isRef && uniqueMergeVertex != null), "Found a unique vertex to merge into the reference graph " + prevVertex + " -> " + uniqueMergeVertex);
 
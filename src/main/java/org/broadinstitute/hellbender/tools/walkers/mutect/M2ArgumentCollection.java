@@ -107,6 +107,15 @@ public class M2ArgumentCollection extends AssemblyBasedCallerArgumentCollection
         return super.createReadThreadingAssembler();
     }
 
+    /**
+     * F1R2 counts are collected by the engine during region activity evaluation and written along with the stats
+     * table, and the Mutect3 dataset is written by the genotyping engine, so both count as engine-written outputs.
+     */
+    @Override
+    public boolean requestsEngineWrittenOutputs() {
+        return super.requestsEngineWrittenOutputs() || f1r2TarGz != null || mutect3Dataset != null;
+    }
+
     @ArgumentCollection
     public CollectF1R2CountsArgumentCollection f1r2Args = new CollectF1R2CountsArgumentCollection();
 
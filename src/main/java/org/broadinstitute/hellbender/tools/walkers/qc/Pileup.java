@@ -146,6 +146,40 @@ public final class Pileup extends LocusWalker {
 
     @Override
     public void apply(AlignmentContext alignmentContext, ReferenceContext referenceContext, FeatureContext featureContext) {
+        out.print(makePileupLine(alignmentContext, referenceContext, featureContext));
+    }
+
+    @Override
+    public boolean supportsMultiThreadedTraversal() {
+        return true;
+    }
+
+    /**
+     * The lines of each shard are buffered by its worker and written in shard order.
+     */
+    @Override
+    protected LocusShardProcessor makeLocusShardProcessor() {
+        return new LocusShardProcessor() {
+            private StringBuilder shardOutput = new StringBuilder();
+
+            @Override
+            public void apply(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
+                shardOutput.append(makePileupLine(alignmentContext, referenceContext, featureContext));
+            }
+
+            @Override
+            public Runnable finishShard(final ShardBoundary shard) {
+                final String lines = shardOutput.toString();
+                shardOutput = new StringBuilder();
+                return () -> out.print(lines);
+            }
+        };
+    }
+
+    /**
+     * Format the output line for a locus, including the trailing newline
+     */
+    private String makePileupLine(final AlignmentContext alignmentContext, final ReferenceContext referenceContext, final FeatureContext featureContext) {
         final String features = getFeaturesString(featureContext);
         final ReadPileup basePileup = alignmentContext.getBasePileup().makeFilteredPileup(pe -> !pe.isDeletion());
         final StringBuilder s = new StringBuilder();
@@ -159,7 +193,7 @@ public final class Pileup extends LocusWalker {
             s.append(" ").append(createVerboseOutput(basePileup));
         }
         s.append("\n");
-        out.print(s.toString());
+        return s.toString();
     }
 
     /**
@@ -161,6 +161,12 @@ public class ASEReadCounter extends LocusWalker {
         return defaultFilters;
     }
 
+    // pileups are only used within apply()
+    @Override
+    public boolean recyclePileupStorage() {
+        return true;
+    }
+
     @Override
     public void onTraversalStart() {
         try {
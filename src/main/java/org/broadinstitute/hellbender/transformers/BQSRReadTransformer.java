@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.transformers;
 
+import com.google.common.annotations.VisibleForTesting;
 import htsjdk.samtools.SAMFileHeader;
 import htsjdk.samtools.SAMTag;
 import htsjdk.samtools.SAMUtils;
@@ -49,6 +50,26 @@ public final class BQSRReadTransformer implements ReadTransformer {
     private byte[] staticQuantizedMapping;
     private final CovariateKeyCache keyCache;
 
+    // Everything in the recalibrated quality of a base that doesn't depend on the additional covariates, computed once
+    // per read group and reported quality: conditionalPriors[read group key][quality key], or null for read groups
+    // that are not in the recalibration tables.
+    private final int qualDimension;
+    private final double[][] conditionalPriors;
+
+    // The contribution of each additional covariate to the recalibrated quality of a base:
+    // covariateDeltas[covariate index - specialCovariateCount][read group key * qualDimension + quality key][covariate key],
+    // with null rows for read group and quality combinations that don't appear in the table of the covariate, and null
+    // for covariates with too many keys to precompute (see MAX_PRECOMPUTED_COVARIATE_KEYS), which are looked up in
+    // their table instead.
+    private final double[][][] covariateDeltas;
+
+    // The largest number of keys of a covariate for which the deltas are precomputed: each precomputed row is a dense
+    // array over all the keys of the covariate, and the key space of the context covariate grows as 4^context size.
+    @VisibleForTesting
+    static final int MAX_PRECOMPUTED_COVARIATE_KEYS = 1 << 16;
+
+    private final byte[] quantizedQuals;
+
     /**
      * Constructor using a GATK Report file
      *
@@ -98,6 +119,67 @@ public final class BQSRReadTransformer implements ReadTransformer {
         //Note: We pre-create the varargs arrays that will be used in the calls. Otherwise we're spending a lot of time allocating those int[] objects
         empiricalQualCovsArgs = new RecalDatum[totalCovariateCount - specialCovariateCount];
         keyCache = new CovariateKeyCache();//one cache per transformer
+
+        qualDimension = recalibrationTables.getQualityScoreTable().getDimensions()[1];
+        conditionalPriors = computeConditionalPriors();
+        covariateDeltas = new double[totalCovariateCount - specialCovariateCount][][];
+        for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+            covariateDeltas[i - specialCovariateCount] = computeCovariateDeltas(recalibrationTables.getTable(i));
+        }
+        final List<Byte> quantizedQualList = quantizationInfo.getQuantizedQuals();
+        quantizedQuals = new byte[quantizedQualList.size()];
+        for (int i = 0; i < quantizedQuals.length; i++) {
+            quantizedQuals[i] = quantizedQualList.get(i);
+        }
+    }
+
+    /**
+     * Precompute, for every read group and reported quality, the conditional prior of the additional covariates in
+     * {@link #hierarchicalBayesianQualityEstimate}.
+     */
+    private double[][] computeConditionalPriors() {
+        final NestedIntegerArray<RecalDatum> readGroupTable = recalibrationTables.getReadGroupTable();
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
+        final double[][] priors = new double[readGroupTable.getDimensions()[0]][];
+        for (int rgKey = 0; rgKey < priors.length; rgKey++) {
+            final RecalDatum empiricalQualRG = readGroupTable.get2Keys(rgKey, BASE_SUBSTITUTION_INDEX);
+            if (empiricalQualRG == null) {
+                continue;
+            }
+            final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
+            priors[rgKey] = new double[qualDimension];
+            for (int qualKey = 0; qualKey < qualDimension; qualKey++) {
+                priors[rgKey][qualKey] = conditionalPrior(epsilon, empiricalQualRG, qualityScoreTable.get3Keys(rgKey, qualKey, BASE_SUBSTITUTION_INDEX));
+            }
+        }
+        return priors;
+    }
+
+    /**
+     * Precompute the contribution of every value of an additional covariate to the recalibrated quality, for the read
+     * group and reported quality combinations that appear in its table.
+     *
+     * @return the deltas of the covariate, or null if it has more than {@link #MAX_PRECOMPUTED_COVARIATE_KEYS} keys
+     */
+    private double[][] computeCovariateDeltas(final NestedIntegerArray<RecalDatum> covariateTable) {
+        final int keyDimension = covariateTable.getDimensions()[2];
+        if (keyDimension > MAX_PRECOMPUTED_COVARIATE_KEYS) {
+            return null;
+        }
+        final double[][] deltas = new double[conditionalPriors.length * qualDimension][];
+        for (final NestedIntegerArray.Leaf<RecalDatum> leaf : covariateTable.getAllLeaves()) {
+            final int rgKey = leaf.keys[0];
+            final int qualKey = leaf.keys[1];
+            if (leaf.keys[3] != BASE_SUBSTITUTION_INDEX || conditionalPriors[rgKey] == null) {
+                continue;
+            }
+            final int row = rgKey * qualDimension + qualKey;
+            if (deltas[row] == null) {
+                deltas[row] = new double[keyDimension];
+            }
+            deltas[row][leaf.keys[2]] = covariateDelta(conditionalPriors[rgKey][qualKey], leaf.value);
+        }
+        return deltas;
     }
 
     /**
@@ -164,8 +246,7 @@ public final class BQSRReadTransformer implements ReadTransformer {
         final int readLength = quals.length;
         final double epsilon = globalQScorePrior > 0.0 ? globalQScorePrior : empiricalQualRG.getEstimatedQReported();
 
-        final NestedIntegerArray<RecalDatum> qualityScoreTable = recalibrationTables.getQualityScoreTable();
-        final List<Byte> quantizedQuals = quantizationInfo.getQuantizedQuals();
+        final double[] priorsForReadGroup = conditionalPriors[rgKey];
 
         //Note: this loop is under very heavy use in applyBQSR. Keep it slim.
         for (int offset = 0; offset < readLength; offset++) { // recalibrate all bases in the read
@@ -174,20 +255,39 @@ public final class BQSRReadTransformer implements ReadTransformer {
             if (quals[offset] < preserveQLessThan) {
                 continue;
             }
-            Arrays.fill(empiricalQualCovsArgs, null);  //clear the array
             final int[] keySet = fullReadKeySet[offset];
-
-
-            final RecalDatum empiricalQualQS = qualityScoreTable.get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
-
-            for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
-                if (keySet[i] >= 0) {
-                    empiricalQualCovsArgs[i - specialCovariateCount] = recalibrationTables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
+            final int qualKey = keySet[1];
+
+            final double recalibratedQualDouble;
+            if (qualKey >= 0 && qualKey < qualDimension) {
+                // same as hierarchicalBayesianQualityEstimate, from the precomputed terms
+                final double conditionalPrior = priorsForReadGroup[qualKey];
+                final int row = rgKey * qualDimension + qualKey;
+                double deltaQCovariates = 0.0;
+                for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+                    final int key = keySet[i];
+                    if (key < 0) {
+                        continue;
+                    }
+                    final double[][] deltasByRow = covariateDeltas[i - specialCovariateCount];
+                    if (deltasByRow == null) {
+                        final RecalDatum empiricalQualCov = recalibrationTables.getTable(i).get4Keys(rgKey, qualKey, key, BASE_SUBSTITUTION_INDEX);
+                        if (empiricalQualCov != null) {
+                            deltaQCovariates += covariateDelta(conditionalPrior, empiricalQualCov);
+                        }
+                    } else {
+                        final double[] deltas = deltasByRow[row];
+                        if (deltas != null && key < deltas.length) {
+                            deltaQCovariates += deltas[key];
+                        }
+                    }
                 }
+                recalibratedQualDouble = conditionalPrior + deltaQCovariates;
+            } else {
+                recalibratedQualDouble = estimateQualityFromTables(epsilon, empiricalQualRG, keySet);
             }
-            final double recalibratedQualDouble = hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovsArgs);
 
-            final byte recalibratedQualityScore = quantizedQuals.get(getRecalibratedQual(recalibratedQualDouble));
+            final byte recalibratedQualityScore = quantizedQuals[getRecalibratedQual(recalibratedQualDouble)];
 
             // Bin to static quals
             quals[offset] = staticQuantizedMapping == null ? recalibratedQualityScore : staticQuantizedMapping[recalibratedQualityScore];
@@ -196,6 +296,21 @@ public final class BQSRReadTransformer implements ReadTransformer {
         return read;
     }
 
+    /**
+     * Compute the recalibrated quality of a base by looking up all of its covariates in the recalibration tables
+     */
+    private double estimateQualityFromTables(final double epsilon, final RecalDatum empiricalQualRG, final int[] keySet) {
+        Arrays.fill(empiricalQualCovsArgs, null);  //clear the array
+        final RecalDatum empiricalQualQS = recalibrationTables.getQualityScoreTable().get3Keys(keySet[0], keySet[1], BASE_SUBSTITUTION_INDEX);
+
+        for (int i = specialCovariateCount; i < totalCovariateCount; i++) {
+            if (keySet[i] >= 0) {
+                empiricalQualCovsArgs[i - specialCovariateCount] = recalibrationTables.getTable(i).get4Keys(keySet[0], keySet[1], keySet[i], BASE_SUBSTITUTION_INDEX);
+            }
+        }
+        return hierarchicalBayesianQualityEstimate(epsilon, empiricalQualRG, empiricalQualQS, empiricalQualCovsArgs);
+    }
+
     // recalibrated quality is bound between 1 and MAX_QUAL
     private byte getRecalibratedQual(final double recalibratedQualDouble) {
         return boundQual(fastRound(recalibratedQualDouble), MAX_RECALIBRATED_Q_SCORE);
@@ -205,20 +320,34 @@ public final class BQSRReadTransformer implements ReadTransformer {
                                                               final RecalDatum empiricalQualRG,
                                                               final RecalDatum empiricalQualQS,
                                                               final RecalDatum... empiricalQualCovs ) {
-        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
-        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
-
         double deltaQCovariates = 0.0;
-        final double conditionalPrior2 = deltaQReported + globalDeltaQ + epsilon;
+        final double conditionalPrior2 = conditionalPrior(epsilon, empiricalQualRG, empiricalQualQS);
         for( final RecalDatum empiricalQualCov : empiricalQualCovs ) {
             if (empiricalQualCov != null) {
-                deltaQCovariates += empiricalQualCov.getEmpiricalQuality(conditionalPrior2) - conditionalPrior2;
+                deltaQCovariates += covariateDelta(conditionalPrior2, empiricalQualCov);
             }
         }
 
         return conditionalPrior2 + deltaQCovariates;
     }
 
+    /**
+     * @return the prior of the additional covariates in {@link #hierarchicalBayesianQualityEstimate}, which only
+     * depends on the read group and the reported quality
+     */
+    private static double conditionalPrior(final double epsilon, final RecalDatum empiricalQualRG, final RecalDatum empiricalQualQS) {
+        final double globalDeltaQ = empiricalQualRG == null ? 0.0 : empiricalQualRG.getEmpiricalQuality(epsilon) - epsilon;
+        final double deltaQReported = empiricalQualQS == null ? 0.0 : empiricalQualQS.getEmpiricalQuality(globalDeltaQ + epsilon) - (globalDeltaQ + epsilon);
+        return deltaQReported + globalDeltaQ + epsilon;
+    }
+
+    /**
+     * @return the contribution of an additional covariate to the recalibrated quality in {@link #hierarchicalBayesianQualityEstimate}
+     */
+    private static double covariateDelta(final double conditionalPrior, final RecalDatum empiricalQualCov) {
+        return empiricalQualCov.getEmpiricalQuality(conditionalPrior) - conditionalPrior;
+    }
+
     /**
      * Constructs an array that maps particular quantized values to a rounded value in staticQuantizedQuals
      *
@@ -0,0 +1,125 @@
+package org.broadinstitute.hellbender.utils;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.broadinstitute.hellbender.exceptions.GATKException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs tasks on a fixed pool of worker threads, while handing their results to a consumer on the submitting
+ * thread in the same order in which the tasks were submitted.
+ *
+ * At most {@code maxPendingTasks} tasks are in flight at any time: once that many results are outstanding,
+ * {@link #submit} blocks until the oldest one is complete and has been consumed. This bounds the memory used
+ * by results that are complete but waiting for an earlier, slower task to finish.
+ *
+ * Instances are not thread-safe: {@link #submit}, {@link #drain} and {@link #close} must all be called from
+ * the same thread, which is also the thread on which the result consumer runs.
+ *
+ * @param <T> type of the task results
+ */
+public final class OrderedParallelExecutor<T> implements AutoCloseable {
+
+    private final ExecutorService executorService;
+    private final Deque<Future<T>> pendingResults;
+    private final int maxPendingTasks;
+    private final Consumer<T> resultConsumer;
+
+    /**
+     * @param threads number of worker threads, must be at least 1
+     * @param maxPendingTasks maximum number of submitted tasks whose results have not been consumed yet, must be at least {@code threads}
+     * @param threadNamePrefix prefix for the names of the worker threads
+     * @param resultConsumer consumer of the results, invoked on the submitting thread in submission order
+     */
+    public OrderedParallelExecutor(final int threads, final int maxPendingTasks, final String threadNamePrefix, final Consumer<T> resultConsumer) {
+        Utils.validateArg(threads > 0, "the number of threads must be positive");
+        Utils.validateArg(maxPendingTasks >= threads, "the maximum number of pending tasks must be at least the number of threads");
+        Utils.nonNull(threadNamePrefix);
+        this.resultConsumer = Utils.nonNull(resultConsumer);
+        this.maxPendingTasks = maxPendingTasks;
+        this.pendingResults = new ArrayDeque<>(maxPendingTasks);
+        final ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                .setNameFormat(threadNamePrefix + "-thread-%d")
+                .setDaemon(true).build();
+        this.executorService = Executors.newFixedThreadPool(threads, threadFactory);
+    }
+
+    /**
+     * Submit a task for execution. If the maximum number of pending tasks has been reached, first waits for and
+     * consumes the results of the oldest tasks.
+     *
+     * @param task task to run on one of the worker threads
+     */
+    public void submit(final Callable<T> task) {
+        Utils.nonNull(task);
+        while (pendingResults.size() >= maxPendingTasks) {
+            consumeOldestResult();
+        }
+        pendingResults.addLast(executorService.submit(task));
+    }
+
+    /**
+     * Wait for all submitted tasks to complete and consume their results in submission order.
+     */
+    public void drain() {
+        while (!pendingResults.isEmpty()) {
+            consumeOldestResult();
+        }
+    }
+
+    /**
+     * @return the number of submitted tasks whose results have not been consumed yet
+     */
+    public int numberOfPendingTasks() {
+        return pendingResults.size();
+    }
+
+    private void consumeOldestResult() {
+        resultConsumer.accept(getResult(pendingResults.removeFirst()));
+    }
+
+    private static <T> T getResult(final Future<T> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("interrupted while waiting for a parallel task", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw new GATKException("exception when executing parallel task", cause);
+            }
+        }
+    }
+
+    /**
+     * Shut down the worker threads. Results of tasks that have not been consumed by a previous call to
+     * {@link #drain} are discarded, and tasks that are still running are interrupted. Returns only once no task is
+     * running anymore, so that the caller may release any resources used by the tasks.
+     */
+    @Override
+    public void close() {
+        pendingResults.forEach(future -> future.cancel(true));
+        pendingResults.clear();
+        executorService.shutdownNow();
+        try {
+            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GATKException("interrupted while waiting for parallel tasks to terminate", e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.broadinstitute.hellbender.exceptions.GATKException;
+import org.broadinstitute.hellbender.exceptions.UserException;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Utilities to instantiate the pure-java SIMD implementations built on the incubating Java Vector API
+ * ({@code jdk.incubator.vector}).
+ *
+ * Because the Vector API is an incubator module, these implementations are compiled separately from the rest of
+ * GATK (in the {@code vector} source set) and can only be used when the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}. The rest of the code base therefore refers to them by name only,
+ * and instantiates them through {@link #makeVectorApiInstance}.
+ */
+public final class VectorApiUtils {
+
+    public static final String VECTOR_API_MODULE = "jdk.incubator.vector";
+
+    /**
+     * The smallest number of double-precision lanes for which vectorized code is worth using. Below this, the
+     * Vector API falls back to scalar code that is slower than the plain java implementations.
+     */
+    public static final int MIN_USEFUL_DOUBLE_LANES = 2;
+
+    private static final String VECTOR_API_LANES_CLASS = "org.broadinstitute.hellbender.utils.vector.VectorApiLanes";
+
+    private VectorApiUtils(){}
+
+    /**
+     * @return true if the Vector API module was added to the boot layer of this JVM, otherwise false
+     */
+    public static boolean vectorApiModuleIsLoaded() {
+        return ModuleLayer.boot().findModule(VECTOR_API_MODULE).isPresent();
+    }
+
+    /**
+     * @return true if the Vector API is available and the platform has SIMD registers wide enough to hold at least
+     * {@link #MIN_USEFUL_DOUBLE_LANES} doubles, otherwise false
+     */
+    public static boolean vectorApiIsUseful() {
+        if ( ! vectorApiModuleIsLoaded() ) {
+            return false;
+        }
+        try {
+            final Object lanes = Class.forName(VECTOR_API_LANES_CLASS).getMethod("preferredDoubleLanes").invoke(null);
+            return (Integer)lanes >= MIN_USEFUL_DOUBLE_LANES;
+        } catch ( final ReflectiveOperationException | LinkageError e ) {
+            return false;
+        }
+    }
+
+    /**
+     * Instantiate a Vector API-based implementation through its public no-argument constructor.
+     *
+     * @param className fully qualified name of the implementation class
+     * @param type type the implementation must be assignable to
+     * @return a new instance of {@code className}
+     * @throws UserException.HardwareFeatureException if the Vector API module is not available in this JVM
+     */
+    public static <T> T makeVectorApiInstance(final String className, final Class<T> type) {
+        Utils.nonNull(className);
+        Utils.nonNull(type);
+        if ( ! vectorApiModuleIsLoaded() ) {
+            throw new UserException.HardwareFeatureException(String.format(
+                    "%s requires the Java Vector API, which must be enabled by passing --java-options \"--add-modules %s\"",
+                    className.substring(className.lastIndexOf('.') + 1), VECTOR_API_MODULE));
+        }
+        try {
+            return type.cast(Class.forName(className).getDeclaredConstructor().newInstance());
+        } catch ( final ClassNotFoundException | LinkageError e ) {
+            throw new UserException.HardwareFeatureException("the Vector API implementation " + className + " is not present in this GATK build", new GATKException(e.getMessage(), e));
+        } catch ( final InvocationTargetException e ) {
+            final Throwable cause = e.getCause();
+            if ( cause instanceof RuntimeException ) {
+                throw (RuntimeException)cause;
+            }
+            throw new GATKException("could not instantiate " + className, cause);
+        } catch ( final ReflectiveOperationException e ) {
+            throw new GATKException("could not instantiate " + className, e);
+        }
+    }
+}
@@ -30,6 +30,7 @@ public class AlignmentContextIteratorBuilder {
     private boolean isIncludeDeletions;
     private boolean isIncludeNs;
     private LIBSDownsamplingInfo downsamplingInfo;
+    private boolean isRecyclePileupStorage;
 
     public void setEmitEmptyLoci(boolean emitEmptyLoci) {
         isEmitEmptyLoci = emitEmptyLoci;
@@ -47,11 +48,20 @@ public class AlignmentContextIteratorBuilder {
         this.downsamplingInfo = downsamplingInfo;
     }
 
+    /**
+     * Run the {@link LocusIteratorByState} in its low-allocation mode, where pileup storage is recycled across loci.
+     * Only for consumers that don't use an AlignmentContext after requesting the next one.
+     */
+    public void setRecyclePileupStorage(boolean recyclePileupStorage) {
+        isRecyclePileupStorage = recyclePileupStorage;
+    }
+
     public AlignmentContextIteratorBuilder() {
         isEmitEmptyLoci = false;
         isIncludeDeletions = true;
         isIncludeNs = false;
         downsamplingInfo = LocusIteratorByState.NO_DOWNSAMPLING;
+        isRecyclePileupStorage = false;
     }
 
     /**
@@ -69,7 +79,7 @@ public class AlignmentContextIteratorBuilder {
         Utils.nonNull(readIterator, "Read iterator cannot be null");
         final boolean isDefinitelyReference = (dictionary != null) && isReference ;
         return createAlignmentContextIterator(intervalsForTraversal, header, readIterator, dictionary, downsamplingInfo,
-                isDefinitelyReference, isEmitEmptyLoci, isIncludeDeletions, isIncludeNs);
+                isDefinitelyReference, isEmitEmptyLoci, isIncludeDeletions, isIncludeNs, isRecyclePileupStorage);
     }
 
     /**
@@ -86,6 +96,7 @@ public class AlignmentContextIteratorBuilder {
      * @param emitEmptyLoci whether loci with no coverage should be emitted.  In this case, the AlignmentContext will be empty (not null).
      * @param isIncludeDeletions include reads with deletion on the loci in question
      * @param isIncludeNs include reads with N on the loci in question
+     * @param isRecyclePileupStorage recycle pileup storage across loci (for {@link LocusIteratorByState})
      * @return iterator that produces AlignmentContexts ready for consumption (e.g. by a {@link org.broadinstitute.hellbender.engine.LocusWalker})
      */
     private static Iterator<AlignmentContext> createAlignmentContextIterator(final List<SimpleInterval> intervalsForTraversal,
@@ -96,7 +107,8 @@ public class AlignmentContextIteratorBuilder {
                                                                              final boolean isReference,
                                                                              boolean emitEmptyLoci,
                                                                              boolean isIncludeDeletions,
-                                                                             boolean isIncludeNs) {
+                                                                             boolean isIncludeNs,
+                                                                             boolean isRecyclePileupStorage) {
 
         // get the samples from the read groups
         final Set<String> samples = header.getReadGroups().stream()
@@ -104,7 +116,7 @@ public class AlignmentContextIteratorBuilder {
                 .collect(Collectors.toSet());
 
         // get the LIBS
-        final LocusIteratorByState libs = new LocusIteratorByState(readIterator, downsamplingInfo, samples, header, isIncludeDeletions, isIncludeNs);
+        final LocusIteratorByState libs = new LocusIteratorByState(readIterator, downsamplingInfo, samples, header, isIncludeDeletions, isIncludeNs, isRecyclePileupStorage);
 
         List<SimpleInterval> finalIntervals = intervalsForTraversal;
         validateEmitEmptyLociParameters(emitEmptyLoci, dictionary, intervalsForTraversal, isReference);
@@ -37,6 +37,11 @@ import java.util.*;
  *   -- A read that could be aligned to a position will actually occur in the pileup (downsampled away)
  *   -- A read that appears in a previous pileup that could align to a future position will actually occur
  *      in that pileup.  That is, a read might show up at position i but be downsampled away in the pileup at j
+ *
+ * LIBS can also run in a low-allocation mode, in which the lists that hold the pileup elements are recycled from
+ * locus to locus instead of being allocated anew, and regrown, for every pileup. The pileup of an AlignmentContext
+ * returned in this mode is only valid until the context after the next one has been produced: consumers must not
+ * hold on to it any longer. The pileup elements themselves are immutable and are still created for every pileup.
  */
 public final class LocusIteratorByState implements Iterator<AlignmentContext> {
     /** Indicates that we shouldn't do any downsampling */
@@ -76,6 +81,27 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
      */
     private AlignmentContext nextAlignmentContext;
 
+    /**
+     * Number of element lists recycled in the low-allocation mode, so that the pileup returned by the previous call
+     * to next() is still valid while the next one is built, as required by iterators that look one pileup ahead
+     */
+    private static final int RECYCLED_STORAGE_SLOTS = 2;
+
+    /**
+     * Should we recycle the lists of pileup elements across loci?
+     */
+    private final boolean recyclePileupStorage;
+
+    /**
+     * In the low-allocation mode, the element lists of the pileups, recycled in turn
+     */
+    private final List<List<PileupElement>> recycledPileupElementLists;
+
+    /**
+     * In the low-allocation mode, the slot of the recycled storage used for the next pileup
+     */
+    private int recycledStorageSlot = 0;
+
     // -----------------------------------------------------------------------------------------------------------------
     //
     // constructors and other basic operations
@@ -182,6 +208,38 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
                                 final SAMFileHeader header,
                                 final boolean includeReadsWithDeletionAtLoci,
                                 final boolean includeReadsWithNsAtLoci) {
+        this(samIterator,
+                downsamplingInfo,
+                samples,
+                header,
+                includeReadsWithDeletionAtLoci,
+                includeReadsWithNsAtLoci,
+                false
+        );
+    }
+
+    /**
+     * Create a new LocusIteratorByState
+     * @param samIterator                    the iterator of reads to process into pileups.  Reads must be ordered
+     *                                       according to standard coordinate-sorted BAM conventions
+     * @param downsamplingInfo               meta-information about how to downsample the reads
+     * @param samples                        a complete list of samples present in the read groups for the reads coming from samIterator.
+     *                                       This is generally just the set of read group sample fields in the SAMFileHeader.  This
+     *                                       list of samples may contain a null element, and all reads without read groups will
+     *                                       be mapped to this null sample
+     * @param header                         header from the reads
+     * @param includeReadsWithDeletionAtLoci Include reads with deletion at loci
+     * @param includeReadsWithNsAtLoci       Include reads with Ns at loci (usually it is not needed)
+     * @param recyclePileupStorage           Run in the low-allocation mode, where the pileups of the returned contexts
+     *                                       are only valid until the context after the next one is produced
+     */
+    public LocusIteratorByState(final Iterator<GATKRead> samIterator,
+                                final LIBSDownsamplingInfo downsamplingInfo,
+                                final Collection<String> samples,
+                                final SAMFileHeader header,
+                                final boolean includeReadsWithDeletionAtLoci,
+                                final boolean includeReadsWithNsAtLoci,
+                                final boolean recyclePileupStorage) {
         Utils.nonNull(samIterator, "samIterator cannot be null");
         Utils.nonNull(downsamplingInfo, "downsamplingInfo cannot be null");
         Utils.nonNull(samples, "Samples cannot be null");
@@ -196,6 +254,13 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
         this.includeReadsWithDeletionAtLoci = includeReadsWithDeletionAtLoci;
         this.includeReadsWithNsAtLoci = includeReadsWithNsAtLoci;
         this.readStates = new ReadStateManager(samIterator, samples, downsamplingInfo, header);
+        this.recyclePileupStorage = recyclePileupStorage;
+        this.recycledPileupElementLists = new ArrayList<>(RECYCLED_STORAGE_SLOTS);
+        if ( recyclePileupStorage ) {
+            for ( int slot = 0; slot < RECYCLED_STORAGE_SLOTS; slot++ ) {
+                recycledPileupElementLists.add(new ArrayList<>(100));
+            }
+        }
     }
 
     /**
@@ -292,7 +357,13 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
             // since they are just going to get combined into one monolithic pileup anyway
             // when we construct the final ReadPileup below. This optimization speeds up the
             // HaplotypeCaller by quite a bit!
-            final List<PileupElement> allPileupElements = new ArrayList<>(100);
+            final List<PileupElement> allPileupElements;
+            if ( recyclePileupStorage ) {
+                allPileupElements = recycledPileupElementLists.get(recycledStorageSlot);
+                allPileupElements.clear();
+            } else {
+                allPileupElements = new ArrayList<>(100);
+            }
 
             for (final Map.Entry<String, PerSampleReadStateManager> sampleStatePair : readStates) {
                 final PerSampleReadStateManager readState = sampleStatePair.getValue();
@@ -321,6 +392,9 @@ public final class LocusIteratorByState implements Iterator<AlignmentContext> {
             readStates.updateReadStates(); // critical - must be called after we get the current state offsets and location
             if (!allPileupElements.isEmpty()) { // if we got reads with non-D/N over the current position, we are done
                 nextAlignmentContext = new AlignmentContext(location, new ReadPileup(location, allPileupElements));
+                if ( recyclePileupStorage ) {
+                    recycledStorageSlot = (recycledStorageSlot + 1) % RECYCLED_STORAGE_SLOTS;
+                }
             }
         }
     }
@@ -7,6 +7,7 @@ import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.downsampling.Downsampler;
 import org.broadinstitute.hellbender.utils.downsampling.LevelingDownsampler;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -23,8 +24,11 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
      *
      * The state machines must be ordered by the alignment start of their underlying reads, with the
      * lowest alignment starts on the left, and the largest on the right
+     *
+     * An array-backed list, which is compacted in place as states are removed, so that advancing over a locus
+     * doesn't allocate anything
      */
-    private List<AlignmentStateMachine> readStatesByAlignmentStart = new LinkedList<>();
+    private final ArrayList<AlignmentStateMachine> readStatesByAlignmentStart = new ArrayList<>();
 
     private final Downsampler<LinkedList<AlignmentStateMachine>> levelingDownsampler;
     private final int downsamplingTarget;
@@ -114,8 +118,9 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
 
             nStatesAdded -= levelingDownsampler.getNumberOfDiscardedItems();
 
-            // use returned List directly rather than make a copy, for efficiency's sake
-            readStatesByAlignmentStart = flattenByAlignmentStart(levelingDownsampler.consumeFinalizedItems());
+            final List<AlignmentStateMachine> downsampled = flattenByAlignmentStart(levelingDownsampler.consumeFinalizedItems());
+            readStatesByAlignmentStart.clear();
+            readStatesByAlignmentStart.addAll(downsampled);
             levelingDownsampler.resetStats();
         }
 
@@ -181,21 +186,21 @@ final class PerSampleReadStateManager implements Iterable<AlignmentStateMachine>
      * @return the number of states we're removed after advancing
      */
     public int updateReadStates() {
-        int nRemoved = 0;
-        final Iterator<AlignmentStateMachine> it = iterator();
-        while (it.hasNext()) {
-            final AlignmentStateMachine state = it.next();
+        final int size = readStatesByAlignmentStart.size();
+        int nKept = 0;
+        for (int i = 0; i < size; i++) {
+            final AlignmentStateMachine state = readStatesByAlignmentStart.get(i);
             final CigarOperator op = state.stepForwardOnGenome();
-            if (op == null) {
-                // we discard the read only when we are past its end AND indel at the end of the read (if any) was
-                // already processed. Keeping the read state that returned null upon stepForwardOnGenome() is safe
-                // as the next call to stepForwardOnGenome() will return null again AND will clear hadIndel() flag.
-                it.remove();                                                // we've stepped off the end of the object
-                nRemoved++;
+            // we discard the read only when we are past its end AND indel at the end of the read (if any) was
+            // already processed. Keeping the read state that returned null upon stepForwardOnGenome() is safe
+            // as the next call to stepForwardOnGenome() will return null again AND will clear hadIndel() flag.
+            if (op != null) {
+                readStatesByAlignmentStart.set(nKept++, state);          // compact the states we keep in place
             }
         }
+        readStatesByAlignmentStart.subList(nKept, size).clear();       // drop the states that stepped off their reads
 
-        return nRemoved;
+        return size - nKept;
     }
 
     /**
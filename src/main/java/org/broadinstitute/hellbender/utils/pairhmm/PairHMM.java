@@ -10,6 +10,7 @@ import org.broadinstitute.hellbender.exceptions.GATKException;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.VectorApiUtils;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
@@ -18,9 +19,11 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
+import java.util.stream.IntStream;
 
 /**
  * Class for performing the pair HMM for global alignment. Figure 4.1 in Durbin 1998 book.
@@ -30,6 +33,9 @@ public abstract class PairHMM implements Closeable{
 
     public static final byte BASE_QUALITY_SCORE_THRESHOLD = 18; // Base quals less than this value are squashed down to min possible qual
 
+    // compiled separately since it depends on the incubating Vector API, see VectorApiUtils
+    private static final String VECTOR_API_LOGLESS_PAIRHMM_CLASS = "org.broadinstitute.hellbender.utils.pairhmm.VectorApiLoglessPairHMM";
+
     protected boolean constantsAreInitialized = false;
 
     protected byte[] previousHaplotypeBases;
@@ -70,11 +76,18 @@ public abstract class PairHMM implements Closeable{
             logger.info("Using the OpenMP multi-threaded AVX-accelerated native PairHMM implementation");
             return hmm;
         }),
+        /* Pure-java SIMD implementation of LOGLESS_CACHING using the Java Vector API. Throws if the JVM was not started with --add-modules jdk.incubator.vector */
+        VECTOR_API_LOGLESS_CACHING(args -> {
+            final PairHMM hmm = VectorApiUtils.makeVectorApiInstance(VECTOR_API_LOGLESS_PAIRHMM_CLASS, PairHMM.class);
+            logger.info("Using the Java Vector API-accelerated PairHMM implementation");
+            return hmm;
+        }),
         /* Uses the fastest available PairHMM implementation supported on the platform.
            Order of precedence:
             1. AVX_LOGLESS_CACHING_OMP
             2. AVX_LOGLESS_CACHING
-            3. LOGLESS_CACHING
+            3. VECTOR_API_LOGLESS_CACHING
+            4. LOGLESS_CACHING
          */
         FASTEST_AVAILABLE(args -> {
             try {
@@ -91,10 +104,18 @@ public abstract class PairHMM implements Closeable{
                 return hmm;
             }
             catch ( UserException.HardwareFeatureException e ) {
+                logger.info("AVX-accelerated native PairHMM implementation is not supported");
+            }
+            if ( VectorApiUtils.vectorApiIsUseful() ) {
+                final PairHMM hmm = VectorApiUtils.makeVectorApiInstance(VECTOR_API_LOGLESS_PAIRHMM_CLASS, PairHMM.class);
                 logger.warn("***WARNING: Machine does not have the AVX instruction set support needed for the accelerated AVX PairHmm. " +
-                            "Falling back to the MUCH slower LOGLESS_CACHING implementation!");
-                return new LoglessPairHMM();
+                            "Falling back to the slower Java Vector API-accelerated implementation");
+                return hmm;
             }
+            logger.warn("***WARNING: Machine does not have the AVX instruction set support needed for the accelerated AVX PairHmm. " +
+                        "Falling back to the MUCH slower LOGLESS_CACHING implementation! Running with " +
+                        "--java-options \"--add-modules " + VectorApiUtils.VECTOR_API_MODULE + "\" enables a faster pure-java implementation.");
+            return new LoglessPairHMM();
         });
 
         private final Function<PairHMMNativeArguments, PairHMM> makeHmm;
@@ -125,6 +146,8 @@ public abstract class PairHMM implements Closeable{
     protected static long pairHMMComputeTime = 0;
     protected long threadLocalPairHMMComputeTimeDiff = 0;
     protected long startTime = 0;
+    private long totalCells = 0;
+    private long skippedCells = 0;
 
     /**
      * Initialize this PairHMM, making it suitable to run against a read and haplotype with given lengths
@@ -212,8 +235,8 @@ public abstract class PairHMM implements Closeable{
         final int readCount = processedReads.size();
         final List<Haplotype> alleles = logLikelihoods.alleles();
         final int alleleCount = alleles.size();
+        final int[] haplotypeOrder = prefixSharingOrder(alleles);
         mLogLikelihoodArray = new double[readCount * alleleCount];
-        int idx = 0;
         int readIndex = 0;
         for(final GATKRead read : processedReads){
             final PairHMMInputScoreImputation inputScoreImputation = inputScoreImputator.impute(read);
@@ -224,16 +247,18 @@ public abstract class PairHMM implements Closeable{
             final byte[] readDelQuals = inputScoreImputation.delOpenPenalties();
             final byte[] overallGCP = inputScoreImputation.gapContinuationPenalties();
 
-            // peek at the next haplotype in the list (necessary to get nextHaplotypeBases, which is required for caching in the array implementation)
-            final boolean isFirstHaplotype = true;
-            for (int a = 0; a < alleleCount; a++) {
-                final Allele allele = alleles.get(a);
-                final byte[] alleleBases = allele.getBases();
-                final byte[] nextAlleleBases = a == alleles.size() - 1 ? null : alleles.get(a + 1).getBases();
+            // the read values are only computed for the first haplotype, after which the matrix columns of the prefix
+            // each haplotype shares with the previous one are reused: peek at the next haplotype to find that prefix
+            for (int h = 0; h < alleleCount; h++) {
+                final int a = haplotypeOrder[h];
+                final byte[] alleleBases = alleles.get(a).getBases();
+                final byte[] nextAlleleBases = h == alleleCount - 1 ? null : alleles.get(haplotypeOrder[h + 1]).getBases();
+                final boolean isFirstHaplotype = h == 0;
+                countCells(readBases.length, alleleBases.length, isFirstHaplotype ? 0 : hapStartIndex);
                 final double lk = computeReadLikelihoodGivenHaplotypeLog10(alleleBases,
                         readBases, readQuals, readInsQuals, readDelQuals, overallGCP, isFirstHaplotype, nextAlleleBases);
                 logLikelihoods.set(a, readIndex, lk);
-                mLogLikelihoodArray[idx++] = lk;
+                mLogLikelihoodArray[readIndex * alleleCount + a] = lk;
                 writeToResultsFileIfApplicable(readBases, readQuals, readInsQuals, readDelQuals, overallGCP, alleleBases, lk);
             }
             readIndex++;
@@ -246,6 +271,72 @@ public abstract class PairHMM implements Closeable{
         }
     }
 
+    /**
+     *  Compute the likelihoods of the reads of several likelihood matrices sharing the same haplotypes, typically those
+     *  of all the samples of an assembly region, as a single batch.
+     *
+     *  By default each matrix is computed in turn with {@link #computeLog10Likelihoods}. Implementations backed by a
+     *  batch-oriented library override this to evaluate all the reads in one call, which amortizes the cost of the call
+     *  and gives a multi-threaded backend enough work to keep all of its threads busy.
+     *
+     * @param logLikelihoods where to store the log likelihoods, all with the haplotypes given to {@link #initialize}
+     * @param processedReads reads to analyze for each matrix, in the same order as {@code logLikelihoods}
+     */
+    public void computeBatchedLog10Likelihoods(final List<? extends LikelihoodMatrix<GATKRead, Haplotype>> logLikelihoods,
+                                               final List<List<GATKRead>> processedReads,
+                                               final PairHMMInputScoreImputator inputScoreImputator) {
+        Utils.validateArg(logLikelihoods.size() == processedReads.size(), "there must be one list of reads per likelihood matrix");
+        for (int i = 0; i < logLikelihoods.size(); i++) {
+            computeLog10Likelihoods(logLikelihoods.get(i), processedReads.get(i), inputScoreImputator);
+        }
+    }
+
+
+    /**
+     * Returns the order in which to evaluate the haplotypes against each read so that consecutive haplotypes share as
+     * long a prefix as possible, which is what allows {@link #computeReadLikelihoodGivenHaplotypeLog10} to reuse the
+     * matrix columns of the previous haplotype.
+     *
+     * Prefixes are only reused between haplotypes of the same length, so the haplotypes are grouped by length, then
+     * sorted lexicographically within each group: this visits them in the depth-first order of their prefix trie,
+     * which maximizes the total length of the prefixes shared by consecutive haplotypes.
+     *
+     * @param haplotypes the haplotypes to evaluate
+     * @return the indices of the haplotypes, in the order in which to evaluate them
+     */
+    @VisibleForTesting
+    static int[] prefixSharingOrder(final List<? extends Allele> haplotypes) {
+        final byte[][] bases = new byte[haplotypes.size()][];
+        for (int h = 0; h < bases.length; h++) {
+            bases[h] = haplotypes.get(h).getBases();
+        }
+        return IntStream.range(0, bases.length).boxed()
+                .sorted(Comparator.<Integer>comparingInt(h -> bases[h].length).thenComparing((h1, h2) -> Arrays.compare(bases[h1], bases[h2])))
+                .mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Whether this implementation reuses the matrix columns of the prefix a haplotype shares with the previous one,
+     * see {@link #computeReadLikelihoodGivenHaplotypeLog10}. Only used to report the fraction of the cells that were skipped.
+     */
+    protected boolean reusesHaplotypePrefixColumns() {
+        return true;
+    }
+
+    private void countCells(final int readLength, final int haplotypeLength, final int reusedColumns) {
+        totalCells += (long) readLength * haplotypeLength;
+        if (reusesHaplotypePrefixColumns()) {
+            skippedCells += (long) readLength * reusedColumns;
+        }
+    }
+
+    /**
+     * @return the fraction of the cells of the matrices of the reads and haplotypes evaluated by
+     * {@link #computeLog10Likelihoods} that were not computed, because they belonged to a prefix shared with the previous haplotype
+     */
+    public double getFractionOfCellsSkipped() {
+        return totalCells == 0 ? 0.0 : (double) skippedCells / totalCells;
+    }
 
     /**
      * Compute the total probability of read arising from haplotypeBases given base substitution, insertion, and deletion
@@ -308,9 +399,9 @@ public abstract class PairHMM implements Closeable{
         // Warning: This assumes no downstream modification of the haplotype bases (saves us from copying the array). It is okay for the haplotype caller.
         previousHaplotypeBases = haplotypeBases;
 
-        // For the next iteration, the hapStartIndex for the next haploytpe becomes the index for the current haplotype
-        // The array implementation has to look ahead to the next haplotype to store caching info. It cannot do this if nextHapStart is before hapStart
-        hapStartIndex = (nextHapStartIndex < hapStartIndex) ? 0: nextHapStartIndex;
+        // For the next iteration, the hapStartIndex for the next haplotype is the length of the prefix it shares with the
+        // current one: all the columns of the current haplotype have been computed, so any of them can be reused
+        hapStartIndex = nextHapStartIndex;
 
         return result;
     }
@@ -391,6 +482,9 @@ public abstract class PairHMM implements Closeable{
     public void close() {
         if(doProfiling) {
             logger.info("Total compute time in PairHMM computeLogLikelihoods() : " + (pairHMMComputeTime * 1e-9));
+            if (totalCells > 0 && reusesHaplotypePrefixColumns()) {
+                logger.info(String.format("Fraction of PairHMM cells skipped by reusing haplotype prefixes : %.3f", getFractionOfCellsSkipped()));
+            }
         }
         if(debugOutputStream != null) {
             try {
@@ -10,10 +10,12 @@ import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeBinding;
 import org.broadinstitute.gatk.nativebindings.pairhmm.ReadDataHolder;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -40,6 +42,8 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
     private static final Logger logger = LogManager.getLogger(VectorLoglessPairHMM.class);
     private long threadLocalSetupTimeDiff = 0;
     private long pairHMMSetupTime = 0;
+    private long numberOfNativeCalls = 0;
+    private long numberOfReadsInNativeCalls = 0;
 
     private final PairHMMNativeBinding pairHmm;
 
@@ -107,25 +111,43 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
     @Override
     public void computeLog10Likelihoods(final LikelihoodMatrix<GATKRead, Haplotype> logLikelihoods,
                                         final List<GATKRead> processedReads, final PairHMMInputScoreImputator inputScoreImputator) {
-        if (processedReads.isEmpty()) {
+        computeBatchedLog10Likelihoods(Collections.singletonList(logLikelihoods), Collections.singletonList(processedReads), inputScoreImputator);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * The reads of all the matrices are sent to the native library in a single call, so that the cost of the call is
+     * paid once per assembly region rather than once per sample, and so that the OpenMP implementation can balance
+     * the reads of all the samples across its threads. A single matrix, as in a single-sample run, is still sent in one
+     * call, exactly as by {@link #computeLog10Likelihoods}: batching only changes anything when there are several.
+     */
+    @Override
+    public void computeBatchedLog10Likelihoods(final List<? extends LikelihoodMatrix<GATKRead, Haplotype>> logLikelihoods,
+                                               final List<List<GATKRead>> processedReads,
+                                               final PairHMMInputScoreImputator inputScoreImputator) {
+        Utils.validateArg(logLikelihoods.size() == processedReads.size(), "there must be one list of reads per likelihood matrix");
+        final int readListSize = processedReads.stream().mapToInt(List::size).sum();
+        if (readListSize == 0) {
             return;
         }
         if (doProfiling) {
             startTime = System.nanoTime();
         }
-        int readListSize = processedReads.size();
-        int numHaplotypes = logLikelihoods.numberOfAlleles();
-        ReadDataHolder[] readDataArray = new ReadDataHolder[readListSize];
+        final int numHaplotypes = mHaplotypeDataArray.length;
+        final ReadDataHolder[] readDataArray = new ReadDataHolder[readListSize];
         int idx = 0;
-        for (GATKRead read : processedReads) {
-            final PairHMMInputScoreImputation inputScoreImputation = inputScoreImputator.impute(read);
-            readDataArray[idx] = new ReadDataHolder();
-            readDataArray[idx].readBases = read.getBases();
-            readDataArray[idx].readQuals = read.getBaseQualities();
-            readDataArray[idx].insertionGOP = inputScoreImputation.insOpenPenalties();
-            readDataArray[idx].deletionGOP = inputScoreImputation.delOpenPenalties();
-            readDataArray[idx].overallGCP = inputScoreImputation.gapContinuationPenalties();
-            ++idx;
+        for (final List<GATKRead> reads : processedReads) {
+            for (final GATKRead read : reads) {
+                final PairHMMInputScoreImputation inputScoreImputation = inputScoreImputator.impute(read);
+                readDataArray[idx] = new ReadDataHolder();
+                readDataArray[idx].readBases = read.getBases();
+                readDataArray[idx].readQuals = read.getBaseQualities();
+                readDataArray[idx].insertionGOP = inputScoreImputation.insOpenPenalties();
+                readDataArray[idx].deletionGOP = inputScoreImputation.delOpenPenalties();
+                readDataArray[idx].overallGCP = inputScoreImputation.gapContinuationPenalties();
+                ++idx;
+            }
         }
 
         mLogLikelihoodArray = new double[readListSize * numHaplotypes];      //to store results
@@ -137,24 +159,30 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
         //       compute_full_prob()
         pairHmm.computeLikelihoods(readDataArray, mHaplotypeDataArray, mLogLikelihoodArray);
 
-        int readIdx = 0;
-        for (int r = 0; r < readListSize; r++) {
-            int hapIdx = 0;
-            for (final Haplotype haplotype : logLikelihoods.alleles()) {
-
-                //Since the order of haplotypes in the List<Haplotype> and alleleHaplotypeMap is different,
-                //get idx of current haplotype in the list and use this idx to get the right likelihoodValue
-                final int idxInsideHaplotypeList = haplotypeToHaplotypeListIdxMap.get(haplotype);
-                logLikelihoods.set(hapIdx, r, mLogLikelihoodArray[readIdx + idxInsideHaplotypeList]);
-                writeToResultsFileIfApplicable(readDataArray[r].readBases, readDataArray[r].readQuals, readDataArray[r].insertionGOP, readDataArray[r].deletionGOP, readDataArray[r].overallGCP, haplotype.getBases(), mLogLikelihoodArray[readIdx + idxInsideHaplotypeList]);
-                ++hapIdx;
+        // scatter the results back to the matrices, the reads of each matrix being contiguous in the batch
+        int batchReadIdx = 0;
+        for (int m = 0; m < logLikelihoods.size(); m++) {
+            final LikelihoodMatrix<GATKRead, Haplotype> matrix = logLikelihoods.get(m);
+            final int[] idxInsideHaplotypeList = matrix.alleles().stream().mapToInt(haplotypeToHaplotypeListIdxMap::get).toArray();
+            final int matrixReadCount = processedReads.get(m).size();
+            for (int r = 0; r < matrixReadCount; r++, batchReadIdx++) {
+                final ReadDataHolder readData = readDataArray[batchReadIdx];
+                final int readIdx = batchReadIdx * numHaplotypes;
+                for (int hapIdx = 0; hapIdx < idxInsideHaplotypeList.length; hapIdx++) {
+                    //Since the order of haplotypes in the List<Haplotype> and alleleHaplotypeMap is different,
+                    //get idx of current haplotype in the list and use this idx to get the right likelihoodValue
+                    final double likelihood = mLogLikelihoodArray[readIdx + idxInsideHaplotypeList[hapIdx]];
+                    matrix.set(hapIdx, r, likelihood);
+                    writeToResultsFileIfApplicable(readData.readBases, readData.readQuals, readData.insertionGOP, readData.deletionGOP, readData.overallGCP, matrix.alleles().get(hapIdx).getBases(), likelihood);
+                }
             }
-            readIdx += numHaplotypes;
         }
         if (doProfiling) {
             threadLocalPairHMMComputeTimeDiff = (System.nanoTime() - startTime);
             pairHMMComputeTime += threadLocalPairHMMComputeTimeDiff;
             pairHMMSetupTime += threadLocalSetupTimeDiff;
+            numberOfNativeCalls++;
+            numberOfReadsInNativeCalls += readListSize;
         }
     }
 
@@ -162,8 +190,11 @@ public final class VectorLoglessPairHMM extends LoglessPairHMM {
     @Override
     public void close() {
         pairHmm.done();
-        if (doProfiling)
+        if (doProfiling) {
             logger.info("Time spent in setup for JNI call : " + (pairHMMSetupTime * 1e-9));
+            logger.info(String.format("Number of JNI calls : %d, with an average of %.1f reads per call", numberOfNativeCalls,
+                    numberOfNativeCalls == 0 ? 0.0 : (double) numberOfReadsInNativeCalls / numberOfNativeCalls));
+        }
         super.close();
     }
 }
@@ -64,6 +64,12 @@ public final class BaseRecalibrationEngine implements Serializable {
 
     private RecalibrationTables recalTables;
 
+    /**
+     * Where the observations are counted instead of recalTables, if dense tables were requested. They are moved into
+     * recalTables whenever those are needed.
+     */
+    private final DenseRecalibrationTables denseRecalTables;
+
     private SAMFileHeader readsHeader;
 
     /**
@@ -98,6 +104,7 @@ public final class BaseRecalibrationEngine implements Serializable {
             throw new UserException("Number of read groups must be >= 1, but is " + numReadGroups);
         }
         recalTables = new RecalibrationTables(covariates, numReadGroups);
+        denseRecalTables = recalArgs.denseRecalibrationTables ? new DenseRecalibrationTables(covariates, numReadGroups) : null;
         keyCache = new CovariateKeyCache();
         cachedEventTypes = recalArgs.computeIndelBQSRTables ? EventType.values() : new EventType[]{EventType.BASE_SUBSTITUTION};
     }
@@ -149,6 +156,24 @@ public final class BaseRecalibrationEngine implements Serializable {
         numReadsProcessed++;
     }
 
+    /**
+     * Add the observations collected by another engine, which processed a disjoint set of reads (for example on
+     * another thread), to the tables of this engine. This is the same combination that is done when gathering
+     * recalibration reports, so it gives the same tables as processing all the reads with a single engine.
+     *
+     * Both engines must have been created with the same arguments and header, and neither may have been finalized.
+     *
+     * @param other engine whose observations should be added to this one; it is not modified
+     */
+    public void combine( final BaseRecalibrationEngine other ) {
+        Utils.nonNull(other);
+        Utils.validate(!finalized && !other.finalized, "Cannot combine recalibration engines after finalizeData() has been called");
+        moveDenseTables();
+        other.moveDenseTables();
+        recalTables.combine(other.recalTables);
+        numReadsProcessed += other.numReadsProcessed;
+    }
+
     /**
      * Finalize, if appropriate, all derived data in recalibrationTables.
      *
@@ -159,6 +184,7 @@ public final class BaseRecalibrationEngine implements Serializable {
      */
     public void finalizeData() {
         Utils.validate(!finalized, "FinalizeData() has already been called");
+        moveDenseTables();
         finalizeRecalibrationTables(recalTables);
         finalized = true;
     }
@@ -212,9 +238,19 @@ public final class BaseRecalibrationEngine implements Serializable {
      * Get a possibly not-final recalibration table, to deal with distributed execution.
      */
     public RecalibrationTables getRecalibrationTables() {
+        moveDenseTables();
         return recalTables;
     }
 
+    /**
+     * Move the observations counted in the dense tables, if any, into recalTables
+     */
+    private void moveDenseTables() {
+        if ( denseRecalTables != null ) {
+            denseRecalTables.moveTo(recalTables);
+        }
+    }
+
     /**
      * Get the final recalibration tables, after finalizeData() has been called
      *
@@ -263,6 +299,17 @@ public final class BaseRecalibrationEngine implements Serializable {
                     final int key0 = keys[0];
                     final int key1 = keys[1];
 
+                    if (denseRecalTables != null) {
+                        denseRecalTables.incrementQualityScoreTable(qual, isError, key0, key1, eventIndex);
+                        for (int i = nSpecialCovariates; i < nCovariates; i++) {
+                            final int keyi = keys[i];
+                            if (keyi >= 0) {
+                                denseRecalTables.incrementAdditionalTable(i, qual, isError, key0, key1, keyi, eventIndex);
+                            }
+                        }
+                        continue;
+                    }
+
                     RecalUtils.incrementDatumOrPutIfNecessary3keys(qualityScoreTable, qual, isError, key0, key1, eventIndex);
 
                     for (int i = nSpecialCovariates; i < nCovariates; i++) {
@@ -0,0 +1,182 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.Covariate;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dense storage of the observations that make up {@link RecalibrationTables}, used to accumulate them quickly.
+ *
+ * Every table is laid out as flat primitive arrays with one cell for every possible combination of its keys, so that
+ * counting an observation is an index computation and two array updates rather than a walk down a
+ * {@link NestedIntegerArray} to a {@link RecalDatum} (or the allocation of a new one). The price is memory proportional
+ * to the number of possible combinations of keys, whether they are observed or not.
+ *
+ * The observations are moved into regular RecalibrationTables with {@link #moveTo}, which gives exactly the same
+ * RecalDatums as incrementing the RecalibrationTables directly with the same observations in the same order.
+ *
+ * Only the quality score table and the tables of the additional covariates are stored: the read group table is
+ * derived from the quality score table when the tables are finalized.
+ */
+public final class DenseRecalibrationTables implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    // largest length of a java array on common JVMs
+    private static final long MAX_CELLS = Integer.MAX_VALUE - 8;
+
+    // RecalibrationTables hold the read group table first, then the quality score table, then the additional tables
+    private static final int QUALITY_SCORE_TABLE = 1;
+
+    private final int numReadGroups;
+    private final int qualDimension;
+    private final int eventDimension = EventType.values().length;
+
+    // dimension of the covariate key of each additional covariate table, indexed like the RecalibrationTables
+    private final int[] keyDimensions;
+
+    // per table, indexed like the RecalibrationTables (the read group table is never allocated)
+    private final long[][] numObservations;
+    private final double[][] numMismatches;      // sum of the error weights, in the internal units of RecalDatum
+    private final byte[][] reportedQualities;    // quality of the first observation of every cell, like RecalUtils does
+
+    /**
+     * Allocate dense tables for the given covariates
+     *
+     * @param covariates the covariates the tables are made for, in the same order as in the RecalibrationTables
+     * @param numReadGroups number of read groups, as in the RecalibrationTables
+     * @throws UserException if the tables would have too many cells to be stored in arrays
+     */
+    public DenseRecalibrationTables(final StandardCovariateList covariates, final int numReadGroups) {
+        Utils.nonNull(covariates);
+        Utils.validateArg(numReadGroups > 0, "numReadGroups must be positive");
+        this.numReadGroups = numReadGroups;
+        this.qualDimension = covariates.getQualityScoreCovariate().maximumKeyValue() + 1;
+
+        final List<Covariate> additionalCovariates = covariates.getAdditionalCovariates();
+        final int numTables = additionalCovariates.size() + 2;
+        keyDimensions = new int[numTables];
+        numObservations = new long[numTables][];
+        numMismatches = new double[numTables][];
+        reportedQualities = new byte[numTables][];
+
+        allocate(QUALITY_SCORE_TABLE, (long) numReadGroups * qualDimension * eventDimension,
+                covariates.getQualityScoreCovariate());
+        for ( int i = 0; i < additionalCovariates.size(); i++ ) {
+            final Covariate covariate = additionalCovariates.get(i);
+            final int table = QUALITY_SCORE_TABLE + 1 + i;
+            keyDimensions[table] = covariate.maximumKeyValue() + 1;
+            allocate(table, (long) numReadGroups * qualDimension * keyDimensions[table] * eventDimension, covariate);
+        }
+    }
+
+    private void allocate(final int table, final long cells, final Covariate covariate) {
+        if ( cells > MAX_CELLS ) {
+            throw new UserException(String.format("The %s covariate has too many possible values (%d combinations with the read group, quality and event type) " +
+                    "to be stored in dense recalibration tables. Use smaller context sizes or don't use dense recalibration tables.",
+                    covariate.parseNameForReport(), cells));
+        }
+        numObservations[table] = new long[(int) cells];
+        numMismatches[table] = new double[(int) cells];
+        reportedQualities[table] = new byte[(int) cells];
+    }
+
+    /**
+     * Count an observation in the quality score table, see {@link RecalUtils#incrementDatumOrPutIfNecessary3keys}
+     *
+     * @param qual qual for this event
+     * @param isError error value for this event
+     * @param readGroupKey, qualKey, eventIndex location of the observation in the table
+     */
+    public void incrementQualityScoreTable(final byte qual, final double isError, final int readGroupKey, final int qualKey, final int eventIndex) {
+        final int cell = (readGroupKey * qualDimension + qualKey) * eventDimension + eventIndex;
+        increment(QUALITY_SCORE_TABLE, cell, qual, isError);
+    }
+
+    /**
+     * Count an observation in the table of an additional covariate, see {@link RecalUtils#incrementDatumOrPutIfNecessary4keys}
+     *
+     * @param table index of the table in the RecalibrationTables
+     * @param qual qual for this event
+     * @param isError error value for this event
+     * @param readGroupKey, qualKey, covariateKey, eventIndex location of the observation in the table
+     */
+    public void incrementAdditionalTable(final int table, final byte qual, final double isError,
+                                         final int readGroupKey, final int qualKey, final int covariateKey, final int eventIndex) {
+        final int cell = ((readGroupKey * qualDimension + qualKey) * keyDimensions[table] + covariateKey) * eventDimension + eventIndex;
+        increment(table, cell, qual, isError);
+    }
+
+    private void increment(final int table, final int cell, final byte qual, final double isError) {
+        if ( numObservations[table][cell]++ == 0 ) {
+            reportedQualities[table][cell] = qual;
+        }
+        numMismatches[table][cell] += RecalDatum.scaleMismatches(isError);
+    }
+
+    /**
+     * Add all the observations in these tables to the given RecalibrationTables, and empty these tables.
+     *
+     * @param tables tables made for the same covariates and read groups as these tables
+     */
+    public void moveTo(final RecalibrationTables tables) {
+        Utils.nonNull(tables);
+        Utils.validateArg(tables.numTables() == numObservations.length, "Attempting to move dense tables into RecalibrationTables with different sizes");
+
+        final NestedIntegerArray<RecalDatum> qualityScoreTable = tables.getQualityScoreTable();
+        int cell = 0;
+        for ( int readGroup = 0; readGroup < numReadGroups; readGroup++ ) {
+            for ( int qual = 0; qual < qualDimension; qual++ ) {
+                for ( int event = 0; event < eventDimension; event++, cell++ ) {
+                    if ( numObservations[QUALITY_SCORE_TABLE][cell] != 0 ) {
+                        moveCell(QUALITY_SCORE_TABLE, cell, qualityScoreTable, readGroup, qual, event);
+                    }
+                }
+            }
+        }
+
+        for ( int table = QUALITY_SCORE_TABLE + 1; table < numObservations.length; table++ ) {
+            final NestedIntegerArray<RecalDatum> additionalTable = tables.getTable(table);
+            cell = 0;
+            for ( int readGroup = 0; readGroup < numReadGroups; readGroup++ ) {
+                for ( int qual = 0; qual < qualDimension; qual++ ) {
+                    for ( int key = 0; key < keyDimensions[table]; key++ ) {
+                        for ( int event = 0; event < eventDimension; event++, cell++ ) {
+                            if ( numObservations[table][cell] != 0 ) {
+                                moveCell(table, cell, additionalTable, readGroup, qual, key, event);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the observations of a non-empty cell to the RecalDatum with the given keys, creating it if necessary, and
+     * empty the cell
+     */
+    private void moveCell(final int table, final int cell, final NestedIntegerArray<RecalDatum> target, final int... keys) {
+        RecalDatum datum = target.get(keys);
+        if ( datum == null ) {
+            datum = new RecalDatum(0, 0.0, reportedQualities[table][cell]);
+            target.put(datum, keys);
+        }
+        datum.incrementNumObservations(numObservations[table][cell]);
+        datum.incrementScaledMismatches(numMismatches[table][cell]);
+        numObservations[table][cell] = 0;
+        numMismatches[table][cell] = 0.0;
+    }
+
+    /**
+     * @return true if no observations have been counted since the tables were created or last moved
+     */
+    public boolean isEmpty() {
+        return Arrays.stream(numObservations).allMatch(counts -> counts == null || Arrays.stream(counts).allMatch(n -> n == 0));
+    }
+}
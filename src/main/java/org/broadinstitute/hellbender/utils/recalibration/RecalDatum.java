@@ -221,6 +221,22 @@ public final class RecalDatum implements Serializable {
         increment(1, isError ? 1.0 : 0.0);
     }
 
+    /**
+     * @return the number of mismatches in the internal units of numMismatches, for code that accumulates them
+     * outside of a RecalDatum (see {@link DenseRecalibrationTables})
+     */
+    static double scaleMismatches(final double numMismatches) {
+        return numMismatches*MULTIPLIER;
+    }
+
+    /**
+     * Add a number of mismatches that is already in the internal units of numMismatches, see {@link #scaleMismatches}
+     */
+    final void incrementScaledMismatches(final double scaledMismatches) {
+        numMismatches += scaledMismatches;
+        empiricalQuality = UNINITIALIZED;
+    }
+
     // -------------------------------------------------------------------------------------
     //
     // Private implementation helper functions
@@ -1,5 +1,6 @@
 package org.broadinstitute.hellbender.utils.recalibration;
 
+import org.broadinstitute.barclay.argparser.Advanced;
 import org.broadinstitute.barclay.argparser.Argument;
 import org.broadinstitute.barclay.argparser.Hidden;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
@@ -99,6 +100,16 @@ public final class RecalibrationArgumentCollection implements Serializable {
     @Argument(fullName = "preserve-qscores-less-than", doc = "Don't recalibrate bases with quality scores less than this threshold (with -" + StandardArgumentDefinitions.BQSR_TABLE_SHORT_NAME + ")", optional = true)
     public int PRESERVE_QSCORES_LESS_THAN = QualityUtils.MIN_USABLE_Q_SCORE;
 
+    /**
+     * Accumulate the recalibration tables in flat arrays with one cell for every possible combination of covariate
+     * values, rather than in trees of individual data objects. This is faster and produces exactly the same tables,
+     * but needs memory for every possible combination whether it is observed or not: roughly 10 MB per read group
+     * (and per thread) with the default covariates, with a context table that grows 4-fold for every extra base of context.
+     */
+    @Advanced
+    @Argument(fullName = "dense-recalibration-tables", doc = "Accumulate the recalibration tables in flat arrays, which is faster but uses more memory", optional = true)
+    public boolean denseRecalibrationTables = false;
+
     @Hidden
     @Argument(fullName = "enable-baq", doc = "do BAQ correction")
     public boolean enableBAQ = false;
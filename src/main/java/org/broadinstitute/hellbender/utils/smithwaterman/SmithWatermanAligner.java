@@ -3,6 +3,7 @@ package org.broadinstitute.hellbender.utils.smithwaterman;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.VectorApiUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import java.io.Closeable;
@@ -14,6 +15,9 @@ import java.util.function.Supplier;
 public interface SmithWatermanAligner extends Closeable {
     Logger logger = LogManager.getLogger(SmithWatermanAligner.class);
 
+    // compiled separately since it depends on the incubating Vector API, see VectorApiUtils
+    String VECTOR_API_ALIGNER_CLASS = "org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanVectorApiAligner";
+
     /**
      *  perform a Smith-Waterman alignment of alt against ref
      *
@@ -47,6 +51,10 @@ public interface SmithWatermanAligner extends Closeable {
                 logger.info("Using AVX accelerated SmithWaterman implementation");
                 return aligner;
             } catch (UserException.HardwareFeatureException exception) {
+                if ( VectorApiUtils.vectorApiIsUseful() ) {
+                    logger.info("AVX accelerated SmithWaterman implementation is not supported, falling back to the Java Vector API implementation");
+                    return VectorApiUtils.makeVectorApiInstance(VECTOR_API_ALIGNER_CLASS, SmithWatermanAligner.class);
+                }
                 logger.info("AVX accelerated SmithWaterman implementation is not supported, falling back to the Java implementation");
                 return SmithWatermanJavaAligner.getInstance();
             }
@@ -62,6 +70,16 @@ public interface SmithWatermanAligner extends Closeable {
         }
         ),
 
+        /**
+         * use the Smith-Waterman aligner built on the Java Vector API, which gives the same results as the pure java
+         * implementation. Requires the JVM to be started with --add-modules jdk.incubator.vector
+         */
+        VECTOR_API( () -> {
+            final SmithWatermanAligner aligner = VectorApiUtils.makeVectorApiInstance(VECTOR_API_ALIGNER_CLASS, SmithWatermanAligner.class);
+            logger.info("Using the Java Vector API accelerated SmithWaterman implementation");
+            return aligner;
+        }),
+
         /**
          * use the pure java implementation of Smith-Waterman, works on all hardware
          */
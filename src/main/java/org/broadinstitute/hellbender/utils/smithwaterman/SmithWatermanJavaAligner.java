@@ -14,6 +14,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.IntBinaryOperator;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Pairwise discrete smith-waterman alignment implemented in pure java
@@ -69,18 +71,12 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         Utils.nonNull(overhangStrategy);
 
         // avoid running full Smith-Waterman if there is an exact match of alternate in reference
-        int matchIndex = -1;
-        if (overhangStrategy == SWOverhangStrategy.SOFTCLIP || overhangStrategy == SWOverhangStrategy.IGNORE) {
-            // Use a substring search to find an exact match of the alternate in the reference
-            // NOTE: This approach only works for SOFTCLIP and IGNORE overhang strategies
-            matchIndex = Utils.lastIndexOf(reference, alternate);
-        }
+        final SmithWatermanAlignment exactMatch = exactMatchAlignment(reference, alternate, overhangStrategy);
 
         final SmithWatermanAlignment alignmentResult;
 
-        if (matchIndex != -1) {
-            // generate the alignment result when the substring search was successful
-            alignmentResult = new SWPairwiseAlignmentResult(new Cigar(Collections.singletonList(new CigarElement(alternate.length, CigarOperator.M))), matchIndex);
+        if (exactMatch != null) {
+            alignmentResult = exactMatch;
         }
         else {
             // run full Smith-Waterman
@@ -97,6 +93,23 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
         return alignmentResult;
     }
 
+    /**
+     * Looks for an exact match of the alternate sequence in the reference, which makes running the full
+     * Smith-Waterman unnecessary. This only works for the SOFTCLIP and IGNORE overhang strategies.
+     *
+     * @return the alignment of the last exact match of alternate in reference, or null if there is none or the
+     * overhang strategy doesn't allow this shortcut
+     */
+    static SmithWatermanAlignment exactMatchAlignment(final byte[] reference, final byte[] alternate, final SWOverhangStrategy overhangStrategy) {
+        if (overhangStrategy != SWOverhangStrategy.SOFTCLIP && overhangStrategy != SWOverhangStrategy.IGNORE) {
+            return null;
+        }
+        // Use a substring search to find an exact match of the alternate in the reference
+        final int matchIndex = Utils.lastIndexOf(reference, alternate);
+        return matchIndex == -1 ? null :
+                new SWPairwiseAlignmentResult(new Cigar(Collections.singletonList(new CigarElement(alternate.length, CigarOperator.M))), matchIndex);
+    }
+
     /**
      * Calculates the SW matrices for the given sequences
      * @param reference  ref sequence
@@ -258,12 +271,29 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
      * @param overhangStrategy    the strategy to use for dealing with overhangs
      * @return non-null SWPairwiseAlignmentResult object
      */
-    private static SWPairwiseAlignmentResult calculateCigar(final int[][] sw, final int[][] btrack, final SWOverhangStrategy overhangStrategy) {
-        // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
-        int p1 = 0, p2 = 0;
-
+    private static SmithWatermanAlignment calculateCigar(final int[][] sw, final int[][] btrack, final SWOverhangStrategy overhangStrategy) {
         final int refLength = sw.length-1;
         final int altLength = sw[0].length-1;
+        return calculateCigar(refLength, altLength, i -> sw[i][altLength], j -> sw[refLength][j], (i, j) -> btrack[i][j], overhangStrategy);
+    }
+
+    /**
+     * Calculates the CIGAR for the alignment from the back track matrix, for aligners that don't keep the scores and
+     * back track information in a full (reference length + 1) x (alternate length + 1) matrix
+     *
+     * @param refLength            length of the reference sequence
+     * @param altLength            length of the alternate sequence
+     * @param lastColumnScore      score of the cell [i][altLength] of the Smith-Waterman matrix, for 1 <= i <= refLength
+     * @param bottomRowScore       score of the cell [refLength][j] of the Smith-Waterman matrix, for 1 <= j <= altLength
+     * @param backTrack            value of the cell [i][j] of the back track matrix, for 1 <= i <= refLength and 1 <= j <= altLength
+     * @param overhangStrategy    the strategy to use for dealing with overhangs
+     * @return non-null SWPairwiseAlignmentResult object
+     */
+    static SmithWatermanAlignment calculateCigar(final int refLength, final int altLength,
+                                                final IntUnaryOperator lastColumnScore, final IntUnaryOperator bottomRowScore,
+                                                final IntBinaryOperator backTrack, final SWOverhangStrategy overhangStrategy) {
+        // p holds the position we start backtracking from; we will be assembling a cigar in the backwards order
+        int p1 = 0, p2 = 0;
 
         int maxscore = Integer.MIN_VALUE; // sw scores are allowed to be negative
         int segment_length = 0; // length of the segment (continuous matches, insertions or deletions)
@@ -279,8 +309,8 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             //excluding high scoring local alignments
             p2=altLength;
 
-            for(int i=1;i<sw.length;i++)  {
-               final int curScore = sw[i][altLength];
+            for(int i=1;i<=refLength;i++)  {
+               final int curScore = lastColumnScore.applyAsInt(i);
                if (curScore >= maxscore ) {
                     p1 = i;
                     maxscore = curScore;
@@ -288,9 +318,8 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
             }
             // now look for a larger score on the bottom-most row
             if ( overhangStrategy != SWOverhangStrategy.LEADING_INDEL ) {
-                final int[] bottomRow=sw[refLength];
-                for ( int j = 1 ; j < bottomRow.length; j++) {
-                    final int curScore=bottomRow[j];
+                for ( int j = 1 ; j <= altLength; j++) {
+                    final int curScore=bottomRowScore.applyAsInt(j);
                     // data_offset is the offset of [n][j]
                     if ( curScore > maxscore ||
                             (curScore == maxscore && Math.abs(refLength - j) < Math.abs(p1 - p2) ) ) {
@@ -313,7 +342,7 @@ public final class SmithWatermanJavaAligner implements SmithWatermanAligner {
 
         State state = State.MATCH;
         do {
-            final int btr = btrack[p1][p2];
+            final int btr = backTrack.applyAsInt(p1, p2);
             final State new_state;
             int step_length = 1;
             if ( btr > 0 ) {
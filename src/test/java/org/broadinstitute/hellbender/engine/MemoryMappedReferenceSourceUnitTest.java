@@ -0,0 +1,90 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMException;
+import htsjdk.samtools.SAMSequenceRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Random;
+
+public final class MemoryMappedReferenceSourceUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "references")
+    public Object[][] references() {
+        return new Object[][] {
+                {hg19MiniReference, false},
+                {publicTestDir + "iupacFASTA.fasta", false},
+                {publicTestDir + "iupacFASTA.fasta", true},
+                {publicTestDir + "exampleFASTA.fasta", false}
+        };
+    }
+
+    @Test(dataProvider = "references")
+    public void testQueriesMatchReferenceFileSource(final String reference, final boolean preserveFileBases) {
+        final Path referencePath = getTestFile(reference).toPath();
+        final Random random = new Random(reference.hashCode());
+        try ( final ReferenceDataSource mappedSource = new MemoryMappedReferenceSource(referencePath, preserveFileBases);
+              final ReferenceDataSource fileSource = new ReferenceFileSource(referencePath, preserveFileBases) ) {
+            Assert.assertEquals(mappedSource.getSequenceDictionary(), fileSource.getSequenceDictionary());
+            for ( final SAMSequenceRecord contig : fileSource.getSequenceDictionary().getSequences() ) {
+                final int length = contig.getSequenceLength();
+                // the whole contig, then random intervals, including ones across line ends
+                Assert.assertEquals(mappedSource.queryAndPrefetch(contig.getSequenceName(), 1, length).getBases(),
+                        fileSource.queryAndPrefetch(contig.getSequenceName(), 1, length).getBases());
+                for ( int i = 0; i < 200; i++ ) {
+                    final int start = 1 + random.nextInt(length);
+                    final int stop = Math.min(length, start + random.nextInt(500));
+                    final SimpleInterval interval = new SimpleInterval(contig.getSequenceName(), start, stop);
+                    Assert.assertEquals(mappedSource.queryAndPrefetch(interval).getBases(), fileSource.queryAndPrefetch(interval).getBases());
+                    Assert.assertEquals(toBytes(mappedSource.query(interval)), fileSource.queryAndPrefetch(interval).getBases());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIterationOverEntireReference() {
+        final Path referencePath = getTestFile(hg19MiniReference).toPath();
+        try ( final ReferenceDataSource mappedSource = new MemoryMappedReferenceSource(referencePath);
+              final ReferenceDataSource fileSource = new ReferenceFileSource(referencePath) ) {
+            final ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            for ( final SAMSequenceRecord contig : fileSource.getSequenceDictionary().getSequences() ) {
+                expected.writeBytes(fileSource.queryAndPrefetch(contig.getSequenceName(), 1, contig.getSequenceLength()).getBases());
+            }
+            Assert.assertEquals(toBytes(mappedSource.iterator()), expected.toByteArray());
+        }
+    }
+
+    @Test(expectedExceptions = UserException.CannotHandleGzippedRef.class)
+    public void testCompressedReference() {
+        new MemoryMappedReferenceSource(getTestFile(hg19MiniReference + ".gz").toPath());
+    }
+
+    @Test(expectedExceptions = UserException.MissingContigInSequenceDictionary.class)
+    public void testUnknownContig() {
+        try ( final ReferenceDataSource mappedSource = new MemoryMappedReferenceSource(getTestFile(hg19MiniReference).toPath()) ) {
+            mappedSource.queryAndPrefetch("no_such_contig", 1, 10);
+        }
+    }
+
+    @Test(expectedExceptions = SAMException.class)
+    public void testQueryPastEndOfContig() {
+        try ( final ReferenceDataSource mappedSource = new MemoryMappedReferenceSource(getTestFile(hg19MiniReference).toPath()) ) {
+            final SAMSequenceRecord contig = mappedSource.getSequenceDictionary().getSequence(0);
+            mappedSource.queryAndPrefetch(contig.getSequenceName(), 1, contig.getSequenceLength() + 1);
+        }
+    }
+
+    private static byte[] toBytes(final Iterator<Byte> bases) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bases.forEachRemaining(bytes::write);
+        return bytes.toByteArray();
+    }
+}
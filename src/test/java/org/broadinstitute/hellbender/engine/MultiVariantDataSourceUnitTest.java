@@ -161,6 +161,78 @@ public final class MultiVariantDataSourceUnitTest extends GATKBaseTest {
         }
     }
 
+    @DataProvider(name = "readAheadShapes")
+    public Object[][] readAheadShapes() {
+        // threads, block size
+        return new Object[][] {
+                {1, 1},
+                {1, 3},
+                {2, 2},
+                {2, MultiVariantWalker.DEFAULT_READ_AHEAD_BLOCK_SIZE}
+        };
+    }
+
+    @Test(dataProvider = "readAheadShapes")
+    public void testIteratorOverlappingWithReadAhead(final int threads, final int blockSize) {
+        // the same order as without read-ahead, including for the variants that start at the same position
+        final List<String> expectedIDOrder = Arrays.asList(
+                "a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n",
+                "o", "o_overlap",
+                "p", "q", "r", "s", "t", "u", "v", "w",
+                "x", "x_overlap",
+                "y", "z");
+        final List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
+        featureInputs.add(new FeatureInput<>(
+                new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_1_WithOverlap.vcf").getAbsolutePath(),
+                "interleavedVariants_1_WithOverlap"));
+        featureInputs.add(new FeatureInput<>(
+                new File(MULTI_VARIANT_TEST_DIRECTORY, "interleavedVariants_2_WithOverlap.vcf").getAbsolutePath(),
+                "interleavedVariants_2_WithOverlap"));
+
+        final MultiVariantDataSource multiVariantSource = new MultiVariantDataSource(featureInputs, FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES);
+        try {
+            multiVariantSource.enableReadAhead(threads, blockSize);
+            final List<String> ids = new ArrayList<>();
+            for (final VariantContext vc : multiVariantSource) {
+                ids.add(vc.getID());
+            }
+            Assert.assertEquals(ids, expectedIDOrder);
+
+            // a second traversal, restricted to intervals, after the first one has been closed
+            multiVariantSource.setIntervalsForTraversal(Arrays.asList(new SimpleInterval("1", 1, 1200), new SimpleInterval("2", 200, 600)));
+            int count = 0;
+            for (final VariantContext vc : multiVariantSource) {
+                count++;
+            }
+            Assert.assertEquals(count, 18);
+        } finally {
+            multiVariantSource.close();
+        }
+        Assert.assertEquals(multiVariantSource.getReadAheadStallNanos().keySet(),
+                new HashSet<>(Arrays.asList("interleavedVariants_1_WithOverlap", "interleavedVariants_2_WithOverlap")));
+    }
+
+    @Test
+    public void testReadAheadOverSingleFile() {
+        try ( MultiVariantDataSource multiVariantSource = new MultiVariantDataSource(
+                Collections.singletonList(new FeatureInput<>(QUERY_TEST_VCF.getAbsolutePath(), QUERY_TEST_VCF.getName())),
+                FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES) ) {
+            multiVariantSource.enableReadAhead(1, 4);
+            checkTraversalResults(multiVariantSource.iterator(),
+                    Arrays.asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j", "k", "l", "m", "n", "o", "p", "q", "r", "s", "t", "u", "v", "w", "x", "y", "z"),
+                    QUERY_TEST_VCF, null);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadAheadRequiresThreads() {
+        try ( MultiVariantDataSource multiVariantSource = new MultiVariantDataSource(
+                Collections.singletonList(new FeatureInput<>(QUERY_TEST_VCF.getAbsolutePath(), QUERY_TEST_VCF.getName())),
+                FeatureDataSource.DEFAULT_QUERY_LOOKAHEAD_BASES) ) {
+            multiVariantSource.enableReadAhead(0, 4);
+        }
+    }
+
     @Test
     public void testSerialQueries() {
         List<FeatureInput<VariantContext>> featureInputs = new ArrayList<>();
@@ -0,0 +1,113 @@
+package org.broadinstitute.hellbender.engine;
+
+import htsjdk.samtools.SAMSequenceRecord;
+import htsjdk.samtools.reference.ReferenceSequence;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public final class SharedReferenceCacheUnitTest extends GATKBaseTest {
+
+    private static final Path REFERENCE = getTestFile(hg19MiniReference).toPath();
+
+    @DataProvider(name = "cacheShapes")
+    public Object[][] cacheShapes() {
+        return new Object[][] {
+                // chunk size, max chunks
+                {1, 2},
+                {100, 2},
+                {1000, 4},
+                {SharedReferenceCache.DEFAULT_CHUNK_SIZE, 16}
+        };
+    }
+
+    @Test(dataProvider = "cacheShapes")
+    public void testMatchesReferenceFileSource(final int chunkSize, final int maxChunks) {
+        final Random random = new Random(chunkSize);
+        try ( final SharedReferenceCache cache = new SharedReferenceCache(REFERENCE, false, chunkSize, maxChunks);
+              final ReferenceDataSource cachedSource = cache.newReferenceDataSource();
+              final ReferenceDataSource fileSource = new ReferenceFileSource(REFERENCE) ) {
+            for ( final SAMSequenceRecord contig : fileSource.getSequenceDictionary().getSequences() ) {
+                // overlapping windows in coordinate order, as in a traversal
+                for ( int start = 1; start <= contig.getSequenceLength(); start += 1 + random.nextInt(150) ) {
+                    final int stop = Math.min(contig.getSequenceLength(), start + random.nextInt(300));
+                    assertSameBases(cachedSource.queryAndPrefetch(contig.getSequenceName(), start, stop),
+                            fileSource.queryAndPrefetch(contig.getSequenceName(), start, stop));
+                }
+            }
+            Assert.assertTrue(cache.getHits() > 0);
+            Assert.assertTrue(cache.getMisses() > 0);
+        }
+    }
+
+    @Test
+    public void testConcurrentQueries() throws Exception {
+        final int threads = 4;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try ( final SharedReferenceCache cache = new SharedReferenceCache(REFERENCE, false, 500, 8) ) {
+            final List<Future<?>> results = new ArrayList<>();
+            for ( int thread = 0; thread < threads; thread++ ) {
+                final int seed = thread;
+                results.add(executor.submit(() -> {
+                    final Random random = new Random(seed);
+                    try ( final ReferenceDataSource cachedSource = cache.newReferenceDataSource();
+                          final ReferenceDataSource fileSource = new ReferenceFileSource(REFERENCE) ) {
+                        final List<SAMSequenceRecord> contigs = fileSource.getSequenceDictionary().getSequences();
+                        for ( int i = 0; i < 2000; i++ ) {
+                            final SAMSequenceRecord contig = contigs.get(random.nextInt(contigs.size()));
+                            final int start = 1 + random.nextInt(contig.getSequenceLength());
+                            final int stop = Math.min(contig.getSequenceLength(), start + random.nextInt(2000));
+                            assertSameBases(cachedSource.queryAndPrefetch(contig.getSequenceName(), start, stop),
+                                    fileSource.queryAndPrefetch(contig.getSequenceName(), start, stop));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for ( final Future<?> result : results ) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testQueriesBypassingTheCache() {
+        try ( final SharedReferenceCache cache = new SharedReferenceCache(REFERENCE, false, 100, 4);
+              final ReferenceDataSource fileSource = new ReferenceFileSource(REFERENCE) ) {
+            // longer than half of the cache
+            assertSameBases(cache.getSubsequenceAt("1", 1, 1000), fileSource.queryAndPrefetch("1", 1, 1000));
+            Assert.assertEquals(cache.getHits(), 0);
+            Assert.assertEquals(cache.getMisses(), 1);
+        }
+    }
+
+    @Test(expectedExceptions = UserException.MissingContigInSequenceDictionary.class)
+    public void testUnknownContig() {
+        try ( final SharedReferenceCache cache = new SharedReferenceCache(REFERENCE, false, 100, 4) ) {
+            cache.getSubsequenceAt("no_such_contig", 1, 10);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTooFewChunks() {
+        new SharedReferenceCache(REFERENCE, false, 100, 1);
+    }
+
+    private static void assertSameBases(final ReferenceSequence actual, final ReferenceSequence expected) {
+        Assert.assertEquals(actual.getName(), expected.getName());
+        Assert.assertEquals(actual.getContigIndex(), expected.getContigIndex());
+        Assert.assertEquals(actual.getBases(), expected.getBases());
+    }
+}
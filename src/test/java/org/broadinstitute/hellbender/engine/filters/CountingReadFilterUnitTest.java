@@ -272,6 +272,32 @@ public final class CountingReadFilterUnitTest {
         Assert.assertEquals(isEgon.getFilteredCount(), 0);
     }
 
+    @Test(dataProvider = "subFilterCounts")
+    public void testAddFilteredCounts(GATKRead[] reads, long totalRejections, long startEndRejections, long nameRejections) {
+        final CountingReadFilter startOkCounting = new CountingReadFilter(startOk);
+        final CountingReadFilter endOkCounting = new CountingReadFilter(endOk);
+        final CountingReadFilter combined = startOkCounting.and(endOkCounting.negate().negate());
+
+        // apply a copy of the filter to each read separately, then combine the counts
+        for (final GATKRead read : reads) {
+            final CountingReadFilter copy = new CountingReadFilter(startOk).and(new CountingReadFilter(endOk).negate().negate());
+            copy.test(read);
+            combined.addFilteredCounts(copy);
+        }
+
+        final CountingReadFilter expected = new CountingReadFilter(startOk).and(new CountingReadFilter(endOk).negate().negate());
+        Arrays.asList(reads).stream().filter(expected).count(); // force the stream to be consumed
+
+        Assert.assertEquals(combined.getFilteredCount(), expected.getFilteredCount());
+        Assert.assertEquals(startOkCounting.getFilteredCount(), Arrays.stream(reads).filter(startOk.negate()).count());
+        Assert.assertEquals(combined.getSummaryLine(), expected.getSummaryLine());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddFilteredCountsOfDifferentStructure() {
+        new CountingReadFilter(startOk).addFilteredCounts(new CountingReadFilter(startOk).and(new CountingReadFilter(endOk)));
+    }
+
     @Test
     public void testFromListNull() {
         CountingReadFilter rf = CountingReadFilter.fromList(null, ArtificialReadUtils.createArtificialSamHeader(1, 1, 10));
@@ -27,6 +27,24 @@ public final class PrintReadsIntegrationTest extends AbstractPrintReadsIntegrati
         doFileToFile(fileIn, extOut, reference, true);
     }
 
+    @Test
+    public void testMultiThreadedTraversalMatchesSerialTraversal() throws IOException {
+        final File serialOutput = createTempFile("serial", ".bam");
+        final File multiThreadedOutput = createTempFile("multiThreaded", ".bam");
+        for (final File output : Arrays.asList(serialOutput, multiThreadedOutput)) {
+            final ArgumentsBuilder args = new ArgumentsBuilder()
+                    .addInput(NA12878_20_21_WGS_bam)
+                    .addInterval("20:10000000-10100000")
+                    .addOutput(output);
+            if (output == multiThreadedOutput) {
+                args.add(StandardArgumentDefinitions.THREADS_LONG_NAME, 4);
+            }
+            runCommandLine(args);
+        }
+
+        SamAssertionUtils.assertSamsEqual(multiThreadedOutput, serialOutput);
+    }
+
     @Test
     public void testNoConflictPG() throws IOException {
         final File inFile = new File(TEST_DATA_DIR, "print_reads_withPG.sam");
@@ -15,10 +15,12 @@ import org.broadinstitute.hellbender.engine.spark.SAMRecordSerializer;
 import org.broadinstitute.hellbender.engine.spark.SparkContextFactory;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.SparkTestUtils;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.utils.read.SAMRecordToGATKReadAdapter;
 import org.broadinstitute.hellbender.utils.read.markduplicates.MarkDuplicatesScoringStrategy;
+import org.broadinstitute.hellbender.utils.read.markduplicates.sparkrecords.MarkDuplicatesSparkRecord;
 import org.broadinstitute.hellbender.utils.spark.SparkUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -180,6 +182,63 @@ public class MarkDuplicatesSparkUtilsUnitTest extends GATKBaseTest {
         Assert.assertEquals(roundTrippedRead.opticalDuplicatePixelDistance, finder.opticalDuplicatePixelDistance);
     }
 
+    @Test
+    public void testDuplicateGroupKeepsTheBestFragment() {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg1");
+        readGroup.setLibrary("lib1");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+        final Map<String, Byte> libraryIndex = MarkDuplicatesSparkUtils.constructLibraryIndex(header);
+        final MarkDuplicatesSparkArgumentCollection mdArgs = new MarkDuplicatesSparkArgumentCollection();
+        final OpticalDuplicateFinder finder = new OpticalDuplicateFinder();
+        final SparkConf conf = new SparkConf().set("spark.kryo.registrator", "org.broadinstitute.hellbender.engine.spark.GATKRegistrator");
+
+        // fragments 4 and 9 have the best score, and 9 wins the tie on its physical location, although not on its name
+        final List<MarkDuplicatesSparkRecord> fragments = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, String.format("%c:1:1101:%d:2000", 'a' + i, 2000 - 100 * i), 0, 100,
+                    Utils.dupBytes((byte) 'A', 20), Utils.dupBytes((byte) (15 + i % 5), 20), "20M");
+            read.setReadGroup("rg1");
+            fragments.add(MarkDuplicatesSparkRecord.newFragment(read, header, i, MarkDuplicatesScoringStrategy.SUM_OF_BASE_QUALITIES, libraryIndex, mdArgs));
+        }
+
+        final MarkDuplicatesSparkUtils.DuplicateGroup group = new MarkDuplicatesSparkUtils.DuplicateGroup();
+        fragments.forEach(fragment -> group.add(fragment, finder, false));
+        Assert.assertEquals(group.getBestFragment().getPartitionIndex(), 9);
+        Assert.assertFalse(group.hasEmptyFragment());
+        Assert.assertNull(group.getFragments());
+        Assert.assertNull(group.getPairs());
+        Assert.assertNull(group.getPassthroughs());
+
+        // the same after combining the fragments separately and shuffling them, which loses their physical locations
+        final MarkDuplicatesSparkUtils.DuplicateGroup first = new MarkDuplicatesSparkUtils.DuplicateGroup();
+        final MarkDuplicatesSparkUtils.DuplicateGroup second = new MarkDuplicatesSparkUtils.DuplicateGroup();
+        fragments.subList(0, 5).forEach(fragment -> first.add(fragment, finder, false));
+        fragments.subList(5, 10).forEach(fragment -> second.add(fragment, finder, false));
+        final MarkDuplicatesSparkUtils.DuplicateGroup merged = SparkTestUtils.roundTripInKryo(first, MarkDuplicatesSparkUtils.DuplicateGroup.class, conf)
+                .merge(SparkTestUtils.roundTripInKryo(second, MarkDuplicatesSparkUtils.DuplicateGroup.class, conf), finder);
+        Assert.assertEquals(merged.getBestFragment().getPartitionIndex(), 9);
+
+        // all the fragments are kept when asked to
+        final MarkDuplicatesSparkUtils.DuplicateGroup allFragments = new MarkDuplicatesSparkUtils.DuplicateGroup();
+        fragments.forEach(fragment -> allFragments.add(fragment, finder, true));
+        Assert.assertNull(allFragments.getBestFragment());
+        Assert.assertEquals(allFragments.getFragments(), fragments);
+
+        // and none once a read with a mapped mate starts at the same position
+        final GATKRead readWithMappedMate = ArtificialReadUtils.createArtificialRead(header, "k:1:1101:1000:2000", 0, 100,
+                Utils.dupBytes((byte) 'A', 20), Utils.dupBytes((byte) 30, 20), "20M");
+        readWithMappedMate.setReadGroup("rg1");
+        final MarkDuplicatesSparkUtils.DuplicateGroup withEmptyFragment = new MarkDuplicatesSparkUtils.DuplicateGroup()
+                .add(MarkDuplicatesSparkRecord.newEmptyFragment(readWithMappedMate, header, libraryIndex, mdArgs), finder, false);
+        Assert.assertTrue(withEmptyFragment.hasEmptyFragment());
+        for (final MarkDuplicatesSparkUtils.DuplicateGroup other : Arrays.asList(group, allFragments)) {
+            final MarkDuplicatesSparkUtils.DuplicateGroup combined = other.merge(withEmptyFragment, finder);
+            Assert.assertTrue(combined.hasEmptyFragment());
+            Assert.assertNull(combined.getBestFragment());
+            Assert.assertNull(combined.getFragments());
+        }
+    }
+
     public static class TestGATKRegistrator implements KryoRegistrator {
         @SuppressWarnings("unchecked")
         @Override
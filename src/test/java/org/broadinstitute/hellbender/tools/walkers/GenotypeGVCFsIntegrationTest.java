@@ -15,6 +15,7 @@ import org.apache.commons.lang3.tuple.Pair;
 import org.broadinstitute.barclay.argparser.CommandLineException;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
 import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.VariantLocusWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.broadinstitute.hellbender.testutils.GenomicsDBTestUtils;
@@ -463,6 +464,46 @@ public class GenotypeGVCFsIntegrationTest extends CommandLineProgramTest {
         assertVariantContextsMatch(input, expected, extraArgs, reference);
     }
 
+    @DataProvider
+    public Object[][] gvcfsToGenotypeMultiThreaded() {
+        return new Object[][]{
+                // by-variant traversal over the whole reference, with variants spanning shard boundaries
+                {getTestFile("spanningDel.combined.g.vcf"), getTestFile( "spanningDel.combined.gatk3.7_30_ga4f720357.expected.vcf"), NO_EXTRA_ARGS, 1_000_000},
+                {getTestFile("gvcfExample1.vcf"), getTestFile( "gvcfExample1.gatk3.7_30_ga4f720357.expected.vcf"), Arrays.asList("-L", "20"), 1_000_000},
+                {getTestFile("leadingDeletion.g.vcf"), getTestFile("leadingDeletionExpected.vcf"), Arrays.asList("-L", "20:69512-69513"), 1},
+                // by-locus traversal, with shards much smaller than the intervals
+                {getTestFile( "combined.single.sample.pipeline.gatk3.vcf"),
+                        getTestFile( "expected/combined.single.sample.pipeline.include_nonvariant.vcf"),
+                        Arrays.asList( " --" + GenotypeGVCFs.ALL_SITES_LONG_NAME + " -L 20:10,030,000-10,033,000 -L 20:10,386,000-10,386,500 "),
+                        100},
+                {getTestFile( "combined.single.sample.pipeline.gatk3.vcf"),
+                        getTestFile( "expected/testSpanningDeletion.vcf"),
+                        Arrays.asList( " --" + GenotypeGVCFs.ALL_SITES_LONG_NAME + " -L 20:10,096,905-10,096,907 -L 20:10624924-10624926"),
+                        1}
+        };
+    }
+
+    @Test(dataProvider = "gvcfsToGenotypeMultiThreaded")
+    public void testEntireVariantContextMultiThreaded(File input, File expected, List<String> extraArgs, int shardSize) throws IOException {
+        final List<String> args = new ArrayList<>(extraArgs);
+        args.addAll(Arrays.asList("--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "3",
+                "--" + VariantLocusWalker.VARIANT_LOCUS_SHARD_SIZE_NAME, String.valueOf(shardSize)));
+        assertVariantContextsMatch(input, expected, args, b37_reference_20_21);
+    }
+
+    @Test(expectedExceptions = UserException.MissingIndex.class)
+    public void testMultiThreadedRequiresIndexedVariants() throws IOException {
+        // copy the input without its index, since shards of the driving variants are queried by interval
+        final File unindexedInput = new File(createTempDir("unindexed"), "gvcfExample1.vcf");
+        Files.copy(getTestFile("gvcfExample1.vcf").toPath(), unindexedInput.toPath());
+        final ArgumentsBuilder args = new ArgumentsBuilder();
+        args.addReference(new File(b37_reference_20_21))
+                .add("V", unindexedInput.getAbsolutePath())
+                .add(StandardArgumentDefinitions.THREADS_LONG_NAME, 2)
+                .addOutput(createTempFile("genotypegvcf", ".vcf"));
+        runCommandLine(args);
+    }
+
     private void assertVariantContextsMatch(File input, File expected, List<String> extraArgs, String reference) throws IOException {
         try {
             final VCFHeader header = VCFHeaderReader.readHeaderFrom(new SeekablePathStream(IOUtils.getPath(expected.getAbsolutePath())));
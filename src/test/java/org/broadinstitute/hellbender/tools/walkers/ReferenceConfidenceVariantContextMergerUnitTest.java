@@ -87,6 +87,48 @@ public class ReferenceConfidenceVariantContextMergerUnitTest extends GATKBaseTes
         Assert.assertEquals(newAD, new int[]{1,2,0,0});
     }
 
+    @Test
+    public void testGenerateAFWithNewAlleles() {
+        final double[] originalAF = new double[] {0.3, 0.1};
+        final int[] indexesOfRelevantAlleles = new int[] {0,1,3,2};
+
+        final double[] newAF = AlleleSubsettingUtils.generateAF(originalAF, indexesOfRelevantAlleles);
+        Assert.assertEquals(newAF, new double[]{0.3, 0.0, 0.1});
+    }
+
+    @Test
+    public void testMultiSampleMergeMatchesSingleSampleMerges() {
+        // the allele mapping and PL index maps are shared by the samples of a VC, so check that samples of mixed
+        // ploidies in a single VC are merged exactly as if they were in separate VCs
+        final int start = 10;
+        final SimpleInterval loc = new SimpleInterval("20", start, start);
+        final List<Allele> multiSampleAlleles = Arrays.asList(Aref, C, Allele.NON_REF_ALLELE);
+        final List<Genotype> genotypes = Arrays.asList(
+                new GenotypeBuilder("s1", Arrays.asList(Aref, C)).PL(new int[]{30, 0, 40, 50, 60, 70}).AD(new int[]{5, 6, 0}).make(),
+                new GenotypeBuilder("s2", Arrays.asList(Aref, Aref)).PL(new int[]{0, 20, 30, 40, 50, 60}).AD(new int[]{10, 0, 0}).make(),
+                new GenotypeBuilder("s3", Collections.singletonList(C)).PL(new int[]{40, 0, 50}).AD(new int[]{0, 7, 0}).make());
+        final VariantContext multiSampleVC = new VariantContextBuilder("multi", "20", start, start, multiSampleAlleles).genotypes(genotypes).make();
+        final VariantContext otherVC = new VariantContextBuilder("other", "20", start, start, Arrays.asList(Aref, G, Allele.NON_REF_ALLELE))
+                .genotypes(new GenotypeBuilder("s4", Arrays.asList(Aref, G)).PL(new int[]{20, 0, 30, 40, 50, 60}).AD(new int[]{4, 3, 0}).make())
+                .make();
+
+        final List<VariantContext> singleSampleVCs = new ArrayList<>();
+        for ( final Genotype genotype : genotypes ) {
+            singleSampleVCs.add(new VariantContextBuilder(multiSampleVC).source(genotype.getSampleName()).genotypes(genotype).make());
+        }
+        singleSampleVCs.add(otherVC);
+
+        final ReferenceConfidenceVariantContextMerger merger = new ReferenceConfidenceVariantContextMerger(getAnnotationEngine(), new VCFHeader());
+        final VariantContext mergedMultiSample = merger.merge(Arrays.asList(multiSampleVC, otherVC), loc, null, true, false);
+        final VariantContext mergedSingleSamples = merger.merge(singleSampleVCs, loc, null, true, false);
+
+        Assert.assertEquals(mergedMultiSample.getAlleles(), mergedSingleSamples.getAlleles());
+        Assert.assertEquals(mergedMultiSample.getNSamples(), 4);
+        for ( final Genotype expectedGenotype : mergedSingleSamples.getGenotypes() ) {
+            VariantContextTestUtils.assertGenotypesAreEqual(mergedMultiSample.getGenotype(expectedGenotype.getSampleName()), expectedGenotype);
+        }
+    }
+
     @DataProvider(name = "referenceConfidenceMergeData")
     public Object[][] makeReferenceConfidenceMergeData() {
         final List<Object[]> tests = new ArrayList<>();
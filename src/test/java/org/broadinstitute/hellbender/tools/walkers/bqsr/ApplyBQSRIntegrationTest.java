@@ -121,6 +121,20 @@ public final class ApplyBQSRIntegrationTest extends CommandLineProgramTest {
         }
     }
 
+    @Test(dataProvider = "MiniApplyBQSRTest")
+    public void testApplyBQSRMultiThreaded(ABQSRTest params) throws IOException {
+        final File outFile = GATKBaseTest.createTempFile("applyBQSRMultiThreadedTest", params.outputExtension);
+        final String[] args = {
+                "-I", new File(params.bam).getAbsolutePath(),
+                "--" + StandardArgumentDefinitions.BQSR_TABLE_LONG_NAME, new File(resourceDir + "HiSeq.20mb.1RG.table.gz").getAbsolutePath(),
+                "-O", outFile.getAbsolutePath(),
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "4"
+        };
+        runCommandLine(args);
+
+        SamAssertionUtils.assertSamsEqual(outFile, new File(params.expectedFile));
+    }
+
     @Test(dataProvider = "MiniApplyBQSRTest")
     public void testApplyBQSRPath(ABQSRTest params) throws IOException {
         try (FileSystem jimfs = Jimfs.newFileSystem(Configuration.unix())) {
@@ -106,6 +106,22 @@ public final class BaseRecalibratorIntegrationTest extends CommandLineProgramTes
         spec.executeTest("testBQSR-" + params.args, this);
     }
 
+    @Test(dataProvider = "BQSRTest")
+    public void testBQSRMultiThreaded(BQSRTest params) throws IOException {
+        IntegrationTestSpec spec = new IntegrationTestSpec(
+                params.getCommandLine() + " --" + StandardArgumentDefinitions.THREADS_LONG_NAME + " 4",
+                Arrays.asList(params.expectedFileName));
+        spec.executeTest("testBQSRMultiThreaded-" + params.args, this);
+    }
+
+    @Test(dataProvider = "BQSRTest")
+    public void testBQSRDenseTables(BQSRTest params) throws IOException {
+        IntegrationTestSpec spec = new IntegrationTestSpec(
+                params.getCommandLine() + " --dense-recalibration-tables",
+                Arrays.asList(params.expectedFileName));
+        spec.executeTest("testBQSRDenseTables-" + params.args, this);
+    }
+
     @Test(description = "This is to test https://github.com/broadinstitute/hellbender/issues/322")
     public void testPlottingWorkflow() throws IOException {
         final String resourceDir = getTestDataDir() + "/" + "BQSR" + "/";
@@ -2,6 +2,8 @@ package org.broadinstitute.hellbender.tools.walkers.contamination;
 
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.LocusWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.ArgumentsBuilder;
 import org.testng.Assert;
@@ -65,6 +67,39 @@ public class GetPileupSummariesIntegrationTest extends CommandLineProgramTest {
 
     }
 
+    @Test
+    public void testMultiThreaded() {
+        final File singleThreadedOutput = createTempFile("output", ".table");
+        final File multiThreadedOutput = createTempFile("output", ".table");
+        for (final File output : new File[]{singleThreadedOutput, multiThreadedOutput}) {
+            final ArgumentsBuilder args = new ArgumentsBuilder()
+                    .addInput(NA12878)
+                    .addVCF(new File(thousandGenomes))
+                    .addIntervals(new File(thousandGenomes))
+                    .addOutput(output)
+                    .add(GetPileupSummaries.MAX_SITE_AF_SHORT_NAME, 0.9);
+            if (output == multiThreadedOutput) {
+                // shards much smaller than the traversal, so that sites are spread over many of them
+                args.add(StandardArgumentDefinitions.THREADS_LONG_NAME, 3)
+                        .add(LocusWalker.LOCUS_SHARD_SIZE_NAME, 1000);
+            }
+            runCommandLine(args);
+        }
+
+        final List<PileupSummary> expected = PileupSummary.readFromFile(singleThreadedOutput).getRight();
+        final List<PileupSummary> actual = PileupSummary.readFromFile(multiThreadedOutput).getRight();
+        Assert.assertFalse(expected.isEmpty());
+        Assert.assertEquals(actual.size(), expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(actual.get(i).getContig(), expected.get(i).getContig());
+            Assert.assertEquals(actual.get(i).getStart(), expected.get(i).getStart());
+            Assert.assertEquals(actual.get(i).getRefCount(), expected.get(i).getRefCount());
+            Assert.assertEquals(actual.get(i).getAltCount(), expected.get(i).getAltCount());
+            Assert.assertEquals(actual.get(i).getOtherAltCount(), expected.get(i).getOtherAltCount());
+            Assert.assertEquals(actual.get(i).getAlleleFrequency(), expected.get(i).getAlleleFrequency());
+        }
+    }
+
     @Test(expectedExceptions = UserException.BadInput.class)
     public void testNoAFFieldInHeader() {
         final File vcfWithoutAF = new File(publicTestDir, "empty.vcf");
@@ -0,0 +1,146 @@
+package org.broadinstitute.hellbender.tools.walkers.coverage;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.AlignmentContext;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.pileup.PileupElement;
+import org.broadinstitute.hellbender.utils.pileup.ReadPileup;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class DepthOfCoverageLocusCountsUnitTest extends GATKBaseTest {
+    private static final List<DoCOutputType.Partition> PARTITIONS = Arrays.asList(DoCOutputType.Partition.sample,
+            DoCOutputType.Partition.readgroup, DoCOutputType.Partition.library, DoCOutputType.Partition.platform,
+            DoCOutputType.Partition.sample_by_platform);
+    private static final SimpleInterval LOCUS = new SimpleInterval("1", 2, 2);
+
+    private final SAMFileHeader header = makeHeader();
+
+    private static SAMFileHeader makeHeader() {
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        header.addReadGroup(makeReadGroup("rg1", "S1", "L1", "ILLUMINA"));
+        header.addReadGroup(makeReadGroup("rg2", "S1", "L2", "ILLUMINA"));
+        header.addReadGroup(makeReadGroup("rg3", "S2", "L1", "PACBIO"));
+        // a read group without a library, which is not counted in the library partition
+        header.addReadGroup(makeReadGroup("rg4", "S3", null, "ILLUMINA"));
+        return header;
+    }
+
+    private static SAMReadGroupRecord makeReadGroup(final String id, final String sample, final String library, final String platform) {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord(id);
+        readGroup.setSample(sample);
+        readGroup.setLibrary(library);
+        readGroup.setPlatform(platform);
+        return readGroup;
+    }
+
+    // sorted identifiers of each partition as in the output, with an extra sample that has no read group
+    private Map<DoCOutputType.Partition, List<String>> makeIdentifiers() {
+        final Map<DoCOutputType.Partition, List<String>> identifiers = new LinkedHashMap<>();
+        for ( final DoCOutputType.Partition partition : PARTITIONS ) {
+            final Set<String> ids = header.getReadGroups().stream()
+                    .map(readGroup -> CoverageUtils.getTypeID(readGroup, partition))
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toCollection(TreeSet::new));
+            if ( partition == DoCOutputType.Partition.sample ) {
+                ids.add("S0");
+            }
+            identifiers.put(partition, new ArrayList<>(ids));
+        }
+        return identifiers;
+    }
+
+    // a pileup of random bases and qualities from random read groups, including Ns and deletions
+    private AlignmentContext makeRandomContext(final Random random, final int size) {
+        final List<PileupElement> pileup = new ArrayList<>(size);
+        for ( int i = 0; i < size; i++ ) {
+            final byte[] bases = new byte[3];
+            final byte[] quals = new byte[3];
+            for ( int b = 0; b < bases.length; b++ ) {
+                bases[b] = (byte) "ACGTN".charAt(random.nextInt(5));
+                quals[b] = (byte) random.nextInt(41);
+            }
+            if ( random.nextInt(5) == 0 ) {
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, 1, Arrays.copyOf(bases, 2), Arrays.copyOf(quals, 2), "1M1D1M");
+                read.setReadGroup("rg" + (1 + random.nextInt(4)));
+                pileup.add(new PileupElement(read, 0, read.getCigar().getCigarElement(1), 1, 0));
+            } else {
+                final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, 1, bases, quals, "3M");
+                read.setReadGroup("rg" + (1 + random.nextInt(4)));
+                pileup.add(PileupElement.createPileupForReadAndOffset(read, 1));
+            }
+        }
+        return new AlignmentContext(LOCUS, new ReadPileup(LOCUS, pileup));
+    }
+
+    @DataProvider(name = "countLocusTests")
+    public Object[][] getCountLocusTests() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final CoverageUtils.CountPileupType countType : CoverageUtils.CountPileupType.values() ) {
+            tests.add(new Object[]{0, (int) Byte.MAX_VALUE, countType});
+            tests.add(new Object[]{10, 30, countType});
+            tests.add(new Object[]{20, 20, countType});
+            // only deletions pass the base quality bounds
+            tests.add(new Object[]{41, (int) Byte.MAX_VALUE, countType});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "countLocusTests")
+    public void testCountLocusMatchesCountsByPartition(final int minBaseQ, final int maxBaseQ, final CoverageUtils.CountPileupType countType) {
+        final Map<DoCOutputType.Partition, List<String>> identifiers = makeIdentifiers();
+        final DepthOfCoverageLocusCounts locusCounts = new DepthOfCoverageLocusCounts(header, PARTITIONS, identifiers);
+        final Random random = new Random(minBaseQ * 1000 + maxBaseQ);
+        final AlignmentContext context = makeRandomContext(random, 100);
+
+        if ( countType != CoverageUtils.CountPileupType.COUNT_READS ) {
+            // fragment based counting is unsupported by both implementations
+            Assert.assertThrows(UnsupportedOperationException.class, () -> CoverageUtils.getBaseCountsByPartition(context, (byte) minBaseQ, (byte) maxBaseQ, countType, PARTITIONS, header));
+            Assert.assertThrows(UnsupportedOperationException.class, () -> locusCounts.countLocus(context, (byte) minBaseQ, (byte) maxBaseQ, countType));
+            return;
+        }
+
+        // count another locus first, to check that its counts don't leak into the next one
+        locusCounts.countLocus(makeRandomContext(random, 50), (byte) 0, Byte.MAX_VALUE, countType);
+        locusCounts.countLocus(context, (byte) minBaseQ, (byte) maxBaseQ, countType);
+
+        final Map<DoCOutputType.Partition, Map<String, int[]>> expectedCounts =
+                CoverageUtils.getBaseCountsByPartition(context, (byte) minBaseQ, (byte) maxBaseQ, countType, PARTITIONS, header);
+        for ( final DoCOutputType.Partition partition : PARTITIONS ) {
+            final List<String> partitionIdentifiers = identifiers.get(partition);
+            final int[] counts = locusCounts.getBaseCounts(partition);
+            Assert.assertEquals(counts.length, partitionIdentifiers.size() * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS);
+            for ( int i = 0; i < partitionIdentifiers.size(); i++ ) {
+                final int[] expected = expectedCounts.getOrDefault(partition, Collections.emptyMap())
+                        .getOrDefault(partitionIdentifiers.get(i), new int[DepthOfCoverageLocusCounts.NUM_BASE_COUNTS]);
+                final int offset = i * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS;
+                Assert.assertEquals(Arrays.copyOfRange(counts, offset, offset + DepthOfCoverageLocusCounts.NUM_BASE_COUNTS), expected,
+                        "counts of " + partitionIdentifiers.get(i) + " in partition " + partition);
+                Assert.assertEquals(locusCounts.getDepth(partition, i), Arrays.stream(expected).sum());
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReadsRequireAKnownReadGroup() {
+        final DepthOfCoverageLocusCounts locusCounts = new DepthOfCoverageLocusCounts(header, PARTITIONS, makeIdentifiers());
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read", 0, 1, new byte[]{'A', 'C', 'G'}, new byte[]{30, 30, 30}, "3M");
+        read.setReadGroup("unknown");
+        final AlignmentContext context = new AlignmentContext(LOCUS, new ReadPileup(LOCUS, Collections.singletonList(PileupElement.createPileupForReadAndOffset(read, 1))));
+        locusCounts.countLocus(context, (byte) 0, Byte.MAX_VALUE, CoverageUtils.CountPileupType.COUNT_READS);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUncountedPartition() {
+        final DepthOfCoverageLocusCounts locusCounts = new DepthOfCoverageLocusCounts(header, PARTITIONS, makeIdentifiers());
+        locusCounts.getBaseCounts(DoCOutputType.Partition.center);
+    }
+}
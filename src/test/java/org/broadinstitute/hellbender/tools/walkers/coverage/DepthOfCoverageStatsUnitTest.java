@@ -0,0 +1,222 @@
+package org.broadinstitute.hellbender.tools.walkers.coverage;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public class DepthOfCoverageStatsUnitTest extends GATKBaseTest {
+    private static final List<String> SAMPLES = Arrays.asList("NA12878", "NA12891", "NA12892", "NA19238", "NA19239");
+    private static final int NUM_LOCI = 500;
+
+    @DataProvider(name = "endpoints")
+    public Object[][] getEndpoints() {
+        final List<Object[]> tests = new ArrayList<>();
+        for ( final boolean includeDeletions : new boolean[]{true, false} ) {
+            tests.add(new Object[]{new int[]{1, 2, 5, 10}, includeDeletions});
+            tests.add(new Object[]{CoverageUtils.calculateCoverageHistogramBinEndpoints(1, 15, 7), includeDeletions});
+            tests.add(new Object[]{new int[]{3}, includeDeletions});
+            tests.add(new Object[]{new int[]{}, includeDeletions});
+            // endpoints that are not strictly increasing, for which the bin lookup can't use a binary search
+            tests.add(new Object[]{new int[]{5, 2, 10}, includeDeletions});
+            tests.add(new Object[]{new int[]{1, 1, 5, 5, 12}, includeDeletions});
+        }
+        return tests.toArray(new Object[][]{});
+    }
+
+    @Test(dataProvider = "endpoints")
+    public void testMapAndArrayUpdatesAgree(final int[] endpoints, final boolean includeDeletions) {
+        final DepthOfCoverageStats fromMaps = makeStats(endpoints, includeDeletions);
+        final DepthOfCoverageStats fromArrays = makeStats(endpoints, includeDeletions);
+
+        final Random random = new Random(42);
+        for ( int locus = 0; locus < NUM_LOCI; locus++ ) {
+            final int[][] countsBySample = randomCounts(random);
+            final Map<String, int[]> countsMap = new LinkedHashMap<>();
+            final int[] countsArray = new int[SAMPLES.size() * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS];
+            for ( int sample = 0; sample < SAMPLES.size(); sample++ ) {
+                // samples without coverage are sometimes missing from the map, as in the output of getBaseCountsByPartition
+                if ( countsBySample[sample] != null ) {
+                    countsMap.put(SAMPLES.get(sample), countsBySample[sample]);
+                    System.arraycopy(countsBySample[sample], 0, countsArray, sample * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS, DepthOfCoverageLocusCounts.NUM_BASE_COUNTS);
+                }
+            }
+            // samples that aren't tracked are ignored
+            countsMap.put("unknown", new int[]{1, 1, 1, 1, 1, 1});
+            fromMaps.update(countsMap);
+            fromArrays.update(countsArray);
+        }
+        fromMaps.update((Map<String, int[]>) null);
+        fromArrays.update(new int[SAMPLES.size() * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS]);
+
+        Assert.assertEquals(fromArrays.getTotalLoci(), NUM_LOCI + 1);
+        Assert.assertEquals(fromArrays.getTotalLoci(), fromMaps.getTotalLoci());
+        Assert.assertEquals(fromArrays.getTotalCoverage(), fromMaps.getTotalCoverage());
+        Assert.assertEquals(fromArrays.getTotals(), fromMaps.getTotals());
+        Assert.assertEquals(fromArrays.getMeans(), fromMaps.getMeans());
+        for ( final String sample : SAMPLES ) {
+            Assert.assertEquals(fromArrays.getHistogram(sample), fromMaps.getHistogram(sample));
+            Assert.assertEquals(fromArrays.getHistograms().get(sample), fromMaps.getHistograms().get(sample));
+        }
+        Assert.assertEquals(fromArrays.getLocusCounts(), fromMaps.getLocusCounts());
+    }
+
+    @Test(dataProvider = "endpoints")
+    public void testAgainstLinearBinLookup(final int[] endpoints, final boolean includeDeletions) {
+        final DepthOfCoverageStats stats = makeStats(endpoints, includeDeletions);
+        final long[][] expectedHistograms = new long[SAMPLES.size()][endpoints.length + 1];
+        final long[] expectedTotals = new long[SAMPLES.size()];
+        // the cumulative table of the number of loci with at least i+1 samples with depth in bin b or above, updated
+        // at every locus as it was before the table was computed on demand
+        final long[][] expectedLocusCounts = new long[SAMPLES.size()][endpoints.length + 1];
+        long expectedTotalCoverage = 0;
+
+        final Random random = new Random(7);
+        for ( int locus = 0; locus < NUM_LOCI; locus++ ) {
+            final int[][] countsBySample = randomCounts(random);
+            final int[] countsArray = new int[SAMPLES.size() * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS];
+            final int[] samplesAtOrAboveBin = new int[endpoints.length + 1];
+            for ( int sample = 0; sample < SAMPLES.size(); sample++ ) {
+                final int[] counts = countsBySample[sample] == null ? new int[DepthOfCoverageLocusCounts.NUM_BASE_COUNTS] : countsBySample[sample];
+                System.arraycopy(counts, 0, countsArray, sample * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS, DepthOfCoverageLocusCounts.NUM_BASE_COUNTS);
+
+                final int depth = getDepth(counts, includeDeletions);
+                final int bin = linearBin(endpoints, depth);
+                expectedHistograms[sample][bin]++;
+                expectedTotals[sample] += depth;
+                expectedTotalCoverage += depth;
+                for ( int b = 0; b <= bin; b++ ) {
+                    samplesAtOrAboveBin[b]++;
+                }
+            }
+            for ( int b = 0; b < samplesAtOrAboveBin.length; b++ ) {
+                for ( int i = 0; i < samplesAtOrAboveBin[b]; i++ ) {
+                    expectedLocusCounts[i][b]++;
+                }
+            }
+            stats.update(countsArray);
+        }
+
+        for ( int sample = 0; sample < SAMPLES.size(); sample++ ) {
+            Assert.assertEquals(stats.getHistogram(SAMPLES.get(sample)), expectedHistograms[sample], "histogram of " + SAMPLES.get(sample));
+            Assert.assertEquals(stats.getTotal(SAMPLES.get(sample)), expectedTotals[sample]);
+            Assert.assertEquals(stats.getMean(SAMPLES.get(sample)), (double) expectedTotals[sample] / NUM_LOCI);
+        }
+        Assert.assertEquals(stats.getTotalCoverage(), expectedTotalCoverage);
+        Assert.assertEquals(stats.getLocusCounts(), expectedLocusCounts);
+    }
+
+    @Test
+    public void testBinsAtAndBeyondEndpoints() {
+        final int[] endpoints = {1, 2, 5, 10};
+        final DepthOfCoverageStats stats = new DepthOfCoverageStats(endpoints, true, true);
+        stats.initializeSample("sample");
+        stats.initializeSample("other");
+        stats.initializeLocusCounts();
+
+        // depths right at each endpoint, just below it, and beyond the last one
+        final int[] depths = {0, 1, 2, 4, 5, 9, 10, 11, 1000};
+        final int[] expectedBins = {0, 1, 2, 2, 3, 3, 4, 4, 4};
+        for ( final int depth : depths ) {
+            // the other sample always has a depth of 5
+            stats.update(new int[]{depth, 0, 0, 0, 0, 0, 0, 0, 5, 0, 0, 0});
+        }
+
+        final long[] expectedHistogram = new long[endpoints.length + 1];
+        for ( final int bin : expectedBins ) {
+            expectedHistogram[bin]++;
+        }
+        Assert.assertEquals(stats.getHistogram("sample"), expectedHistogram);
+        Assert.assertEquals(stats.getHistogram("other"), new long[]{0, 0, 0, depths.length, 0});
+
+        // first row: loci with at least one sample at or above each bin, second row: loci with both samples
+        final long[][] expectedLocusCounts = {
+                {9, 9, 9, 9, 3},
+                {9, 8, 7, 5, 0}
+        };
+        Assert.assertEquals(stats.getLocusCounts(), expectedLocusCounts);
+    }
+
+    @Test
+    public void testMerge() {
+        final int[] endpoints = {1, 2, 5, 10};
+        final DepthOfCoverageStats merged = makeStats(endpoints, true);
+        final DepthOfCoverageStats first = makeStats(endpoints, true);
+        final DepthOfCoverageStats second = makeStats(endpoints, true);
+        final DepthOfCoverageStats all = makeStats(endpoints, true);
+
+        final Random random = new Random(3);
+        for ( int locus = 0; locus < NUM_LOCI; locus++ ) {
+            final Map<String, int[]> counts = new LinkedHashMap<>();
+            final int[][] countsBySample = randomCounts(random);
+            for ( int sample = 0; sample < SAMPLES.size(); sample++ ) {
+                if ( countsBySample[sample] != null ) {
+                    counts.put(SAMPLES.get(sample), countsBySample[sample]);
+                }
+            }
+            (locus % 2 == 0 ? first : second).update(counts);
+            all.update(counts);
+        }
+        merged.merge(first);
+        merged.merge(second);
+
+        Assert.assertEquals(merged.getTotalLoci(), all.getTotalLoci());
+        Assert.assertEquals(merged.getTotalCoverage(), all.getTotalCoverage());
+        Assert.assertEquals(merged.getTotals(), all.getTotals());
+        for ( final String sample : SAMPLES ) {
+            Assert.assertEquals(merged.getHistogram(sample), all.getHistogram(sample));
+        }
+        Assert.assertEquals(merged.getLocusCounts(), all.getLocusCounts());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testArrayUpdateRequiresCountsForEverySample() {
+        final DepthOfCoverageStats stats = makeStats(new int[]{1, 2, 5, 10}, true);
+        stats.update(new int[(SAMPLES.size() - 1) * DepthOfCoverageLocusCounts.NUM_BASE_COUNTS]);
+    }
+
+    private static DepthOfCoverageStats makeStats(final int[] endpoints, final boolean includeDeletions) {
+        final DepthOfCoverageStats stats = new DepthOfCoverageStats(endpoints, includeDeletions, true);
+        SAMPLES.forEach(stats::initializeSample);
+        stats.initializeLocusCounts();
+        return stats;
+    }
+
+    // random base counts for every sample, or null for samples without coverage
+    private static int[][] randomCounts(final Random random) {
+        final int[][] countsBySample = new int[SAMPLES.size()][];
+        for ( int sample = 0; sample < SAMPLES.size(); sample++ ) {
+            if ( random.nextInt(5) == 0 ) {
+                continue;
+            }
+            countsBySample[sample] = new int[DepthOfCoverageLocusCounts.NUM_BASE_COUNTS];
+            for ( int base = 0; base < DepthOfCoverageLocusCounts.NUM_BASE_COUNTS; base++ ) {
+                countsBySample[sample][base] = random.nextInt(4);
+            }
+        }
+        return countsBySample;
+    }
+
+    private static int getDepth(final int[] counts, final boolean includeDeletions) {
+        int depth = 0;
+        for ( final BaseUtils.Base base : BaseUtils.Base.values() ) {
+            if ( includeDeletions || base != BaseUtils.Base.D ) {
+                depth += counts[base.ordinal()];
+            }
+        }
+        return depth;
+    }
+
+    // the index of the first endpoint that the depth is below, as found before bins were looked up by binary search
+    private static int linearBin(final int[] endpoints, final int depth) {
+        for ( int b = 0; b < endpoints.length; b++ ) {
+            if ( depth < endpoints[b] ) {
+                return b;
+            }
+        }
+        return endpoints.length;
+    }
+}
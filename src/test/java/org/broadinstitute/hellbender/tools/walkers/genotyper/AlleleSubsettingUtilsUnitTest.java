@@ -414,4 +414,21 @@ public class AlleleSubsettingUtilsUnitTest extends GATKBaseTest {
 
         Assert.assertEquals(newGs.get(0).getPL(), new int[] {50, 20, 0, 40, 10, 30});
     }
+
+    @DataProvider
+    public Object[][] subsettedPLIndicesData() {
+        return new Object[][] {
+                {2, Arrays.asList(Aref, C, G), Arrays.asList(Aref, G), new int[] {0, 3, 5}},
+                {3, Arrays.asList(Aref, C, G), Arrays.asList(Aref, C), new int[] {0, 1, 2, 3}},
+                {3, Arrays.asList(Aref, C, G), Arrays.asList(Aref, G), new int[] {0, 4, 7, 9}},
+                {2, Arrays.asList(Aref, G, C), Arrays.asList(Aref, C, G), new int[] {0, 3, 5, 1, 4, 2}}
+        };
+    }
+
+    @Test(dataProvider = "subsettedPLIndicesData")
+    public void testSubsettedPLIndices(final int ploidy, final List<Allele> originalAlleles, final List<Allele> newAlleles, final int[] expected) {
+        Assert.assertEquals(AlleleSubsettingUtils.subsettedPLIndices(ploidy, originalAlleles, newAlleles), expected);
+        // and again, from the cache
+        Assert.assertEquals(AlleleSubsettingUtils.subsettedPLIndices(ploidy, originalAlleles, newAlleles), expected);
+    }
 }
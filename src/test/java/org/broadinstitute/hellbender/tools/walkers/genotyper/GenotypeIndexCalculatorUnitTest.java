@@ -6,6 +6,8 @@ import org.testng.Assert;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.stream.IntStream;
+
 import static org.testng.Assert.*;
 
 public class GenotypeIndexCalculatorUnitTest {
@@ -145,4 +147,55 @@ public class GenotypeIndexCalculatorUnitTest {
         Assert.assertEquals(result, expected);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testNewToOldIndexMapIsCached() {
+        final int[] newToOldAlleleMap = {0, 3, 1};
+        final int[] result = GenotypeIndexCalculator.newToOldGenotypeMap(2, newToOldAlleleMap);
+        final int[] expected = result.clone();
+
+        // the key of the cache must not depend on the caller's array
+        newToOldAlleleMap[1] = 2;
+        Assert.assertSame(GenotypeIndexCalculator.newToOldGenotypeMap(2, new int[] {0, 3, 1}), result);
+        Assert.assertEquals(result, expected);
+        Assert.assertNotSame(GenotypeIndexCalculator.newToOldGenotypeMap(3, new int[] {0, 3, 1}), result);
+        Assert.assertEquals(GenotypeIndexCalculator.newToOldGenotypeMap(2, newToOldAlleleMap), new int[] {0, 3, 5, 1, 4, 2});
+    }
+
+    @Test
+    public void testNewToOldIndexMapAboveCacheLimit() {
+        final int ploidy = 2;
+        int alleleCount = 1;
+        while (GenotypeIndexCalculator.genotypeCount(ploidy, alleleCount) <= GenotypeIndexCalculator.MAX_CACHED_GENOTYPE_MAP_LENGTH) {
+            alleleCount++;
+        }
+        final int[] identity = new IndexRange(0, alleleCount).mapToInteger(n -> n);
+        final int[] result = GenotypeIndexCalculator.newToOldGenotypeMap(ploidy, identity);
+        Assert.assertEquals(result, new IndexRange(0, result.length).mapToInteger(n -> n));
+        Assert.assertNotSame(GenotypeIndexCalculator.newToOldGenotypeMap(ploidy, identity), result);
+    }
+
+    @Test
+    public void testNewToOldIndexMapFromManyThreads() {
+        // more distinct recodings than the cache holds, looked up repeatedly from several threads
+        final int ploidy = 2;
+        final int alleleCount = 4;
+        final int recodingCount = 2 * GenotypeIndexCalculator.MAX_CACHED_GENOTYPE_MAPS;
+        final int[][] recodings = new int[recodingCount][];
+        for (int r = 0; r < recodingCount; r++) {
+            final int[] recoding = new int[alleleCount];
+            for (int a = 0; a < alleleCount; a++) {
+                recoding[a] = r + a * recodingCount;
+            }
+            recodings[r] = recoding;
+        }
+
+        IntStream.range(0, 4 * recodingCount).parallel().forEach(n -> {
+            final int[] recoding = recodings[(n * 7) % recodingCount];
+            final int[] expected = new int[GenotypeIndexCalculator.genotypeCount(ploidy, alleleCount)];
+            for (final GenotypeAlleleCounts gac : GenotypeAlleleCounts.iterable(ploidy, alleleCount)) {
+                expected[gac.index()] = GenotypeIndexCalculator.alleleCountsToIndex(gac, recoding);
+            }
+            Assert.assertEquals(GenotypeIndexCalculator.newToOldGenotypeMap(ploidy, recoding), expected);
+        });
+    }
+}
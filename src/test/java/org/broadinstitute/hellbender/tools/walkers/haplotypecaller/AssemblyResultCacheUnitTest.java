@@ -0,0 +1,192 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller;
+
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.TextCigarCodec;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.utils.SimpleInterval;
+import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.smithwaterman.SmithWatermanJavaAligner;
+import org.testng.Assert;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public final class AssemblyResultCacheUnitTest extends GATKBaseTest {
+    private static final byte[] REF_BASES = "ACGTACGTTTGACCAGTAGGACTTACG".getBytes();
+    private static final byte[] ALT_BASES = "ACGTACGTTTGACTAGTAGGACTTACG".getBytes();
+    private static final SimpleInterval PADDED_REFERENCE_LOC = new SimpleInterval("1", 100, 100 + REF_BASES.length - 1);
+
+    private SAMFileHeader header;
+
+    @BeforeClass
+    public void init() {
+        header = ArtificialReadUtils.createArtificialSamHeader(1, 1, 1000000);
+    }
+
+    private AssemblyRegion makeRegion(final byte[]... readBases) {
+        final AssemblyRegion region = new AssemblyRegion(new SimpleInterval("1", 105, 115), true, 5, header);
+        for (int i = 0; i < readBases.length; i++) {
+            region.add(ArtificialReadUtils.createArtificialRead(header, "read" + i, "1", 100, readBases[i],
+                    Utils.dupBytes((byte) 30, readBases[i].length), readBases[i].length + "M"));
+        }
+        return region;
+    }
+
+    private AssemblyResultSet makeAssemblyResultSet(final AssemblyRegion region) {
+        final AssemblyResultSet resultSet = new AssemblyResultSet();
+        resultSet.setRegionForGenotyping(region);
+        resultSet.setFullReferenceWithPadding(REF_BASES);
+        resultSet.setPaddedReferenceLoc(PADDED_REFERENCE_LOC);
+
+        final Haplotype ref = new Haplotype(REF_BASES, true);
+        ref.setGenomeLocation(region.getPaddedSpan());
+        ref.setCigar(TextCigarCodec.decode(REF_BASES.length + "M"));
+        final Haplotype alt = new Haplotype(ALT_BASES, false);
+        alt.setGenomeLocation(region.getPaddedSpan());
+        alt.setCigar(TextCigarCodec.decode(ALT_BASES.length + "M"));
+        alt.setAlignmentStartHapwrtRef(3);
+        alt.setScore(-1.5);
+        alt.setKmerSize(10);
+        resultSet.add(ref);
+        resultSet.add(alt);
+        resultSet.setVariationPresent(true);
+        return resultSet;
+    }
+
+    private static AssemblyResultCache makeCache(final Path directory, final List<Integer> kmerSizes) {
+        final HaplotypeCallerArgumentCollection args = new HaplotypeCallerArgumentCollection();
+        args.assemblerArgs.kmerSizes = kmerSizes;
+        return new AssemblyResultCache(directory, args);
+    }
+
+    private static String fingerprint(final AssemblyResultCache cache, final AssemblyRegion region) {
+        return cache.fingerprint(region, REF_BASES, PADDED_REFERENCE_LOC, SmithWatermanJavaAligner.getInstance());
+    }
+
+    @Test
+    public void testCachedHaplotypesAreRestored() {
+        final Path directory = createTempDir("assemblyCache").toPath();
+        final AssemblyRegion region = makeRegion(REF_BASES, ALT_BASES);
+        final AssemblyResultCache cache = makeCache(directory, Arrays.asList(10, 25));
+        final String key = fingerprint(cache, region);
+
+        Assert.assertNull(cache.get(key, region, REF_BASES, PADDED_REFERENCE_LOC));
+        final AssemblyResultSet assembled = makeAssemblyResultSet(region);
+        cache.put(key, assembled);
+
+        // a later run, with a new cache on the same directory
+        final AssemblyResultCache laterCache = makeCache(directory, Arrays.asList(10, 25));
+        Assert.assertEquals(fingerprint(laterCache, region), key);
+        final AssemblyResultSet cached = laterCache.get(key, region, REF_BASES, PADDED_REFERENCE_LOC);
+        Assert.assertNotNull(cached);
+        Assert.assertEquals(laterCache.getHits(), 1);
+        Assert.assertEquals(cache.getMisses(), 1);
+
+        Assert.assertEquals(cached.getHaplotypeList(), assembled.getHaplotypeList());
+        Assert.assertEquals(cached.getReferenceHaplotype(), assembled.getReferenceHaplotype());
+        Assert.assertTrue(cached.isVariationPresent());
+        Assert.assertSame(cached.getRegionForGenotyping(), region);
+        Assert.assertEquals(cached.getPaddedReferenceLoc(), PADDED_REFERENCE_LOC);
+        for (int i = 0; i < assembled.getHaplotypeCount(); i++) {
+            final Haplotype expected = assembled.getHaplotypeList().get(i);
+            final Haplotype actual = cached.getHaplotypeList().get(i);
+            Assert.assertEquals(actual.getCigar(), expected.getCigar());
+            Assert.assertEquals(new SimpleInterval(actual.getGenomeLocation()), new SimpleInterval(expected.getGenomeLocation()));
+            Assert.assertEquals(actual.getAlignmentStartHapwrtRef(), expected.getAlignmentStartHapwrtRef());
+            Assert.assertEquals(actual.getScore(), expected.getScore());
+            Assert.assertEquals(actual.getKmerSize(), expected.getKmerSize());
+        }
+    }
+
+    @Test
+    public void testFingerprintDependsOnReadsAndAssemblyArguments() {
+        final Path directory = createTempDir("assemblyCache").toPath();
+        final AssemblyResultCache cache = makeCache(directory, Arrays.asList(10, 25));
+        final String key = fingerprint(cache, makeRegion(REF_BASES, ALT_BASES));
+
+        Assert.assertEquals(fingerprint(cache, makeRegion(REF_BASES, ALT_BASES)), key);
+        Assert.assertNotEquals(fingerprint(cache, makeRegion(REF_BASES, REF_BASES)), key);
+        Assert.assertNotEquals(fingerprint(cache, makeRegion(REF_BASES)), key);
+
+        final AssemblyRegion lowerQualityRegion = makeRegion(REF_BASES, ALT_BASES);
+        final GATKRead read = lowerQualityRegion.getReads().get(0);
+        read.setBaseQualities(Utils.dupBytes((byte) 20, REF_BASES.length));
+        Assert.assertNotEquals(fingerprint(cache, lowerQualityRegion), key);
+
+        Assert.assertNotEquals(fingerprint(makeCache(directory, Arrays.asList(10, 35)), makeRegion(REF_BASES, ALT_BASES)), key);
+    }
+
+    @Test
+    public void testUnreadableEntriesAreMisses() throws IOException {
+        final Path directory = createTempDir("assemblyCache").toPath();
+        final AssemblyRegion region = makeRegion(REF_BASES, ALT_BASES);
+        final AssemblyResultCache cache = makeCache(directory, Arrays.asList(10, 25));
+        final String key = fingerprint(cache, region);
+        cache.put(key, makeAssemblyResultSet(region));
+
+        final List<Path> entries;
+        try (final Stream<Path> files = Files.walk(directory)) {
+            entries = files.filter(Files::isRegularFile).collect(Collectors.toList());
+        }
+        Assert.assertEquals(entries.size(), 1);
+        Files.write(entries.get(0), new byte[] {1, 0, 0});
+
+        Assert.assertNull(cache.get(key, region, REF_BASES, PADDED_REFERENCE_LOC));
+        Assert.assertEquals(cache.getMisses(), 1);
+
+        // and they are replaced by the next assembly
+        cache.put(key, makeAssemblyResultSet(region));
+        Assert.assertNotNull(cache.get(key, region, REF_BASES, PADDED_REFERENCE_LOC));
+    }
+
+    @Test
+    public void testHaplotypesWithLongCigars() {
+        final Path directory = createTempDir("assemblyCache").toPath();
+        final AssemblyRegion region = makeRegion(REF_BASES, ALT_BASES);
+        final AssemblyResultCache cache = makeCache(directory, Arrays.asList(10, 25));
+        final String key = fingerprint(cache, region);
+
+        // a cigar whose text is longer than DataOutput.writeUTF allows
+        final int numIndels = 20000;
+        final String cigar = String.join("", Collections.nCopies(numIndels, "1M1I")) + "1M";
+        final Haplotype haplotype = new Haplotype(Utils.dupBytes((byte) 'A', 2 * numIndels + 1), false);
+        haplotype.setGenomeLocation(region.getPaddedSpan());
+        haplotype.setCigar(TextCigarCodec.decode(cigar));
+
+        final AssemblyResultSet assembled = makeAssemblyResultSet(region);
+        assembled.add(haplotype);
+        cache.put(key, assembled);
+
+        final AssemblyResultSet cached = cache.get(key, region, REF_BASES, PADDED_REFERENCE_LOC);
+        Assert.assertNotNull(cached);
+        Assert.assertEquals(cached.getHaplotypeList(), assembled.getHaplotypeList());
+        Assert.assertEquals(cached.getHaplotypeList().get(2).getCigar().toString(), cigar);
+    }
+
+    @Test
+    public void testUnwritableEntriesAreNotFatal() throws IOException {
+        final Path directory = createTempDir("assemblyCache").toPath();
+        final AssemblyRegion region = makeRegion(REF_BASES, ALT_BASES);
+        final AssemblyResultCache cache = makeCache(directory, Arrays.asList(10, 25));
+        final String key = fingerprint(cache, region);
+
+        // a file where the subdirectory of the entry should be
+        Files.createFile(directory.resolve(key.substring(0, 2)));
+        cache.put(key, makeAssemblyResultSet(region));
+
+        Assert.assertNull(cache.get(key, region, REF_BASES, PADDED_REFERENCE_LOC));
+        Assert.assertEquals(cache.getMisses(), 1);
+    }
+}
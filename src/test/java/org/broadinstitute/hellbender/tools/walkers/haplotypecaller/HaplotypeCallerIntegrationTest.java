@@ -411,6 +411,75 @@ public class HaplotypeCallerIntegrationTest extends CommandLineProgramTest {
     }
 
 
+    /*
+     * Test that processing assembly regions on several threads produces exactly the same output as the serial traversal
+     */
+    @Test(dataProvider="HaplotypeCallerTestInputs")
+    public void testMultiThreadedTraversalIsConsistentWithPastResults(final String inputFileName, final String referenceFileName) throws Exception {
+        Utils.resetRandomGenerator();
+
+        final File output = createTempFile("testMultiThreadedTraversalIsConsistentWithPastResults", ".g.vcf");
+        final File expected = new File(TEST_FILES_DIR, "expected.testGVCFMode.gatk4.g.vcf");
+
+        final String[] args = {
+                "-I", inputFileName,
+                "-R", referenceFileName,
+                "-L", "20:10000000-10100000",
+                "-O", output.getAbsolutePath(),
+                "--" + AssemblyBasedCallerArgumentCollection.EMIT_REF_CONFIDENCE_LONG_NAME, ReferenceConfidenceMode.GVCF.toString(),
+                "-pairHMM", "AVX_LOGLESS_CACHING",
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "4",
+                "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+        };
+
+        runCommandLine(args);
+
+        IntegrationTestSpec.assertEqualTextFiles(output, expected);
+    }
+
+    /*
+     * Test that a run that gets its haplotypes from the assembly cache produces exactly the same output as one that assembles
+     */
+    @Test(dataProvider="HaplotypeCallerTestInputs")
+    public void testAssemblyCacheIsConsistentWithPastResults(final String inputFileName, final String referenceFileName) throws Exception {
+        final File cacheDirectory = createTempDir("testAssemblyCacheIsConsistentWithPastResults");
+        final File expected = new File(TEST_FILES_DIR, "expected.testGVCFMode.gatk4.g.vcf");
+
+        // the first run fills the cache, the second only reads it
+        for ( int run = 0; run < 2; run++ ) {
+            Utils.resetRandomGenerator();
+            final File output = createTempFile("testAssemblyCacheIsConsistentWithPastResults", ".g.vcf");
+            final String[] args = {
+                    "-I", inputFileName,
+                    "-R", referenceFileName,
+                    "-L", "20:10000000-10100000",
+                    "-O", output.getAbsolutePath(),
+                    "--" + AssemblyBasedCallerArgumentCollection.EMIT_REF_CONFIDENCE_LONG_NAME, ReferenceConfidenceMode.GVCF.toString(),
+                    "-pairHMM", "AVX_LOGLESS_CACHING",
+                    "--" + AssemblyBasedCallerArgumentCollection.ASSEMBLY_CACHE_DIRECTORY_LONG_NAME, cacheDirectory.getAbsolutePath(),
+                    "--" + StandardArgumentDefinitions.ADD_OUTPUT_VCF_COMMANDLINE, "false"
+            };
+
+            runCommandLine(args);
+
+            IntegrationTestSpec.assertEqualTextFiles(output, expected);
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testMultiThreadedTraversalRejectsBamout() throws Exception {
+        final String[] args = {
+                "-I", NA12878_20_21_WGS_bam,
+                "-R", b37_reference_20_21,
+                "-L", "20:10000000-10010000",
+                "-O", createTempFile("testMultiThreadedTraversalRejectsBamout", ".vcf").getAbsolutePath(),
+                "-bamout", createTempFile("testMultiThreadedTraversalRejectsBamout", ".bam").getAbsolutePath(),
+                "--" + StandardArgumentDefinitions.THREADS_LONG_NAME, "2"
+        };
+
+        runCommandLine(args);
+    }
+
     /*
      * Minimal test that the non-seq graph haplotype detection code is equivalent using either seq graphs or kmer graphs
      *
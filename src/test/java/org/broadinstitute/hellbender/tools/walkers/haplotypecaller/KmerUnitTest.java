@@ -157,4 +157,42 @@ public final class KmerUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    @Test(dataProvider = "KMerCreationData")
+    public void testPack(final byte[] allBases, final int start, final int length, final String expected) {
+        final Kmer kmer = new Kmer(allBases, start, length);
+        final long packed = kmer.pack();
+        Assert.assertNotEquals(packed, Kmer.UNPACKABLE);
+        Assert.assertEquals(packed, Kmer.pack(expected.getBytes(), 0, length));
+        Assert.assertEquals(packed, new Kmer(expected).pack());
+        if (start > 0) {
+            final long previous = Kmer.pack(allBases, start - 1, length);
+            Assert.assertEquals(Kmer.packNext(previous, allBases[start + length - 1], length), packed);
+        }
+    }
+
+    @Test
+    public void testPackedKmersAreEqualIffKmersAreEqual() {
+        final List<Kmer> kmers = new ArrayList<>();
+        for (final String bases : Arrays.asList("A", "C", "G", "T", "AA", "AC", "CA", "AAA", "TTT", "ACGT", "TGCA", "AACGT", "CACGT")) {
+            kmers.add(new Kmer(bases));
+        }
+        for (final Kmer first : kmers) {
+            for (final Kmer second : kmers) {
+                Assert.assertEquals(first.pack() == second.pack(), first.equals(second), first + " " + second);
+            }
+        }
+    }
+
+    @Test
+    public void testUnpackableKmers() {
+        Assert.assertEquals(new Kmer("ACNGT").pack(), Kmer.UNPACKABLE);
+        Assert.assertEquals(new Kmer("acgt").pack(), Kmer.UNPACKABLE);
+        Assert.assertEquals(Kmer.packNext(new Kmer("ACGT").pack(), (byte)'N', 4), Kmer.UNPACKABLE);
+        Assert.assertEquals(Kmer.packNext(Kmer.UNPACKABLE, (byte)'A', 4), Kmer.UNPACKABLE);
+
+        final String longestPackable = new String(new char[Kmer.MAX_PACKED_LENGTH]).replace('\0', 'T');
+        Assert.assertNotEquals(new Kmer(longestPackable).pack(), Kmer.UNPACKABLE);
+        Assert.assertEquals(new Kmer(longestPackable + "T").pack(), Kmer.UNPACKABLE);
+    }
 }
@@ -7,9 +7,11 @@ import htsjdk.variant.variantcontext.Allele;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
+import org.broadinstitute.hellbender.utils.Utils;
 import org.broadinstitute.hellbender.utils.genotyper.*;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.pairhmm.PairHMM;
+import org.broadinstitute.hellbender.utils.pairhmm.PairHMMInputScoreImputator;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
 import org.broadinstitute.hellbender.utils.read.GATKRead;
 import org.broadinstitute.hellbender.GATKBaseTest;
@@ -198,4 +200,85 @@ public final class PairHMMLikelihoodCalculationEngineUnitTest extends GATKBaseTe
         Assert.assertTrue(v1 > v2, "matching haplotype should have a higher likelihood");
         lce.close();
     }
+
+    @Test
+    public void testDuplicateReadsAreEvaluatedOnce() {
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTACGTACGTTTGACCAGTACGA".getBytes(), true),
+                new Haplotype("ACGTACGTACTTTTGACCAGTACGA".getBytes()),
+                new Haplotype("ACGTACGTACGTTTGACCGGTACGA".getBytes()));
+        final byte[] bases = "CGTACGTACTTTTGACCAG".getBytes();
+        final byte[] quals = Utils.dupBytes((byte) 30, bases.length);
+        final byte[] otherQuals = Utils.dupBytes((byte) 25, bases.length);
+
+        // three copies of a read across two samples, and a read with the same bases but other qualities
+        final Map<String, List<GATKRead>> perSampleReadList = new LinkedHashMap<>();
+        perSampleReadList.put("sample1", Arrays.asList(makeRead("read1", bases, quals), makeRead("read2", bases, otherQuals), makeRead("read3", bases, quals)));
+        perSampleReadList.put("sample2", Arrays.asList(makeRead("read4", bases, quals)));
+        final SampleList samples = new IndexedSampleList(perSampleReadList.keySet());
+
+        final PairHMMLikelihoodCalculationEngine engine = makeLoglessEngine();
+        final AlleleLikelihoods<GATKRead, Haplotype> likelihoods = engine.computeReadLikelihoods(haplotypes, null, samples, perSampleReadList, false);
+        Assert.assertEquals(engine.getNumberOfDuplicateReadsSkipped(), 2);
+        engine.close();
+
+        // each read on its own, so that nothing is deduplicated
+        for (int s = 0; s < samples.numberOfSamples(); s++) {
+            final List<GATKRead> reads = likelihoods.sampleEvidence(s);
+            for (int r = 0; r < reads.size(); r++) {
+                final GATKRead read = reads.get(r);
+                final PairHMMLikelihoodCalculationEngine singleReadEngine = makeLoglessEngine();
+                final AlleleLikelihoods<GATKRead, Haplotype> expected = singleReadEngine.computeReadLikelihoods(haplotypes, null,
+                        new IndexedSampleList("sample"), Collections.singletonMap("sample", Collections.singletonList(read.copy())), false);
+                Assert.assertEquals(singleReadEngine.getNumberOfDuplicateReadsSkipped(), 0);
+                singleReadEngine.close();
+                for (int h = 0; h < haplotypes.size(); h++) {
+                    Assert.assertEquals(likelihoods.sampleMatrix(s).get(h, r), expected.sampleMatrix(0).get(h, 0), "sample " + s + ", read " + r + ", haplotype " + h);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReadsAreImputedOnce() {
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTACGTACGTTTGACCAGTACGA".getBytes(), true),
+                new Haplotype("ACGTACGTACTTTTGACCAGTACGA".getBytes()));
+        final byte[] bases = "CGTACGTACTTTTGACCAG".getBytes();
+        final byte[] otherBases = "CGTACGTACGTTTGACCAG".getBytes();
+        final byte[] quals = Utils.dupBytes((byte) 30, bases.length);
+        final byte[] otherQuals = Utils.dupBytes((byte) 25, bases.length);
+
+        final List<List<GATKRead>> regions = Arrays.asList(
+                // no duplicates
+                Arrays.asList(makeRead("read1", bases, quals), makeRead("read2", bases, otherQuals), makeRead("read3", otherBases, quals)),
+                // duplicates
+                Arrays.asList(makeRead("read1", bases, quals), makeRead("read2", bases, otherQuals), makeRead("read3", bases, quals), makeRead("read4", bases, quals)));
+        for (final List<GATKRead> reads : regions) {
+            final PairHMMLikelihoodCalculationEngine engine = makeLoglessEngine();
+            final PairHMMInputScoreImputator imputator = engine.getInputScoreImputator();
+            final Map<GATKRead, Integer> imputationsPerRead = new IdentityHashMap<>();
+            engine.setInputScoreImputator(read -> {
+                imputationsPerRead.merge(read, 1, Integer::sum);
+                return imputator.impute(read);
+            });
+
+            engine.computeReadLikelihoods(haplotypes, null, new IndexedSampleList("sample"), Collections.singletonMap("sample", reads), false);
+            engine.close();
+            Assert.assertTrue(imputationsPerRead.values().stream().allMatch(n -> n == 1), "reads imputed more than once: " + imputationsPerRead.values());
+            Assert.assertTrue(imputationsPerRead.size() <= reads.size());
+        }
+    }
+
+    private static PairHMMLikelihoodCalculationEngine makeLoglessEngine() {
+        return new PairHMMLikelihoodCalculationEngine((byte) SAMUtils.MAX_PHRED_SCORE, null, new PairHMMNativeArguments(),
+                PairHMM.Implementation.LOGLESS_CACHING, MathUtils.logToLog10(QualityUtils.qualToErrorProbLog10(new LikelihoodEngineArgumentCollection().phredScaledGlobalReadMismappingRate)),
+                PairHMMLikelihoodCalculationEngine.PCRErrorModel.CONSERVATIVE);
+    }
+
+    private static GATKRead makeRead(final String name, final byte[] bases, final byte[] quals) {
+        final GATKRead read = ArtificialReadUtils.createArtificialRead(ArtificialReadUtils.createArtificialSamHeader(), name, 0, 3, bases, quals, bases.length + "M");
+        read.setMappingQuality(60);
+        return read;
+    }
 }
@@ -680,6 +680,100 @@ public final class GraphBasedKBestHaplotypeFinderUnitTest extends GATKBaseTest {
         }
     }
 
+    /**
+     * A chain of bubbles, each of them with a random weight on either branch, so that the graph has {@code 2^numBubbles}
+     * paths and many of them share prefixes.
+     */
+    private static SeqGraph makeChainOfBubbles(final int numBubbles, final Random random) {
+        final SeqGraph graph = new SeqGraph(11);
+        SeqVertex last = new SeqVertex("ACGT");
+        graph.addVertex(last);
+        for (int i = 0; i < numBubbles; i++) {
+            final SeqVertex top = new SeqVertex("A");
+            final SeqVertex bottom = new SeqVertex("C");
+            final SeqVertex merge = new SeqVertex("GT");
+            graph.addVertices(top, bottom, merge);
+            graph.addEdge(last, top, new BaseEdge(false, 1 + random.nextInt(10)));
+            graph.addEdge(last, bottom, new BaseEdge(false, 1 + random.nextInt(10)));
+            graph.addEdge(top, merge, new BaseEdge(false, 1));
+            graph.addEdge(bottom, merge, new BaseEdge(false, 1));
+            last = merge;
+        }
+        return graph;
+    }
+
+    // all the paths of an acyclic graph, extended the way the search does
+    private static void enumeratePaths(final SeqGraph graph, final KBestHaplotype<SeqVertex, BaseEdge> path, final List<KBestHaplotype<SeqVertex, BaseEdge>> result) {
+        final Set<BaseEdge> outgoingEdges = graph.outgoingEdgesOf(path.getLastVertex());
+        if (outgoingEdges.isEmpty()) {
+            result.add(path);
+            return;
+        }
+        final int totalOutgoingMultiplicity = outgoingEdges.stream().mapToInt(BaseEdge::getMultiplicity).sum();
+        for (final BaseEdge edge : outgoingEdges) {
+            enumeratePaths(graph, new KBestHaplotype<>(path, edge, totalOutgoingMultiplicity), result);
+        }
+    }
+
+    @Test
+    public void testBestHaplotypesMatchExhaustiveSearch() {
+        final SeqGraph graph = makeChainOfBubbles(10, new Random(5));
+        final GraphBasedKBestHaplotypeFinder<SeqVertex, BaseEdge> finder = new GraphBasedKBestHaplotypeFinder<>(graph);
+
+        final List<KBestHaplotype<SeqVertex, BaseEdge>> allPaths = new ArrayList<>();
+        enumeratePaths(graph, new KBestHaplotype<>(graph.getSources().iterator().next(), graph), allPaths);
+        allPaths.sort(finder.K_BEST_HAPLOTYPE_COMPARATOR);
+        Assert.assertEquals(allPaths.size(), 1024);
+
+        for (final int k : new int[] {1, 10, 128, 1024}) {
+            final List<KBestHaplotype<SeqVertex, BaseEdge>> best = finder.findBestHaplotypes(k);
+            Assert.assertEquals(best.size(), k);
+            for (int i = 0; i < k; i++) {
+                Assert.assertEquals(best.get(i).getEdges(), allPaths.get(i).getEdges());
+                Assert.assertEquals(best.get(i).getBases(), allPaths.get(i).getBases());
+                Assert.assertEquals(best.get(i).score(), allPaths.get(i).score());
+                Assert.assertEquals(best.get(i).getLastVertex(), allPaths.get(i).getLastVertex());
+            }
+            Assert.assertTrue(finder.getNumExpansions() > 0);
+        }
+    }
+
+    @Test
+    public void testBoundedQueue() {
+        final SeqGraph graph = makeChainOfBubbles(16, new Random(7));
+        final SeqVertex source = graph.getSources().iterator().next();
+        final SeqVertex sink = graph.getSinks().iterator().next();
+        final GraphBasedKBestHaplotypeFinder<SeqVertex, BaseEdge> unbounded = new GraphBasedKBestHaplotypeFinder<>(graph);
+        unbounded.findBestHaplotypes(1000);
+
+        final GraphBasedKBestHaplotypeFinder<SeqVertex, BaseEdge> bounded = new GraphBasedKBestHaplotypeFinder<>(graph);
+        bounded.setMaxPathsInQueue(64);
+        final List<KBestHaplotype<SeqVertex, BaseEdge>> best = bounded.findBestHaplotypes(1000);
+
+        // the queue never holds more than its bound plus the extensions of one vertex
+        Assert.assertTrue(unbounded.getPeakQueueSize() > 64, "peak queue size " + unbounded.getPeakQueueSize());
+        Assert.assertTrue(bounded.getPeakQueueSize() <= 64 + 2, "peak queue size " + bounded.getPeakQueueSize());
+        Assert.assertTrue(bounded.getNumPrunedPaths() > unbounded.getNumPrunedPaths());
+
+        // pruning drops paths, but what is found are still complete paths in order of decreasing score
+        Assert.assertFalse(best.isEmpty());
+        for (int i = 0; i < best.size(); i++) {
+            final KBestHaplotype<SeqVertex, BaseEdge> haplotype = best.get(i);
+            Assert.assertEquals(haplotype.getFirstVertex(), source);
+            Assert.assertEquals(haplotype.getLastVertex(), sink);
+            Assert.assertEquals(haplotype.length(), 32);
+            if (i > 0) {
+                Assert.assertTrue(best.get(i - 1).score() >= haplotype.score());
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testMaxPathsInQueueMustBePositive() {
+        final SeqGraph graph = makeChainOfBubbles(1, new Random(1));
+        new GraphBasedKBestHaplotypeFinder<>(graph).setMaxPathsInQueue(0);
+    }
+
     @Test(enabled = true)
     public void testLeftAlignCigarSequentiallyAdjacentID() {
         final String ref = "GTCTCTCTCTCTCTCTCTATATATATATATATATTT";
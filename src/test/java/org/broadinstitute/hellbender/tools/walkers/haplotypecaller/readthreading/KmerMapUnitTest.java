@@ -0,0 +1,112 @@
+package org.broadinstitute.hellbender.tools.walkers.haplotypecaller.readthreading;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.Kmer;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+public final class KmerMapUnitTest extends GATKBaseTest {
+
+    @Test
+    public void testBehavesLikeLinkedHashMap() {
+        final Random random = new Random(13);
+        final byte[] alphabet = {'A', 'C', 'G', 'T', 'N'};
+        final KmerMap<Integer> kmerMap = new KmerMap<>();
+        final Map<Kmer, Integer> expected = new LinkedHashMap<>();
+
+        for (int operation = 0; operation < 10000; operation++) {
+            // short kmers over a small alphabet so that keys repeat, plus a few that are too long to be packed
+            final int length = random.nextInt(10) == 0 ? Kmer.MAX_PACKED_LENGTH + 1 : 1 + random.nextInt(4);
+            final byte[] bases = new byte[length];
+            for (int i = 0; i < length; i++) {
+                bases[i] = alphabet[random.nextInt(random.nextInt(20) == 0 ? alphabet.length : 4)];
+            }
+            final Kmer kmer = new Kmer(bases);
+
+            switch (random.nextInt(4)) {
+                case 0:
+                    Assert.assertEquals(kmerMap.put(kmer, operation), expected.put(kmer, operation));
+                    break;
+                case 1:
+                    Assert.assertEquals(kmerMap.putIfAbsent(kmer, operation), expected.putIfAbsent(kmer, operation));
+                    break;
+                case 2:
+                    Assert.assertEquals(kmerMap.remove(kmer), expected.remove(kmer));
+                    break;
+                default:
+                    Assert.assertEquals(kmerMap.get(kmer), expected.get(kmer));
+                    Assert.assertEquals(kmerMap.containsKey(kmer), expected.containsKey(kmer));
+                    // the same lookups by position, in a longer sequence
+                    final byte[] sequence = ("AC" + new String(bases) + "GT").getBytes();
+                    final long packed = Kmer.pack(sequence, 2, length);
+                    Assert.assertEquals(kmerMap.get(sequence, 2, length, packed), expected.get(kmer));
+                    Assert.assertEquals(kmerMap.containsKey(sequence, 2, length, packed), expected.containsKey(kmer));
+            }
+            Assert.assertEquals(kmerMap.size(), expected.size());
+        }
+
+        Assert.assertEquals(new ArrayList<>(kmerMap.values()), new ArrayList<>(expected.values()));
+        Assert.assertEquals(kmerMap.values().size(), expected.size());
+    }
+
+    @Test
+    public void testKmersFromDifferentArraysAreTheSameKey() {
+        final KmerMap<String> kmerMap = new KmerMap<>();
+        kmerMap.put(new Kmer("ACGTNAC".getBytes(), 1, 3), "CGT");
+        kmerMap.put(new Kmer("ACGTNAC".getBytes(), 3, 3), "TNA");
+
+        Assert.assertEquals(kmerMap.get(new Kmer("CGT")), "CGT");
+        Assert.assertEquals(kmerMap.get(new Kmer("TNA")), "TNA");
+        Assert.assertNull(kmerMap.get(new Kmer("CGTA")));
+        Assert.assertEquals(kmerMap.size(), 2);
+    }
+
+    @Test
+    public void testRemovedValuesAreCompacted() {
+        final KmerMap<Integer> kmerMap = new KmerMap<>();
+        final List<Kmer> kmers = new ArrayList<>();
+        final byte[] sequence = new byte[1000 + 8];
+        final Random random = new Random(5);
+        for (int i = 0; i < sequence.length; i++) {
+            sequence[i] = "ACGT".getBytes()[random.nextInt(4)];
+        }
+        for (int i = 0; i < 1000; i++) {
+            final Kmer kmer = new Kmer(sequence, i, 8);
+            if (kmerMap.putIfAbsent(kmer, i) == null) {
+                kmers.add(kmer);
+            }
+        }
+        // remove all but every tenth kmer, which compacts the values several times along the way
+        final List<Integer> expectedValues = new ArrayList<>();
+        for (int i = 0; i < kmers.size(); i++) {
+            final Kmer kmer = kmers.get(i);
+            final Integer value = kmerMap.get(kmer);
+            if (i % 10 == 0) {
+                expectedValues.add(value);
+            } else {
+                Assert.assertEquals(kmerMap.remove(kmer), value);
+            }
+        }
+
+        Assert.assertEquals(kmerMap.size(), expectedValues.size());
+        Assert.assertEquals(new ArrayList<>(kmerMap.values()), expectedValues);
+        for (int i = 0; i < kmers.size(); i++) {
+            final Kmer kmer = kmers.get(i);
+            Assert.assertEquals(kmerMap.get(kmer), i % 10 == 0 ? expectedValues.get(i / 10) : null);
+        }
+        // values added after compaction still come last
+        final Kmer unpackable = new Kmer("ACGTN");
+        kmerMap.put(unpackable, -1);
+        Assert.assertEquals(kmerMap.get(unpackable), Integer.valueOf(-1));
+        Assert.assertEquals(kmerMap.get("ACGTN".getBytes(), 0, 5, Kmer.UNPACKABLE), Integer.valueOf(-1));
+        expectedValues.add(-1);
+        Assert.assertEquals(new ArrayList<>(kmerMap.values()), expectedValues);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNullValuesAreRejected() {
+        new KmerMap<String>().put(new Kmer("ACGT"), null);
+    }
+}
@@ -11,6 +11,7 @@ import htsjdk.variant.variantcontext.VariantContextBuilder;
 import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.engine.AssemblyRegion;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResult;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.AssemblyResultSet;
 import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.graphs.*;
 import org.broadinstitute.hellbender.utils.SimpleInterval;
@@ -31,6 +32,9 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
     private static final SWParameters DANGLING_END_SW_PARAMETERS = SmithWatermanAlignmentConstants.STANDARD_NGS;
@@ -64,6 +68,57 @@ public final class ReadThreadingAssemblerUnitTest extends GATKBaseTest {
 
     }
 
+    @Test
+    public void testConcurrentKmerAssemblyMatchesSequentialAssembly() {
+        // the 30 base repeat makes the reference kmers of the requested sizes non-unique, so the larger sizes are tried too
+        final Random random = Utils.getRandomGenerator();
+        final String repeatUnit = randomBases(random, 30);
+        final byte[] refBases = (randomBases(random, 40) + repeatUnit + repeatUnit + randomBases(random, 40)).getBytes();
+        final byte[] altBases = refBases.clone();
+        altBases[20] = (byte) (altBases[20] == 'A' ? 'C' : 'A');
+        final SimpleInterval loc = new SimpleInterval("1", 100000, 100000 + refBases.length - 1);
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for ( int i = 0; i < 10; i++ ) {
+            final byte[] bases = (i % 2 == 0 ? refBases : altBases).clone();
+            reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + i, loc.getContig(), loc.getStart(), bases,
+                    Utils.dupBytes((byte) 30, bases.length), bases.length + "M"));
+        }
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            final ReadThreadingAssembler sequentialAssembler = makeAssemblerThatIncreasesKmerSizes();
+            final ReadThreadingAssembler concurrentAssembler = makeAssemblerThatIncreasesKmerSizes();
+            concurrentAssembler.setKmerAssemblyExecutor(executor);
+
+            final List<AssemblyResult> sequentialResults = sequentialAssembler.assemble(reads, new Haplotype(refBases, true), header,
+                    SmithWatermanJavaAligner.getInstance(), DANGLING_END_SW_PARAMETERS);
+            final List<AssemblyResult> concurrentResults = concurrentAssembler.assemble(reads, new Haplotype(refBases, true), header,
+                    SmithWatermanJavaAligner.getInstance(), DANGLING_END_SW_PARAMETERS);
+            Assert.assertEquals(concurrentResults.stream().map(AssemblyResult::getKmerSize).collect(Collectors.toList()), Collections.singletonList(35));
+            Assert.assertEquals(concurrentResults.stream().map(AssemblyResult::getKmerSize).collect(Collectors.toList()),
+                    sequentialResults.stream().map(AssemblyResult::getKmerSize).collect(Collectors.toList()));
+            Assert.assertEquals(concurrentResults.get(0).getStatus(), sequentialResults.get(0).getStatus());
+
+            Assert.assertEquals(assemble(concurrentAssembler, refBases, loc, reads), assemble(sequentialAssembler, refBases, loc, reads));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static ReadThreadingAssembler makeAssemblerThatIncreasesKmerSizes() {
+        return new ReadThreadingAssembler(ReadThreadingAssembler.DEFAULT_NUM_PATHS_PER_GRAPH, Arrays.asList(10, 25), false, false,
+                1, 2, false, 0.001, 2, 2, Integer.MAX_VALUE, false, false, 3);
+    }
+
+    private static String randomBases(final Random random, final int length) {
+        final StringBuilder bases = new StringBuilder(length);
+        for ( int i = 0; i < length; i++ ) {
+            bases.append("ACGT".charAt(random.nextInt(4)));
+        }
+        return bases.toString();
+    }
+
     @DataProvider(name = "AssembleIntervalsData")
     public Object[][] makeAssembleIntervalsData() {
         List<Object[]> tests = new ArrayList<>();
@@ -62,6 +62,14 @@ public final class ReadThreadingGraphUnitTest extends GATKBaseTest {
         assertNonUniques(assembler, "ACA", "CAC");
     }
 
+    @Test(enabled = ! DEBUG)
+    public void testNonUniqueKmersWithNs() {
+        // kmers with Ns can't be packed, and the kmers that follow them have to be packed from scratch
+        final ReadThreadingGraph assembler = new ReadThreadingGraph(3);
+        assembler.addSequence(getBytes("GTACGNACGNACT"), true);
+        assertNonUniques(assembler, "ACG", "CGN", "GNA", "NAC");
+    }
+
     @Test(enabled = ! DEBUG)
     public void testReadsCreateNonUnique() {
         final ReadThreadingGraph assembler = new ReadThreadingGraph(3);
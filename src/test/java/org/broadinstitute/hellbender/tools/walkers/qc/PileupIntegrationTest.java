@@ -1,6 +1,8 @@
 package org.broadinstitute.hellbender.tools.walkers.qc;
 
 import org.broadinstitute.hellbender.CommandLineProgramTest;
+import org.broadinstitute.hellbender.cmdline.StandardArgumentDefinitions;
+import org.broadinstitute.hellbender.engine.LocusWalker;
 import org.broadinstitute.hellbender.exceptions.UserException;
 import org.broadinstitute.hellbender.testutils.IntegrationTestSpec;
 import org.testng.annotations.Test;
@@ -28,6 +30,21 @@ public class PileupIntegrationTest extends CommandLineProgramTest {
         testSpec.executeTest("testSimplePileup", this);
     }
 
+    @Test
+    public void testMultiThreadedPileup() throws IOException {
+        // shards much smaller than the interval, so that many reads overlap several shards
+        IntegrationTestSpec testSpec = new IntegrationTestSpec(
+            " -L 20:9999900-10000000" +
+                " -R " + b37_reference_20_21 +
+                " -I " + NA12878_20_21_WGS_bam +
+                " --" + StandardArgumentDefinitions.THREADS_LONG_NAME + " 4" +
+                " --" + LocusWalker.LOCUS_SHARD_SIZE_NAME + " 7" +
+                " -O %s",
+            Arrays.asList(TEST_OUTPUT_DIRECTORY + "expectedSimplePileup.txt")
+        );
+        testSpec.executeTest("testMultiThreadedPileup", this);
+    }
+
     @Test
     public void testVerbosePileup() throws IOException {
         // GATK 3.5 code have a the last line with a REDUCE RESULT that was removed in this implementation
@@ -1,13 +1,25 @@
 package org.broadinstitute.hellbender.transformers;
 
+import htsjdk.samtools.SAMFileHeader;
+import htsjdk.samtools.SAMReadGroupRecord;
+import org.broadinstitute.hellbender.tools.ApplyBQSRArgumentCollection;
+import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
-import org.broadinstitute.hellbender.utils.recalibration.RecalDatum;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.recalibration.*;
 import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.ContextCovariate;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.CovariateKeyCache;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
 import org.testng.Assert;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 public final class BQSRReadTransformerUnitTest extends GATKBaseTest {
     @Test
@@ -89,4 +101,84 @@ public final class BQSRReadTransformerUnitTest extends GATKBaseTest {
             }
         }
     }
+
+    @DataProvider(name = "contextSizes")
+    public Object[][] getContextSizes() {
+        return new Object[][]{
+                {2, true},
+                {6, true},
+                // the context covariate has too many keys for its deltas to be precomputed
+                {7, false}
+        };
+    }
+
+    @Test(dataProvider = "contextSizes")
+    public void testRecalibratedQualitiesMatchTableLookups(final int contextSize, final boolean precomputed) {
+        final SAMReadGroupRecord readGroup = new SAMReadGroupRecord("rg1");
+        readGroup.setPlatform("ILLUMINA");
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeaderWithReadGroup(readGroup);
+        final RecalibrationArgumentCollection rac = new RecalibrationArgumentCollection();
+        rac.MISMATCHES_CONTEXT_SIZE = contextSize;
+        rac.INDELS_CONTEXT_SIZE = contextSize;
+        Assert.assertEquals(new ContextCovariate(rac).maximumKeyValue() + 1 <= BQSRReadTransformer.MAX_PRECOMPUTED_COVARIATE_KEYS, precomputed);
+
+        final Random random = new Random(contextSize);
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            final byte[] bases = new byte[50];
+            final byte[] quals = new byte[bases.length];
+            for (int j = 0; j < bases.length; j++) {
+                bases[j] = (byte) "ACGT".charAt(random.nextInt(4));
+                quals[j] = (byte) (20 + random.nextInt(10));
+            }
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + i, 0, 1, bases, quals, bases.length + "M");
+            read.setReadGroup(readGroup.getReadGroupId());
+            reads.add(read);
+        }
+
+        // tables with random observations for every key of the reads, round-tripped through a report as in ApplyBQSR
+        final StandardCovariateList covariates = new StandardCovariateList(rac, header);
+        final RecalibrationTables tables = new RecalibrationTables(covariates);
+        final int substitution = EventType.BASE_SUBSTITUTION.ordinal();
+        for (final GATKRead read : reads) {
+            for (final int[] keys : RecalUtils.computeCovariates(read, header, covariates, false, new CovariateKeyCache()).getKeySet(EventType.BASE_SUBSTITUTION)) {
+                tables.getReadGroupTable().put(randomRecalDatum(random, keys[1]), keys[0], substitution);
+                tables.getQualityScoreTable().put(randomRecalDatum(random, keys[1]), keys[0], keys[1], substitution);
+                for (int i = covariates.numberOfSpecialCovariates(); i < covariates.size(); i++) {
+                    if (keys[i] >= 0) {
+                        tables.getTable(i).put(randomRecalDatum(random, keys[1]), keys[0], keys[1], keys[i], substitution);
+                    }
+                }
+            }
+        }
+        final RecalibrationReport report = new RecalibrationReport(RecalUtils.createRecalibrationGATKReport(
+                rac.generateReportTable(covariates.covariateNames()), new QuantizationInfo(tables, rac.QUANTIZING_LEVELS), tables, covariates));
+        final RecalibrationTables reportTables = report.getRecalibrationTables();
+        final BQSRReadTransformer transformer = new BQSRReadTransformer(header, report, new ApplyBQSRArgumentCollection());
+
+        for (final GATKRead read : reads) {
+            final int[][] keySets = RecalUtils.computeCovariates(read, header, report.getCovariates(), false, new CovariateKeyCache()).getKeySet(EventType.BASE_SUBSTITUTION);
+            final byte[] recalibratedQuals = transformer.apply(read.copy()).getBaseQualities();
+            for (int offset = 0; offset < keySets.length; offset++) {
+                final int[] keys = keySets[offset];
+                final RecalDatum empiricalQualRG = reportTables.getReadGroupTable().get2Keys(keys[0], substitution);
+                final RecalDatum empiricalQualQS = reportTables.getQualityScoreTable().get3Keys(keys[0], keys[1], substitution);
+                final RecalDatum[] empiricalQualCovs = new RecalDatum[covariates.size() - covariates.numberOfSpecialCovariates()];
+                for (int i = covariates.numberOfSpecialCovariates(); i < covariates.size(); i++) {
+                    if (keys[i] >= 0) {
+                        empiricalQualCovs[i - covariates.numberOfSpecialCovariates()] = reportTables.getTable(i).get4Keys(keys[0], keys[1], keys[i], substitution);
+                    }
+                }
+                final double expected = BQSRReadTransformer.hierarchicalBayesianQualityEstimate(empiricalQualRG.getEstimatedQReported(),
+                        empiricalQualRG, empiricalQualQS, empiricalQualCovs);
+                Assert.assertEquals(recalibratedQuals[offset], QualityUtils.boundQual(MathUtils.fastRound(expected), RecalDatum.MAX_RECALIBRATED_Q_SCORE),
+                        "offset " + offset + " of " + read.getName());
+            }
+        }
+    }
+
+    private static RecalDatum randomRecalDatum(final Random random, final int reportedQual) {
+        final long observations = 1 + random.nextInt(10000);
+        return new RecalDatum(observations, random.nextInt((int) Math.min(observations, 100)), (byte) reportedQual);
+    }
 }
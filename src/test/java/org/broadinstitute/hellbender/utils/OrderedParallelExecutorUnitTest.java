@@ -0,0 +1,80 @@
+package org.broadinstitute.hellbender.utils;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class OrderedParallelExecutorUnitTest extends GATKBaseTest {
+
+    @DataProvider(name = "threadsAndPendingTasks")
+    public Object[][] threadsAndPendingTasks() {
+        return new Object[][] {
+                {1, 1}, {1, 5}, {4, 4}, {4, 16}, {8, 100}
+        };
+    }
+
+    @Test(dataProvider = "threadsAndPendingTasks")
+    public void testResultsAreConsumedInSubmissionOrder(final int threads, final int maxPendingTasks) {
+        final int numberOfTasks = 200;
+        final Random random = new Random(13);
+        final List<Integer> consumed = new ArrayList<>();
+        try (final OrderedParallelExecutor<Integer> executor = new OrderedParallelExecutor<>(threads, maxPendingTasks, "test", consumed::add)) {
+            for (int i = 0; i < numberOfTasks; i++) {
+                final int task = i;
+                final long sleep = random.nextInt(3);
+                executor.submit(() -> {
+                    Thread.sleep(sleep);
+                    return task;
+                });
+                Assert.assertTrue(executor.numberOfPendingTasks() <= maxPendingTasks);
+            }
+            executor.drain();
+            Assert.assertEquals(executor.numberOfPendingTasks(), 0);
+        }
+        Assert.assertEquals(consumed, IntStream.range(0, numberOfTasks).boxed().collect(Collectors.toList()));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testTaskExceptionIsRethrown() {
+        try (final OrderedParallelExecutor<Integer> executor = new OrderedParallelExecutor<>(2, 2, "test", i -> {})) {
+            executor.submit(() -> 1);
+            executor.submit(() -> { throw new IllegalStateException("task failure"); });
+            executor.drain();
+        }
+    }
+
+    @Test
+    public void testCloseWaitsForRunningTasks() throws InterruptedException {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        try (final OrderedParallelExecutor<Integer> executor = new OrderedParallelExecutor<>(2, 2, "test", i -> {})) {
+            executor.submit(() -> {
+                started.countDown();
+                // keep running when interrupted, like a task that doesn't check for interruption
+                final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                while (System.nanoTime() < end) {
+                    Thread.yield();
+                }
+                finished.set(true);
+                return 1;
+            });
+            started.await();
+        }
+        Assert.assertTrue(finished.get(), "close returned while a task was still running");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFewerPendingTasksThanThreads() {
+        new OrderedParallelExecutor<Integer>(4, 2, "test", i -> {});
+    }
+}
@@ -519,6 +519,50 @@ public final class LocusIteratorByStateUnitTest extends LocusIteratorByStateBase
         }
     }
 
+    @Test(dataProvider = "LIBS_ComplexPileupTests")
+    public void testRecycledPileupStorage(final int nReadsPerLocus,
+                                          final int nLoci,
+                                          final int nSamples,
+                                          final int downsampleTo) {
+        final LIBSDownsamplingInfo downsamplingInfo = downsampleTo == -1 ? LocusIteratorByState.NO_DOWNSAMPLING : new LIBSDownsamplingInfo(true, downsampleTo);
+        final ArtificialBAMBuilder bamBuilder = new ArtificialBAMBuilder(header.getSequenceDictionary(), nReadsPerLocus, nLoci);
+        bamBuilder.createAndSetHeader(nSamples).setReadLength(10).setAlignmentStart(1);
+        final List<GATKRead> reads = bamBuilder.makeReads();
+
+        Utils.resetRandomGenerator();
+        final LocusIteratorByState expected = new LocusIteratorByState(new FakeCloseableIterator<>(reads.iterator()),
+                downsamplingInfo, bamBuilder.getSamples(), bamBuilder.getHeader(), true, false);
+        final List<List<String>> expectedPileups = new ArrayList<>();
+        expected.forEachRemaining(context -> expectedPileups.add(describePileup(context)));
+
+        Utils.resetRandomGenerator();
+        final LocusIteratorByState recycling = new LocusIteratorByState(new FakeCloseableIterator<>(reads.iterator()),
+                downsamplingInfo, bamBuilder.getSamples(), bamBuilder.getHeader(), true, false, true);
+        AlignmentContext previous = null;
+        int i = 0;
+        while ( recycling.hasNext() ) {
+            final AlignmentContext context = recycling.next();
+            Assert.assertEquals(describePileup(context), expectedPileups.get(i), "pileup " + i);
+            // the previous pileup must still be valid, for consumers that look one pileup ahead
+            if ( previous != null ) {
+                Assert.assertEquals(describePileup(previous), expectedPileups.get(i - 1), "pileup " + (i - 1));
+            }
+            previous = context;
+            i++;
+        }
+        Assert.assertEquals(i, expectedPileups.size());
+    }
+
+    private static List<String> describePileup(final AlignmentContext context) {
+        final List<String> elements = new ArrayList<>();
+        elements.add(context.getLocation().toString());
+        for ( final PileupElement pe : context.getBasePileup() ) {
+            elements.add(pe.getRead().getName() + " " + pe.getOffset() + " " + pe.getCurrentCigarElement() + " "
+                    + pe.getCurrentCigarOffset() + " " + pe.getOffsetInCurrentCigar());
+        }
+        return elements;
+    }
+
     private void AssertWellOrderedPileup(final ReadPileup pileup) {
         if ( ! pileup.isEmpty() ) {
             final int leftMostPos = -1;
@@ -8,6 +8,9 @@ import org.broadinstitute.hellbender.utils.BaseUtils;
 import org.broadinstitute.hellbender.utils.MathUtils;
 import org.broadinstitute.hellbender.utils.QualityUtils;
 import org.broadinstitute.hellbender.utils.Utils;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
@@ -697,6 +700,66 @@ public final class PairHMMUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testPrefixSharingOrder() {
+        final List<Haplotype> haplotypes = Arrays.asList(
+                new Haplotype("ACGTT".getBytes(), true),
+                new Haplotype("ACGA".getBytes()),
+                new Haplotype("TCGT".getBytes()),
+                new Haplotype("ACGT".getBytes()),
+                new Haplotype("ACCTT".getBytes()));
+        // shorter haplotypes first, each length in lexicographic order
+        Assert.assertEquals(PairHMM.prefixSharingOrder(haplotypes), new int[] {1, 3, 2, 4, 0});
+        Assert.assertEquals(PairHMM.prefixSharingOrder(Collections.emptyList()), new int[0]);
+    }
+
+    @DataProvider(name = "PrefixSharingHMMs")
+    public Object[][] makePrefixSharingHMMs() {
+        return new Object[][] {{new LoglessPairHMM()}, {new Log10PairHMM(false)}};
+    }
+
+    @Test(dataProvider = "PrefixSharingHMMs")
+    public void testLikelihoodsWithPrefixSharingMatchUncachedLikelihoods(final PairHMM hmm) {
+        final Random random = new Random(5);
+        final String root = "AACCGGTTTTTGGGCCCAAACGTACGTACAGTTGGTCAACATCGATCAGG";
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        haplotypes.add(new Haplotype(root.getBytes(), true));
+        // variations on the reference at various positions, plus one of another length, in no particular order
+        for (final int position : new int[] {40, 3, 25, 41, 10, 26}) {
+            final byte[] bases = root.getBytes();
+            bases[position] = bases[position] == 'A' ? (byte) 'C' : (byte) 'A';
+            haplotypes.add(new Haplotype(bases));
+        }
+        haplotypes.add(new Haplotype((root + "T").getBytes()));
+
+        final List<GATKRead> reads = new ArrayList<>();
+        for (int r = 0; r < 5; r++) {
+            final int readLength = 20 + random.nextInt(20);
+            final int start = random.nextInt(root.length() - readLength);
+            final byte[] readBases = root.substring(start, start + readLength).getBytes();
+            reads.add(ArtificialReadUtils.createArtificialRead(readBases, Utils.dupBytes((byte) (20 + r), readLength), readLength + "M"));
+        }
+
+        final PairHMMInputScoreImputator inputScoreImputator = StandardPairHMMInputScoreImputator.newInstance((byte) 10);
+        final LikelihoodMatrix<GATKRead, Haplotype> actual = new AlleleLikelihoods<>(new IndexedSampleList("sample"),
+                new IndexedAlleleList<>(haplotypes), Collections.singletonMap("sample", reads)).sampleMatrix(0);
+        hmm.computeLog10Likelihoods(actual, reads, inputScoreImputator);
+        Assert.assertTrue(hmm.getFractionOfCellsSkipped() > 0.0);
+
+        final PairHMM uncachedHMM = hmm instanceof LoglessPairHMM ? new LoglessPairHMM() : new Log10PairHMM(false);
+        uncachedHMM.initialize(root.length(), root.length() + 1);
+        for (int r = 0; r < reads.size(); r++) {
+            final GATKRead read = reads.get(r);
+            final PairHMMInputScoreImputation inputScores = inputScoreImputator.impute(read);
+            for (int h = 0; h < haplotypes.size(); h++) {
+                final double expected = uncachedHMM.computeReadLikelihoodGivenHaplotypeLog10(haplotypes.get(h).getBases(), read.getBases(),
+                        read.getBaseQualities(), inputScores.insOpenPenalties(), inputScores.delOpenPenalties(), inputScores.gapContinuationPenalties(), true, null);
+                Assert.assertEquals(actual.get(h, r), expected, 1e-9, "haplotype " + h + ", read " + r);
+                Assert.assertEquals(hmm.getLogLikelihoodArray()[r * haplotypes.size() + h], expected, 1e-9, "haplotype " + h + ", read " + r);
+            }
+        }
+    }
+
     private int makeDiff(final byte[] bytes, final int site, final int minSize) {
         if ( site < bytes.length ) {
             bytes[site] = 'C';
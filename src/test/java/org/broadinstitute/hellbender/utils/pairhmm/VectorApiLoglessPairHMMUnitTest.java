@@ -0,0 +1,119 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import htsjdk.samtools.SAMFileHeader;
+import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.PairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.StandardPairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.VectorApiUtils;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
+import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
+import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
+import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
+import org.broadinstitute.hellbender.utils.read.GATKRead;
+import org.broadinstitute.hellbender.utils.read.ReadUtils;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+public final class VectorApiLoglessPairHMMUnitTest extends GATKBaseTest {
+
+    private static final String SAMPLE = "sample";
+    private static final byte[] BASES = {'A', 'C', 'G', 'T', 'N'};
+
+    private static PairHMM makeVectorApiPairHMM() {
+        try {
+            return PairHMM.Implementation.VECTOR_API_LOGLESS_CACHING.makeNewHMM(new PairHMMNativeArguments());
+        } catch (final UserException.HardwareFeatureException e) {
+            throw new SkipException("the Java Vector API is not available: " + e.getMessage());
+        }
+    }
+
+    @DataProvider(name = "regionShapes")
+    public Object[][] regionShapes() {
+        return new Object[][] {
+                // haplotype count, haplotype length, maximum read length, read count
+                {1, 1, 1, 5},
+                {2, 10, 10, 20},
+                {3, 50, 17, 30},
+                {4, 300, 151, 40},
+                {2, 37, 60, 20}     // reads longer than the haplotypes
+        };
+    }
+
+    @Test(dataProvider = "regionShapes")
+    public void testMatchesLoglessPairHMM(final int haplotypeCount, final int haplotypeLength, final int maxReadLength, final int readCount) {
+        final Random random = new Random(haplotypeCount * 31 + haplotypeLength);
+        final List<Haplotype> haplotypes = new ArrayList<>(haplotypeCount);
+        for (int h = 0; h < haplotypeCount; h++) {
+            haplotypes.add(new Haplotype(randomBases(random, haplotypeLength), h == 0));
+        }
+
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final List<GATKRead> reads = new ArrayList<>(readCount);
+        for (int r = 0; r < readCount; r++) {
+            final int readLength = 1 + random.nextInt(maxReadLength);
+            final GATKRead read = ArtificialReadUtils.createArtificialRead(header, "read" + r, 0, 1,
+                    randomBases(random, readLength), randomQuals(random, readLength, 6, 40), readLength + "M");
+            ReadUtils.setInsertionBaseQualities(read, randomQuals(random, readLength, 10, 50));
+            ReadUtils.setDeletionBaseQualities(read, randomQuals(random, readLength, 10, 50));
+            reads.add(read);
+        }
+
+        final PairHMMInputScoreImputator inputScoreImputator = StandardPairHMMInputScoreImputator.newInstance((byte) 10);
+        final LikelihoodMatrix<GATKRead, Haplotype> expected = likelihoods(haplotypes, reads);
+        final LikelihoodMatrix<GATKRead, Haplotype> actual = likelihoods(haplotypes, reads);
+        try (final PairHMM loglessPairHMM = new LoglessPairHMM();
+             final PairHMM vectorApiPairHMM = makeVectorApiPairHMM()) {
+            loglessPairHMM.computeLog10Likelihoods(expected, reads, inputScoreImputator);
+            vectorApiPairHMM.computeLog10Likelihoods(actual, reads, inputScoreImputator);
+        }
+
+        for (int h = 0; h < haplotypeCount; h++) {
+            for (int r = 0; r < readCount; r++) {
+                Assert.assertEquals(actual.get(h, r), expected.get(h, r), 1e-9, "haplotype " + h + ", read " + r);
+            }
+        }
+    }
+
+    @Test
+    public void testFastestAvailableUsesVectorApiWithoutNativeLibrary() {
+        if (!VectorApiUtils.vectorApiIsUseful()) {
+            throw new SkipException("the Java Vector API is not available or not useful on this platform");
+        }
+        try (final PairHMM hmm = PairHMM.Implementation.FASTEST_AVAILABLE.makeNewHMM(new PairHMMNativeArguments())) {
+            Assert.assertFalse(hmm instanceof LoglessPairHMM, "the scalar java PairHMM should only be used as a last resort");
+        }
+    }
+
+    private static LikelihoodMatrix<GATKRead, Haplotype> likelihoods(final List<Haplotype> haplotypes, final List<GATKRead> reads) {
+        return new AlleleLikelihoods<>(new IndexedSampleList(SAMPLE), new IndexedAlleleList<>(haplotypes),
+                Collections.singletonMap(SAMPLE, reads)).sampleMatrix(0);
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            // mostly ACGT, with the occasional N
+            bases[i] = BASES[random.nextInt(50) == 0 ? BASES.length - 1 : random.nextInt(BASES.length - 1)];
+        }
+        return bases;
+    }
+
+    private static byte[] randomQuals(final Random random, final int length, final int min, final int max) {
+        final byte[] quals = new byte[length];
+        for (int i = 0; i < length; i++) {
+            quals[i] = (byte) (min + random.nextInt(max - min + 1));
+        }
+        return quals;
+    }
+}
@@ -1,9 +1,15 @@
 package org.broadinstitute.hellbender.utils.pairhmm;
 
+import htsjdk.samtools.SAMFileHeader;
 import htsjdk.variant.variantcontext.Allele;
 import org.broadinstitute.gatk.nativebindings.pairhmm.PairHMMNativeArguments;
 import org.broadinstitute.hellbender.GATKBaseTest;
 import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.tools.walkers.haplotypecaller.StandardPairHMMInputScoreImputator;
+import org.broadinstitute.hellbender.utils.BaseUtils;
+import org.broadinstitute.hellbender.utils.genotyper.AlleleLikelihoods;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedAlleleList;
+import org.broadinstitute.hellbender.utils.genotyper.IndexedSampleList;
 import org.broadinstitute.hellbender.utils.genotyper.LikelihoodMatrix;
 import org.broadinstitute.hellbender.utils.haplotype.Haplotype;
 import org.broadinstitute.hellbender.utils.read.ArtificialReadUtils;
@@ -16,8 +22,7 @@ import picard.util.BasicInputParser;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 public final class VectorPairHMMUnitTest extends GATKBaseTest {
 
@@ -105,6 +110,81 @@ public final class VectorPairHMMUnitTest extends GATKBaseTest {
         }
     }
 
+    @Test
+    public void testBatchedLikelihoodsMatchPerSampleLikelihoods() {
+        final PairHMMNativeArguments args = new PairHMMNativeArguments();
+        args.useDoublePrecision = false;
+        args.maxNumberOfThreads = 1;
+
+        final Random random = new Random(13);
+        final List<Haplotype> haplotypes = new ArrayList<>();
+        for (int h = 0; h < 4; h++) {
+            haplotypes.add(new Haplotype(randomBases(random, 80), h == 0));
+        }
+        // the last sample has no reads
+        final SAMFileHeader header = ArtificialReadUtils.createArtificialSamHeader();
+        final Map<String, List<GATKRead>> perSampleReads = new LinkedHashMap<>();
+        final int[] readCounts = {7, 1, 12, 0};
+        for (int s = 0; s < readCounts.length; s++) {
+            final List<GATKRead> reads = new ArrayList<>();
+            for (int r = 0; r < readCounts[s]; r++) {
+                final int readLength = 20 + random.nextInt(40);
+                final byte[] quals = new byte[readLength];
+                for (int i = 0; i < readLength; i++) {
+                    quals[i] = (byte) (6 + random.nextInt(35));
+                }
+                reads.add(ArtificialReadUtils.createArtificialRead(header, "read" + s + "_" + r, 0, 1,
+                        randomBases(random, readLength), quals, readLength + "M"));
+            }
+            perSampleReads.put("sample" + s, reads);
+        }
+        final IndexedSampleList samples = new IndexedSampleList(perSampleReads.keySet());
+        // the matrices list the haplotypes in a different order than the one given to initialize
+        final List<Haplotype> matrixHaplotypes = new ArrayList<>(haplotypes);
+        Collections.reverse(matrixHaplotypes);
+        final PairHMMInputScoreImputator inputScoreImputator = StandardPairHMMInputScoreImputator.newInstance((byte) 10);
+
+        final List<PairHMM> hmms = new ArrayList<>();
+        hmms.add(new LoglessPairHMM());
+        for (final VectorLoglessPairHMM.Implementation imp : VectorLoglessPairHMM.Implementation.values()) {
+            try {
+                hmms.add(new VectorLoglessPairHMM(imp, args));
+            } catch (final UserException.HardwareFeatureException e ) {
+                logger.warn(String.format("PairHMM implementation %s not available, skipping test...", imp.name()));
+            }
+        }
+
+        for (final PairHMM hmm : hmms) {
+            final AlleleLikelihoods<GATKRead, Haplotype> perSample = new AlleleLikelihoods<>(samples, new IndexedAlleleList<>(matrixHaplotypes), perSampleReads);
+            final AlleleLikelihoods<GATKRead, Haplotype> batched = new AlleleLikelihoods<>(samples, new IndexedAlleleList<>(matrixHaplotypes), perSampleReads);
+            hmm.initialize(haplotypes, perSampleReads, 60, 80);
+            final List<LikelihoodMatrix<GATKRead, Haplotype>> batchedMatrices = new ArrayList<>();
+            for (int s = 0; s < samples.numberOfSamples(); s++) {
+                hmm.computeLog10Likelihoods(perSample.sampleMatrix(s), perSample.sampleEvidence(s), inputScoreImputator);
+                batchedMatrices.add(batched.sampleMatrix(s));
+            }
+            hmm.computeBatchedLog10Likelihoods(batchedMatrices, new ArrayList<>(perSampleReads.values()), inputScoreImputator);
+
+            for (int s = 0; s < samples.numberOfSamples(); s++) {
+                for (int h = 0; h < matrixHaplotypes.size(); h++) {
+                    for (int r = 0; r < readCounts[s]; r++) {
+                        Assert.assertEquals(batched.sampleMatrix(s).get(h, r), perSample.sampleMatrix(s).get(h, r),
+                                String.format("%s: sample %d, haplotype %d, read %d", hmm.getClass().getSimpleName(), s, h, r));
+                    }
+                }
+            }
+            hmm.close();
+        }
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BaseUtils.baseIndexToSimpleBase(random.nextInt(4));
+        }
+        return bases;
+    }
+
     private static byte[] normalize(byte[] scores) {
         return normalize(scores, 0);
     }
@@ -0,0 +1,73 @@
+package org.broadinstitute.hellbender.utils.recalibration;
+
+import org.broadinstitute.hellbender.GATKBaseTest;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.broadinstitute.hellbender.utils.collections.NestedIntegerArray;
+import org.broadinstitute.hellbender.utils.recalibration.covariates.StandardCovariateList;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public final class DenseRecalibrationTablesUnitTest extends GATKBaseTest {
+    private static final int NUM_READ_GROUPS = 3;
+
+    private static StandardCovariateList makeCovariates(final RecalibrationArgumentCollection recalArgs) {
+        final List<String> readGroups = IntStream.range(0, NUM_READ_GROUPS).mapToObj(i -> "readgroup" + i).collect(Collectors.toList());
+        return new StandardCovariateList(recalArgs, readGroups);
+    }
+
+    @Test
+    public void testMoveToGivesSameTablesAsIncrementingThemDirectly() {
+        final StandardCovariateList covariates = makeCovariates(new RecalibrationArgumentCollection());
+        final RecalibrationTables expected = new RecalibrationTables(covariates, NUM_READ_GROUPS);
+        final RecalibrationTables actual = new RecalibrationTables(covariates, NUM_READ_GROUPS);
+        final DenseRecalibrationTables dense = new DenseRecalibrationTables(covariates, NUM_READ_GROUPS);
+        Assert.assertTrue(dense.isEmpty());
+
+        final Random random = new Random(42);
+        for ( int n = 0; n < 100_000; n++ ) {
+            final int readGroup = random.nextInt(NUM_READ_GROUPS);
+            final byte qual = (byte) (random.nextInt(5) * 10);
+            final int event = random.nextInt(EventType.values().length);
+            // fractional errors, as with BAQ, are the ones that are sensitive to the order of the additions
+            final double isError = random.nextInt(10) == 0 ? 1.0 / (1 + random.nextInt(4)) : 0.0;
+            RecalUtils.incrementDatumOrPutIfNecessary3keys(expected.getQualityScoreTable(), qual, isError, readGroup, qual, event);
+            dense.incrementQualityScoreTable(qual, isError, readGroup, qual, event);
+            for ( int table = 2; table < covariates.size(); table++ ) {
+                final int key = random.nextInt(covariates.get(table).maximumKeyValue() + 1);
+                RecalUtils.incrementDatumOrPutIfNecessary4keys(expected.getTable(table), qual, isError, readGroup, qual, key, event);
+                dense.incrementAdditionalTable(table, qual, isError, readGroup, qual, key, event);
+            }
+        }
+        Assert.assertFalse(dense.isEmpty());
+
+        dense.moveTo(actual);
+        Assert.assertTrue(dense.isEmpty());
+
+        for ( int table = 0; table < expected.numTables(); table++ ) {
+            final List<NestedIntegerArray.Leaf<RecalDatum>> expectedLeaves = expected.getTable(table).getAllLeaves();
+            final List<NestedIntegerArray.Leaf<RecalDatum>> actualLeaves = actual.getTable(table).getAllLeaves();
+            Assert.assertEquals(actualLeaves.size(), expectedLeaves.size(), "table " + table);
+            for ( int i = 0; i < expectedLeaves.size(); i++ ) {
+                final RecalDatum expectedDatum = expectedLeaves.get(i).value;
+                final RecalDatum actualDatum = actualLeaves.get(i).value;
+                Assert.assertEquals(actualLeaves.get(i).keys, expectedLeaves.get(i).keys);
+                Assert.assertEquals(actualDatum.getNumObservations(), expectedDatum.getNumObservations());
+                // exactly the same, not just close
+                Assert.assertEquals(Double.compare(actualDatum.getNumMismatches(), expectedDatum.getNumMismatches()), 0);
+                Assert.assertEquals(actualDatum.getEstimatedQReported(), expectedDatum.getEstimatedQReported());
+            }
+        }
+    }
+
+    @Test(expectedExceptions = UserException.class)
+    public void testTooManyCombinations() {
+        final RecalibrationArgumentCollection recalArgs = new RecalibrationArgumentCollection();
+        recalArgs.MISMATCHES_CONTEXT_SIZE = 13;
+        new DenseRecalibrationTables(makeCovariates(recalArgs), NUM_READ_GROUPS);
+    }
+}
@@ -0,0 +1,71 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.exceptions.UserException;
+import org.testng.Assert;
+import org.testng.SkipException;
+import org.testng.annotations.Test;
+
+import java.util.Random;
+
+public final class SmithWatermanVectorApiAlignerUnitTest extends SmithWatermanAlignerAbstractUnitTest {
+
+    private static final byte[] BASES = {'A', 'C', 'G', 'T'};
+
+    @Override
+    protected SmithWatermanAligner getAligner() {
+        try {
+            return SmithWatermanAligner.getAligner(SmithWatermanAligner.Implementation.VECTOR_API);
+        } catch (final UserException.HardwareFeatureException e) {
+            throw new SkipException("the Java Vector API is not available: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testMatchesJavaAligner() {
+        final SWParameters[] parametersToTest = {SmithWatermanAlignmentConstants.NEW_SW_PARAMETERS,
+                SmithWatermanAlignmentConstants.ORIGINAL_DEFAULT, SmithWatermanAlignmentConstants.STANDARD_NGS,
+                SmithWatermanAlignmentConstants.ALIGNMENT_TO_BEST_HAPLOTYPE_SW_PARAMETERS};
+        final Random random = new Random(17);
+        final SmithWatermanAligner javaAligner = SmithWatermanJavaAligner.getInstance();
+        // the same instance is reused for all alignments, to exercise the reuse of its buffers
+        try (final SmithWatermanAligner vectorApiAligner = getAligner()) {
+            for (int n = 0; n < 2000; n++) {
+                final byte[] reference = randomBases(random, 1 + random.nextInt(n % 10 == 0 ? 300 : 50));
+                final byte[] alternate = random.nextBoolean() ? mutate(random, reference) : randomBases(random, 1 + random.nextInt(50));
+                final SWParameters parameters = parametersToTest[random.nextInt(parametersToTest.length)];
+                final SWOverhangStrategy strategy = SWOverhangStrategy.values()[random.nextInt(SWOverhangStrategy.values().length)];
+
+                final SmithWatermanAlignment expected = javaAligner.align(reference, alternate, parameters, strategy);
+                final SmithWatermanAlignment actual = vectorApiAligner.align(reference, alternate, parameters, strategy);
+                final String context = new String(reference) + " vs " + new String(alternate) + " with " + strategy;
+                Assert.assertEquals(actual.getCigar(), expected.getCigar(), context);
+                Assert.assertEquals(actual.getAlignmentOffset(), expected.getAlignmentOffset(), context);
+            }
+        }
+    }
+
+    private static byte[] randomBases(final Random random, final int length) {
+        final byte[] bases = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bases[i] = BASES[random.nextInt(BASES.length)];
+        }
+        return bases;
+    }
+
+    // a copy of the reference with a few SNPs, insertions and deletions, and possibly a missing prefix
+    private static byte[] mutate(final Random random, final byte[] reference) {
+        final StringBuilder mutated = new StringBuilder(new String(reference));
+        final int mutations = random.nextInt(4);
+        for (int n = 0; n < mutations && mutated.length() > 1; n++) {
+            final int position = random.nextInt(mutated.length());
+            switch (random.nextInt(3)) {
+                case 0: mutated.setCharAt(position, (char) BASES[random.nextInt(BASES.length)]); break;
+                case 1: mutated.deleteCharAt(position); break;
+                default: mutated.insert(position, "GT");
+            }
+        }
+        return mutated.substring(random.nextInt(Math.max(1, mutated.length() / 4))).getBytes();
+    }
+}
@@ -0,0 +1,242 @@
+package org.broadinstitute.hellbender.utils.pairhmm;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.broadinstitute.hellbender.utils.QualityUtils;
+
+import static org.broadinstitute.hellbender.utils.pairhmm.PairHMMModel.*;
+
+/**
+ * Pure-java SIMD implementation of the {@link LoglessPairHMM} recurrence, built on the Java Vector API.
+ *
+ * The match, insertion and deletion matrices are filled one anti-diagonal at a time: every cell on an
+ * anti-diagonal only depends on cells of the two previous anti-diagonals, so all of its cells can be computed
+ * with vector operations. Only the three most recent anti-diagonals of each matrix are kept, indexed by read
+ * position. The arithmetic is performed in the same order as in {@link LoglessPairHMM}, so both implementations
+ * produce the same likelihoods.
+ *
+ * Requires the JVM to be started with {@code --add-modules jdk.incubator.vector}; use
+ * {@link PairHMM.Implementation#VECTOR_API_LOGLESS_CACHING} rather than instantiating this class directly.
+ */
+public final class VectorApiLoglessPairHMM extends PairHMM {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    // bases are compared as doubles so that the comparison masks have the same shape as the probability vectors
+    private static final double N_BASE = 'N';
+
+    // per read position (1-based, as in the transition matrix of LoglessPairHMM) constants
+    private double[] matchToMatchProbs;
+    private double[] indelToMatchProbs;
+    private double[] matchToInsertionProbs;
+    private double[] insertionToInsertionProbs;
+    private double[] matchToDeletionProbs;
+    private double[] deletionToDeletionProbs;
+    private double[] priorIfMatching;
+    private double[] priorIfMismatching;
+    private double[] readBaseCodes;
+
+    // haplotype bases in reverse order, so that the bases along an anti-diagonal are contiguous
+    private double[] reversedHaplotypeBaseCodes;
+
+    // the current anti-diagonal and the two previous ones, for each of the three matrices
+    private double[] match, matchPrev, matchPrev2;
+    private double[] insertion, insertionPrev, insertionPrev2;
+    private double[] deletion, deletionPrev, deletionPrev2;
+
+    private final double[] transitionScratch = new double[TRANS_PROB_ARRAY_LENGTH];
+
+    public VectorApiLoglessPairHMM() { }
+
+    @Override
+    public void initialize( final int readMaxLength, final int haplotypeMaxLength ) {
+        super.initialize(readMaxLength, haplotypeMaxLength);
+        // anti-diagonal 1 always holds two cells, even for empty reads
+        allocateReadArrays(Math.max(paddedMaxReadLength, 2));
+        reversedHaplotypeBaseCodes = new double[haplotypeMaxLength];
+    }
+
+    private void allocateReadArrays(final int paddedReadLength) {
+        matchToMatchProbs = new double[paddedReadLength];
+        indelToMatchProbs = new double[paddedReadLength];
+        matchToInsertionProbs = new double[paddedReadLength];
+        insertionToInsertionProbs = new double[paddedReadLength];
+        matchToDeletionProbs = new double[paddedReadLength];
+        deletionToDeletionProbs = new double[paddedReadLength];
+        priorIfMatching = new double[paddedReadLength];
+        priorIfMismatching = new double[paddedReadLength];
+        readBaseCodes = new double[paddedReadLength];
+
+        match = new double[paddedReadLength];
+        matchPrev = new double[paddedReadLength];
+        matchPrev2 = new double[paddedReadLength];
+        insertion = new double[paddedReadLength];
+        insertionPrev = new double[paddedReadLength];
+        insertionPrev2 = new double[paddedReadLength];
+        deletion = new double[paddedReadLength];
+        deletionPrev = new double[paddedReadLength];
+        deletionPrev2 = new double[paddedReadLength];
+    }
+
+    @Override
+    protected boolean reusesHaplotypePrefixColumns() {
+        return false;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Haplotype caching is not used: each anti-diagonal spans the whole haplotype, so every cell is recomputed
+     * for every haplotype, which costs less than the scalar caching saves.
+     */
+    @Override
+    protected double subComputeReadLikelihoodGivenHaplotypeLog10( final byte[] haplotypeBases,
+                                                                  final byte[] readBases,
+                                                                  final byte[] readQuals,
+                                                                  final byte[] insertionGOP,
+                                                                  final byte[] deletionGOP,
+                                                                  final byte[] overallGCP,
+                                                                  final int hapStartIndex,
+                                                                  final boolean recacheReadValues,
+                                                                  final int nextHapStartIndex) {
+        final int readLength = readBases.length;
+        final int haplotypeLength = haplotypeBases.length;
+
+        if ( ! constantsAreInitialized || recacheReadValues ) {
+            initializeReadConstants(readBases, readQuals, insertionGOP, deletionGOP, overallGCP);
+            constantsAreInitialized = true;
+        }
+        for (int j = 0; j < haplotypeLength; j++) {
+            reversedHaplotypeBaseCodes[haplotypeLength - 1 - j] = haplotypeBases[j];
+        }
+
+        // free deletions at the beginning of the haplotype: row 0 of the deletion matrix
+        final double initialValue = LoglessPairHMM.INITIAL_CONDITION / haplotypeLength;
+
+        // anti-diagonal 0 is cell (0,0) and anti-diagonal 1 holds cells (0,1) and (1,0)
+        matchPrev2[0] = 0.0;
+        insertionPrev2[0] = 0.0;
+        deletionPrev2[0] = initialValue;
+        matchPrev[0] = 0.0;
+        insertionPrev[0] = 0.0;
+        deletionPrev[0] = initialValue;
+        matchPrev[1] = 0.0;
+        insertionPrev[1] = 0.0;
+        deletionPrev[1] = 0.0;
+
+        double finalSumProbabilities = 0.0;
+        for (int diagonal = 2; diagonal <= readLength + haplotypeLength; diagonal++) {
+            // boundary cells: (0, diagonal) in row 0 and (diagonal, 0) in column 0
+            match[0] = 0.0;
+            insertion[0] = 0.0;
+            deletion[0] = diagonal <= haplotypeLength ? initialValue : 0.0;
+            if (diagonal <= readLength) {
+                match[diagonal] = 0.0;
+                insertion[diagonal] = 0.0;
+                deletion[diagonal] = 0.0;
+            }
+
+            // interior cells (i, diagonal - i) with 1 <= i <= readLength and 1 <= diagonal - i <= haplotypeLength
+            final int firstRow = Math.max(1, diagonal - haplotypeLength);
+            final int lastRow = Math.min(readLength, diagonal - 1);
+            final int haplotypeOffset = haplotypeLength - diagonal;
+            int i = firstRow;
+            for (; i + LANES - 1 <= lastRow; i += LANES) {
+                computeCells(i, haplotypeOffset);
+            }
+            // masked vector operations are much slower than full ones, so the remainder is computed with scalar code
+            for (; i <= lastRow; i++) {
+                computeCell(i, haplotypeOffset);
+            }
+
+            // paths ending in the last row of the match or insertion matrices, in increasing haplotype position
+            if (diagonal > readLength) {
+                finalSumProbabilities += match[readLength] + insertion[readLength];
+            }
+
+            rotateDiagonals();
+        }
+        return Math.log10(finalSumProbabilities) - LoglessPairHMM.INITIAL_CONDITION_LOG10;
+    }
+
+    /**
+     * Compute the cells of the current anti-diagonal for the read positions {@code i} to {@code i + LANES - 1}.
+     */
+    private void computeCells(final int i, final int haplotypeOffset) {
+        final DoubleVector readBase = DoubleVector.fromArray(SPECIES, readBaseCodes, i);
+        final DoubleVector haplotypeBase = DoubleVector.fromArray(SPECIES, reversedHaplotypeBaseCodes, i + haplotypeOffset);
+        final VectorMask<Double> matching = readBase.compare(VectorOperators.EQ, haplotypeBase)
+                .or(haplotypeBase.compare(VectorOperators.EQ, N_BASE));
+        final DoubleVector prior = DoubleVector.fromArray(SPECIES, priorIfMismatching, i)
+                .blend(DoubleVector.fromArray(SPECIES, priorIfMatching, i), matching);
+
+        final DoubleVector indelToMatch = DoubleVector.fromArray(SPECIES, indelToMatchProbs, i);
+        final DoubleVector newMatch = prior.mul(DoubleVector.fromArray(SPECIES, matchPrev2, i - 1).mul(DoubleVector.fromArray(SPECIES, matchToMatchProbs, i))
+                .add(DoubleVector.fromArray(SPECIES, insertionPrev2, i - 1).mul(indelToMatch))
+                .add(DoubleVector.fromArray(SPECIES, deletionPrev2, i - 1).mul(indelToMatch)));
+        final DoubleVector newInsertion = DoubleVector.fromArray(SPECIES, matchPrev, i - 1).mul(DoubleVector.fromArray(SPECIES, matchToInsertionProbs, i))
+                .add(DoubleVector.fromArray(SPECIES, insertionPrev, i - 1).mul(DoubleVector.fromArray(SPECIES, insertionToInsertionProbs, i)));
+        final DoubleVector newDeletion = DoubleVector.fromArray(SPECIES, matchPrev, i).mul(DoubleVector.fromArray(SPECIES, matchToDeletionProbs, i))
+                .add(DoubleVector.fromArray(SPECIES, deletionPrev, i).mul(DoubleVector.fromArray(SPECIES, deletionToDeletionProbs, i)));
+
+        newMatch.intoArray(match, i);
+        newInsertion.intoArray(insertion, i);
+        newDeletion.intoArray(deletion, i);
+    }
+
+    /**
+     * Scalar version of {@link #computeCells(int, int)} for the single read position {@code i}.
+     */
+    private void computeCell(final int i, final int haplotypeOffset) {
+        final double haplotypeBase = reversedHaplotypeBaseCodes[i + haplotypeOffset];
+        final double prior = readBaseCodes[i] == haplotypeBase || haplotypeBase == N_BASE ? priorIfMatching[i] : priorIfMismatching[i];
+        match[i] = prior * ( matchPrev2[i - 1] * matchToMatchProbs[i] +
+                insertionPrev2[i - 1] * indelToMatchProbs[i] +
+                deletionPrev2[i - 1] * indelToMatchProbs[i] );
+        insertion[i] = matchPrev[i - 1] * matchToInsertionProbs[i] + insertionPrev[i - 1] * insertionToInsertionProbs[i];
+        deletion[i] = matchPrev[i] * matchToDeletionProbs[i] + deletionPrev[i] * deletionToDeletionProbs[i];
+    }
+
+    private void rotateDiagonals() {
+        final double[] oldestMatch = matchPrev2;
+        matchPrev2 = matchPrev;
+        matchPrev = match;
+        match = oldestMatch;
+
+        final double[] oldestInsertion = insertionPrev2;
+        insertionPrev2 = insertionPrev;
+        insertionPrev = insertion;
+        insertion = oldestInsertion;
+
+        final double[] oldestDeletion = deletionPrev2;
+        deletionPrev2 = deletionPrev;
+        deletionPrev = deletion;
+        deletion = oldestDeletion;
+    }
+
+    /**
+     * Cache the transition probabilities and the match/mismatch priors of each read position. A read base N
+     * matches any haplotype base, which is represented by making its mismatch prior equal to its match prior.
+     */
+    private void initializeReadConstants(final byte[] readBases, final byte[] readQuals, final byte[] insertionGOP,
+                                         final byte[] deletionGOP, final byte[] overallGCP) {
+        final double tristateCorrection = doNotUseTristateCorrection ? 1.0 : LoglessPairHMM.TRISTATE_CORRECTION;
+        for (int i = 0; i < readBases.length; i++) {
+            qualToTransProbs(transitionScratch, insertionGOP[i], deletionGOP[i], overallGCP[i]);
+            matchToMatchProbs[i + 1] = transitionScratch[matchToMatch];
+            indelToMatchProbs[i + 1] = transitionScratch[indelToMatch];
+            matchToInsertionProbs[i + 1] = transitionScratch[matchToInsertion];
+            insertionToInsertionProbs[i + 1] = transitionScratch[insertionToInsertion];
+            matchToDeletionProbs[i + 1] = transitionScratch[matchToDeletion];
+            deletionToDeletionProbs[i + 1] = transitionScratch[deletionToDeletion];
+
+            final byte qual = readQuals[i];
+            priorIfMatching[i + 1] = QualityUtils.qualToProb(qual);
+            priorIfMismatching[i + 1] = readBases[i] == (byte) 'N' ? priorIfMatching[i + 1] : QualityUtils.qualToErrorProb(qual) / tristateCorrection;
+            readBaseCodes[i + 1] = readBases[i];
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package org.broadinstitute.hellbender.utils.smithwaterman;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWOverhangStrategy;
+import org.broadinstitute.gatk.nativebindings.smithwaterman.SWParameters;
+import org.broadinstitute.hellbender.utils.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Pairwise discrete smith-waterman alignment implemented with the Java Vector API.
+ *
+ * Computes exactly the same matrices as {@link SmithWatermanJavaAligner}, and therefore produces identical
+ * alignments, but fills them one anti-diagonal at a time: all cells on an anti-diagonal depend only on the two
+ * previous anti-diagonals, so they can be computed in SIMD lanes without changing the order of any arithmetic.
+ * Only the scores needed to find the start of the backtrack (the last column and the bottom row) are kept, and the
+ * back track matrix is stored compactly in anti-diagonal order.
+ *
+ * Scratch buffers are reused between alignments, so an instance must not be used by more than one thread at a time.
+ *
+ * ************************************************************************
+ * ****                    IMPORTANT NOTE:                             ****
+ * ****  This class assumes that all bytes come from UPPERCASED chars! ****
+ * ************************************************************************
+ */
+public final class SmithWatermanVectorApiAligner implements SmithWatermanAligner {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_PREFERRED;
+    private static final int LANES = SPECIES.length();
+
+    private static final int MATRIX_MIN_CUTOFF = (int) -1.0e8;   // never let matrix elements drop below this cutoff
+    private static final int LOW_INIT_VALUE = Integer.MIN_VALUE / 2;
+
+    private long totalComputeTime = 0;
+
+    // scores of the three most recent anti-diagonals, indexed by the alternate (column) index
+    private int[] diagonal2 = new int[0];
+    private int[] diagonal1 = new int[0];
+    private int[] diagonal0 = new int[0];
+
+    // best vertical gap for each column, indexed by the column
+    private int[] bestGapV = new int[0];
+    private int[] gapSizeV = new int[0];
+    // best horizontal gap for each row, indexed by (reference length - row) so that it runs along an anti-diagonal
+    private int[] bestGapH = new int[0];
+    private int[] gapSizeH = new int[0];
+
+    // alternate bases indexed by column, and reference bases indexed by (reference length - row)
+    private int[] alternateBases = new int[0];
+    private int[] reversedReferenceBases = new int[0];
+
+    private int[] lastColumn = new int[0];
+    private int[] bottomRow = new int[0];
+
+    // back track matrix, one anti-diagonal after the other; the cell [i][j] is at diagonalOffsets[i + j] + j
+    private int[] backTrack = new int[0];
+    private int[] diagonalOffsets = new int[0];
+
+    /**
+     * Create a new aligner. Instances are normally obtained through {@link SmithWatermanAligner.Implementation#VECTOR_API}.
+     */
+    public SmithWatermanVectorApiAligner(){}
+
+    /**
+     * Aligns the alternate sequence to the reference sequence
+     *
+     * @param reference  ref sequence
+     * @param alternate  alt sequence
+     */
+    @Override
+    public SmithWatermanAlignment align(final byte[] reference, final byte[] alternate, final SWParameters parameters, final SWOverhangStrategy overhangStrategy) {
+        final long startTime = System.nanoTime();
+
+        if ( reference == null || reference.length == 0 || alternate == null || alternate.length == 0 ) {
+            throw new IllegalArgumentException("Non-null, non-empty sequences are required for the Smith-Waterman calculation");
+        }
+        Utils.nonNull(parameters);
+        Utils.nonNull(overhangStrategy);
+
+        // avoid running full Smith-Waterman if there is an exact match of alternate in reference
+        SmithWatermanAlignment alignmentResult = SmithWatermanJavaAligner.exactMatchAlignment(reference, alternate, overhangStrategy);
+
+        if ( alignmentResult == null ) {
+            calculateMatrix(reference, alternate, overhangStrategy, parameters);
+            final int refLength = reference.length;
+            final int altLength = alternate.length;
+            alignmentResult = SmithWatermanJavaAligner.calculateCigar(refLength, altLength, i -> lastColumn[i], j -> bottomRow[j],
+                    (i, j) -> backTrack[diagonalOffsets[i + j] + j], overhangStrategy);
+        }
+
+        totalComputeTime += System.nanoTime() - startTime;
+        return alignmentResult;
+    }
+
+    /**
+     * Fills the last column and bottom row of the SW matrix and the back track matrix for the given sequences
+     */
+    private void calculateMatrix(final byte[] reference, final byte[] alternate, final SWOverhangStrategy overhangStrategy, final SWParameters parameters) {
+        final int refLength = reference.length;
+        final int altLength = alternate.length;
+        ensureCapacity(refLength, altLength);
+
+        final int w_open = parameters.getGapOpenPenalty();
+        final int w_extend = parameters.getGapExtendPenalty();
+        final int w_match = parameters.getMatchValue();
+        final int w_mismatch = parameters.getMismatchPenalty();
+
+        // we need to initialize the SW matrix with gap penalties if we want to keep track of indels at the edges of alignments
+        final boolean penalizeEdges = overhangStrategy == SWOverhangStrategy.INDEL || overhangStrategy == SWOverhangStrategy.LEADING_INDEL;
+
+        Arrays.fill(bestGapV, 0, altLength + 1, LOW_INIT_VALUE);
+        Arrays.fill(gapSizeV, 0, altLength + 1, 0);
+        Arrays.fill(bestGapH, 0, refLength, LOW_INIT_VALUE);
+        Arrays.fill(gapSizeH, 0, refLength, 0);
+        for ( int j = 1; j <= altLength; j++ ) {
+            alternateBases[j] = alternate[j - 1];
+        }
+        for ( int k = 0; k < refLength; k++ ) {
+            reversedReferenceBases[k] = reference[refLength - 1 - k];
+        }
+
+        // anti-diagonals 0 and 1 hold only the edges of the matrix
+        int[] prev2 = diagonal2;
+        int[] prev1 = diagonal1;
+        int[] cur = diagonal0;
+        prev2[0] = 0;
+        prev1[0] = edgeScore(1, penalizeEdges, w_open, w_extend);
+        prev1[1] = prev1[0];
+
+        int offset = 0;
+        for ( int d = 2; d <= refLength + altLength; d++ ) {
+            final int firstColumn = Math.max(1, d - refLength);
+            final int lastColumnIndex = Math.min(altLength, d - 1);
+            // the back track of the cell [i][j] of this diagonal is at diagonalOffset + j, and its reference base at refOffset + j
+            final int diagonalOffset = offset - firstColumn;
+            final int refOffset = refLength - d;
+            diagonalOffsets[d] = diagonalOffset;
+
+            int j = firstColumn;
+            for ( final int vectorEnd = lastColumnIndex - LANES + 1; j <= vectorEnd; j += LANES ) {
+                computeCells(j, refOffset, diagonalOffset, prev2, prev1, cur, w_open, w_extend, w_match, w_mismatch);
+            }
+            for ( ; j <= lastColumnIndex; j++ ) {
+                computeCell(j, refOffset, diagonalOffset, prev2, prev1, cur, w_open, w_extend, w_match, w_mismatch);
+            }
+            offset += lastColumnIndex - firstColumn + 1;
+
+            // the edges of the matrix on this diagonal
+            if ( d <= altLength ) {
+                cur[d] = edgeScore(d, penalizeEdges, w_open, w_extend);
+            } else {
+                lastColumn[d - altLength] = cur[altLength];
+            }
+            if ( d <= refLength ) {
+                cur[0] = edgeScore(d, penalizeEdges, w_open, w_extend);
+            } else {
+                bottomRow[d - refLength] = cur[d - refLength];
+            }
+
+            final int[] recycled = prev2;
+            prev2 = prev1;
+            prev1 = cur;
+            cur = recycled;
+        }
+    }
+
+    /**
+     * Computes the LANES cells of an anti-diagonal starting at column j, see {@link #computeCell}
+     */
+    private void computeCells(final int j, final int refOffset, final int diagonalOffset,
+                              final int[] prev2, final int[] prev1, final int[] cur,
+                              final int w_open, final int w_extend, final int w_match, final int w_mismatch) {
+        final int k = refOffset + j;
+
+        final VectorMask<Integer> isMatch = IntVector.fromArray(SPECIES, reversedReferenceBases, k)
+                .eq(IntVector.fromArray(SPECIES, alternateBases, j));
+        final IntVector stepDiag = IntVector.fromArray(SPECIES, prev2, j - 1)
+                .add(IntVector.broadcast(SPECIES, w_mismatch).blend(w_match, isMatch));
+
+        IntVector bestGapDown = IntVector.fromArray(SPECIES, bestGapV, j).add(w_extend);
+        final IntVector openGapDown = IntVector.fromArray(SPECIES, prev1, j).add(w_open);
+        final VectorMask<Integer> openDown = openGapDown.compare(VectorOperators.GT, bestGapDown);
+        bestGapDown = bestGapDown.blend(openGapDown, openDown);
+        final IntVector gapSizeDown = IntVector.fromArray(SPECIES, gapSizeV, j).add(1).blend(1, openDown);
+        bestGapDown.intoArray(bestGapV, j);
+        gapSizeDown.intoArray(gapSizeV, j);
+
+        IntVector bestGapRight = IntVector.fromArray(SPECIES, bestGapH, k).add(w_extend);
+        final IntVector openGapRight = IntVector.fromArray(SPECIES, prev1, j - 1).add(w_open);
+        final VectorMask<Integer> openRight = openGapRight.compare(VectorOperators.GT, bestGapRight);
+        bestGapRight = bestGapRight.blend(openGapRight, openRight);
+        final IntVector gapSizeRight = IntVector.fromArray(SPECIES, gapSizeH, k).add(1).blend(1, openRight);
+        bestGapRight.intoArray(bestGapH, k);
+        gapSizeRight.intoArray(gapSizeH, k);
+
+        //priority here will be step diagonal, step right, step down
+        final VectorMask<Integer> rightAtLeastDown = bestGapRight.compare(VectorOperators.GE, bestGapDown);
+        final VectorMask<Integer> diagHighestOrEqual = stepDiag.compare(VectorOperators.GE, bestGapDown)
+                .and(stepDiag.compare(VectorOperators.GE, bestGapRight));
+
+        final IntVector score = bestGapDown.blend(bestGapRight, rightAtLeastDown).blend(stepDiag, diagHighestOrEqual);
+        score.max(MATRIX_MIN_CUTOFF).intoArray(cur, j);
+
+        // 0 = diagonal, negative = horizontal, positive = vertical
+        gapSizeDown.blend(gapSizeRight.neg(), rightAtLeastDown).blend(0, diagHighestOrEqual)
+                .intoArray(backTrack, diagonalOffset + j);
+    }
+
+    /**
+     * Computes the cell [i][j] of the matrices, where i is the row on the current anti-diagonal, in exactly the same
+     * way as SmithWatermanJavaAligner
+     */
+    private void computeCell(final int j, final int refOffset, final int diagonalOffset,
+                             final int[] prev2, final int[] prev1, final int[] cur,
+                             final int w_open, final int w_extend, final int w_match, final int w_mismatch) {
+        final int k = refOffset + j;
+
+        final int step_diag = prev2[j - 1] + (reversedReferenceBases[k] == alternateBases[j] ? w_match : w_mismatch);
+
+        int prev_gap = prev1[j] + w_open;
+        bestGapV[j] += w_extend;
+        if ( prev_gap > bestGapV[j] ) {
+            bestGapV[j] = prev_gap;
+            gapSizeV[j] = 1;
+        } else {
+            gapSizeV[j]++;
+        }
+        final int step_down = bestGapV[j];
+        final int kd = gapSizeV[j];
+
+        prev_gap = prev1[j - 1] + w_open;
+        bestGapH[k] += w_extend;
+        if ( prev_gap > bestGapH[k] ) {
+            bestGapH[k] = prev_gap;
+            gapSizeH[k] = 1;
+        } else {
+            gapSizeH[k]++;
+        }
+        final int step_right = bestGapH[k];
+        final int ki = gapSizeH[k];
+
+        //priority here will be step diagonal, step right, step down
+        final int cell = diagonalOffset + j;
+        if ( step_diag >= step_down && step_diag >= step_right ) {
+            cur[j] = Math.max(MATRIX_MIN_CUTOFF, step_diag);
+            backTrack[cell] = 0;
+        } else if ( step_right >= step_down ) {
+            cur[j] = Math.max(MATRIX_MIN_CUTOFF, step_right);
+            backTrack[cell] = -ki; // negative = horizontal
+        } else {
+            cur[j] = Math.max(MATRIX_MIN_CUTOFF, step_down);
+            backTrack[cell] = kd; // positive = vertical
+        }
+    }
+
+    /**
+     * @return the score of the cell at distance n from the origin on the top row or on the left column of the matrix
+     */
+    private static int edgeScore(final int n, final boolean penalizeEdges, final int w_open, final int w_extend) {
+        return penalizeEdges ? w_open + (n - 1) * w_extend : 0;
+    }
+
+    private void ensureCapacity(final int refLength, final int altLength) {
+        if ( diagonal0.length < altLength + 1 ) {
+            diagonal2 = new int[altLength + 1];
+            diagonal1 = new int[altLength + 1];
+            diagonal0 = new int[altLength + 1];
+            bestGapV = new int[altLength + 1];
+            gapSizeV = new int[altLength + 1];
+            alternateBases = new int[altLength + 1];
+            bottomRow = new int[altLength + 1];
+        }
+        if ( bestGapH.length < refLength ) {
+            bestGapH = new int[refLength];
+            gapSizeH = new int[refLength];
+            reversedReferenceBases = new int[refLength];
+            lastColumn = new int[refLength + 1];
+        }
+        if ( diagonalOffsets.length < refLength + altLength + 1 ) {
+            diagonalOffsets = new int[refLength + altLength + 1];
+        }
+        final long cells = (long) refLength * altLength;
+        if ( backTrack.length < cells ) {
+            backTrack = new int[Math.toIntExact(cells)];
+        }
+    }
+
+    @Override
+    public void close() {
+        logger.info(String.format("Total compute time in Java Vector API Smith-Waterman : %.2f sec", totalComputeTime * 1e-9));
+    }
+}
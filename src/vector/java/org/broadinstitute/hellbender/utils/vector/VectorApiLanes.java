@@ -0,0 +1,20 @@
+package org.broadinstitute.hellbender.utils.vector;
+
+import jdk.incubator.vector.DoubleVector;
+
+/**
+ * Reports the vector shapes the Java Vector API selects on this platform. Looked up by name from
+ * {@link org.broadinstitute.hellbender.utils.VectorApiUtils}, so that code outside of the {@code vector} source set
+ * doesn't need to link against {@code jdk.incubator.vector}.
+ */
+public final class VectorApiLanes {
+
+    private VectorApiLanes(){}
+
+    /**
+     * @return the number of doubles held by the preferred (widest efficient) vector shape on this platform
+     */
+    public static int preferredDoubleLanes() {
+        return DoubleVector.SPECIES_PREFERRED.length();
+    }
+}